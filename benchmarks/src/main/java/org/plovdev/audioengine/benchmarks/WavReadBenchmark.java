@@ -0,0 +1,99 @@
+package org.plovdev.audioengine.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.plovdev.audioengine.loaders.wav.WavTrackLoader;
+import org.plovdev.audioengine.loaders.wav.write.WavTrackExporter;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full load of large WAV file: parallel positional reads against one buffered stream.
+ * <p>
+ * File is written once per trial, so it's mostly in page cache. To compare disk
+ * bandwidth, drop caches between iterations, or use file larger than memory.
+ * </p>
+ * Run: {@code java -jar benchmarks/target/benchmarks-1.0-SNAPSHOT-jar-with-dependencies.jar WavReadBenchmark}
+ *
+ * @author Anton
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Xmx2g"})
+public class WavReadBenchmark {
+    @Param({"256"})
+    public int sizeMb;
+
+    @Param({"1", "8"})
+    public int parallelism;
+
+    private Path file;
+    private WavTrackLoader loader;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        TrackFormat format = new TrackFormat("wav", 2, 16, 44100, true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.PCM16);
+        int frames = (sizeMb << 20) / TrackFormatUtils.frameSize(format);
+        ByteBuffer data = ByteBuffer.allocateDirect(frames * TrackFormatUtils.frameSize(format)).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; data.hasRemaining(); i++) {
+            data.putShort((short) (i * 31));
+        }
+
+        file = Files.createTempFile("benchmark", ".wav");
+        try (Track track = new Track(data.flip(), TrackFormatUtils.calculateDuration(format, frames), format, null);
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            new WavTrackExporter().save(track, channel);
+        }
+
+        loader = new WavTrackLoader();
+        loader.setMapLargeFiles(false);
+        loader.setReadParallelism(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long positionalReads() {
+        try (Track track = loader.loadTrack(file.toString())) {
+            return track.getByteLength();
+        }
+    }
+
+    @Benchmark
+    public long stream() throws IOException {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file));
+             Track track = loader.loadTrack(stream)) {
+            return track.getByteLength();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.plovdev.audioengine.devices.InputAudioDevice;
 import org.plovdev.audioengine.devices.OutputAudioDevice;
 import org.plovdev.audioengine.exceptions.AudioEngineException;
 import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.loaders.TrackCache;
 import org.plovdev.audioengine.loaders.TrackLoaderManager;
 import org.plovdev.audioengine.mixer.TrackMixer;
 import org.plovdev.audioengine.tracks.Track;
@@ -14,8 +15,12 @@ import org.plovdev.audioengine.utils.AudioEngineConfig;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Main entry point for AudioSND.
@@ -56,6 +61,31 @@ public interface AudioEngine extends AutoCloseable {
     Track loadTrack(InputStream stream) throws TrackLoadException;
     Track loadTrack(URI uri) throws TrackLoadException;
 
+    /**
+     * Loads track as interleaved little-endian float32, the format of mixer and output device.
+     * With {@link AudioEngineConfig#getSidecarCacheDir() sidecar cache} configured, converted samples
+     * of files are stored once and mapped on next loads.
+     *
+     * @param path track file
+     * @return float32 track, or track in source format, if its codec can't be converted
+     */
+    Track loadDeviceTrack(String path) throws TrackLoadException;
+
+    /**
+     * Loads many tracks in parallel, on virtual threads.
+     * Size of tracks loading at the same time is bounded by {@link AudioEngineConfig#getLoadBudget()}.
+     *
+     * @param paths track files
+     * @return future of tracks, in the same order as paths.
+     * Completes with {@link TrackLoadException} if any track can't be loaded
+     */
+    CompletableFuture<List<Track>> loadTracks(Collection<Path> paths);
+
+
+    /**
+     * @return cache of tracks, loaded by {@link #loadTrack(String)}
+     */
+    TrackCache getTrackCache();
 
     TrackMixer getTrackMixer();
     TrackPlayer getTrackPlayer(Track track);
@@ -77,6 +107,7 @@ public interface AudioEngine extends AutoCloseable {
     Optional<TrackLoaderManager> getTrackLoaderManager(Class<? extends TrackLoaderManager> loader);
 
     void exportTrack(Track track, OutputStream outputStream);
+    void exportTrack(Track track, WritableByteChannel channel);
 
     @Override
     void close();
@@ -0,0 +1,208 @@
+package org.plovdev.audioengine.loaders;
+
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.tracks.AudioBufferPool;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reads track data region of file into direct segments with {@link AsynchronousFileChannel}.
+ * <p>
+ * Data is read by small steps, so no thread is blocked and cancellation is
+ * noticed quickly. Cancelling returned future closes channel, which aborts
+ * pending read at once, and returns all partially filled segments to
+ * {@link AudioBufferPool}. Segment of pending read is returned, when the read ends.
+ * Progress is reported to {@link LoadListener} not more often than every
+ * percent of data. Only one read is pending at a time.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public final class AsyncTrackReader implements CompletionHandler<Integer, ByteBuffer> {
+    /**
+     * Max bytes of one read call.
+     */
+    public static final int READ_STEP = 1 << 20;
+
+    private static final LoadListener NO_LISTENER = new LoadListener() {
+        @Override public void onLoadStarted(long total) {}
+        @Override public void onLoading(long loaded) {}
+        @Override public void onLoadFinished() {}
+        @Override public void onLoadFailed(Exception error) {}
+        @Override public void onLoadCancelled() {}
+    };
+
+    private final CompletableFuture<ByteBuffer[]> result = new CompletableFuture<>();
+    private final AudioBufferPool pool = AudioBufferPool.getInstance();
+    private final AsynchronousFileChannel channel;
+    private final LoadListener listener;
+    private final long offset;
+    private final long total;
+    private final int segmentSize;
+    private final long progressStep;
+
+    private final ByteBuffer[] segments;
+    private int index = 0;
+    private boolean pending = false;
+    private long loaded = 0;
+    private long reported = 0;
+
+    private AsyncTrackReader(AsynchronousFileChannel channel, long offset, long total, int segmentSize, LoadListener listener) {
+        this.channel = channel;
+        this.offset = offset;
+        this.total = total;
+        this.segmentSize = segmentSize;
+        this.listener = listener == null ? NO_LISTENER : listener;
+        this.progressStep = Math.max(total / 100, 1);
+        this.segments = new ByteBuffer[(int) Math.max(1, (total + segmentSize - 1) / segmentSize)];
+    }
+
+    /**
+     * Starts reading of file region.
+     *
+     * @param path track file
+     * @param offset region start in file
+     * @param size region size in bytes
+     * @param segmentSize max size of one segment, must be frame aligned
+     * @param listener progress listener, can be null
+     * @return future of filled and flipped segments from {@link AudioBufferPool}, can be cancelled
+     */
+    public static CompletableFuture<ByteBuffer[]> read(Path path, long offset, long size, int segmentSize, LoadListener listener) {
+        AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            TrackLoadException error = new TrackLoadException("Failed to open track: " + path + " - " + e);
+            if (listener != null) listener.onLoadFailed(error);
+            return CompletableFuture.failedFuture(error);
+        }
+
+        AsyncTrackReader reader = new AsyncTrackReader(channel, offset, size, segmentSize, listener);
+        reader.start();
+        return reader.result;
+    }
+
+    private void start() {
+        result.whenComplete((segments, e) -> {
+            if (result.isCancelled()) {
+                close(); // aborts pending read
+                release();
+                listener.onLoadCancelled();
+            }
+        });
+
+        listener.onLoadStarted(total);
+        readNext();
+    }
+
+    private synchronized void readNext() {
+        if (result.isDone()) return;
+
+        if (loaded >= total) {
+            finish();
+            return;
+        }
+
+        ByteBuffer segment = segments[index];
+        if (segment == null) {
+            segment = pool.acquire(sizeOf(index));
+            segments[index] = segment;
+        }
+        segment.limit(Math.min(segment.position() + READ_STEP, sizeOf(index)));
+
+        try {
+            pending = true;
+            channel.read(segment, offset + loaded, segment, this);
+        } catch (RuntimeException e) {
+            pending = false;
+            fail(e);
+        }
+    }
+
+    @Override
+    public synchronized void completed(Integer read, ByteBuffer segment) {
+        pending = false;
+        if (result.isDone()) {
+            release(); // segment of this read wasn't released by cancel
+            return;
+        }
+        if (read < 0) {
+            fail(new EOFException("Track data is shorter than " + total + " bytes"));
+            return;
+        }
+
+        loaded += read;
+        if (segment.position() == sizeOf(index)) {
+            segment.flip();
+            index++;
+        }
+        if (loaded - reported >= progressStep) {
+            reported = loaded;
+            listener.onLoading(loaded);
+        }
+        readNext();
+    }
+
+    @Override
+    public synchronized void failed(Throwable e, ByteBuffer segment) {
+        pending = false;
+        if (result.isCancelled()) {
+            release(); // closed by cancel
+            return;
+        }
+        fail(e);
+    }
+
+    private synchronized void finish() {
+        close();
+        ByteBuffer[] filled = segments;
+        if (filled[0] == null) {
+            filled[0] = pool.acquire(0);
+        }
+        if (result.complete(filled)) {
+            listener.onLoading(loaded);
+            listener.onLoadFinished();
+        }
+    }
+
+    private synchronized void fail(Throwable e) {
+        close();
+        release();
+        TrackLoadException error = e instanceof TrackLoadException loadException ? loadException : new TrackLoadException("Failed to read track data: " + e);
+        if (result.completeExceptionally(error)) {
+            listener.onLoadFailed(error);
+        }
+    }
+
+    /**
+     * Returns partially filled segments to pool. Segment of pending read
+     * is kept, because channel may still write into it.
+     */
+    private synchronized void release() {
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i] != null && !(pending && i == index)) {
+                pool.release(segments[i]);
+                segments[i] = null;
+            }
+        }
+    }
+
+    private int sizeOf(int segment) {
+        return (int) Math.min(segmentSize, total - (long) segment * segmentSize);
+    }
+
+    private void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.plovdev.audioengine.loaders;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Magic numbers of known audio containers.
+ * Used to detect track format by first bytes of source.
+ *
+ * @see TrackLoaderRegistry
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public enum AudioSignature {
+    WAV("wav", 0, "RIFF", 8, "WAVE"),
+    FLAC("flac", 0, "fLaC"),
+    OGG("ogg", 0, "OggS"),
+    MP3_ID3("mp3", 0, "ID3"),
+    MP3_FRAME("mp3", new byte[]{(byte) 0xFF, (byte) 0xFB}),
+    AIFF("aiff", 0, "FORM", 8, "AIFF"),
+    AIFC("aiff", 0, "FORM", 8, "AIFC");
+
+    /**
+     * Bytes count, enough to detect any signature.
+     */
+    public static final int PEEK_SIZE = 16;
+
+    private final String extension;
+    private final byte[][] patterns;
+    private final int[] offsets;
+
+    AudioSignature(String extension, int offset, String magic) {
+        this(extension, new int[]{offset}, magic.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    AudioSignature(String extension, int offset, String magic, int secondOffset, String secondMagic) {
+        this(extension, new int[]{offset, secondOffset}, magic.getBytes(StandardCharsets.ISO_8859_1), secondMagic.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    AudioSignature(String extension, byte[] magic) {
+        this(extension, new int[]{0}, magic);
+    }
+
+    AudioSignature(String extension, int[] offsets, byte[]... patterns) {
+        this.extension = extension;
+        this.offsets = offsets;
+        this.patterns = patterns;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Check, starts givven header with this signature?
+     *
+     * @param header first bytes of source
+     * @param length valid bytes count in header
+     * @return is matched
+     */
+    public boolean matches(byte[] header, int length) {
+        for (int i = 0; i < patterns.length; i++) {
+            byte[] pattern = patterns[i];
+            int offset = offsets[i];
+            if (length < offset + pattern.length) {
+                return false;
+            }
+            for (int j = 0; j < pattern.length; j++) {
+                if (header[offset + j] != pattern[j]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Detects signature of header.
+     *
+     * @param header first bytes of source
+     * @param length valid bytes count in header
+     * @return found signature, or null if unknown
+     */
+    public static AudioSignature detect(byte[] header, int length) {
+        for (AudioSignature signature : values()) {
+            if (signature.matches(header, length)) {
+                return signature;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,147 @@
+package org.plovdev.audioengine.loaders;
+
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.tracks.Track;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Loads many tracks in parallel, one virtual thread per track.
+ * <p>
+ * Bytes of tracks, which are loading at the same time, are bounded by memory budget.
+ * Every load takes budget permits equal to its file size (in kb), so big files
+ * wait for memory instead of allocating all at once. File larger than whole
+ * budget is loaded alone.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class BatchTrackLoader implements AutoCloseable {
+    private static final long PERMIT_SIZE = 1024;
+
+    private final Function<Path, Track> loader;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore budget;
+    private final int budgetPermits;
+
+    /**
+     * @param loader single track loader, called on virtual threads
+     * @param memoryBudget max bytes of tracks, loading at the same time
+     * @throws IllegalArgumentException if memoryBudget less than 1 kb
+     */
+    public BatchTrackLoader(Function<Path, Track> loader, long memoryBudget) {
+        if (memoryBudget < PERMIT_SIZE) {
+            throw new IllegalArgumentException("Memory budget must be at least " + PERMIT_SIZE + " bytes");
+        }
+        this.loader = loader;
+        this.budgetPermits = (int) Math.min(Integer.MAX_VALUE, memoryBudget / PERMIT_SIZE);
+        this.budget = new Semaphore(budgetPermits, true);
+    }
+
+    /**
+     * Starts loading of all tracks.
+     * If any track fails, result completes with its exception,
+     * and tracks which haven't started yet are skipped. Cancelling result skips
+     * them too. Tracks, which were loaded anyway, are closed as soon as the last
+     * running load ends.
+     *
+     * @param paths track files
+     * @return tracks in the same order as paths
+     */
+    public CompletableFuture<List<Track>> loadAll(Collection<Path> paths) {
+        AtomicBoolean failed = new AtomicBoolean(false);
+        List<CompletableFuture<Track>> futures = new ArrayList<>(paths.size());
+        CompletableFuture<List<Track>> result = new CompletableFuture<>();
+        result.whenComplete((tracks, e) -> {
+            if (result.isCancelled()) {
+                failed.set(true);
+            }
+        });
+
+        for (Path path : paths) {
+            CompletableFuture<Track> future = CompletableFuture.supplyAsync(() -> load(path, failed), executor);
+            future.whenComplete((track, e) -> {
+                if (e != null && failed.compareAndSet(false, true)) {
+                    result.completeExceptionally(unwrap(e));
+                }
+            });
+            futures.add(future);
+        }
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).whenComplete((ignored, e) -> {
+            List<Track> tracks = new ArrayList<>(futures.size());
+            for (CompletableFuture<Track> future : futures) {
+                if (!future.isCompletedExceptionally()) {
+                    tracks.add(future.join());
+                }
+            }
+            // batch failed or result was cancelled
+            if (e != null || !result.complete(tracks)) {
+                tracks.forEach(Track::close);
+            }
+        });
+        return result;
+    }
+
+    private Track load(Path path, AtomicBoolean failed) {
+        int permits = permitsFor(path);
+        try {
+            budget.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TrackLoadException("Interrupted while waiting memory budget: " + path);
+        }
+
+        try {
+            if (failed.get()) {
+                throw new CancellationException("Batch load failed, skipping: " + path);
+            }
+            return loader.apply(path);
+        } finally {
+            budget.release(permits);
+        }
+    }
+
+    private int permitsFor(Path path) {
+        try {
+            long permits = (Files.size(path) + PERMIT_SIZE - 1) / PERMIT_SIZE;
+            return Math.clamp(permits, 1, budgetPermits);
+        } catch (IOException e) {
+            return 1; // loader reports missing file itself
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * @return free memory budget in bytes
+     */
+    public long getAvailableBudget() {
+        return budget.availablePermits() * PERMIT_SIZE;
+    }
+
+    public long getMemoryBudget() {
+        return budgetPermits * PERMIT_SIZE;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,246 @@
+package org.plovdev.audioengine.loaders;
+
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.tracks.AudioBufferPool;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Persistent cache of tracks, converted to interleaved float32.
+ * <p>
+ * Every source file gets one sidecar file in cache directory. Sidecar is
+ * 64-byte header and raw little-endian float32 samples, so it's mapped
+ * directly, without parsing and conversion. Sidecar is valid only while
+ * source file size and modification time are unchanged.
+ * </p>
+ * Header layout (little-endian):
+ * <pre>
+ * 0  magic "SNDF32\0\0"
+ * 8  version (int)
+ * 12 channels (int)
+ * 16 sample rate (int)
+ * 20 reserved (int)
+ * 24 frames count (long)
+ * 32 source size (long)
+ * 40 source modification time, ms (long)
+ * 48 reserved up to 64
+ * </pre>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class FloatSidecarCache {
+    public static final String SIDECAR_EXTENSION = ".f32";
+
+    private static final byte[] MAGIC = "SNDF32\0\0".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+    private static final int CONVERT_FRAMES = 1 << 16;
+
+    private final Path directory;
+
+    /**
+     * @param directory cache directory, created if missing
+     * @throws TrackLoadException if directory can't be created
+     */
+    public FloatSidecarCache(Path directory) {
+        try {
+            this.directory = Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new TrackLoadException("Can't create sidecar cache directory: " + directory + " - " + e);
+        }
+    }
+
+    /**
+     * Maps sidecar of source file, if it exists and is up to date.
+     *
+     * @param source source track file
+     * @return float32 track, mapped from sidecar
+     */
+    public Optional<Track> load(Path source) {
+        try {
+            Path real = source.toRealPath();
+            BasicFileAttributes attributes = Files.readAttributes(real, BasicFileAttributes.class);
+            Path sidecar = sidecarOf(real);
+
+            try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                while (header.hasRemaining()) {
+                    if (channel.read(header, header.position()) < 0) return Optional.empty();
+                }
+                header.flip();
+
+                byte[] magic = new byte[MAGIC.length];
+                header.get(magic);
+                if (!MessageDigest.isEqual(magic, MAGIC) || header.getInt() != VERSION) return Optional.empty();
+
+                int channels = header.getInt();
+                int sampleRate = header.getInt();
+                header.getInt();
+                long frames = header.getLong();
+                long sourceSize = header.getLong();
+                long sourceModified = header.getLong();
+                if (sourceSize != attributes.size() || sourceModified != attributes.lastModifiedTime().toMillis()) {
+                    return Optional.empty();
+                }
+
+                TrackFormat format = floatFormat(real, channels, sampleRate);
+                long dataSize = frames * TrackFormatUtils.frameSize(format);
+                if (channel.size() < HEADER_SIZE + dataSize) return Optional.empty();
+
+                return Optional.of(Track.mapped(map(channel, format, dataSize), TrackFormatUtils.calculateDuration(format, frames), format, new TrackMetadata()));
+            }
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to read sidecar of: " + source + " - " + e);
+        }
+    }
+
+    /**
+     * Converts track to float32 and stores it as sidecar of source file.
+     * Tracks of formats, which can't be converted, are returned as is.
+     *
+     * @param source source track file
+     * @param track track, loaded from source
+     * @return float32 track, mapped from written sidecar
+     */
+    public Track store(Path source, Track track) {
+        TrackFormat format = track.getFormat();
+        if (!SampleConverter.isSupported(format)) {
+            return track;
+        }
+
+        try {
+            Path real = source.toRealPath();
+            BasicFileAttributes attributes = Files.readAttributes(real, BasicFileAttributes.class);
+            Path sidecar = sidecarOf(real);
+            Path temp = Files.createTempFile(directory, sidecar.getFileName().toString(), ".tmp");
+
+            long frames = track.getFrameCount();
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                    header.put(MAGIC).putInt(VERSION).putInt(format.channels()).putInt(format.sampleRate()).putInt(0);
+                    header.putLong(frames).putLong(attributes.size()).putLong(attributes.lastModifiedTime().toMillis());
+                    header.clear();
+                    writeFully(channel, header);
+                    writeSamples(channel, track);
+                }
+                moveInto(temp, sidecar);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+
+            Track mapped = load(real).orElseThrow(() -> new TrackLoadException("Sidecar was changed while writing: " + sidecar));
+            if (track.getMetaData() != null) {
+                mapped.setMetaData(track.getMetaData());
+            }
+            return mapped;
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to write sidecar of: " + source + " - " + e);
+        }
+    }
+
+    public void invalidate(Path source) {
+        try {
+            Files.deleteIfExists(sidecarOf(source.toRealPath()));
+        } catch (IOException ignored) {
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private void writeSamples(FileChannel channel, Track track) throws IOException {
+        TrackFormat format = track.getFormat();
+        int frameSize = TrackFormatUtils.frameSize(format);
+        AudioBufferPool pool = AudioBufferPool.getInstance();
+        ByteBuffer out = pool.acquire(CONVERT_FRAMES * format.channels() * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            FloatBuffer floats = out.asFloatBuffer();
+            for (ByteBuffer segment : track.getSegments()) {
+                ByteBuffer data = segment.duplicate().rewind();
+                while (true) {
+                    int size = Math.min(data.remaining(), CONVERT_FRAMES * frameSize) / frameSize * frameSize;
+                    if (size == 0) break; // incomplete last frame isn't stored
+                    ByteBuffer block = data.slice(data.position(), size);
+                    floats.clear();
+                    SampleConverter.toFloat(block, format, floats);
+                    data.position(data.position() + block.position());
+
+                    out.clear().limit(floats.position() * Float.BYTES);
+                    writeFully(channel, out);
+                }
+            }
+        } finally {
+            pool.release(out);
+        }
+    }
+
+    private static ByteBuffer[] map(FileChannel channel, TrackFormat format, long dataSize) throws IOException {
+        int frameSize = TrackFormatUtils.frameSize(format);
+        int segmentSize = (MAX_SEGMENT_SIZE / frameSize) * frameSize;
+        int count = (int) Math.max(1, (dataSize + segmentSize - 1) / segmentSize);
+
+        ByteBuffer[] segments = new ByteBuffer[count];
+        long offset = 0;
+        for (int i = 0; i < count; i++) {
+            long size = Math.min(segmentSize, dataSize - offset);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + offset, size).order(ByteOrder.LITTLE_ENDIAN);
+            offset += size;
+        }
+        return segments;
+    }
+
+    private static TrackFormat floatFormat(Path source, int channels, int sampleRate) {
+        String extension = TrackLoaderRegistry.extensionOf(source.getFileName().toString());
+        return new TrackFormat(extension, channels, 32, sampleRate, true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLOAT32);
+    }
+
+    private Path sidecarOf(Path real) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(real.toString().getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash) + SIDECAR_EXTENSION);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void moveInto(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
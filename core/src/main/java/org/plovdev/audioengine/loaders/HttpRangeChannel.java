@@ -0,0 +1,279 @@
+package org.plovdev.audioengine.loaders;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Read-only channel over remote file, which fetches only read parts of it with HTTP Range requests.
+ * <p>
+ * File is split into fixed-size blocks. Reading a block also starts fetching of next
+ * {@code readAhead} blocks, so sequential reading keeps several requests in flight.
+ * Fetched blocks are kept in LRU cache of {@code cacheBlocks} blocks, so seeking back
+ * inside recently played part doesn't fetch it again, and seeking far in big file
+ * fetches only blocks around new position.
+ * </p>
+ * <p>
+ * Server must support range requests: it's checked by the first request, which also
+ * fetches the first block with track headers.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public final class HttpRangeChannel implements SeekableByteChannel {
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+    public static final int DEFAULT_READ_AHEAD = 4;
+    public static final int DEFAULT_CACHE_BLOCKS = 64;
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final URI uri;
+    private final int blockSize;
+    private final int readAhead;
+    private final int cacheBlocks;
+    private final long size;
+    private final Map<Long, CompletableFuture<ByteBuffer>> blocks; // guarded by itself, access ordered
+    private final LongAdder fetchedBytes = new LongAdder();
+    private long position;
+    private volatile boolean open = true;
+
+    private HttpRangeChannel(URI uri, int blockSize, int readAhead, int cacheBlocks, long size, ByteBuffer first) {
+        this.uri = uri;
+        this.blockSize = blockSize;
+        this.readAhead = readAhead;
+        this.cacheBlocks = cacheBlocks;
+        this.size = size;
+        this.blocks = new LinkedHashMap<>(cacheBlocks * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CompletableFuture<ByteBuffer>> eldest) {
+                return size() > HttpRangeChannel.this.cacheBlocks;
+            }
+        };
+        blocks.put(0L, CompletableFuture.completedFuture(first));
+    }
+
+    /**
+     * Opens remote file with default block size, read-ahead and cache size.
+     *
+     * @see #open(URI, int, int, int)
+     */
+    public static HttpRangeChannel open(URI uri) throws IOException {
+        return open(uri, DEFAULT_BLOCK_SIZE, DEFAULT_READ_AHEAD, DEFAULT_CACHE_BLOCKS);
+    }
+
+    /**
+     * Fetches the first block of remote file and checks, that server supports range requests.
+     *
+     * @param uri http or https file uri
+     * @param blockSize size of one request, in bytes
+     * @param readAhead count of blocks, fetched in parallel ahead of read position
+     * @param cacheBlocks max count of kept blocks, must be greater than readAhead
+     * @return opened channel at position 0
+     * @throws IOException if file can't be fetched, or server ignores range requests
+     * @throws IllegalArgumentException if sizes are invalid
+     */
+    public static HttpRangeChannel open(URI uri, int blockSize, int readAhead, int cacheBlocks) throws IOException {
+        if (blockSize <= 0 || readAhead < 0 || cacheBlocks <= readAhead) {
+            throw new IllegalArgumentException("Invalid block settings: " + blockSize + ", " + readAhead + ", " + cacheBlocks);
+        }
+        HttpResponse<byte[]> response;
+        try {
+            response = CLIENT.send(request(uri, 0, blockSize), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while opening " + uri);
+        }
+        if (response.statusCode() == 200) {
+            throw new IOException("Server doesn't support range requests: " + uri);
+        }
+        long[] range = contentRange(response);
+        HttpRangeChannel channel = new HttpRangeChannel(uri, blockSize, readAhead, cacheBlocks, range[2], ByteBuffer.wrap(response.body()).asReadOnlyBuffer());
+        channel.fetchedBytes.add(response.body().length);
+        return channel;
+    }
+
+    private static HttpRequest request(URI uri, long from, long length) {
+        return HttpRequest.newBuilder(uri)
+                .header("Range", "bytes=" + from + "-" + (from + length - 1))
+                .GET()
+                .build();
+    }
+
+    /**
+     * @return start, end and total size from Content-Range header of partial response
+     */
+    private static long[] contentRange(HttpResponse<?> response) throws IOException {
+        if (response.statusCode() != 206) {
+            throw new IOException("Range request failed with HTTP " + response.statusCode() + ": " + response.uri());
+        }
+        String header = response.headers().firstValue("Content-Range").orElse("");
+        Matcher matcher = CONTENT_RANGE.matcher(header);
+        if (!matcher.matches()) {
+            throw new IOException("Invalid Content-Range: " + header);
+        }
+        return new long[]{Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3))};
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= size) return -1;
+
+        int read = 0;
+        while (dst.hasRemaining() && position < size) {
+            long index = position / blockSize;
+            ByteBuffer block = block(index);
+            int offset = (int) (position - index * blockSize);
+            int length = Math.min(dst.remaining(), block.limit() - offset);
+            if (length <= 0) {
+                throw new IOException("Remote file is shorter than " + size + " bytes");
+            }
+            dst.put(block.slice(offset, length));
+            position += length;
+            read += length;
+        }
+        return read;
+    }
+
+    /**
+     * Waits for block and starts fetching of blocks after it.
+     */
+    private ByteBuffer block(long index) throws IOException {
+        CompletableFuture<ByteBuffer> future = fetch(index);
+        long last = Math.min(index + readAhead, (size - 1) / blockSize);
+        for (long next = index + 1; next <= last; next++) {
+            fetch(next);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading " + uri);
+        } catch (CancellationException e) {
+            throw new ClosedChannelException();
+        } catch (ExecutionException e) {
+            synchronized (blocks) {
+                blocks.remove(index, future); // next read retries
+            }
+            throw e.getCause() instanceof IOException io ? io : new IOException("Failed to fetch " + uri + " - " + e.getCause());
+        }
+    }
+
+    private CompletableFuture<ByteBuffer> fetch(long index) {
+        synchronized (blocks) {
+            CompletableFuture<ByteBuffer> future = blocks.get(index);
+            if (future == null) {
+                long from = index * blockSize;
+                long length = Math.min(blockSize, size - from);
+                future = CLIENT.sendAsync(request(uri, from, length), HttpResponse.BodyHandlers.ofByteArray())
+                        .thenApply(response -> {
+                            try {
+                                if (contentRange(response)[0] != from) {
+                                    throw new IOException("Server returned wrong range: " + response.uri());
+                                }
+                            } catch (IOException e) {
+                                throw new CompletionException(e);
+                            }
+                            fetchedBytes.add(response.body().length);
+                            return ByteBuffer.wrap(response.body()).asReadOnlyBuffer();
+                        });
+                blocks.put(index, future);
+            }
+            return future;
+        }
+    }
+
+    /**
+     * @return total bytes, received from server, for statistics
+     */
+    public long getFetchedBytes() {
+        return fetchedBytes.sum();
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public HttpRangeChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position: " + newPosition);
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Cancels pending requests and drops cached blocks.
+     */
+    @Override
+    public void close() {
+        open = false;
+        List<CompletableFuture<ByteBuffer>> pending;
+        synchronized (blocks) {
+            pending = new ArrayList<>(blocks.values());
+            blocks.clear();
+        }
+        pending.forEach(future -> future.cancel(true));
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) throw new ClosedChannelException();
+    }
+}
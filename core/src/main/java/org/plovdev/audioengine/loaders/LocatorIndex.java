@@ -0,0 +1,262 @@
+package org.plovdev.audioengine.loaders;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Index of files under {@link PathLocator} roots.
+ * <p>
+ * Every root is walked once, when locator is added. Later changes are applied
+ * incrementally from {@link WatchService} events, so resolving relative path
+ * is a single map lookup without file system calls.
+ * If the same relative path exists under several roots, the earliest added root wins.
+ * Root, which doesn't exist yet, is kept pending: it's indexed on first missed
+ * lookup after it appears.
+ * One index is usually shared by all loaders, see {@link TrackLoaderRegistry#getLocatorIndex()}.
+ * </p>
+ *
+ * @see PathLocator
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class LocatorIndex implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(LocatorIndex.class);
+
+    private final List<Root> roots = new CopyOnWriteArrayList<>();
+    private final List<Root> pending = new CopyOnWriteArrayList<>();
+    private final Map<String, Indexed> index = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Watched> watchedDirs = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread watcher;
+    private int nextOrder = 0;
+
+    /**
+     * Indexes locator root, and starts watching it.
+     * Missing root is kept pending, root, which is already added, is ignored.
+     *
+     * @param locator new search root
+     */
+    public synchronized void add(PathLocator locator) {
+        Path rootPath = locator.getPath().toAbsolutePath().normalize();
+        if (getRoots().contains(rootPath) || pending.stream().anyMatch(root -> root.path().equals(rootPath))) {
+            return;
+        }
+
+        Root root = new Root(rootPath, nextOrder++);
+        if (!Files.isDirectory(rootPath)) {
+            log.info("Locator root {} doesn't exist yet, it's indexed when it appears", rootPath);
+            pending.add(root);
+            return;
+        }
+        roots.add(root);
+        scan(root, rootPath);
+    }
+
+    /**
+     * Resolves path, relative to locator roots.
+     *
+     * @param relative relative file path
+     * @return absolute file path, if indexed
+     */
+    public Optional<Path> resolve(String relative) {
+        String key = keyOf(Path.of(relative));
+        Indexed indexed = index.get(key);
+        if (indexed == null && !pending.isEmpty() && indexPending()) {
+            indexed = index.get(key);
+        }
+        return indexed == null ? Optional.empty() : Optional.of(indexed.file());
+    }
+
+    /**
+     * Indexes pending roots, which have appeared.
+     *
+     * @return true if any root was indexed
+     */
+    private synchronized boolean indexPending() {
+        boolean indexed = false;
+        for (Root root : pending) {
+            if (Files.isDirectory(root.path())) {
+                pending.remove(root);
+                roots.add(root);
+                scan(root, root.path());
+                indexed = true;
+            }
+        }
+        return indexed;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public List<Path> getRoots() {
+        return roots.stream().map(Root::path).toList();
+    }
+
+    private void scan(Root root, Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.forEach(path -> {
+                if (Files.isDirectory(path)) {
+                    watch(root, path);
+                } else {
+                    put(root, path);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to index {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void put(Root root, Path file) {
+        String key = keyOf(root.path().relativize(file));
+        root.files().put(key, file);
+        index.merge(key, new Indexed(file, root.order()), (old, added) -> old.order() <= added.order() ? old : added);
+    }
+
+    private void remove(Root root, Path path) {
+        String prefix = keyOf(root.path().relativize(path));
+        List<String> removed = root.files().keySet().stream()
+                .filter(key -> prefix.isEmpty() || key.equals(prefix) || key.startsWith(prefix + "/"))
+                .toList();
+        root.files().keySet().removeAll(removed);
+
+        // Fall back to next root, which has the same file
+        for (String key : removed) {
+            index.computeIfPresent(key, (k, current) -> current.order() == root.order() ? findInRoots(k) : current);
+        }
+    }
+
+    private Indexed findInRoots(String key) {
+        Indexed found = null;
+        for (Root root : roots) {
+            Path file = root.files().get(key);
+            if (file != null && (found == null || root.order() < found.order())) {
+                found = new Indexed(file, root.order());
+            }
+        }
+        return found;
+    }
+
+    private static String keyOf(Path relative) {
+        return relative.normalize().toString().replace('\\', '/');
+    }
+
+    private void watch(Root root, Path dir) {
+        try {
+            if (watchService == null) {
+                WatchService service = FileSystems.getDefault().newWatchService();
+                watchService = service;
+                watcher = Thread.ofPlatform().daemon().name("locator-index-watcher").start(() -> watchLoop(service));
+            }
+            watchedDirs.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE), new Watched(root, dir));
+        } catch (IOException e) {
+            log.warn("Can't watch {}, changes won't be indexed: {}", dir, e.getMessage());
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Watched watched = watchedDirs.get(key);
+                if (watched != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        onEvent(watched.root(), watched.dir(), event);
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirs.remove(key);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private synchronized void onEvent(Root root, Path dir, WatchEvent<?> event) {
+        if (!roots.contains(root)) return; // closed
+        if (event.kind() == OVERFLOW) {
+            // Events lost, rescan whole root
+            remove(root, root.path());
+            scan(root, root.path());
+            return;
+        }
+
+        Path path = dir.resolve((Path) event.context());
+        if (event.kind() == ENTRY_CREATE) {
+            if (Files.isDirectory(path)) {
+                scan(root, path);
+            } else {
+                put(root, path);
+            }
+        } else if (event.kind() == ENTRY_DELETE) {
+            remove(root, path);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+            watcher.interrupt();
+            watchService = null;
+        }
+        watchedDirs.clear();
+        roots.clear();
+        pending.clear();
+        index.clear();
+    }
+
+    /**
+     * Indexed root, compared by identity.
+     */
+    private static final class Root {
+        private final Path path;
+        private final int order;
+        private final Map<String, Path> files = new ConcurrentHashMap<>();
+
+        Root(Path path, int order) {
+            this.path = path;
+            this.order = order;
+        }
+
+        Path path() {
+            return path;
+        }
+
+        int order() {
+            return order;
+        }
+
+        Map<String, Path> files() {
+            return files;
+        }
+    }
+
+    private record Indexed(Path file, int order) {
+    }
+
+    private record Watched(Root root, Path dir) {
+    }
+}
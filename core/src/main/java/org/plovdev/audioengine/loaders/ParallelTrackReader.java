@@ -0,0 +1,118 @@
+package org.plovdev.audioengine.loaders;
+
+import org.plovdev.audioengine.tracks.AudioBufferPool;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads track data region of file into preallocated direct segments with concurrent positional reads.
+ * <p>
+ * Region is split into parts of at least {@value #MIN_PART_SIZE} bytes, and every part is read
+ * by own virtual thread with {@link FileChannel#read(ByteBuffer, long)} into disjoint slice of segments.
+ * Several reads in flight keep queues of fast SSDs full, which one sequential stream can't do.
+ * Small regions are read by caller thread. Segments are taken from {@link AudioBufferPool}.
+ * </p>
+ *
+ * @see AsyncTrackReader
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public final class ParallelTrackReader {
+    /**
+     * Default count of concurrent reads.
+     */
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    /**
+     * Min bytes of one read part.
+     */
+    public static final int MIN_PART_SIZE = 4 << 20;
+
+    private ParallelTrackReader() {}
+
+    /**
+     * @param channel file channel, its position isn't changed
+     * @param offset region start in file
+     * @param size region size in bytes
+     * @param segmentSize max size of one segment, must be frame aligned
+     * @param parallelism max count of concurrent reads
+     * @return filled segments, ready to read, at least one
+     * @throws IOException if file is shorter than region, or can't be read
+     */
+    public static ByteBuffer[] read(FileChannel channel, long offset, long size, int segmentSize, int parallelism) throws IOException {
+        int count = (int) Math.max(1, (size + segmentSize - 1) / segmentSize);
+        ByteBuffer[] segments = new ByteBuffer[count];
+        AudioBufferPool pool = AudioBufferPool.getInstance();
+        for (int i = 0; i < count; i++) {
+            segments[i] = pool.acquire((int) Math.min(segmentSize, size - (long) i * segmentSize));
+        }
+        try {
+            readRegion(channel, offset, size, segments, segmentSize, parallelism);
+        } catch (IOException | RuntimeException e) {
+            for (ByteBuffer segment : segments) {
+                pool.release(segment);
+            }
+            throw e;
+        }
+        return segments;
+    }
+
+    private static void readRegion(FileChannel channel, long offset, long size, ByteBuffer[] segments, int segmentSize, int parallelism) throws IOException {
+        long partSize = Math.max(MIN_PART_SIZE, (size + parallelism - 1) / Math.max(1, parallelism));
+        if (parallelism <= 1 || partSize >= size) {
+            readPart(channel, offset, segments, segmentSize, 0, size);
+            return;
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> parts = new ArrayList<>();
+            for (long from = 0; from < size; from += partSize) {
+                long start = from;
+                long end = Math.min(size, from + partSize);
+                parts.add(executor.submit(() -> {
+                    readPart(channel, offset, segments, segmentSize, start, end);
+                    return null;
+                }));
+            }
+            for (Future<?> part : parts) {
+                part.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading track data");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Failed to read track data: " + e.getCause());
+        }
+    }
+
+    /**
+     * Fills bytes [from, end) of region, which may cross segment bounds.
+     * Reads go into slices, so positions of segments stay at 0.
+     */
+    private static void readPart(FileChannel channel, long offset, ByteBuffer[] segments, int segmentSize, long from, long end) throws IOException {
+        long position = from;
+        while (position < end) {
+            int index = (int) (position / segmentSize);
+            int start = (int) (position % segmentSize);
+            int length = (int) Math.min(segments[index].limit() - start, end - position);
+            ByteBuffer slice = segments[index].slice(start, length);
+            while (slice.hasRemaining()) {
+                if (channel.read(slice, offset + position + slice.position()) < 0) {
+                    throw new EOFException("File is shorter than track data region");
+                }
+            }
+            position += length;
+        }
+    }
+}
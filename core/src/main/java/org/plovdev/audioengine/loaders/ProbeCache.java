@@ -0,0 +1,117 @@
+package org.plovdev.audioengine.loaders;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of {@link TrackProbe} results.
+ * <p>
+ * Entries are validated by file size and modification time,
+ * so repeated probe of unchanged file costs only one stat call.
+ * </p>
+ *
+ * @see TrackProbe
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class ProbeCache {
+    public static final int DEFAULT_CAPACITY = 65536;
+
+    private final Map<Path, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Entry> eldest) {
+            return size() > capacity;
+        }
+    };
+    private volatile int capacity;
+
+    public ProbeCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ProbeCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns cached probe of file, or probes it when file is unknown or changed.
+     *
+     * @param path file path
+     * @param prober header reader, called on cache miss
+     * @return probe result
+     * @throws IOException if file can't be stated or probed
+     */
+    public TrackProbe get(Path path, Prober prober) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.size() == size && entry.modified() == modified) {
+                return entry.probe();
+            }
+        }
+
+        TrackProbe probe = prober.probe(key);
+        synchronized (entries) {
+            entries.put(key, new Entry(size, modified, probe));
+        }
+        return probe;
+    }
+
+    public void invalidate(Path path) {
+        synchronized (entries) {
+            entries.remove(path.toAbsolutePath().normalize());
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets max cached entries count.
+     *
+     * @param capacity new capacity
+     * @throws IllegalArgumentException if capacity < 1
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Reads track header from file.
+     */
+    @FunctionalInterface
+    public interface Prober {
+        TrackProbe probe(Path path) throws IOException;
+    }
+
+    private record Entry(long size, long modified, TrackProbe probe) {
+    }
+}
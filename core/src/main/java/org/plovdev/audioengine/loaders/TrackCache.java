@@ -0,0 +1,399 @@
+package org.plovdev.audioengine.loaders;
+
+import org.plovdev.audioengine.exceptions.AudioEngineException;
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.tracks.Track;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * LRU or LFU cache of loaded tracks, bounded by total track bytes.
+ * <p>
+ * Entries are keyed by canonical file path and validated by file size and
+ * modification time. Concurrent loads of one file share single decode.
+ * Pinned files are never evicted, even if cache is over budget.
+ * </p>
+ * <p>
+ * Only tracks in direct memory are counted by {@link #getMaxBytes() byte budget}.
+ * {@link Track#isMapped() Mapped} tracks take only address space and page cache,
+ * so they have separate {@link #getMaxMappedBytes() budget}.
+ * </p>
+ * <p>
+ * Cache keeps its own handle of every track, and every caller gets new
+ * {@link Track#retain() handle} over the same memory, which it closes when done.
+ * Data is shared, so it must be used only through duplicates or absolute reads,
+ * like all engine code does. Cache closes its handle, when track is evicted,
+ * invalidated or cleared: memory is freed, when callers close their handles too.
+ * </p>
+ *
+ * @see ProbeCache
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class TrackCache {
+    /**
+     * Default max bytes of cached mapped tracks.
+     */
+    public static final long DEFAULT_MAX_MAPPED_BYTES = 16L * 1024 * 1024 * 1024;
+
+    /**
+     * Order, in which unpinned tracks are evicted.
+     */
+    public enum Policy {
+        /**
+         * Least recently used track first.
+         */
+        LRU,
+        /**
+         * Least frequently used track first, least recently used of them on ties.
+         */
+        LFU
+    }
+
+    private final Map<Path, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Path, Integer> pins = new HashMap<>();
+    private final Map<Path, CompletableFuture<Track>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private volatile long maxBytes;
+    private volatile long maxMappedBytes = DEFAULT_MAX_MAPPED_BYTES;
+    private volatile Policy policy = Policy.LRU;
+    private long bytes = 0;
+    private long mappedBytes = 0;
+
+    /**
+     * @param maxBytes max total bytes of cached tracks in direct memory
+     * @throws IllegalArgumentException if maxBytes < 0
+     */
+    public TrackCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns cached track of file, or loads it when file is unknown or changed.
+     *
+     * @param path track file
+     * @param loader track loader, called on cache miss
+     * @return own handle of loaded track, which caller must close
+     * @throws TrackLoadException if file can't be stated or loaded
+     */
+    public Track get(Path path, Function<Path, Track> loader) throws TrackLoadException {
+        Path key;
+        long size;
+        long modified;
+        try {
+            key = path.toRealPath();
+            BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+            size = attributes.size();
+            modified = attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to read track file: " + path + " - " + e);
+        }
+
+        while (true) {
+            synchronized (entries) {
+                Entry entry = entries.get(key);
+                if (entry != null && entry.size == size && entry.modified == modified) {
+                    hits.increment();
+                    entry.uses++;
+                    return entry.track.retain();
+                }
+            }
+
+            CompletableFuture<Track> future = new CompletableFuture<>();
+            CompletableFuture<Track> running = inFlight.putIfAbsent(key, future);
+            if (running != null) {
+                Track shared = retainShared(join(running));
+                if (shared != null) {
+                    hits.increment(); // shares decode with other caller
+                    return shared;
+                }
+                continue; // evicted or closed meanwhile, look again
+            }
+
+            misses.increment();
+            try {
+                Track track = loader.apply(key);
+                Track own = put(key, new Entry(size, modified, track));
+                future.complete(track);
+                return own;
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, future);
+            }
+        }
+    }
+
+    /**
+     * Returns new handle of track, loaded by other caller, or null if it's already closed.
+     */
+    private static Track retainShared(Track track) {
+        try {
+            return track.retain();
+        } catch (AudioEngineException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Caches loaded track.
+     *
+     * @return handle for caller: the loaded one, if track isn't cached, or new one
+     */
+    private Track put(Path key, Entry entry) {
+        synchronized (entries) {
+            if (entry.bytes > (entry.mapped ? maxMappedBytes : maxBytes) && !pins.containsKey(key)) {
+                return entry.track; // too large to cache
+            }
+            Track own = entry.track.retain();
+            Entry old = entries.put(key, entry);
+            if (old != null) {
+                remove(old);
+            }
+            count(entry, entry.bytes);
+            evict();
+            return own;
+        }
+    }
+
+    private void evict() {
+        while (bytes > maxBytes || mappedBytes > maxMappedBytes) {
+            Map.Entry<Path, Entry> victim = null;
+            for (Map.Entry<Path, Entry> candidate : entries.entrySet()) { // from least recently used
+                Entry entry = candidate.getValue();
+                if (pins.containsKey(candidate.getKey()) || !isOverBudget(entry)) continue;
+                if (policy == Policy.LRU) {
+                    victim = candidate;
+                    break;
+                }
+                if (victim == null || entry.uses < victim.getValue().uses) {
+                    victim = candidate;
+                }
+            }
+            if (victim == null) return; // rest is pinned
+
+            entries.remove(victim.getKey());
+            remove(victim.getValue());
+            evictions.increment();
+        }
+    }
+
+    private boolean isOverBudget(Entry entry) {
+        return entry.mapped ? mappedBytes > maxMappedBytes : bytes > maxBytes;
+    }
+
+    private void count(Entry entry, long delta) {
+        if (entry.mapped) {
+            mappedBytes += delta;
+        } else {
+            bytes += delta;
+        }
+    }
+
+    /**
+     * Uncounts removed entry and closes cache handle of its track.
+     */
+    private void remove(Entry entry) {
+        count(entry, -entry.bytes);
+        entry.track.close();
+    }
+
+    private static Track join(CompletableFuture<Track> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Keeps track of file in cache until {@link #unpin(Path)}.
+     * Pins are counted, file can be pinned before it's loaded.
+     *
+     * @param path track file
+     */
+    public void pin(Path path) {
+        Path key = keyOf(path);
+        synchronized (entries) {
+            pins.merge(key, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Releases one pin of file. Unpinned track can be evicted again.
+     *
+     * @param path track file
+     */
+    public void unpin(Path path) {
+        Path key = keyOf(path);
+        synchronized (entries) {
+            pins.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+            evict();
+        }
+    }
+
+    public boolean isPinned(Path path) {
+        Path key = keyOf(path);
+        synchronized (entries) {
+            return pins.containsKey(key);
+        }
+    }
+
+    public void invalidate(Path path) {
+        Path key = keyOf(path);
+        synchronized (entries) {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes and closes all cached tracks. Pins are kept.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.values().forEach(entry -> entry.track.close());
+            entries.clear();
+            bytes = 0;
+            mappedBytes = 0;
+        }
+    }
+
+    private static Path keyOf(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path.toAbsolutePath().normalize();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return total bytes of cached tracks in direct memory
+     */
+    public long getBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    /**
+     * @return total bytes of cached mapped tracks
+     */
+    public long getMappedBytes() {
+        synchronized (entries) {
+            return mappedBytes;
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Sets max total bytes of cached tracks. Extra tracks are evicted at once.
+     *
+     * @param maxBytes new budget
+     * @throws IllegalArgumentException if maxBytes < 0
+     */
+    public void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative");
+        }
+        synchronized (entries) {
+            this.maxBytes = maxBytes;
+            evict();
+        }
+    }
+
+    public long getMaxMappedBytes() {
+        return maxMappedBytes;
+    }
+
+    /**
+     * Sets max total bytes of cached mapped tracks. Extra tracks are evicted at once.
+     *
+     * @param maxMappedBytes new budget
+     * @throws IllegalArgumentException if maxMappedBytes < 0
+     */
+    public void setMaxMappedBytes(long maxMappedBytes) {
+        if (maxMappedBytes < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative");
+        }
+        synchronized (entries) {
+            this.maxMappedBytes = maxMappedBytes;
+            evict();
+        }
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Sets eviction order. Use counts are kept since tracks were cached, so policy can be changed at any time.
+     *
+     * @param policy new policy
+     */
+    public void setPolicy(Policy policy) {
+        this.policy = Objects.requireNonNull(policy, "policy must not be null");
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final Track track;
+        private final long bytes;
+        private final boolean mapped;
+        private long uses = 1; // guarded by entries
+
+        private Entry(long size, long modified, Track track) {
+            this.size = size;
+            this.modified = modified;
+            this.track = track;
+            this.bytes = track.getByteLength();
+            this.mapped = track.isMapped();
+        }
+    }
+}
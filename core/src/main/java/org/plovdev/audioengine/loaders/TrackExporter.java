@@ -3,7 +3,17 @@ package org.plovdev.audioengine.loaders;
 import org.plovdev.audioengine.tracks.Track;
 
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 
 public interface TrackExporter {
     void save(Track track, OutputStream outputStream);
-}
\ No newline at end of file
+
+    /**
+     * Save track directly into channel.
+     * Track data is written straight from its direct buffer, without heap copies.
+     *
+     * @param track exporting track
+     * @param channel target channel
+     */
+    void save(Track track, WritableByteChannel channel);
+}
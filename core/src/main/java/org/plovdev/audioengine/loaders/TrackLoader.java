@@ -2,17 +2,92 @@ package org.plovdev.audioengine.loaders;
 
 import org.plovdev.audioengine.exceptions.TrackLoadException;
 import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.TrackSource;
 import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
 import org.plovdev.audioengine.tracks.meta.TrackMetadata;
 
 import java.io.InputStream;
 import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 public interface TrackLoader {
     Track loadTrack(String path) throws TrackLoadException;
     Track loadTrack(InputStream stream) throws TrackLoadException;
     Track loadTrack(URI uri) throws TrackLoadException;
 
+    /**
+     * Loads only time range of track, for previews and clips.
+     * <p>
+     * Default implementation opens {@link #openSource(String) source}, seeks to start
+     * and reads only needed frames, so compressed formats decode only frames of range.
+     * Loaders of uncompressed formats read range bytes directly.
+     * </p>
+     *
+     * @param path track path
+     * @param start range start, ranges after track end give empty track
+     * @param length range length, cut at track end
+     * @return track with frames of range
+     * @throws TrackLoadException if track can't be loaded
+     * @throws IllegalArgumentException if start or length is negative
+     */
+    default Track loadTrack(String path, Duration start, Duration length) throws TrackLoadException {
+        if (start.isNegative() || length.isNegative()) {
+            throw new IllegalArgumentException("Negative range: " + start + ", " + length);
+        }
+        try (TrackSource source = openSource(path)) {
+            TrackFormat format = source.getFormat();
+            source.skip(TrackFormatUtils.calculateFrames(format, start));
+            return source.readTrack(TrackFormatUtils.calculateFrames(format, length));
+        }
+    }
+
+    /**
+     * Loads track without blocking caller thread.
+     * Progress is reported to {@link #getLoadListener()}.
+     * Cancelling returned future stops loading.
+     * <p>
+     * Default implementation runs {@link #loadTrack(String)} on a virtual thread,
+     * and can't interrupt I/O, which already started.
+     * </p>
+     *
+     * @param path track path
+     * @return future of loaded track, completes with {@link TrackLoadException} on error
+     */
+    default CompletableFuture<Track> loadTrackAsync(String path) {
+        return CompletableFuture.supplyAsync(() -> loadTrack(path), Thread.ofVirtual()::start);
+    }
+
+    /**
+     * Opens track for incremental decoding.
+     * <p>
+     * Default implementation loads the whole track, and reads it from memory.
+     * Loaders of compressed formats decode frames on demand.
+     * </p>
+     *
+     * @param path track path
+     * @return opened source, must be closed
+     * @throws TrackLoadException if track can't be opened
+     */
+    default TrackSource openSource(String path) throws TrackLoadException {
+        return TrackSource.of(loadTrack(path));
+    }
+
+    /**
+     * Opens track by uri for incremental decoding.
+     * <p>
+     * Default implementation loads the whole track, like {@link #openSource(String)}.
+     * </p>
+     *
+     * @param uri track uri
+     * @return opened source, must be closed
+     * @throws TrackLoadException if track can't be opened
+     */
+    default TrackSource openSource(URI uri) throws TrackLoadException {
+        return TrackSource.of(loadTrack(uri));
+    }
+
     TrackMetadata readTrackMetadata(String src);
     TrackMetadata readTrackMetadata(InputStream src);
     TrackMetadata readTrackMetadata(URI src);
@@ -24,4 +24,13 @@ public interface TrackLoaderManager {
     TrackDecoder getTrackDecoder();
 
     void registerPathLocator(PathLocator locator);
+
+    /**
+     * Makes loader resolve paths by shared index of locator roots.
+     * Called by {@link TrackLoaderRegistry} on register.
+     *
+     * @param index shared index
+     */
+    default void setLocatorIndex(LocatorIndex index) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package org.plovdev.audioengine.loaders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Index of registered {@link TrackLoaderManager}s.
+ * <p>
+ * Managers are looked up by file extension, or by magic number of source.
+ * Every extension is resolved only once, both found and missing results
+ * are cached, so dispatch costs one hash lookup.
+ * </p>
+ * <p>
+ * Registry owns one {@link LocatorIndex}, shared by all registered managers.
+ * Locator, registered with any manager, is indexed once and serves all of them.
+ * </p>
+ *
+ * @see AudioSignature
+ * @see TrackLoaderManager
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class TrackLoaderRegistry {
+    private final List<TrackLoaderManager> managers = new CopyOnWriteArrayList<>();
+    private final Map<String, Optional<TrackLoaderManager>> byExtension = new ConcurrentHashMap<>();
+    private final LocatorIndex locatorIndex = new LocatorIndex();
+
+    public void register(TrackLoaderManager manager) {
+        manager.setLocatorIndex(locatorIndex);
+        managers.add(manager);
+        byExtension.clear();
+    }
+
+    public void unregister(TrackLoaderManager manager) {
+        managers.remove(manager);
+        byExtension.clear();
+    }
+
+    public void clear() {
+        managers.clear();
+        byExtension.clear();
+    }
+
+    /**
+     * @return index of locator roots, shared by registered managers
+     */
+    public LocatorIndex getLocatorIndex() {
+        return locatorIndex;
+    }
+
+    public List<TrackLoaderManager> getManagers() {
+        return managers;
+    }
+
+    /**
+     * Finds manager by file extension.
+     *
+     * @param extension extension without dot, like "wav"
+     * @return found manager, or empty Optional
+     */
+    public Optional<TrackLoaderManager> findByExtension(String extension) {
+        if (extension == null || extension.isEmpty()) {
+            return Optional.empty();
+        }
+        return byExtension.computeIfAbsent(extension.toLowerCase(Locale.ROOT), this::resolve);
+    }
+
+    /**
+     * Finds manager by extension of file name or path.
+     */
+    public Optional<TrackLoaderManager> findByPath(String path) {
+        return findByExtension(extensionOf(path));
+    }
+
+    public Optional<TrackLoaderManager> findByUri(URI uri) {
+        return findByPath(uri.getPath());
+    }
+
+    /**
+     * Finds manager by magic number of first source bytes.
+     *
+     * @param header first bytes of source
+     * @param length valid bytes count in header
+     */
+    public Optional<TrackLoaderManager> findByHeader(byte[] header, int length) {
+        AudioSignature signature = AudioSignature.detect(header, length);
+        if (signature == null) {
+            return Optional.empty();
+        }
+        return findByExtension(signature.getExtension());
+    }
+
+    /**
+     * Sniffs stream header, and finds manager by it.
+     * Stream must support mark/reset, it will be reset to start after peek.
+     *
+     * @param stream track source
+     * @throws IOException if stream can't be read
+     * @throws IllegalArgumentException if stream doesn't support mark
+     */
+    public Optional<TrackLoaderManager> findByStream(InputStream stream) throws IOException {
+        byte[] header = new byte[AudioSignature.PEEK_SIZE];
+        int length = peek(stream, header);
+        return findByHeader(header, length);
+    }
+
+    /**
+     * Reads first bytes of stream without consuming them.
+     *
+     * @param stream source, must support mark/reset
+     * @param header target array
+     * @return read bytes count
+     */
+    public static int peek(InputStream stream, byte[] header) throws IOException {
+        if (!stream.markSupported()) {
+            throw new IllegalArgumentException("Stream must support mark/reset");
+        }
+        stream.mark(header.length);
+        try {
+            return stream.readNBytes(header, 0, header.length);
+        } finally {
+            stream.reset();
+        }
+    }
+
+    public static String extensionOf(String path) {
+        if (path == null) {
+            return "";
+        }
+        int slash = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        int dot = path.lastIndexOf('.');
+        return dot > slash ? path.substring(dot + 1) : "";
+    }
+
+    private Optional<TrackLoaderManager> resolve(String extension) {
+        for (TrackLoaderManager manager : managers) {
+            if (manager.getTrackLoader().isSupported(extension)) {
+                return Optional.of(manager);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,20 @@
+package org.plovdev.audioengine.loaders;
+
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.time.Duration;
+
+/**
+ * Result of header-only track probing.
+ * Contains everything, what can be known about track without reading audio data.
+ *
+ * @param format track format
+ * @param dataOffset offset of audio data from source start, in bytes
+ * @param dataSize audio data size, in bytes
+ * @param duration track duration
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public record TrackProbe(TrackFormat format, long dataOffset, long dataSize, Duration duration) {
+}
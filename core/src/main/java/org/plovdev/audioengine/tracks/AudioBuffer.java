@@ -0,0 +1,209 @@
+package org.plovdev.audioengine.tracks;
+
+import org.plovdev.audioengine.exceptions.AudioEngineException;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.time.Duration;
+
+/**
+ * Planar float32 audio for processing code: DSP, mixing and analysis.
+ * <p>
+ * Every channel is a separate {@code float[]} of normalized samples [-1.0, 1.0], so per-channel
+ * loops run over contiguous arrays, which JIT can vectorize, instead of decoding interleaved
+ * integer samples of {@link Track} again and again. Channel arrays are returned as is, without copy.
+ * </p>
+ * <p>
+ * Conversion from track is cached by track itself: {@link Track#getAudioBuffer()} decodes
+ * samples once, on the first call. Cached buffer is shared, so it must not be modified.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ * @see SampleConverter
+ */
+public final class AudioBuffer {
+    private static final int BLOCK_FRAMES = 4096;
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    private final float[][] channels;
+    private final int frames;
+    private final int sampleRate;
+
+    /**
+     * Creates silent buffer.
+     *
+     * @param channels channels count
+     * @param frames frames count
+     * @param sampleRate sample rate in Hz
+     * @throws IllegalArgumentException if any value isn't positive, or frames is negative
+     */
+    public AudioBuffer(int channels, int frames, int sampleRate) {
+        this(allocate(channels, frames), sampleRate);
+    }
+
+    /**
+     * Wraps channel arrays without copy.
+     *
+     * @param channels channel samples, all arrays must have the same length
+     * @param sampleRate sample rate in Hz
+     * @throws IllegalArgumentException if there are no channels, or their lengths differ
+     */
+    public AudioBuffer(float[][] channels, int sampleRate) {
+        if (channels.length == 0) {
+            throw new IllegalArgumentException("Audio buffer must have at least one channel");
+        }
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("Sample rate must be positive: " + sampleRate);
+        }
+        for (float[] channel : channels) {
+            if (channel.length != channels[0].length) {
+                throw new IllegalArgumentException("Channels must have the same length");
+            }
+        }
+        this.channels = channels;
+        this.frames = channels[0].length;
+        this.sampleRate = sampleRate;
+    }
+
+    private static float[][] allocate(int channels, int frames) {
+        if (channels <= 0 || frames < 0) {
+            throw new IllegalArgumentException("Invalid audio buffer size: " + channels + " channels, " + frames + " frames");
+        }
+        return new float[channels][frames];
+    }
+
+    /**
+     * Decodes track into new planar buffer. Use {@link Track#getAudioBuffer()} to get cached one.
+     * <p>
+     * A-law, μ-law and IMA ADPCM tracks are decoded with {@link SampleConverter#convert(Track, TrackFormat)} first.
+     * </p>
+     *
+     * @param track source track
+     * @return new buffer with all frames of track
+     * @throws IllegalArgumentException if track format can't be converted to float
+     * @throws AudioEngineException if track is too long for float arrays
+     */
+    public static AudioBuffer of(Track track) {
+        TrackFormat format = track.getFormat();
+        if (!SampleConverter.isSupported(format)) {
+            try (Track pcm = SampleConverter.convert(track, float32(format))) {
+                return of(pcm);
+            }
+        }
+        long frameCount = track.getFrameCount();
+        if (frameCount > Integer.MAX_VALUE - 8) {
+            throw new AudioEngineException("Track is too long for audio buffer: " + frameCount + " frames");
+        }
+
+        int channelCount = format.channels();
+        AudioBuffer buffer = new AudioBuffer(channelCount, (int) frameCount, format.sampleRate());
+        int frameSize = TrackFormatUtils.frameSize(format);
+        FloatBuffer block = FloatBuffer.allocate(BLOCK_FRAMES * channelCount);
+        float[] interleaved = block.array();
+        int position = 0;
+        for (ByteBuffer segment : track.getSegments()) {
+            ByteBuffer data = segment.duplicate();
+            data.limit(data.position() + data.remaining() / frameSize * frameSize);
+            while (data.hasRemaining() && position < buffer.frames) {
+                int count = Math.min(Math.min(BLOCK_FRAMES, data.remaining() / frameSize), buffer.frames - position);
+                block.clear();
+                SampleConverter.toFloat(data.slice(data.position(), count * frameSize), format, block);
+                data.position(data.position() + count * frameSize);
+                buffer.deinterleave(interleaved, position, count);
+                position += count;
+            }
+        }
+        return buffer;
+    }
+
+    private void deinterleave(float[] interleaved, int position, int count) {
+        int channelCount = channels.length;
+        if (channelCount == 1) {
+            System.arraycopy(interleaved, 0, channels[0], position, count);
+            return;
+        }
+        for (int c = 0; c < channelCount; c++) {
+            float[] channel = channels[c];
+            for (int i = 0, j = c; i < count; i++, j += channelCount) {
+                channel[position + i] = interleaved[j];
+            }
+        }
+    }
+
+    /**
+     * Encodes samples into new track.
+     *
+     * @param format track format, with the same channels and sample rate
+     * @return new track, which must be closed by caller
+     * @throws IllegalArgumentException if format has other channels or sample rate, or isn't supported
+     */
+    public Track toTrack(TrackFormat format) {
+        if (format.channels() != channels.length || format.sampleRate() != sampleRate) {
+            throw new IllegalArgumentException("Can't encode " + channels.length + " channels at " + sampleRate + " Hz to " + format);
+        }
+        TrackFormat floats = float32(format);
+        int channelCount = channels.length;
+        int frameSize = channelCount * Float.BYTES;
+        int segmentFrames = Math.max(BLOCK_FRAMES, MAX_SEGMENT_SIZE / frameSize / BLOCK_FRAMES * BLOCK_FRAMES);
+        ByteBuffer[] segments = new ByteBuffer[(int) Math.max(1, (frames + (long) segmentFrames - 1) / segmentFrames)];
+        float[] interleaved = new float[BLOCK_FRAMES * channelCount];
+        for (int s = 0; s < segments.length; s++) {
+            int from = s * segmentFrames;
+            int to = Math.min(frames, from + segmentFrames);
+            segments[s] = AudioBufferPool.getInstance().acquire((to - from) * frameSize).order(floats.byteOrder());
+            FloatBuffer out = segments[s].asFloatBuffer();
+            for (int position = from; position < to; position += BLOCK_FRAMES) {
+                int count = Math.min(BLOCK_FRAMES, to - position);
+                for (int c = 0; c < channelCount; c++) {
+                    float[] channel = channels[c];
+                    for (int i = 0, j = c; i < count; i++, j += channelCount) {
+                        interleaved[j] = channel[position + i];
+                    }
+                }
+                out.put(interleaved, 0, count * channelCount);
+            }
+        }
+
+        Track track = new Track(segments, TrackFormatUtils.calculateDuration(floats, frames), floats, new TrackMetadata());
+        Track converted = SampleConverter.convert(track, format);
+        if (converted != track) {
+            track.close();
+        }
+        return converted;
+    }
+
+    private static TrackFormat float32(TrackFormat format) {
+        return new TrackFormat(format.extension(), format.channels(), 32, format.sampleRate(), true,
+                ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLOAT32);
+    }
+
+    /**
+     * @param channel channel index
+     * @return samples of channel, not a copy
+     */
+    public float[] getChannel(int channel) {
+        return channels[channel];
+    }
+
+    public int getChannelCount() {
+        return channels.length;
+    }
+
+    public int getFrameCount() {
+        return frames;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public Duration getDuration() {
+        return Duration.ofNanos(frames * 1_000_000_000L / sampleRate);
+    }
+}
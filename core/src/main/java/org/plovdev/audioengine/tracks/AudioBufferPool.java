@@ -0,0 +1,270 @@
+package org.plovdev.audioengine.tracks;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Engine-wide pool of direct buffers for track data and processing blocks.
+ * <p>
+ * Buffers are taken from power-of-two size classes, from {@value #MIN_CLASS_SIZE} bytes
+ * to {@value #MAX_CLASS_SIZE} bytes. Acquired buffer has capacity of its class, position 0
+ * and limit of requested size. Memory isn't zeroed: it may contain data of previous user.
+ * Bigger requests are allocated directly and aren't pooled: they are freed at once, when released.
+ * </p>
+ * <p>
+ * Buffer is returned with {@link #release(ByteBuffer)}, or by {@link Track#close()},
+ * when it was passed to track. Small classes are cached per platform thread first,
+ * so steady-state rendering on one thread doesn't touch shared queues. Pooled
+ * memory over {@link #getMaxPooledBytes() budget} is freed at once.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public final class AudioBufferPool {
+    /**
+     * Size of the smallest class.
+     */
+    public static final int MIN_CLASS_SIZE = 4 * 1024;
+
+    /**
+     * Size of the biggest class. Bigger buffers aren't pooled.
+     */
+    public static final int MAX_CLASS_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Default max bytes of idle buffers.
+     */
+    public static final long DEFAULT_MAX_POOLED_BYTES = 64L * 1024 * 1024;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_CLASS_SIZE);
+    private static final int CLASS_COUNT = Integer.numberOfTrailingZeros(MAX_CLASS_SIZE) - MIN_SHIFT + 1;
+    private static final int THREAD_CACHE_MAX_SIZE = 256 * 1024;
+    private static final int THREAD_CACHE_DEPTH = 4;
+    private static final AudioBufferPool INSTANCE = new AudioBufferPool(DEFAULT_MAX_POOLED_BYTES);
+
+    @SuppressWarnings("unchecked")
+    private final ConcurrentLinkedDeque<ByteBuffer>[] classes = (ConcurrentLinkedDeque<ByteBuffer>[]) new ConcurrentLinkedDeque<?>[CLASS_COUNT];
+    private final ThreadLocal<ByteBuffer[][]> threadCaches = ThreadLocal.withInitial(() -> new ByteBuffer[CLASS_COUNT][THREAD_CACHE_DEPTH]);
+    private final Map<Slab, Boolean> outstanding = new ConcurrentHashMap<>();
+
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final AtomicLong outstandingBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile long maxPooledBytes;
+
+    /**
+     * @param maxPooledBytes max bytes of idle buffers in shared queues
+     * @throws IllegalArgumentException if maxPooledBytes < 0
+     */
+    public AudioBufferPool(long maxPooledBytes) {
+        setMaxPooledBytes(maxPooledBytes);
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            classes[i] = new ConcurrentLinkedDeque<>();
+        }
+    }
+
+    /**
+     * @return pool, used by engine loaders, codecs and generators
+     */
+    public static AudioBufferPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Takes buffer from pool, or allocates new one.
+     *
+     * @param size required bytes
+     * @return direct big-endian buffer with position 0 and limit size
+     * @throws IllegalArgumentException if size < 0
+     */
+    public ByteBuffer acquire(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative buffer size: " + size);
+        }
+        int index = classIndex(size);
+        if (index < 0) {
+            misses.increment();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+            outstanding.put(new Slab(buffer), Boolean.TRUE);
+            outstandingBytes.addAndGet(size);
+            return buffer;
+        }
+
+        ByteBuffer buffer = null;
+        ByteBuffer[] cache = threadCache(index);
+        if (cache != null) {
+            for (int i = cache.length - 1; i >= 0 && buffer == null; i--) {
+                buffer = cache[i];
+                cache[i] = null;
+            }
+        }
+        if (buffer == null) {
+            buffer = classes[index].pollFirst();
+            if (buffer != null) {
+                pooledBytes.addAndGet(-buffer.capacity());
+            }
+        }
+        if (buffer == null) {
+            misses.increment();
+            buffer = ByteBuffer.allocateDirect(MIN_CLASS_SIZE << index);
+        } else {
+            hits.increment();
+        }
+
+        outstanding.put(new Slab(buffer), Boolean.TRUE);
+        outstandingBytes.addAndGet(buffer.capacity());
+        buffer.clear().limit(size);
+        return buffer.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Returns buffer to pool. Buffer and its views mustn't be used after it.
+     *
+     * @param buffer buffer, got from {@link #acquire(int)}
+     * @return false if buffer isn't acquired from this pool, or is already released
+     */
+    public boolean release(ByteBuffer buffer) {
+        if (outstanding.remove(new Slab(buffer)) == null) {
+            return false;
+        }
+        int capacity = buffer.capacity();
+        outstandingBytes.addAndGet(-capacity);
+        if (capacity > MAX_CLASS_SIZE) {
+            TrackMemory.free(buffer);
+            return true;
+        }
+
+        int index = Integer.numberOfTrailingZeros(capacity) - MIN_SHIFT;
+        ByteBuffer[] cache = threadCache(index);
+        if (cache != null) {
+            for (int i = 0; i < cache.length; i++) {
+                if (cache[i] == null) {
+                    cache[i] = buffer;
+                    return true;
+                }
+            }
+        }
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            pooledBytes.addAndGet(-capacity);
+            TrackMemory.free(buffer);
+        } else {
+            classes[index].offerFirst(buffer);
+        }
+        return true;
+    }
+
+    /**
+     * Stops tracking of buffer without pooling: its memory is left to GC.
+     * Used for buffers, which may still be referenced, like data of leaked tracks.
+     *
+     * @return false if buffer isn't acquired from this pool
+     */
+    boolean forget(ByteBuffer buffer) {
+        if (outstanding.remove(new Slab(buffer)) == null) {
+            return false;
+        }
+        outstandingBytes.addAndGet(-buffer.capacity());
+        return true;
+    }
+
+    /**
+     * Frees all idle buffers in shared queues. Thread caches are kept.
+     */
+    public void trim() {
+        for (ConcurrentLinkedDeque<ByteBuffer> queue : classes) {
+            ByteBuffer buffer;
+            while ((buffer = queue.pollFirst()) != null) {
+                pooledBytes.addAndGet(-buffer.capacity());
+                TrackMemory.free(buffer);
+            }
+        }
+    }
+
+    /**
+     * Thread cache of class, or null for big classes and virtual threads,
+     * which are too short-lived to own buffers.
+     */
+    private ByteBuffer[] threadCache(int index) {
+        if ((MIN_CLASS_SIZE << index) > THREAD_CACHE_MAX_SIZE || Thread.currentThread().isVirtual()) {
+            return null;
+        }
+        return threadCaches.get()[index];
+    }
+
+    private static int classIndex(int size) {
+        if (size > MAX_CLASS_SIZE) return -1;
+        if (size <= MIN_CLASS_SIZE) return 0;
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+    public long getMaxPooledBytes() {
+        return maxPooledBytes;
+    }
+
+    /**
+     * @param maxPooledBytes max bytes of idle buffers in shared queues, 0 disables pooling of returned buffers
+     * @throws IllegalArgumentException if maxPooledBytes < 0
+     */
+    public void setMaxPooledBytes(long maxPooledBytes) {
+        if (maxPooledBytes < 0) {
+            throw new IllegalArgumentException("Max pooled bytes must not be negative");
+        }
+        this.maxPooledBytes = maxPooledBytes;
+    }
+
+    /**
+     * @return bytes of idle buffers in shared queues
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * @return bytes of acquired and not released buffers
+     */
+    public long getOutstandingBytes() {
+        return outstandingBytes.get();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return count of fresh allocations
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return part of requests, served without allocation, from 0 to 1
+     */
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Identity key of buffer: ByteBuffer equality compares content.
+     */
+    private record Slab(ByteBuffer buffer) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Slab slab && slab.buffer == buffer;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(buffer);
+        }
+    }
+}
@@ -2,25 +2,50 @@ package org.plovdev.audioengine.tracks;
 
 import org.plovdev.audioengine.exceptions.AudioEngineException;
 import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
 import org.plovdev.audioengine.tracks.meta.TrackMetadata;
 
 import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * Most important AudioSND class.
  * The class is the fundamental unit of work with the engine.
+ * <p>
+ * Track data is stored in one or more direct segments. Tracks larger than 2 GB
+ * (which can't be addressed by one {@link ByteBuffer}) are split into several
+ * frame aligned segments, usually mapped from file.
+ * </p>
+ * <p>
+ * {@link #slice(long, long)} and {@link #concat(Track...)} create tracks over the same
+ * memory, so cutting and joining clips doesn't copy samples.
+ * </p>
+ * <p>
+ * Memory is reference counted: every track and view holds a reference, and {@link #close()}
+ * releases it. When the last reference is released, segments, which were acquired from
+ * {@link AudioBufferPool} (all data, decoded by engine loaders, codecs and mixer), are
+ * returned to pool at once, without waiting for GC, so buffers, got from closed track,
+ * must not be used. Buffers, allocated by caller or mapped from file, stay caller's:
+ * they are never freed explicitly and are left to GC. Tracks, which are never closed,
+ * are freed by GC as before, and counted by {@link #getLeakCount() leak detector}.
+ * </p>
  *
  * @author Anton
  * @version 1.0
  */
-public class Track {
+public class Track implements AutoCloseable {
     // Track information
-    private final ByteBuffer trackData;
+    private final ByteBuffer[] segments;
+    private final long byteLength;
     private final Duration duration;
     private final TrackFormat format;
     private TrackMetadata metaData;
+    private final TrackMemory[] memories;
+    private final TrackMemory.Handle handle;
+    private volatile AudioBuffer audioBuffer;
 
     /**
      * Create audio track with DIRECT ByteBuffer.
@@ -33,22 +58,157 @@ public class Track {
      * @throws AudioEngineException if trackData is not a direct buffer
      */
     public Track(ByteBuffer trackData, Duration duration, TrackFormat format, TrackMetadata metaData) {
-        Objects.requireNonNull(trackData, "trackData must not be null");
+        this(new ByteBuffer[]{Objects.requireNonNull(trackData, "trackData must not be null")}, duration, format, metaData);
+    }
+
+    /**
+     * Create long audio track from several DIRECT segments.
+     * Every segment, except the last, must contain whole frames.
+     * Segments, acquired from {@link AudioBufferPool}, are owned by track: they are returned
+     * to pool, when track and all its views are closed. Other segments are never freed by track.
+     *
+     * @param segments  track's bytes in play order (MUST be direct ByteBuffers)
+     * @param duration  audio duration
+     * @param format    audio track format
+     * @param metaData  metadata, loaded from file, or created by hands
+     * @throws NullPointerException     if segments or format is null
+     * @throws AudioEngineException if any segment is not a direct buffer, or not frame aligned
+     */
+    public Track(ByteBuffer[] segments, Duration duration, TrackFormat format, TrackMetadata metaData) {
+        this(segments, duration, format, metaData, false);
+    }
+
+    /**
+     * Create track over segments, mapped from file by {@link java.nio.channels.FileChannel#map}.
+     * Such data isn't held in direct memory, so caches don't count it with decoded tracks.
+     *
+     * @param segments  mapped track's bytes in play order
+     * @param duration  audio duration
+     * @param format    audio track format
+     * @param metaData  metadata, loaded from file
+     * @return track, which {@link #isMapped()}
+     * @throws AudioEngineException if any segment is not a direct buffer, or not frame aligned
+     */
+    public static Track mapped(ByteBuffer[] segments, Duration duration, TrackFormat format, TrackMetadata metaData) {
+        return new Track(segments, duration, format, metaData, true);
+    }
+
+    private Track(ByteBuffer[] segments, Duration duration, TrackFormat format, TrackMetadata metaData, boolean mapped) {
+        Objects.requireNonNull(segments, "segments must not be null");
         Objects.requireNonNull(duration, "duration must not be null");
         Objects.requireNonNull(format, "format must not be null");
 
-        if (!trackData.isDirect()) {
-            throw new AudioEngineException("Track data must be allocated with ByteBuffer.allocateDirect() for native audio processing");
+        if (segments.length == 0) {
+            throw new AudioEngineException("Track must contain at least one segment");
         }
 
-        this.trackData = trackData.asReadOnlyBuffer(); // Read-only wrapper
+        int frameSize = TrackFormatUtils.frameSize(format);
+        long length = 0;
+        this.segments = new ByteBuffer[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            ByteBuffer segment = Objects.requireNonNull(segments[i], "trackData must not be null");
+            if (!segment.isDirect()) {
+                throw new AudioEngineException("Track data must be allocated with ByteBuffer.allocateDirect() for native audio processing");
+            }
+            if (i < segments.length - 1 && frameSize > 0 && segment.remaining() % frameSize != 0) {
+                throw new AudioEngineException("Track segment " + i + " is not aligned to frame size " + frameSize);
+            }
+            this.segments[i] = segment.slice().asReadOnlyBuffer(); // Read-only view with capacity of data: native code reads whole capacity
+            length += segment.remaining();
+        }
+
+        this.byteLength = length;
         this.duration = duration;
         this.format = format;
         this.metaData = metaData; // Can be null
+        this.memories = new TrackMemory[]{new TrackMemory(segments.clone(), mapped)};
+        this.memories[0].retain();
+        this.handle = TrackMemory.register(this, memories);
+    }
+
+    /**
+     * View over memory of other tracks.
+     *
+     * @param segments read-only frame aligned segments at position 0
+     * @param memories owners of segments memory, retained by new track
+     */
+    private Track(ByteBuffer[] segments, Duration duration, TrackFormat format, TrackMetadata metaData, TrackMemory[] memories) {
+        long length = 0;
+        for (ByteBuffer segment : segments) {
+            length += segment.remaining();
+        }
+        this.segments = segments;
+        this.byteLength = length;
+        this.duration = duration;
+        this.format = format;
+        this.metaData = metaData;
+        this.memories = memories;
+        for (int i = 0; i < memories.length; i++) {
+            try {
+                memories[i].retain();
+            } catch (AudioEngineException e) {
+                for (int j = 0; j < i; j++) {
+                    memories[j].release();
+                }
+                throw e;
+            }
+        }
+        this.handle = TrackMemory.register(this, memories);
     }
 
+    /**
+     * Returns track data as one buffer.
+     * Buffer is read-only view over track memory, copy it to change samples.
+     *
+     * @return read-only track data
+     * @throws AudioEngineException if track consists of several segments, use {@link #getSegments()}
+     */
     public ByteBuffer getTrackData() {
-        return trackData;
+        ensureOpen();
+        if (segments.length != 1) {
+            throw new AudioEngineException("Track is split into " + segments.length + " segments, use getSegments()");
+        }
+        return segments[0];
+    }
+
+    /**
+     * @return all track data segments in play order, as read-only views
+     */
+    public List<ByteBuffer> getSegments() {
+        ensureOpen();
+        return List.of(segments);
+    }
+
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    public boolean isSegmented() {
+        return segments.length > 1;
+    }
+
+    /**
+     * @return true, if all track data is mapped from file, see {@link #mapped}
+     */
+    public boolean isMapped() {
+        for (TrackMemory memory : memories) {
+            if (!memory.isMapped()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return total track data size in bytes
+     */
+    public long getByteLength() {
+        return byteLength;
+    }
+
+    /**
+     * @return total frames count, or 0 for formats without fixed frame size
+     */
+    public long getFrameCount() {
+        return TrackFormatUtils.calculateFrameCount(format, byteLength);
     }
 
     public Duration getDuration() {
@@ -59,6 +219,181 @@ public class Track {
         return format;
     }
 
+    /**
+     * Returns view of frames range, which shares memory with this track.
+     * Metadata is copied, with duration of range.
+     *
+     * @param startFrame first frame of range
+     * @param frames frames count
+     * @return track over the same data
+     * @throws IndexOutOfBoundsException if range is out of track
+     * @throws AudioEngineException if format has no fixed frame size
+     */
+    public Track slice(long startFrame, long frames) {
+        int frameSize = requireFrameSize();
+        if (startFrame < 0 || frames < 0 || startFrame + frames > getFrameCount()) {
+            throw new IndexOutOfBoundsException("Range " + startFrame + "+" + frames + " is out of " + getFrameCount() + " frames");
+        }
+
+        List<ByteBuffer> parts = new ArrayList<>();
+        long offset = startFrame * frameSize;
+        long remaining = frames * frameSize;
+        ensureOpen();
+        for (ByteBuffer segment : segments) {
+            if (remaining == 0) break;
+            int size = segment.remaining();
+            if (offset >= size) {
+                offset -= size;
+                continue;
+            }
+            int length = (int) Math.min(size - offset, remaining);
+            parts.add(segment.slice(segment.position() + (int) offset, length));
+            remaining -= length;
+            offset = 0;
+        }
+        if (parts.isEmpty()) {
+            parts.add(segments[0].slice(segments[0].position(), 0));
+        }
+        Duration sliceDuration = TrackFormatUtils.calculateDuration(format, frames);
+        return new Track(parts.toArray(ByteBuffer[]::new), sliceDuration, format, copyMetadata(metaData, sliceDuration), memories);
+    }
+
+    /**
+     * Joins tracks into one track, which segments are segments of all tracks, without copying data.
+     * Players, mixers and exporters read it segment by segment, like any long track.
+     * Incomplete last frames of tracks are dropped. Metadata is copied from the first track.
+     *
+     * @param tracks tracks with the same sample format, extension may differ
+     * @return composite track
+     * @throws AudioEngineException if tracks is empty, formats differ, or format has no fixed frame size
+     */
+    public static Track concat(Track... tracks) {
+        if (tracks.length == 0) {
+            throw new AudioEngineException("Nothing to concat");
+        }
+        TrackFormat format = tracks[0].format;
+        int frameSize = tracks[0].requireFrameSize();
+
+        List<ByteBuffer> parts = new ArrayList<>();
+        List<TrackMemory> owners = new ArrayList<>();
+        long frames = 0;
+        for (Track track : tracks) {
+            track.ensureOpen();
+            TrackFormat other = track.format;
+            if (other.channels() != format.channels() || other.bitsPerSample() != format.bitsPerSample() || other.sampleRate() != format.sampleRate()
+                    || other.signed() != format.signed() || other.byteOrder() != format.byteOrder() || other.audioCodec() != format.audioCodec()) {
+                throw new AudioEngineException("Can't concat tracks of different formats: " + format + " and " + other);
+            }
+            long whole = track.getFrameCount() * frameSize;
+            for (ByteBuffer segment : track.segments) {
+                int length = (int) Math.min(segment.remaining(), whole);
+                if (length > 0) {
+                    parts.add(segment.slice(segment.position(), length));
+                }
+                whole -= length;
+            }
+            owners.addAll(List.of(track.memories));
+            frames += track.getFrameCount();
+        }
+        if (parts.isEmpty()) {
+            parts.add(ByteBuffer.allocateDirect(0).asReadOnlyBuffer());
+        }
+        Duration duration = TrackFormatUtils.calculateDuration(format, frames);
+        return new Track(parts.toArray(ByteBuffer[]::new), duration, format, copyMetadata(tracks[0].metaData, duration), owners.toArray(TrackMemory[]::new));
+    }
+
+    /**
+     * Returns planar float32 samples of track. They are decoded on the first call
+     * and cached until track is closed, so buffer must not be modified.
+     *
+     * @return shared audio buffer of track
+     * @throws AudioEngineException if track is closed, or too long for audio buffer
+     * @throws IllegalArgumentException if track format can't be converted to float
+     * @see AudioBuffer#of(Track)
+     */
+    public AudioBuffer getAudioBuffer() {
+        AudioBuffer buffer = audioBuffer;
+        if (buffer == null) {
+            synchronized (this) {
+                ensureOpen();
+                buffer = audioBuffer;
+                if (buffer == null) {
+                    buffer = AudioBuffer.of(this);
+                    audioBuffer = buffer;
+                }
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns new handle over the same data, for code, which keeps track longer than its owner.
+     * Memory isn't freed, until all handles are closed. Metadata object is shared.
+     *
+     * @return new track over the same memory
+     * @throws AudioEngineException if track is closed
+     */
+    public Track retain() {
+        ensureOpen();
+        return new Track(segments.clone(), duration, format, metaData, memories);
+    }
+
+    /**
+     * Releases reference to track memory. Memory is freed, when all views
+     * over it are closed too. Next calls do nothing.
+     */
+    @Override
+    public void close() {
+        handle.close();
+        audioBuffer = null;
+    }
+
+    public boolean isClosed() {
+        return handle.isClosed();
+    }
+
+    /**
+     * Enables logging of creation stack of tracks, which are collected by GC without {@link #close()}.
+     * Stacks are recorded only for tracks, created while detection is enabled.
+     *
+     * @param enabled log leaks
+     */
+    public static void setLeakDetection(boolean enabled) {
+        TrackMemory.setLeakDetection(enabled);
+    }
+
+    public static boolean isLeakDetection() {
+        return TrackMemory.isLeakDetection();
+    }
+
+    /**
+     * @return count of tracks, which were collected by GC without {@link #close()}
+     */
+    public static long getLeakCount() {
+        return TrackMemory.getLeakCount();
+    }
+
+    private void ensureOpen() {
+        if (handle.isClosed()) {
+            throw new AudioEngineException("Track is closed");
+        }
+    }
+
+    private int requireFrameSize() {
+        int frameSize = TrackFormatUtils.frameSize(format);
+        if (frameSize == 0) {
+            throw new AudioEngineException(format.audioCodec() + " track has no fixed frame size");
+        }
+        return frameSize;
+    }
+
+    private static TrackMetadata copyMetadata(TrackMetadata metaData, Duration duration) {
+        if (metaData == null) return null;
+        TrackMetadata copy = new TrackMetadata(metaData);
+        copy.setDuration(duration);
+        return copy;
+    }
+
     public TrackMetadata getMetaData() {
         return metaData;
     }
@@ -71,4 +406,4 @@ public class Track {
     public void setMetaData(TrackMetadata metaData) {
         this.metaData = metaData;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package org.plovdev.audioengine.tracks;
+
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * {@link TrackSource} over data of already loaded track.
+ * Source owns the track and closes it with itself.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+class TrackBufferSource implements TrackSource {
+    private final Track track;
+    private final List<ByteBuffer> segments;
+    private final int frameSize;
+    private long position;
+
+    TrackBufferSource(Track track) {
+        this.track = track;
+        this.segments = track.getSegments();
+        this.frameSize = TrackFormatUtils.frameSize(track.getFormat());
+    }
+
+    @Override
+    public TrackFormat getFormat() {
+        return track.getFormat();
+    }
+
+    @Override
+    public long getFrameLength() {
+        return track.getFrameCount();
+    }
+
+    @Override
+    public long getFramePosition() {
+        return position;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+        long left = getFrameLength() - position;
+        if (left <= 0) return -1;
+
+        int frames = (int) Math.min(left, dst.remaining() / frameSize);
+        long offset = position * frameSize;
+        int remaining = frames * frameSize;
+        for (ByteBuffer segment : segments) {
+            if (remaining == 0) break;
+            int size = segment.remaining();
+            if (offset >= size) {
+                offset -= size;
+                continue;
+            }
+            int length = (int) Math.min(size - offset, remaining);
+            dst.put(segment.slice(segment.position() + (int) offset, length));
+            remaining -= length;
+            offset = 0;
+        }
+        position += frames;
+        return frames;
+    }
+
+    @Override
+    public boolean isSeekable() {
+        return true;
+    }
+
+    @Override
+    public void seek(long frame) {
+        position = Math.max(0, Math.min(frame, getFrameLength()));
+    }
+
+    @Override
+    public TrackMetadata getMetadata() {
+        return track.getMetaData();
+    }
+
+    @Override
+    public void close() {
+        track.close();
+    }
+}
@@ -0,0 +1,186 @@
+package org.plovdev.audioengine.tracks;
+
+import org.plovdev.audioengine.exceptions.AudioEngineException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.Cleaner;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reference counted owner of direct buffers of tracks.
+ * <p>
+ * Every {@link Track}, and every view created by {@link Track#slice(long, long)},
+ * {@link Track#concat(Track...)} or {@link Track#retain()}, holds one reference.
+ * When the last one is released, buffers, acquired from {@link AudioBufferPool} by loaders,
+ * codecs and mixer, are returned to it at once, without waiting for garbage collector.
+ * Other buffers (allocated by caller, or mapped from file) may still be referenced
+ * outside of track, so they are never freed explicitly: they are left to GC.
+ * </p>
+ * <p>
+ * Tracks, which become unreachable without {@link Track#close()}, are released
+ * by {@link Cleaner} and counted as leaks. Memory of leaked track is never freed
+ * explicitly, because buffers got from it may still be used: it's left to GC.
+ * With leak detection on, creation stack of leaked track is logged.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class TrackMemory {
+    private static final Logger log = LoggerFactory.getLogger(TrackMemory.class);
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final LongAdder LEAKS = new LongAdder();
+    private static final BufferFreer FREER = BufferFreer.create();
+    private static volatile boolean leakDetection = false;
+
+    private final ByteBuffer[] buffers;
+    private final boolean mapped;
+    private final AtomicInteger references = new AtomicInteger(); // -1 after release of the last reference
+    private volatile boolean leaked = false;
+
+    TrackMemory(ByteBuffer[] buffers, boolean mapped) {
+        this.buffers = buffers;
+        this.mapped = mapped;
+    }
+
+    /**
+     * @return true, if buffers are mapped from file
+     */
+    boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * @throws AudioEngineException if memory is already freed
+     */
+    void retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count < 0) {
+                throw new AudioEngineException("Track memory is already released");
+            }
+        } while (!references.compareAndSet(count, count + 1));
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0 && references.compareAndSet(0, -1)) {
+            AudioBufferPool pool = AudioBufferPool.getInstance();
+            for (ByteBuffer buffer : buffers) {
+                if (leaked) {
+                    pool.forget(buffer);
+                } else {
+                    pool.release(buffer); // not pooled buffers are left to GC
+                }
+            }
+        }
+    }
+
+    /**
+     * Frees direct buffer at once, if it isn't a slice or duplicate of other buffer.
+     * Used only by {@link AudioBufferPool} for buffers, which it allocated.
+     */
+    static void free(ByteBuffer buffer) {
+        FREER.free(buffer);
+    }
+
+    /**
+     * Registers track handle, which releases memories when closed or collected.
+     *
+     * @param track track, which holds references
+     * @param memories retained memories of track
+     * @return handle, which is cleaned by {@link Track#close()}
+     */
+    static Handle register(Track track, TrackMemory[] memories) {
+        Handle handle = new Handle(memories, leakDetection ? new Throwable("Track created here") : null);
+        handle.cleanable = CLEANER.register(track, handle);
+        return handle;
+    }
+
+    static void setLeakDetection(boolean enabled) {
+        leakDetection = enabled;
+    }
+
+    static boolean isLeakDetection() {
+        return leakDetection;
+    }
+
+    static long getLeakCount() {
+        return LEAKS.sum();
+    }
+
+    /**
+     * Cleaning action of one track. It mustn't reference track itself.
+     */
+    static final class Handle implements Runnable {
+        private final TrackMemory[] memories;
+        private final Throwable creation;
+        private Cleaner.Cleanable cleanable;
+        private volatile boolean closed = false;
+
+        private Handle(TrackMemory[] memories, Throwable creation) {
+            this.memories = memories;
+            this.creation = creation;
+        }
+
+        /**
+         * Releases memories once. Next calls do nothing.
+         */
+        void close() {
+            closed = true;
+            cleanable.clean();
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void run() {
+            if (!closed) {
+                LEAKS.increment();
+                if (creation != null) {
+                    log.warn("Track was not closed before garbage collection", creation);
+                }
+            }
+            for (TrackMemory memory : memories) {
+                if (!closed) {
+                    memory.leaked = true;
+                }
+                memory.release();
+            }
+        }
+    }
+
+    /**
+     * Frees direct buffers with {@code sun.misc.Unsafe.invokeCleaner}, if it's accessible.
+     */
+    private interface BufferFreer {
+        void free(ByteBuffer buffer);
+
+        static BufferFreer create() {
+            try {
+                Class<?> type = Class.forName("sun.misc.Unsafe");
+                Field field = type.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                Object unsafe = field.get(null);
+                var invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+                return buffer -> {
+                    if (!buffer.isDirect()) return;
+                    try {
+                        invokeCleaner.invoke(unsafe, buffer);
+                    } catch (ReflectiveOperationException e) {
+                        // Срез или дубликат чужого буфера: освободит GC
+                    }
+                };
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.debug("Direct buffers will be freed by GC: {}", e.toString());
+                return buffer -> {};
+            }
+        }
+    }
+}
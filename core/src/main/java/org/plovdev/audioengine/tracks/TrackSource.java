@@ -0,0 +1,175 @@
+package org.plovdev.audioengine.tracks;
+
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental source of decoded track frames.
+ * <p>
+ * Unlike {@link Track}, source doesn't hold the whole audio in memory: frames
+ * are decoded on demand, when {@link #read(ByteBuffer)} is called. It's used for
+ * compressed and remote tracks, which are played while decoding.
+ * </p>
+ *
+ * @see Track
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public interface TrackSource extends AutoCloseable {
+    /**
+     * @return format of decoded frames
+     */
+    TrackFormat getFormat();
+
+    /**
+     * @return total frames count, or -1 if unknown
+     */
+    long getFrameLength();
+
+    /**
+     * @return index of the next frame, which will be read
+     */
+    long getFramePosition();
+
+    /**
+     * Decodes whole frames into dst, from its position up to limit.
+     * Position of dst is advanced.
+     *
+     * @param dst target buffer
+     * @return read frames count, or -1 at the end of source
+     * @throws TrackLoadException if source can't be read or decoded
+     */
+    int read(ByteBuffer dst) throws TrackLoadException;
+
+    boolean isSeekable();
+
+    /**
+     * Moves source to frame, so next {@link #read(ByteBuffer)} starts from it.
+     *
+     * @param frame frame index
+     * @throws UnsupportedOperationException if source isn't {@link #isSeekable() seekable}
+     * @throws TrackLoadException if source can't be read
+     */
+    void seek(long frame) throws TrackLoadException;
+
+    TrackMetadata getMetadata();
+
+    /**
+     * @return total duration, or null if unknown
+     */
+    default Duration getDuration() {
+        long frames = getFrameLength();
+        return frames < 0 ? null : TrackFormatUtils.calculateDuration(getFormat(), frames);
+    }
+
+    /**
+     * Reads all remaining frames into track.
+     * Long tracks are split into frame aligned segments.
+     *
+     * @return track with remaining frames
+     * @throws TrackLoadException if source can't be read or decoded
+     */
+    default Track readTrack() throws TrackLoadException {
+        return readTrack(Long.MAX_VALUE);
+    }
+
+    /**
+     * Reads up to frames count into track, or less at the end of source.
+     * Long tracks are split into frame aligned segments.
+     *
+     * @param frames max frames count
+     * @return track with read frames
+     * @throws TrackLoadException if source can't be read or decoded
+     */
+    default Track readTrack(long frames) throws TrackLoadException {
+        TrackFormat format = getFormat();
+        int frameSize = TrackFormatUtils.frameSize(format);
+        long segmentFrames = (1 << 30) / frameSize;
+        boolean known = getFrameLength() >= 0;
+        long left = known ? Math.min(frames, getFrameLength() - getFramePosition()) : frames;
+
+        List<ByteBuffer> segments = new ArrayList<>();
+        AudioBufferPool pool = AudioBufferPool.getInstance();
+        long read = 0;
+        boolean end = left <= 0;
+        try {
+            while (!end) {
+                // Unknown length is read by 1M frames blocks
+                long size = Math.min(segmentFrames, left - read);
+                if (!known) {
+                    size = Math.min(size, 1 << 20);
+                }
+                ByteBuffer segment = pool.acquire((int) (size * frameSize)).order(format.byteOrder());
+                segments.add(segment);
+                while (segment.remaining() >= frameSize) {
+                    int count = read(segment);
+                    if (count < 0) {
+                        end = true;
+                        break;
+                    }
+                    read += count;
+                }
+                segment.flip();
+                if (read >= left) {
+                    end = true;
+                }
+            }
+        } catch (RuntimeException e) {
+            segments.forEach(pool::release);
+            throw e;
+        }
+        if (segments.isEmpty()) {
+            segments.add(ByteBuffer.allocateDirect(0));
+        }
+        return new Track(segments.toArray(ByteBuffer[]::new), TrackFormatUtils.calculateDuration(format, read), format, getMetadata());
+    }
+
+    /**
+     * Moves source forward by frames count. Seekable sources are seeked,
+     * other are read and dropped.
+     *
+     * @param frames frames count to skip
+     * @return skipped frames count, less than frames at the end of source
+     * @throws TrackLoadException if source can't be read or decoded
+     */
+    default long skip(long frames) throws TrackLoadException {
+        long start = getFramePosition();
+        if (isSeekable()) {
+            long target = getFrameLength() < 0 ? start + frames : Math.min(start + frames, getFrameLength());
+            seek(target);
+            return getFramePosition() - start;
+        }
+        int frameSize = TrackFormatUtils.frameSize(getFormat());
+        ByteBuffer discard = ByteBuffer.allocate(Math.max(frameSize, 64 * 1024 / frameSize * frameSize));
+        long skipped = 0;
+        while (skipped < frames) {
+            discard.clear().limit((int) Math.min(discard.capacity(), (frames - skipped) * frameSize));
+            int count = read(discard);
+            if (count < 0) break;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    void close();
+
+    /**
+     * Source, which reads frames of loaded track.
+     * Source takes ownership of track: closing source closes the track.
+     *
+     * @param track loaded track, use {@link Track#retain()} to keep it after source is closed
+     * @return seekable source
+     */
+    static TrackSource of(Track track) {
+        return new TrackBufferSource(track);
+    }
+}
@@ -0,0 +1,386 @@
+package org.plovdev.audioengine.tracks.format;
+
+import org.plovdev.audioengine.exceptions.AudioEngineException;
+import org.plovdev.audioengine.tracks.AudioBuffer;
+import org.plovdev.audioengine.tracks.Track;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plans and runs conversion of tracks between any two formats.
+ * <p>
+ * For every pair of formats planner chooses the cheapest chain of {@link Step steps}:
+ * formats with the same channels and sample rate are converted by {@link SampleConverter}
+ * directly, other go through planar {@link AudioBuffer}: decode, channel map, resample,
+ * dither and requantize. Chains are compiled once per format pair, with resampler
+ * tables, and cached, so repeated conversions don't plan again.
+ * </p>
+ * <p>
+ * {@link #negotiate(TrackFormat, Collection)} chooses format from a set, like
+ * {@link org.plovdev.audioengine.devices.AudioDeviceInfo#supportedForamts()},
+ * which source is converted to with the least cost and quality loss.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ * @see SampleConverter
+ */
+public final class FormatConverter {
+    private static final Map<Pair, Chain> CHAINS = new ConcurrentHashMap<>();
+    private static final Map<Negotiation, Chain> NEGOTIATIONS = new ConcurrentHashMap<>();
+    private static final int LOSS_COST = 16; // дороже любой обработки: потеря качества хуже лишних шагов
+
+    private FormatConverter() {}
+
+    /**
+     * Conversion step with its relative cost per sample.
+     */
+    public enum Step {
+        /**
+         * Raw or compressed samples are decoded into float.
+         */
+        DECODE(1),
+        /**
+         * Channels are duplicated, mixed down, or dropped.
+         */
+        CHANNEL_MAP(2),
+        /**
+         * Sample rate is changed by windowed sinc interpolation.
+         */
+        RESAMPLE(8),
+        /**
+         * Triangular noise of one target step is added before requantizing to 16 bits or less.
+         */
+        DITHER(1),
+        /**
+         * Samples are encoded into target sample format and codec.
+         */
+        REQUANTIZE(1);
+
+        private final int cost;
+
+        Step(int cost) {
+            this.cost = cost;
+        }
+
+        public int getCost() {
+            return cost;
+        }
+    }
+
+    /**
+     * Returns cached conversion chain for format pair.
+     *
+     * @param source track format
+     * @param target required format
+     * @return compiled chain, empty if formats have the same samples
+     * @throws IllegalArgumentException if any format can't be converted
+     */
+    public static Chain plan(TrackFormat source, TrackFormat target) {
+        Chain chain = CHAINS.get(new Pair(source, target));
+        return chain != null ? chain : CHAINS.computeIfAbsent(new Pair(source, target), pair -> compile(pair.source(), pair.target()));
+    }
+
+    /**
+     * Chooses the cheapest chain from source to one of targets. If source is among
+     * targets, empty chain is returned. Result is cached per source and targets set.
+     *
+     * @param source track format
+     * @param targets acceptable formats, for example formats of device
+     * @return chain to chosen format
+     * @throws IllegalArgumentException if targets is empty, or no target is reachable
+     */
+    public static Chain negotiate(TrackFormat source, Collection<TrackFormat> targets) {
+        if (targets instanceof Set<TrackFormat> set) {
+            Chain chain = NEGOTIATIONS.get(new Negotiation(source, set)); // без копии на частом пути
+            if (chain != null) return chain;
+        }
+        return NEGOTIATIONS.computeIfAbsent(new Negotiation(source, Set.copyOf(targets)), k -> choose(k.source(), k.targets()));
+    }
+
+    private static Chain choose(TrackFormat source, Set<TrackFormat> targets) {
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("No target formats for " + source);
+        }
+        if (targets.contains(source)) {
+            return plan(source, source);
+        }
+        List<Chain> chains = new ArrayList<>();
+        for (TrackFormat target : targets) {
+            if (isConvertible(target)) {
+                chains.add(plan(source, target));
+            }
+        }
+        return chains.stream()
+                .min(Comparator.comparingInt(Chain::cost).thenComparing(chain -> chain.target().toString()))
+                .orElseThrow(() -> new IllegalArgumentException("None of " + targets + " is reachable from " + source));
+    }
+
+    /**
+     * Converts track with cached chain.
+     *
+     * @return new track, which must be closed by caller
+     * @see Chain#convert(Track)
+     */
+    public static Track convert(Track track, TrackFormat target) {
+        return plan(track.getFormat(), target).convert(track);
+    }
+
+    private static Chain compile(TrackFormat source, TrackFormat target) {
+        if (!isConvertible(source) || !isConvertible(target)) {
+            throw new IllegalArgumentException("Can't convert " + source + " to " + target);
+        }
+        if (source.channels() <= 0 || target.channels() <= 0 || source.sampleRate() <= 0 || target.sampleRate() <= 0) {
+            throw new IllegalArgumentException("Invalid formats: " + source + ", " + target);
+        }
+        EnumSet<Step> steps = EnumSet.noneOf(Step.class);
+        boolean sameSamples = source.audioCodec() == target.audioCodec()
+                && source.bitsPerSample() == target.bitsPerSample()
+                && source.signed() == target.signed()
+                && (source.bitsPerSample() <= 8 || source.byteOrder() == target.byteOrder());
+        boolean planar = source.channels() != target.channels() || source.sampleRate() != target.sampleRate();
+        if (!sameSamples || planar) {
+            steps.add(Step.DECODE);
+            steps.add(Step.REQUANTIZE);
+        }
+        if (source.channels() != target.channels()) {
+            steps.add(Step.CHANNEL_MAP);
+        }
+        if (source.sampleRate() != target.sampleRate()) {
+            steps.add(Step.RESAMPLE);
+        }
+        int targetBits = resolution(target);
+        if (targetBits <= 16 && !steps.isEmpty() && (planar || resolution(source) > targetBits)) {
+            steps.add(Step.DITHER);
+        }
+
+        int cost = 0;
+        for (Step step : steps) {
+            cost += step.getCost();
+        }
+        if (resolution(target) < resolution(source)) cost += LOSS_COST;
+        if (target.channels() < source.channels()) cost += LOSS_COST;
+        if (target.sampleRate() < source.sampleRate()) cost += LOSS_COST;
+
+        Resampler resampler = steps.contains(Step.RESAMPLE) ? new Resampler(source.sampleRate(), target.sampleRate()) : null;
+        return new Chain(source, target, List.copyOf(steps), cost, resampler);
+    }
+
+    private static boolean isConvertible(TrackFormat format) {
+        return SampleConverter.isSupported(format) || G711Codec.isSupported(format) || format.audioCodec() == TrackFormat.AudioCodec.ADPCM;
+    }
+
+    /**
+     * @return effective bits of sample, compressed formats are decoded into 16 bits
+     */
+    private static int resolution(TrackFormat format) {
+        return switch (format.audioCodec()) {
+            case FLOAT32 -> 25;
+            case FLOAT64 -> 54;
+            case PCM8, PCM16, PCM24, PCM32 -> format.bitsPerSample();
+            default -> 16;
+        };
+    }
+
+    /**
+     * Compiled conversion from one format into another.
+     */
+    public static final class Chain {
+        private final TrackFormat source;
+        private final TrackFormat target;
+        private final List<Step> steps;
+        private final int cost;
+        private final Resampler resampler;
+
+        private Chain(TrackFormat source, TrackFormat target, List<Step> steps, int cost, Resampler resampler) {
+            this.source = source;
+            this.target = target;
+            this.steps = steps;
+            this.cost = cost;
+            this.resampler = resampler;
+        }
+
+        /**
+         * Converts track of source format.
+         *
+         * @param track track in source format
+         * @return new track in target format, or new handle of the same track for empty chain;
+         * it must be closed by caller
+         * @throws IllegalArgumentException if track has other format
+         * @throws AudioEngineException if track is too long for planar conversion
+         */
+        public Track convert(Track track) {
+            if (!track.getFormat().equals(source)) {
+                throw new IllegalArgumentException("Chain converts " + source + ", not " + track.getFormat());
+            }
+            if (steps.isEmpty()) {
+                return track.retain();
+            }
+            if (!steps.contains(Step.CHANNEL_MAP) && !steps.contains(Step.RESAMPLE) && !steps.contains(Step.DITHER)) {
+                Track converted = SampleConverter.convert(track, target);
+                return converted == track ? track.retain() : converted;
+            }
+
+            AudioBuffer buffer = AudioBuffer.of(track);
+            if (steps.contains(Step.CHANNEL_MAP)) {
+                buffer = mapChannels(buffer, target.channels());
+            }
+            if (resampler != null) {
+                buffer = resampler.resample(buffer);
+            }
+            if (steps.contains(Step.DITHER)) {
+                dither(buffer, resolution(target));
+            }
+            return buffer.toTrack(target);
+        }
+
+        public TrackFormat source() {
+            return source;
+        }
+
+        public TrackFormat target() {
+            return target;
+        }
+
+        public List<Step> steps() {
+            return steps;
+        }
+
+        /**
+         * @return relative cost of chain, with penalty for lost channels, rate or resolution
+         */
+        public int cost() {
+            return cost;
+        }
+
+        @Override
+        public String toString() {
+            return "Chain" + steps + " " + source + " -> " + target;
+        }
+    }
+
+    /**
+     * Mono is copied to every channel, everything is averaged into mono,
+     * other layouts keep common channels and fill new ones with silence.
+     */
+    private static AudioBuffer mapChannels(AudioBuffer buffer, int channels) {
+        int frames = buffer.getFrameCount();
+        AudioBuffer out = new AudioBuffer(channels, frames, buffer.getSampleRate());
+        if (channels == 1) {
+            float[] mono = out.getChannel(0);
+            float scale = 1.0f / buffer.getChannelCount();
+            for (int c = 0; c < buffer.getChannelCount(); c++) {
+                float[] channel = buffer.getChannel(c);
+                for (int i = 0; i < frames; i++) {
+                    mono[i] += channel[i] * scale;
+                }
+            }
+        } else {
+            for (int c = 0; c < channels; c++) {
+                int from = buffer.getChannelCount() == 1 ? 0 : c;
+                if (from < buffer.getChannelCount()) {
+                    System.arraycopy(buffer.getChannel(from), 0, out.getChannel(c), 0, frames);
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Adds TPDF noise of ±1 step of target resolution. Generator is seeded,
+     * so conversion of the same track gives the same result.
+     */
+    private static void dither(AudioBuffer buffer, int bits) {
+        float step = 1.0f / (1 << (bits - 1));
+        long state = 0x9E3779B97F4A7C15L;
+        for (int c = 0; c < buffer.getChannelCount(); c++) {
+            float[] channel = buffer.getChannel(c);
+            for (int i = 0; i < channel.length; i++) {
+                state ^= state << 13;
+                state ^= state >>> 7;
+                state ^= state << 17;
+                // Сумма двух равномерных величин из одного 64-битного значения
+                float noise = ((int) state >>> 8) * 0x1.0p-24f + ((int) (state >>> 32) >>> 8) * 0x1.0p-24f - 1.0f;
+                channel[i] += noise * step;
+            }
+        }
+    }
+
+    /**
+     * Polyphase windowed sinc resampler. Positions are computed from exact
+     * rate ratio, so long tracks don't drift.
+     */
+    private static final class Resampler {
+        private static final int HALF_TAPS = 16;
+        private static final int PHASES = 256;
+
+        private final int sourceRate;
+        private final int targetRate;
+        private final float[][] table;
+
+        Resampler(int sourceRate, int targetRate) {
+            this.sourceRate = sourceRate;
+            this.targetRate = targetRate;
+            this.table = new float[PHASES][2 * HALF_TAPS];
+            double cutoff = Math.min(1.0, (double) targetRate / sourceRate);
+            for (int p = 0; p < PHASES; p++) {
+                double frac = (double) p / PHASES;
+                for (int k = 0; k < 2 * HALF_TAPS; k++) {
+                    double x = k - HALF_TAPS + 1 - frac;
+                    double window = 0.42 + 0.5 * Math.cos(Math.PI * x / HALF_TAPS) + 0.08 * Math.cos(2 * Math.PI * x / HALF_TAPS); // Blackman
+                    table[p][k] = (float) (cutoff * sinc(cutoff * x) * window);
+                }
+            }
+        }
+
+        private static double sinc(double x) {
+            return x == 0 ? 1.0 : Math.sin(Math.PI * x) / (Math.PI * x);
+        }
+
+        AudioBuffer resample(AudioBuffer buffer) {
+            long frames = (long) buffer.getFrameCount() * targetRate / sourceRate;
+            if (frames > Integer.MAX_VALUE - 8) {
+                throw new AudioEngineException("Track is too long for resampling: " + frames + " frames");
+            }
+            AudioBuffer out = new AudioBuffer(buffer.getChannelCount(), (int) frames, targetRate);
+            for (int c = 0; c < buffer.getChannelCount(); c++) {
+                resample(buffer.getChannel(c), out.getChannel(c));
+            }
+            return out;
+        }
+
+        private void resample(float[] in, float[] out) {
+            for (int i = 0; i < out.length; i++) {
+                long position = (long) i * sourceRate;
+                int base = (int) (position / targetRate);
+                float[] taps = table[(int) (position % targetRate * PHASES / targetRate)];
+                int start = base - HALF_TAPS + 1;
+                float sum = 0;
+                if (start >= 0 && start + taps.length <= in.length) {
+                    for (int k = 0; k < taps.length; k++) {
+                        sum += in[start + k] * taps[k];
+                    }
+                } else {
+                    for (int k = 0; k < taps.length; k++) {
+                        int index = start + k;
+                        if (index >= 0 && index < in.length) {
+                            sum += in[index] * taps[k];
+                        }
+                    }
+                }
+                out[i] = sum;
+            }
+        }
+    }
+
+    private record Pair(TrackFormat source, TrackFormat target) {}
+
+    private record Negotiation(TrackFormat source, Set<TrackFormat> targets) {}
+}
@@ -0,0 +1,293 @@
+package org.plovdev.audioengine.tracks.format;
+
+import org.plovdev.audioengine.tracks.AudioBufferPool;
+import org.plovdev.audioengine.tracks.Track;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * ITU-T G.711 A-law and μ-law codec.
+ * <p>
+ * Every code is decoded by 256-entry table, and every 16-bit sample is encoded by
+ * 65536-entry table, so both directions are one array lookup per sample.
+ * Encode tables take 128 KB and are built on first encoding.
+ * Track conversions process large segments by blocks in parallel.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ * @see SampleConverter
+ */
+public class G711Codec {
+    private static final short[] ALAW_TO_PCM = new short[256];
+    private static final short[] ULAW_TO_PCM = new short[256];
+    private static final int BLOCK_SAMPLES = 1 << 16;
+    private static final int PARALLEL_BLOCK = 1 << 20;
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            ALAW_TO_PCM[i] = alawToLinear(i);
+            ULAW_TO_PCM[i] = ulawToLinear(i);
+        }
+    }
+
+    private G711Codec() {
+    }
+
+    /**
+     * @return true for A-law and μ-law formats
+     */
+    public static boolean isSupported(TrackFormat format) {
+        return format.audioCodec() == TrackFormat.AudioCodec.ALAW || format.audioCodec() == TrackFormat.AudioCodec.ULAW;
+    }
+
+    public static short decodeAlaw(byte code) {
+        return ALAW_TO_PCM[code & 0xFF];
+    }
+
+    public static short decodeUlaw(byte code) {
+        return ULAW_TO_PCM[code & 0xFF];
+    }
+
+    public static byte encodeAlaw(short sample) {
+        return EncodeTables.PCM_TO_ALAW[sample & 0xFFFF];
+    }
+
+    public static byte encodeUlaw(short sample) {
+        return EncodeTables.PCM_TO_ULAW[sample & 0xFFFF];
+    }
+
+    /**
+     * Decodes all codes from src position to limit into 16-bit samples.
+     * Positions of both buffers are advanced.
+     *
+     * @param codec {@link TrackFormat.AudioCodec#ALAW} or {@link TrackFormat.AudioCodec#ULAW}
+     * @throws BufferOverflowException if dst has not enough space
+     */
+    public static void decode(ByteBuffer src, TrackFormat.AudioCodec codec, ShortBuffer dst) {
+        short[] table = decodeTable(codec);
+        int count = src.remaining();
+        if (dst.remaining() < count) {
+            throw new BufferOverflowException();
+        }
+        byte[] codes = new byte[Math.min(count, BLOCK_SAMPLES)];
+        short[] samples = new short[codes.length];
+        for (int done = 0; done < count; done += codes.length) {
+            int length = Math.min(codes.length, count - done);
+            src.get(codes, 0, length);
+            for (int i = 0; i < length; i++) {
+                samples[i] = table[codes[i] & 0xFF];
+            }
+            dst.put(samples, 0, length);
+        }
+    }
+
+    /**
+     * Encodes all 16-bit samples from src position to limit into codes.
+     * Positions of both buffers are advanced.
+     *
+     * @param codec {@link TrackFormat.AudioCodec#ALAW} or {@link TrackFormat.AudioCodec#ULAW}
+     * @throws BufferOverflowException if dst has not enough space
+     */
+    public static void encode(ShortBuffer src, TrackFormat.AudioCodec codec, ByteBuffer dst) {
+        byte[] table = encodeTable(codec);
+        int count = src.remaining();
+        if (dst.remaining() < count) {
+            throw new BufferOverflowException();
+        }
+        short[] samples = new short[Math.min(count, BLOCK_SAMPLES)];
+        byte[] codes = new byte[samples.length];
+        for (int done = 0; done < count; done += samples.length) {
+            int length = Math.min(samples.length, count - done);
+            src.get(samples, 0, length);
+            for (int i = 0; i < length; i++) {
+                codes[i] = table[samples[i] & 0xFFFF];
+            }
+            dst.put(codes, 0, length);
+        }
+    }
+
+    /**
+     * Decodes A-law or μ-law track into 16-bit signed little-endian PCM.
+     *
+     * @param track track with G.711 samples
+     * @return new track with the same metadata
+     * @throws IllegalArgumentException if track isn't G.711
+     */
+    public static Track decode(Track track) {
+        TrackFormat source = track.getFormat();
+        if (!isSupported(source)) {
+            throw new IllegalArgumentException("Not a G.711 track: " + source.audioCodec());
+        }
+        TrackFormat format = new TrackFormat(source.extension(), source.channels(), 16, source.sampleRate(), true,
+                ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.PCM16);
+
+        // one code gives two bytes, so source segments are split in halves of max output segment
+        int partSize = (MAX_SEGMENT_SIZE / 2 / source.channels()) * source.channels();
+        List<ByteBuffer> segments = new ArrayList<>();
+        for (ByteBuffer segment : track.getSegments()) {
+            ByteBuffer data = segment.duplicate();
+            while (data.hasRemaining()) {
+                ByteBuffer part = data.slice(data.position(), Math.min(partSize, data.remaining()));
+                data.position(data.position() + part.remaining());
+                ByteBuffer out = AudioBufferPool.getInstance().acquire(part.remaining() * 2).order(ByteOrder.LITTLE_ENDIAN);
+                forEachBlock(part.remaining(), (from, to) ->
+                        decode(part.slice(from, to - from), source.audioCodec(), out.slice(from * 2, (to - from) * 2).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer()));
+                segments.add(out);
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(ByteBuffer.allocateDirect(0).order(ByteOrder.LITTLE_ENDIAN));
+        }
+        return new Track(segments.toArray(ByteBuffer[]::new), track.getDuration(), format, track.getMetaData());
+    }
+
+    /**
+     * Encodes 16-bit signed PCM track into A-law or μ-law.
+     *
+     * @param track track with PCM16 samples, in any byte order
+     * @param format target format, with {@link TrackFormat.AudioCodec#ALAW} or {@link TrackFormat.AudioCodec#ULAW} codec
+     * @return new track with the same metadata
+     * @throws IllegalArgumentException if track isn't signed PCM16, or format isn't G.711
+     */
+    public static Track encode(Track track, TrackFormat format) {
+        TrackFormat source = track.getFormat();
+        if (source.audioCodec() != TrackFormat.AudioCodec.PCM16 || !source.signed()) {
+            throw new IllegalArgumentException("G.711 encoder needs signed PCM16 samples, not " + source);
+        }
+        if (!isSupported(format)) {
+            throw new IllegalArgumentException("Not a G.711 format: " + format.audioCodec());
+        }
+        encodeTable(format.audioCodec()); // build tables before workers start
+
+        List<ByteBuffer> segments = new ArrayList<>();
+        for (ByteBuffer segment : track.getSegments()) {
+            ByteBuffer data = segment.duplicate().order(source.byteOrder());
+            int samples = data.remaining() / 2;
+            ByteBuffer out = AudioBufferPool.getInstance().acquire(samples).order(format.byteOrder());
+            forEachBlock(samples, (from, to) ->
+                    encode(data.slice(data.position() + from * 2, (to - from) * 2).order(source.byteOrder()).asShortBuffer(), format.audioCodec(), out.slice(from, to - from)));
+            segments.add(out);
+        }
+        if (segments.isEmpty()) {
+            segments.add(ByteBuffer.allocateDirect(0));
+        }
+        TrackFormat target = new TrackFormat(format.extension(), source.channels(), 8, source.sampleRate(), true, format.byteOrder(), format.audioCodec());
+        return new Track(segments.toArray(ByteBuffer[]::new), track.getDuration(), target, track.getMetaData());
+    }
+
+    private interface BlockAction {
+        void run(int from, int to);
+    }
+
+    private static void forEachBlock(int count, BlockAction action) {
+        int blocks = (count + PARALLEL_BLOCK - 1) / PARALLEL_BLOCK;
+        IntStream stream = IntStream.range(0, blocks);
+        (blocks > 1 ? stream.parallel() : stream).forEach(block -> {
+            int from = block * PARALLEL_BLOCK;
+            action.run(from, Math.min(count, from + PARALLEL_BLOCK));
+        });
+    }
+
+    private static short[] decodeTable(TrackFormat.AudioCodec codec) {
+        return switch (codec) {
+            case ALAW -> ALAW_TO_PCM;
+            case ULAW -> ULAW_TO_PCM;
+            default -> throw new IllegalArgumentException("Not a G.711 codec: " + codec);
+        };
+    }
+
+    private static byte[] encodeTable(TrackFormat.AudioCodec codec) {
+        return switch (codec) {
+            case ALAW -> EncodeTables.PCM_TO_ALAW;
+            case ULAW -> EncodeTables.PCM_TO_ULAW;
+            default -> throw new IllegalArgumentException("Not a G.711 codec: " + codec);
+        };
+    }
+
+    private static short alawToLinear(int code) {
+        code ^= 0x55;
+        int value = (code & 0x0F) << 4;
+        int segment = (code & 0x70) >> 4;
+        value = switch (segment) {
+            case 0 -> value + 8;
+            case 1 -> value + 0x108;
+            default -> (value + 0x108) << (segment - 1);
+        };
+        return (short) ((code & 0x80) != 0 ? value : -value);
+    }
+
+    private static short ulawToLinear(int code) {
+        code = ~code;
+        int value = (((code & 0x0F) << 3) + 0x84) << ((code & 0x70) >> 4);
+        return (short) ((code & 0x80) != 0 ? 0x84 - value : value - 0x84);
+    }
+
+    /**
+     * Lazy holder, decoders don't need 128 KB of encode tables.
+     */
+    private static final class EncodeTables {
+        private static final byte[] PCM_TO_ALAW = new byte[65536];
+        private static final byte[] PCM_TO_ULAW = new byte[65536];
+
+        static {
+            for (int i = 0; i < 65536; i++) {
+                PCM_TO_ALAW[i] = linearToAlaw((short) i);
+                PCM_TO_ULAW[i] = linearToUlaw((short) i);
+            }
+        }
+
+        private static byte linearToAlaw(short sample) {
+            int value = sample >> 3;
+            int mask;
+            if (value >= 0) {
+                mask = 0xD5;
+            } else {
+                mask = 0x55;
+                value = -value - 1;
+            }
+            int segment = segment(value, 0x1F);
+            if (segment >= 8) {
+                return (byte) (0x7F ^ mask);
+            }
+            int code = segment << 4 | (value >> (segment < 2 ? 1 : segment)) & 0x0F;
+            return (byte) (code ^ mask);
+        }
+
+        private static byte linearToUlaw(short sample) {
+            int value = sample >> 2;
+            int mask;
+            if (value < 0) {
+                value = -value;
+                mask = 0x7F;
+            } else {
+                mask = 0xFF;
+            }
+            value = Math.min(value, 8159) + (0x84 >> 2);
+            int segment = segment(value, 0x3F);
+            if (segment >= 8) {
+                return (byte) (0x7F ^ mask);
+            }
+            int code = segment << 4 | (value >> (segment + 1)) & 0x0F;
+            return (byte) (code ^ mask);
+        }
+
+        /**
+         * Segment of value, where segment ends are (firstEnd + 1) * 2^n - 1.
+         */
+        private static int segment(int value, int firstEnd) {
+            int segment = 0;
+            for (int end = firstEnd; segment < 8 && value > end; end = end << 1 | 1) {
+                segment++;
+            }
+            return segment;
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package org.plovdev.audioengine.tracks.format;
+
+import org.plovdev.audioengine.tracks.AudioBufferPool;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * IMA ADPCM codec with WAV block layout (format tag 0x0011).
+ * <p>
+ * Every block starts with 4-byte header per channel: first sample and step index, so blocks
+ * don't depend on each other and are decoded and encoded in parallel. Step updates are read
+ * from 89x16 precomputed tables of differences and next step indexes.
+ * </p>
+ * <p>
+ * Block size isn't part of {@link TrackFormat}, it's kept in {@link TrackMetadata#getBlockAlign()}.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ * @see SampleConverter
+ */
+public class ImaAdpcmCodec {
+    private static final int[] STEPS = {
+            7, 8, 9, 10, 11, 12, 13, 14, 16, 17, 19, 21, 23, 25, 28, 31, 34, 37, 41, 45,
+            50, 55, 60, 66, 73, 80, 88, 97, 107, 118, 130, 143, 157, 173, 190, 209, 230, 253, 279, 307,
+            337, 371, 408, 449, 494, 544, 598, 658, 724, 796, 876, 963, 1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066,
+            2272, 2499, 2749, 3024, 3327, 3660, 4026, 4428, 4871, 5358, 5894, 6484, 7132, 7845, 8630, 9493, 10442, 11487, 12635, 13899,
+            15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794, 32767
+    };
+    private static final int[] INDEX_SHIFTS = {-1, -1, -1, -1, 2, 4, 6, 8};
+    private static final int MAX_INDEX = STEPS.length - 1;
+
+    // разница предсказания и следующий индекс шага для [индекс шага * 16 + код]
+    private static final int[] DIFFS = new int[STEPS.length * 16];
+    private static final byte[] NEXT_INDEX = new byte[STEPS.length * 16];
+
+    private static final int GROUP_BLOCKS = 64;
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    static {
+        for (int index = 0; index < STEPS.length; index++) {
+            int step = STEPS[index];
+            for (int code = 0; code < 16; code++) {
+                int diff = step >> 3;
+                if ((code & 4) != 0) diff += step;
+                if ((code & 2) != 0) diff += step >> 1;
+                if ((code & 1) != 0) diff += step >> 2;
+                DIFFS[index * 16 + code] = (code & 8) != 0 ? -diff : diff;
+                NEXT_INDEX[index * 16 + code] = (byte) Math.clamp(index + INDEX_SHIFTS[code & 7], 0, MAX_INDEX);
+            }
+        }
+    }
+
+    private ImaAdpcmCodec() {
+    }
+
+    /**
+     * @return frames in one block: header sample and 8 samples for every 4 data bytes of channel
+     */
+    public static int samplesPerBlock(int blockAlign, int channels) {
+        return (blockAlign - 4 * channels) * 8 / (4 * channels) + 1;
+    }
+
+    /**
+     * @return block size, which holds givven frames, rounded up to whole 4-byte words
+     */
+    public static int blockAlign(int samplesPerBlock, int channels) {
+        return 4 * channels + (samplesPerBlock - 1 + 7) / 8 * 4 * channels;
+    }
+
+    /**
+     * Usual block size of Windows encoders: 256 bytes per channel up to 11 kHz, twice more for every rate doubling.
+     */
+    public static int defaultBlockAlign(int channels, int sampleRate) {
+        return 256 * channels * Math.max(1, sampleRate / 11000);
+    }
+
+    /**
+     * @return frames count of data, last block may be incomplete
+     */
+    public static long frameCount(long dataSize, int blockAlign, int channels) {
+        long blocks = dataSize / blockAlign;
+        long frames = blocks * samplesPerBlock(blockAlign, channels);
+        long tail = dataSize % blockAlign;
+        if (tail >= 4L * channels) {
+            frames += samplesPerBlock((int) tail / (4 * channels) * (4 * channels), channels);
+        }
+        return frames;
+    }
+
+    /**
+     * Decodes one block into interleaved 16-bit samples.
+     *
+     * @param block block bytes
+     * @param offset block start in array
+     * @param length block size, can be less than block align for last block
+     * @param channels channels count
+     * @param dst interleaved samples, at least {@code samplesPerBlock(length, channels) * channels}
+     * @return decoded frames count
+     */
+    public static int decodeBlock(byte[] block, int offset, int length, int channels, short[] dst) {
+        int frames = samplesPerBlock(length, channels);
+        int words = (frames - 1) / 8;
+        for (int ch = 0; ch < channels; ch++) {
+            int header = offset + ch * 4;
+            int predictor = (short) ((block[header] & 0xFF) | block[header + 1] << 8);
+            int index = Math.clamp(block[header + 2] & 0xFF, 0, MAX_INDEX);
+            dst[ch] = (short) predictor;
+
+            int out = channels + ch;
+            for (int word = 0; word < words; word++) {
+                int in = offset + 4 * channels + (word * channels + ch) * 4;
+                for (int b = 0; b < 4; b++) {
+                    int codes = block[in + b];
+                    for (int nibble = 0; nibble < 2; nibble++, out += channels) {
+                        int key = index << 4 | (codes >> (nibble * 4)) & 0x0F;
+                        predictor = Math.clamp(predictor + DIFFS[key], Short.MIN_VALUE, Short.MAX_VALUE);
+                        index = NEXT_INDEX[key];
+                        dst[out] = (short) predictor;
+                    }
+                }
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * Encodes interleaved 16-bit samples into one block.
+     * Block size is {@code blockAlign(frames, channels)}, missing samples of last word repeat the last sample.
+     *
+     * @param src interleaved samples
+     * @param from first frame index
+     * @param frames frames count in block
+     * @param channels channels count
+     * @param dst block bytes
+     * @param offset block start in dst
+     * @return block size
+     */
+    public static int encodeBlock(short[] src, int from, int frames, int channels, byte[] dst, int offset) {
+        int words = (frames - 1 + 7) / 8;
+        for (int ch = 0; ch < channels; ch++) {
+            int first = src[from * channels + ch];
+            int predictor = first;
+            int index = initialIndex(src, from, frames, channels, ch);
+            int header = offset + ch * 4;
+            dst[header] = (byte) predictor;
+            dst[header + 1] = (byte) (predictor >> 8);
+            dst[header + 2] = (byte) index;
+            dst[header + 3] = 0;
+
+            int frame = 1;
+            for (int word = 0; word < words; word++) {
+                int out = offset + 4 * channels + (word * channels + ch) * 4;
+                for (int b = 0; b < 4; b++) {
+                    int codes = 0;
+                    for (int nibble = 0; nibble < 2; nibble++, frame++) {
+                        int sample = frame < frames ? src[(from + frame) * channels + ch] : predictor;
+                        int code = quantize(sample - predictor, STEPS[index]);
+                        int key = index << 4 | code;
+                        predictor = Math.clamp(predictor + DIFFS[key], Short.MIN_VALUE, Short.MAX_VALUE);
+                        index = NEXT_INDEX[key];
+                        codes |= code << (nibble * 4);
+                    }
+                    dst[out + b] = (byte) codes;
+                }
+            }
+        }
+        return 4 * channels + words * 4 * channels;
+    }
+
+    /**
+     * Decodes IMA ADPCM track into 16-bit signed little-endian PCM. Blocks are decoded in parallel.
+     *
+     * @param track track with IMA ADPCM samples, block size is taken from metadata,
+     *              or {@link #defaultBlockAlign(int, int)} if it's not set
+     * @return new track with the same metadata
+     * @throws IllegalArgumentException if track isn't IMA ADPCM, or block size is invalid
+     */
+    public static Track decode(Track track) {
+        TrackFormat source = track.getFormat();
+        if (source.audioCodec() != TrackFormat.AudioCodec.ADPCM) {
+            throw new IllegalArgumentException("Not an IMA ADPCM track: " + source.audioCodec());
+        }
+        int channels = source.channels();
+        int blockAlign = blockAlign(track);
+        int samplesPerBlock = samplesPerBlock(blockAlign, channels);
+        TrackFormat format = new TrackFormat(source.extension(), channels, 16, source.sampleRate(), true,
+                ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.PCM16);
+
+        long dataSize = track.getByteLength();
+        long blocks = (dataSize + blockAlign - 1) / blockAlign;
+        if (dataSize % blockAlign != 0 && dataSize % blockAlign < 4L * channels) {
+            blocks--; // неполный заголовок последнего блока
+        }
+        long frames = frameCount(dataSize, blockAlign, channels);
+        int frameSize = 2 * channels;
+        long segmentBlocks = Math.max(GROUP_BLOCKS, MAX_SEGMENT_SIZE / ((long) samplesPerBlock * frameSize) / GROUP_BLOCKS * GROUP_BLOCKS);
+        ByteBuffer[] segments = allocate((frames + samplesPerBlock - 1) / samplesPerBlock, segmentBlocks, (long) samplesPerBlock * frameSize,
+                frames * frameSize);
+
+        SegmentReader reader = new SegmentReader(track.getSegments());
+        long groups = (blocks + GROUP_BLOCKS - 1) / GROUP_BLOCKS;
+        long totalBlocks = blocks;
+        try {
+            parallel(groups, group -> {
+                byte[] block = new byte[blockAlign];
+                short[] samples = new short[samplesPerBlock * channels];
+                long first = group * GROUP_BLOCKS;
+                ByteBuffer out = segments[(int) (first / segmentBlocks)].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                out.position((int) ((first % segmentBlocks) * samplesPerBlock * frameSize));
+                for (long b = first; b < Math.min(totalBlocks, first + GROUP_BLOCKS); b++) {
+                    long offset = b * blockAlign;
+                    int length = (int) Math.min(blockAlign, dataSize - offset);
+                    length = length / (4 * channels) * (4 * channels);
+                    reader.read(offset, block, length);
+                    int decoded = decodeBlock(block, 0, length, channels, samples);
+                    out.asShortBuffer().put(samples, 0, decoded * channels);
+                    out.position(out.position() + decoded * frameSize);
+                }
+            });
+        } catch (RuntimeException e) {
+            release(segments);
+            throw e;
+        }
+
+        TrackMetadata metadata = track.getMetaData();
+        return new Track(segments, TrackFormatUtils.calculateDuration(format, frames), format, metadata);
+    }
+
+    /**
+     * Encodes 16-bit signed PCM track into IMA ADPCM. Blocks are encoded in parallel.
+     *
+     * @param track track with PCM16 samples, in any byte order
+     * @param format target format, with {@link TrackFormat.AudioCodec#ADPCM} codec
+     * @param blockAlign block size, 4 bytes per channel header and at least one 4-byte word per channel
+     * @return new track, with copy of source metadata and block size
+     * @throws IllegalArgumentException if track isn't signed PCM16, or block size is invalid
+     */
+    public static Track encode(Track track, TrackFormat format, int blockAlign) {
+        TrackFormat source = track.getFormat();
+        if (source.audioCodec() != TrackFormat.AudioCodec.PCM16 || !source.signed()) {
+            throw new IllegalArgumentException("IMA ADPCM encoder needs signed PCM16 samples, not " + source);
+        }
+        int channels = source.channels();
+        checkBlockAlign(blockAlign, channels);
+        int samplesPerBlock = samplesPerBlock(blockAlign, channels);
+        int frameSize = 2 * channels;
+
+        long frames = track.getFrameCount();
+        long blocks = (frames + samplesPerBlock - 1) / samplesPerBlock;
+        int tailFrames = (int) (frames - (blocks - 1) * samplesPerBlock);
+        long dataSize = blocks == 0 ? 0 : (blocks - 1) * blockAlign + blockAlign(tailFrames, channels);
+        long segmentBlocks = Math.max(GROUP_BLOCKS, MAX_SEGMENT_SIZE / blockAlign / GROUP_BLOCKS * GROUP_BLOCKS);
+        ByteBuffer[] segments = allocate(blocks, segmentBlocks, blockAlign, dataSize);
+
+        SegmentReader reader = new SegmentReader(track.getSegments());
+        boolean bigEndian = source.byteOrder() == ByteOrder.BIG_ENDIAN;
+        try {
+            parallel((blocks + GROUP_BLOCKS - 1) / GROUP_BLOCKS, group -> {
+                byte[] raw = new byte[samplesPerBlock * frameSize];
+                short[] samples = new short[samplesPerBlock * channels];
+                byte[] block = new byte[blockAlign];
+                long first = group * GROUP_BLOCKS;
+                ByteBuffer out = segments[(int) (first / segmentBlocks)].duplicate();
+                out.position((int) ((first % segmentBlocks) * blockAlign));
+                for (long b = first; b < Math.min(blocks, first + GROUP_BLOCKS); b++) {
+                    int count = (int) Math.min(samplesPerBlock, frames - b * samplesPerBlock);
+                    reader.read(b * samplesPerBlock * frameSize, raw, count * frameSize);
+                    ByteBuffer.wrap(raw, 0, count * frameSize).order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN)
+                            .asShortBuffer().get(samples, 0, count * channels);
+                    int size = encodeBlock(samples, 0, count, channels, block, 0);
+                    out.put(block, 0, size);
+                }
+            });
+        } catch (RuntimeException e) {
+            release(segments);
+            throw e;
+        }
+
+        TrackMetadata metadata = track.getMetaData() != null ? new TrackMetadata(track.getMetaData()) : new TrackMetadata();
+        metadata.setBlockAlign(blockAlign);
+        TrackFormat target = new TrackFormat(format.extension(), channels, 4, source.sampleRate(), true, ByteOrder.LITTLE_ENDIAN,
+                TrackFormat.AudioCodec.ADPCM);
+        return new Track(segments, TrackFormatUtils.calculateDuration(target, frames), target, metadata);
+    }
+
+    /**
+     * @return block size from track metadata, or default one
+     */
+    public static int blockAlign(Track track) {
+        TrackFormat format = track.getFormat();
+        return blockAlign(track.getMetaData(), format.channels(), format.sampleRate());
+    }
+
+    /**
+     * @param metadata track metadata, can be null
+     * @return block size from metadata, or default one
+     * @throws IllegalArgumentException if block size from metadata is invalid
+     */
+    public static int blockAlign(TrackMetadata metadata, int channels, int sampleRate) {
+        int blockAlign = metadata != null ? metadata.getBlockAlign().orElse(0) : 0;
+        if (blockAlign == 0) {
+            blockAlign = defaultBlockAlign(channels, sampleRate);
+        }
+        checkBlockAlign(blockAlign, channels);
+        return blockAlign;
+    }
+
+    private static void checkBlockAlign(int blockAlign, int channels) {
+        if (channels <= 0 || blockAlign < 8 * channels || blockAlign % (4 * channels) != 0) {
+            throw new IllegalArgumentException("Invalid IMA ADPCM block size " + blockAlign + " for " + channels + " channels");
+        }
+    }
+
+    /**
+     * Start step index, which step is close to average difference of first samples.
+     */
+    private static int initialIndex(short[] src, int from, int frames, int channels, int ch) {
+        int count = Math.min(frames - 1, 8);
+        if (count <= 0) return 0;
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += Math.abs(src[(from + i + 1) * channels + ch] - src[(from + i) * channels + ch]);
+        }
+        int average = sum / count;
+        int index = 0;
+        while (index < MAX_INDEX && STEPS[index] < average) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int quantize(int diff, int step) {
+        int code = 0;
+        if (diff < 0) {
+            code = 8;
+            diff = -diff;
+        }
+        if (diff >= step) {
+            code |= 4;
+            diff -= step;
+        }
+        step >>= 1;
+        if (diff >= step) {
+            code |= 2;
+            diff -= step;
+        }
+        step >>= 1;
+        if (diff >= step) {
+            code |= 1;
+        }
+        return code;
+    }
+
+    /**
+     * Acquires output segments from {@link AudioBufferPool}, every segment holds {@code segmentBlocks} blocks, except the last.
+     */
+    private static ByteBuffer[] allocate(long blocks, long segmentBlocks, long blockBytes, long totalBytes) {
+        int count = (int) Math.max(1, (blocks + segmentBlocks - 1) / segmentBlocks);
+        ByteBuffer[] segments = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long size = Math.min(segmentBlocks * blockBytes, totalBytes - i * segmentBlocks * blockBytes);
+            segments[i] = AudioBufferPool.getInstance().acquire((int) Math.max(0, size)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return segments;
+    }
+
+    private static void release(ByteBuffer[] segments) {
+        for (ByteBuffer segment : segments) {
+            AudioBufferPool.getInstance().release(segment);
+        }
+    }
+
+    private interface GroupAction {
+        void run(long group);
+    }
+
+    /**
+     * Runs all groups. Failure is rethrown only after all groups are finished,
+     * so output segments aren't written, when they are released.
+     */
+    private static void parallel(long groups, GroupAction action) {
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+        IntStream stream = IntStream.range(0, (int) groups);
+        (groups > 1 ? stream.parallel() : stream).forEach(group -> {
+            if (error.get() != null) return;
+            try {
+                action.run(group);
+            } catch (RuntimeException e) {
+                error.compareAndSet(null, e);
+            }
+        });
+        if (error.get() != null) {
+            throw error.get();
+        }
+    }
+
+    /**
+     * Reads bytes at absolute offsets of track data, which can span segments.
+     */
+    private static final class SegmentReader {
+        private final ByteBuffer[] segments;
+        private final long[] starts;
+
+        SegmentReader(List<ByteBuffer> segments) {
+            this.segments = segments.toArray(new ByteBuffer[0]);
+            this.starts = new long[this.segments.length];
+            long start = 0;
+            for (int i = 0; i < this.segments.length; i++) {
+                starts[i] = start;
+                start += this.segments[i].remaining();
+            }
+        }
+
+        void read(long offset, byte[] dst, int length) {
+            int i = segmentOf(offset);
+            int done = 0;
+            while (done < length) {
+                ByteBuffer segment = segments[i];
+                int from = (int) (offset + done - starts[i]);
+                int count = Math.min(length - done, segment.remaining() - from);
+                segment.get(segment.position() + from, dst, done, count);
+                done += count;
+                i++;
+            }
+        }
+
+        private int segmentOf(long offset) {
+            int low = 0;
+            int high = starts.length - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (starts[middle] <= offset) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package org.plovdev.audioengine.tracks.format;
+
+import org.plovdev.audioengine.tracks.AudioBufferPool;
+import org.plovdev.audioengine.tracks.Track;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts raw samples of PCM and float formats into normalized float [-1.0, 1.0] and back.
+ * <p>
+ * Samples are converted by blocks: raw samples are bulk copied into primitive array
+ * (byte order is handled by buffer views), and then converted by Vector API kernels,
+ * if {@code jdk.incubator.vector} module is enabled ({@code --add-modules jdk.incubator.vector}),
+ * or by scalar loops otherwise. Both give the same results.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ * @see TrackFormat
+ */
+public class SampleConverter {
+    private static final SampleKernels KERNELS = SampleKernels.create();
+    private static final int BLOCK_SAMPLES = 4096;
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    private SampleConverter() {
+    }
+
+    /**
+     * Check, can samples of format be converted to float.
+     *
+     * @param format source format
+     * @return true for PCM8/16/24/32 and FLOAT32/64
+     */
+    public static boolean isSupported(TrackFormat format) {
+        return switch (format.audioCodec()) {
+            case PCM8, PCM16, PCM24, PCM32, FLOAT32, FLOAT64 -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @return true, if conversions use Vector API kernels
+     */
+    public static boolean isVectorized() {
+        return KERNELS.isVectorized();
+    }
+
+    /**
+     * Converts all samples from src position to limit, and puts them into dst.
+     * Positions of both buffers are advanced.
+     *
+     * @param src raw samples, in format byte order
+     * @param format samples format
+     * @param dst interleaved float samples
+     * @throws IllegalArgumentException if format isn't {@link #isSupported(TrackFormat) supported}
+     * @throws BufferOverflowException if dst has not enough space
+     */
+    public static void toFloat(ByteBuffer src, TrackFormat format, FloatBuffer dst) {
+        checkSupported(format);
+        ByteBuffer in = src.slice().order(format.byteOrder());
+        int bytes = sampleSize(format);
+        int samples = in.remaining() / bytes;
+        if (dst.remaining() < samples) {
+            throw new BufferOverflowException();
+        }
+        boolean flip = !format.signed();
+
+        switch (format.audioCodec()) {
+            case PCM8 -> {
+                byte[] raw = new byte[Math.min(samples, BLOCK_SAMPLES)];
+                float[] out = new float[raw.length];
+                for (int done = 0; done < samples; done += raw.length) {
+                    int count = Math.min(raw.length, samples - done);
+                    in.get(raw, 0, count);
+                    KERNELS.bytesToFloat(raw, out, 0, count, 1.0f / 128, flip);
+                    dst.put(out, 0, count);
+                }
+            }
+            case PCM16 -> {
+                ShortBuffer view = in.asShortBuffer();
+                short[] raw = new short[Math.min(samples, BLOCK_SAMPLES)];
+                float[] out = new float[raw.length];
+                for (int done = 0; done < samples; done += raw.length) {
+                    int count = Math.min(raw.length, samples - done);
+                    view.get(raw, 0, count);
+                    KERNELS.shortsToFloat(raw, out, 0, count, 1.0f / 32768, flip);
+                    dst.put(out, 0, count);
+                }
+            }
+            case PCM24 -> {
+                int[] raw = new int[Math.min(samples, BLOCK_SAMPLES)];
+                float[] out = new float[raw.length];
+                for (int done = 0; done < samples; done += raw.length) {
+                    int count = Math.min(raw.length, samples - done);
+                    unpack24(in, done * 3, raw, count, format.byteOrder(), flip);
+                    KERNELS.intsToFloat(raw, out, 0, count, 1.0f / 8388608, false);
+                    dst.put(out, 0, count);
+                }
+            }
+            case PCM32 -> {
+                IntBuffer view = in.asIntBuffer();
+                int[] raw = new int[Math.min(samples, BLOCK_SAMPLES)];
+                float[] out = new float[raw.length];
+                for (int done = 0; done < samples; done += raw.length) {
+                    int count = Math.min(raw.length, samples - done);
+                    view.get(raw, 0, count);
+                    KERNELS.intsToFloat(raw, out, 0, count, 1.0f / 2147483648L, flip);
+                    dst.put(out, 0, count);
+                }
+            }
+            case FLOAT32 -> dst.put(in.asFloatBuffer().limit(samples));
+            case FLOAT64 -> {
+                DoubleBuffer view = in.asDoubleBuffer();
+                double[] raw = new double[Math.min(samples, BLOCK_SAMPLES)];
+                float[] out = new float[raw.length];
+                for (int done = 0; done < samples; done += raw.length) {
+                    int count = Math.min(raw.length, samples - done);
+                    view.get(raw, 0, count);
+                    KERNELS.doublesToFloat(raw, out, 0, count);
+                    dst.put(out, 0, count);
+                }
+            }
+            default -> throw new IllegalStateException();
+        }
+
+        src.position(src.position() + samples * bytes);
+    }
+
+    /**
+     * Converts all float samples from src position to limit into raw samples of format.
+     * Samples out of [-1.0, 1.0] are clamped for integer formats.
+     * Positions of both buffers are advanced.
+     *
+     * @param src interleaved float samples
+     * @param format target format
+     * @param dst raw samples, written in format byte order
+     * @throws IllegalArgumentException if format isn't {@link #isSupported(TrackFormat) supported}
+     * @throws BufferOverflowException if dst has not enough space
+     */
+    public static void fromFloat(FloatBuffer src, TrackFormat format, ByteBuffer dst) {
+        checkSupported(format);
+        int bytes = sampleSize(format);
+        int samples = src.remaining();
+        if (dst.remaining() / bytes < samples) {
+            throw new BufferOverflowException();
+        }
+        ByteBuffer out = dst.slice().order(format.byteOrder());
+        boolean flip = !format.signed();
+
+        if (format.audioCodec() == TrackFormat.AudioCodec.FLOAT32) {
+            out.asFloatBuffer().put(src);
+        } else {
+            float[] in = new float[Math.min(samples, BLOCK_SAMPLES)];
+            Object raw = switch (format.audioCodec()) {
+                case PCM8 -> new byte[in.length];
+                case PCM16 -> new short[in.length];
+                case PCM24, PCM32 -> new int[in.length];
+                case FLOAT64 -> new double[in.length];
+                default -> throw new IllegalStateException();
+            };
+
+            ShortBuffer shorts = format.audioCodec() == TrackFormat.AudioCodec.PCM16 ? out.asShortBuffer() : null;
+            IntBuffer ints = format.audioCodec() == TrackFormat.AudioCodec.PCM32 ? out.asIntBuffer() : null;
+            DoubleBuffer doubles = format.audioCodec() == TrackFormat.AudioCodec.FLOAT64 ? out.asDoubleBuffer() : null;
+
+            for (int done = 0; done < samples; done += in.length) {
+                int count = Math.min(in.length, samples - done);
+                src.get(in, 0, count);
+                switch (format.audioCodec()) {
+                    case PCM8 -> {
+                        KERNELS.floatToBytes(in, (byte[]) raw, 0, count, 127.0f, flip);
+                        out.put(done, (byte[]) raw, 0, count);
+                    }
+                    case PCM16 -> {
+                        KERNELS.floatToShorts(in, (short[]) raw, 0, count, 32767.0f, flip);
+                        shorts.put((short[]) raw, 0, count);
+                    }
+                    case PCM24 -> {
+                        KERNELS.floatToInts(in, (int[]) raw, 0, count, 8388607.0f, false);
+                        pack24((int[]) raw, count, out, done * 3, format.byteOrder(), flip);
+                    }
+                    case PCM32 -> {
+                        KERNELS.floatToInts(in, (int[]) raw, 0, count, 2147483647.0f, flip);
+                        ints.put((int[]) raw, 0, count);
+                    }
+                    case FLOAT64 -> {
+                        KERNELS.floatToDoubles(in, (double[]) raw, 0, count);
+                        doubles.put((double[]) raw, 0, count);
+                    }
+                    default -> throw new IllegalStateException();
+                }
+            }
+        }
+
+        dst.position(dst.position() + samples * bytes);
+    }
+
+    /**
+     * Converts samples of track into another sample format.
+     * Channels and sample rate are not changed, so they must be the same in both formats.
+     * <p>
+     * A-law, μ-law and IMA ADPCM tracks are decoded through 16-bit PCM by {@link G711Codec}
+     * and {@link ImaAdpcmCodec}, and encoded from it the same way.
+     * </p>
+     *
+     * @param track source track
+     * @param format target format
+     * @return new track in target format with the same metadata, or source track, if formats are equal
+     * @throws IllegalArgumentException if any format isn't {@link #isSupported(TrackFormat) supported}
+     *                                  or compressed by these codecs, or channels and sample rate differ
+     */
+    public static Track convert(Track track, TrackFormat format) {
+        TrackFormat source = track.getFormat();
+        if (isCompressed(source)) {
+            if (source.audioCodec() == format.audioCodec() && source.channels() == format.channels() && source.sampleRate() == format.sampleRate()) {
+                return track;
+            }
+            Track pcm = source.audioCodec() == TrackFormat.AudioCodec.ADPCM ? ImaAdpcmCodec.decode(track) : G711Codec.decode(track);
+            Track converted = convert(pcm, format);
+            if (converted != pcm) {
+                pcm.close();
+            }
+            return converted;
+        }
+        if (isCompressed(format)) {
+            TrackFormat pcm16 = new TrackFormat(format.extension(), format.channels(), 16, format.sampleRate(), true,
+                    ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.PCM16);
+            Track pcm = convert(track, pcm16);
+            Track encoded = format.audioCodec() == TrackFormat.AudioCodec.ADPCM
+                    ? ImaAdpcmCodec.encode(pcm, format, ImaAdpcmCodec.blockAlign(track.getMetaData(), format.channels(), format.sampleRate()))
+                    : G711Codec.encode(pcm, format);
+            if (pcm != track) {
+                pcm.close();
+            }
+            return encoded;
+        }
+        checkSupported(source);
+        checkSupported(format);
+        if (source.channels() != format.channels() || source.sampleRate() != format.sampleRate()) {
+            throw new IllegalArgumentException("Can't convert " + source + " to " + format + ": channels and sample rate must be the same");
+        }
+        if (sameSamples(source, format)) {
+            return track;
+        }
+
+        int channels = format.channels();
+        int frameSize = TrackFormatUtils.frameSize(format);
+        long frames = track.getFrameCount();
+        long segmentFrames = MAX_SEGMENT_SIZE / frameSize;
+
+        List<ByteBuffer> segments = new ArrayList<>();
+        ByteBuffer out = null;
+        long left = frames;
+        FloatBuffer floats = FloatBuffer.allocate((BLOCK_SAMPLES / channels) * channels);
+        int sourceFrameSize = TrackFormatUtils.frameSize(source);
+
+        for (ByteBuffer segment : track.getSegments()) {
+            ByteBuffer data = segment.duplicate();
+            data.limit(data.position() + data.remaining() / sourceFrameSize * sourceFrameSize);
+            while (data.hasRemaining()) {
+                floats.clear();
+                ByteBuffer block = data.slice(data.position(), Math.min(data.remaining(), floats.capacity() / channels * sourceFrameSize));
+                toFloat(block, source, floats);
+                data.position(data.position() + block.position());
+                floats.flip();
+
+                while (floats.hasRemaining()) {
+                    if (out == null || !out.hasRemaining()) {
+                        int size = (int) (Math.min(left, segmentFrames) * frameSize);
+                        out = AudioBufferPool.getInstance().acquire(size).order(format.byteOrder());
+                        segments.add(out);
+                        left -= size / frameSize;
+                    }
+                    FloatBuffer part = floats.slice(floats.position(), Math.min(floats.remaining(), out.remaining() / frameSize * channels));
+                    fromFloat(part, format, out);
+                    floats.position(floats.position() + part.position());
+                }
+            }
+        }
+
+        if (segments.isEmpty()) {
+            segments.add(ByteBuffer.allocateDirect(0).order(format.byteOrder()));
+        }
+        for (ByteBuffer segment : segments) {
+            segment.flip();
+        }
+        return new Track(segments.toArray(ByteBuffer[]::new), TrackFormatUtils.calculateDuration(format, frames), format, track.getMetaData());
+    }
+
+    private static boolean isCompressed(TrackFormat format) {
+        return G711Codec.isSupported(format) || format.audioCodec() == TrackFormat.AudioCodec.ADPCM;
+    }
+
+    private static boolean sameSamples(TrackFormat a, TrackFormat b) {
+        return a.audioCodec() == b.audioCodec()
+                && a.bitsPerSample() == b.bitsPerSample()
+                && a.signed() == b.signed()
+                && (a.bitsPerSample() <= 8 || a.byteOrder() == b.byteOrder());
+    }
+
+    private static void checkSupported(TrackFormat format) {
+        if (!isSupported(format)) {
+            throw new IllegalArgumentException("Can't convert " + format.audioCodec() + " samples");
+        }
+    }
+
+    private static int sampleSize(TrackFormat format) {
+        return switch (format.audioCodec()) {
+            case PCM8 -> 1;
+            case PCM16 -> 2;
+            case PCM24 -> 3;
+            case PCM32, FLOAT32 -> 4;
+            default -> 8;
+        };
+    }
+
+    private static void unpack24(ByteBuffer in, int offset, int[] dst, int count, ByteOrder order, boolean flip) {
+        boolean bigEndian = order == ByteOrder.BIG_ENDIAN;
+        int mask = flip ? 0x800000 : 0;
+        for (int i = 0; i < count; i++, offset += 3) {
+            int b0 = in.get(offset) & 0xFF;
+            int b1 = in.get(offset + 1) & 0xFF;
+            int b2 = in.get(offset + 2) & 0xFF;
+            int sample = (bigEndian ? (b0 << 16) | (b1 << 8) | b2 : (b2 << 16) | (b1 << 8) | b0) ^ mask;
+            dst[i] = (sample << 8) >> 8; // sign extension
+        }
+    }
+
+    private static void pack24(int[] src, int count, ByteBuffer out, int offset, ByteOrder order, boolean flip) {
+        boolean bigEndian = order == ByteOrder.BIG_ENDIAN;
+        int mask = flip ? 0x800000 : 0;
+        for (int i = 0; i < count; i++, offset += 3) {
+            int sample = src[i] ^ mask;
+            byte low = (byte) sample;
+            byte middle = (byte) (sample >> 8);
+            byte high = (byte) (sample >> 16);
+            out.put(offset, bigEndian ? high : low);
+            out.put(offset + 1, middle);
+            out.put(offset + 2, bigEndian ? low : high);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.plovdev.audioengine.tracks.format;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scalar sample conversion loops over primitive arrays.
+ * <p>
+ * Integer samples are scaled by power of two on the way to float, and clamped to [-1.0, 1.0]
+ * and truncated on the way back, same as native mixer does. {@code flip} inverts the most
+ * significant bit, which turns unsigned samples into signed ones and back.
+ * </p>
+ * {@link VectorSampleKernels} overrides these loops with Vector API, when
+ * {@code jdk.incubator.vector} module is available.
+ *
+ * @author Anton
+ * @version 1.0
+ * @see SampleConverter
+ */
+class SampleKernels {
+    private static final Logger log = LoggerFactory.getLogger(SampleKernels.class);
+
+    static SampleKernels create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Загружаем через reflection, чтобы класс не линковался без модуля
+                return (SampleKernels) Class.forName("org.plovdev.audioengine.tracks.format.VectorSampleKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("Vector API is unavailable, using scalar sample conversion: {}", e.toString());
+            }
+        }
+        return new SampleKernels();
+    }
+
+    boolean isVectorized() {
+        return false;
+    }
+
+    void bytesToFloat(byte[] src, float[] dst, int from, int to, float scale, boolean flip) {
+        byte mask = flip ? Byte.MIN_VALUE : 0;
+        for (int i = from; i < to; i++) {
+            dst[i] = (byte) (src[i] ^ mask) * scale;
+        }
+    }
+
+    void shortsToFloat(short[] src, float[] dst, int from, int to, float scale, boolean flip) {
+        short mask = flip ? Short.MIN_VALUE : 0;
+        for (int i = from; i < to; i++) {
+            dst[i] = (short) (src[i] ^ mask) * scale;
+        }
+    }
+
+    void intsToFloat(int[] src, float[] dst, int from, int to, float scale, boolean flip) {
+        int mask = flip ? Integer.MIN_VALUE : 0;
+        for (int i = from; i < to; i++) {
+            dst[i] = (src[i] ^ mask) * scale;
+        }
+    }
+
+    void doublesToFloat(double[] src, float[] dst, int from, int to) {
+        for (int i = from; i < to; i++) {
+            dst[i] = (float) src[i];
+        }
+    }
+
+    void floatToBytes(float[] src, byte[] dst, int from, int to, float scale, boolean flip) {
+        byte mask = flip ? Byte.MIN_VALUE : 0;
+        for (int i = from; i < to; i++) {
+            dst[i] = (byte) ((byte) (clamp(src[i]) * scale) ^ mask);
+        }
+    }
+
+    void floatToShorts(float[] src, short[] dst, int from, int to, float scale, boolean flip) {
+        short mask = flip ? Short.MIN_VALUE : 0;
+        for (int i = from; i < to; i++) {
+            dst[i] = (short) ((short) (clamp(src[i]) * scale) ^ mask);
+        }
+    }
+
+    void floatToInts(float[] src, int[] dst, int from, int to, float scale, boolean flip) {
+        int mask = flip ? Integer.MIN_VALUE : 0;
+        for (int i = from; i < to; i++) {
+            dst[i] = (int) (clamp(src[i]) * scale) ^ mask;
+        }
+    }
+
+    void floatToDoubles(float[] src, double[] dst, int from, int to) {
+        for (int i = from; i < to; i++) {
+            dst[i] = src[i];
+        }
+    }
+
+    private static float clamp(float sample) {
+        return Math.min(1.0f, Math.max(-1.0f, sample));
+    }
+}
@@ -1,5 +1,7 @@
 package org.plovdev.audioengine.tracks.format;
 
+import java.time.Duration;
+
 import static org.plovdev.audioengine.tracks.format.factories.FlacTrackFormatFactory.flac16bitStereo44kHz;
 import static org.plovdev.audioengine.tracks.format.factories.FlacTrackFormatFactory.flac24bitStereo96kHz;
 import static org.plovdev.audioengine.tracks.format.factories.Mp3TrackFormatFactory.*;
@@ -118,7 +120,48 @@ public class TrackFormatUtils {
         }
     }
 
-    public static long calculateDurationMs(TrackFormat format, int sizeInBytes) {
+    /**
+     * Calculate bytes count of one frame (one sample for every channel).
+     *
+     * @return frame size, or 0 for formats without fixed sample size.
+     */
+    public static int frameSize(TrackFormat format) {
+        return (format.bitsPerSample() / 8) * format.channels();
+    }
+
+    /**
+     * Calculate frames count in givven bytes.
+     *
+     * @return frames count, or 0 for formats without fixed sample size.
+     */
+    public static long calculateFrameCount(TrackFormat format, long sizeInBytes) {
+        int frameSize = frameSize(format);
+        return frameSize == 0 ? 0 : sizeInBytes / frameSize;
+    }
+
+    /**
+     * Calculate exact duration of givven frames count.
+     */
+    public static Duration calculateDuration(TrackFormat format, long frames) {
+        long sampleRate = format.sampleRate();
+        if (sampleRate == 0) {
+            return Duration.ZERO;
+        }
+        long seconds = frames / sampleRate;
+        long nanos = (frames % sampleRate) * 1_000_000_000L / sampleRate;
+        return Duration.ofSeconds(seconds, nanos);
+    }
+
+    /**
+     * Calculate frames count of givven duration, rounded down.
+     * It's inverse of {@link #calculateDuration(TrackFormat, long)}.
+     */
+    public static long calculateFrames(TrackFormat format, Duration duration) {
+        long sampleRate = format.sampleRate();
+        return duration.getSeconds() * sampleRate + duration.getNano() * sampleRate / 1_000_000_000L;
+    }
+
+    public static long calculateDurationMs(TrackFormat format, long sizeInBytes) {
         long sampleRate = format.sampleRate();        // Гц (например, 44100)
         long bitsPerSample = format.bitsPerSample();  // бит (например, 16)
         long channels = format.channels();            // каналов (например, 2)
@@ -131,7 +174,7 @@ public class TrackFormatUtils {
         }
 
         // Миллисекунд = (байт * 1000) / (байт/сек)
-        return (sizeInBytes * 1000L) / bytesPerSecond;
+        return (sizeInBytes / bytesPerSecond) * 1000L + (sizeInBytes % bytesPerSecond) * 1000L / bytesPerSecond;
     }
 
     public static int calculateChunkSizeInBytes(TrackFormat f, int ms) {
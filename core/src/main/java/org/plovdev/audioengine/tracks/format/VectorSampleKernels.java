@@ -0,0 +1,144 @@
+package org.plovdev.audioengine.tracks.format;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API versions of {@link SampleKernels} loops.
+ * <p>
+ * Every loop processes as many lanes, as preferred float vector has.
+ * Other lane types use species with the same lane count, if platform has such shape,
+ * otherwise the loop stays scalar. Tail is always converted by scalar loop.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class VectorSampleKernels extends SampleKernels {
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final int LANES = FLOATS.length();
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, FLOATS.vectorShape());
+    private static final VectorSpecies<Byte> BYTES = species(byte.class, Byte.SIZE);
+    private static final VectorSpecies<Short> SHORTS = species(short.class, Short.SIZE);
+    private static final VectorSpecies<Double> DOUBLES = species(double.class, Double.SIZE);
+
+    private static <E> VectorSpecies<E> species(Class<E> type, int bits) {
+        try {
+            VectorSpecies<E> species = VectorSpecies.of(type, VectorShape.forBitSize(LANES * bits));
+            return species.length() == LANES ? species : null; // forBitSize may return max shape
+        } catch (IllegalArgumentException e) {
+            return null; // no shape of such size
+        }
+    }
+
+    @Override
+    boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    void bytesToFloat(byte[] src, float[] dst, int from, int to, float scale, boolean flip) {
+        int i = from;
+        if (BYTES != null) {
+            byte mask = flip ? Byte.MIN_VALUE : 0;
+            for (; i + LANES <= to; i += LANES) {
+                ByteVector samples = ByteVector.fromArray(BYTES, src, i).lanewise(VectorOperators.XOR, mask);
+                ((FloatVector) samples.convertShape(VectorOperators.B2F, FLOATS, 0)).mul(scale).intoArray(dst, i);
+            }
+        }
+        super.bytesToFloat(src, dst, i, to, scale, flip);
+    }
+
+    @Override
+    void shortsToFloat(short[] src, float[] dst, int from, int to, float scale, boolean flip) {
+        int i = from;
+        if (SHORTS != null) {
+            short mask = flip ? Short.MIN_VALUE : 0;
+            for (; i + LANES <= to; i += LANES) {
+                ShortVector samples = ShortVector.fromArray(SHORTS, src, i).lanewise(VectorOperators.XOR, mask);
+                ((FloatVector) samples.convertShape(VectorOperators.S2F, FLOATS, 0)).mul(scale).intoArray(dst, i);
+            }
+        }
+        super.shortsToFloat(src, dst, i, to, scale, flip);
+    }
+
+    @Override
+    void intsToFloat(int[] src, float[] dst, int from, int to, float scale, boolean flip) {
+        int mask = flip ? Integer.MIN_VALUE : 0;
+        int i = from;
+        for (; i + LANES <= to; i += LANES) {
+            IntVector samples = IntVector.fromArray(INTS, src, i).lanewise(VectorOperators.XOR, mask);
+            ((FloatVector) samples.convert(VectorOperators.I2F, 0)).mul(scale).intoArray(dst, i);
+        }
+        super.intsToFloat(src, dst, i, to, scale, flip);
+    }
+
+    @Override
+    void doublesToFloat(double[] src, float[] dst, int from, int to) {
+        int i = from;
+        if (DOUBLES != null) {
+            for (; i + LANES <= to; i += LANES) {
+                ((FloatVector) DoubleVector.fromArray(DOUBLES, src, i).convertShape(VectorOperators.D2F, FLOATS, 0)).intoArray(dst, i);
+            }
+        }
+        super.doublesToFloat(src, dst, i, to);
+    }
+
+    @Override
+    void floatToBytes(float[] src, byte[] dst, int from, int to, float scale, boolean flip) {
+        int i = from;
+        if (BYTES != null) {
+            byte mask = flip ? Byte.MIN_VALUE : 0;
+            for (; i + LANES <= to; i += LANES) {
+                ByteVector samples = (ByteVector) scaled(src, i, scale).convertShape(VectorOperators.F2B, BYTES, 0);
+                samples.lanewise(VectorOperators.XOR, mask).intoArray(dst, i);
+            }
+        }
+        super.floatToBytes(src, dst, i, to, scale, flip);
+    }
+
+    @Override
+    void floatToShorts(float[] src, short[] dst, int from, int to, float scale, boolean flip) {
+        int i = from;
+        if (SHORTS != null) {
+            short mask = flip ? Short.MIN_VALUE : 0;
+            for (; i + LANES <= to; i += LANES) {
+                ShortVector samples = (ShortVector) scaled(src, i, scale).convertShape(VectorOperators.F2S, SHORTS, 0);
+                samples.lanewise(VectorOperators.XOR, mask).intoArray(dst, i);
+            }
+        }
+        super.floatToShorts(src, dst, i, to, scale, flip);
+    }
+
+    @Override
+    void floatToInts(float[] src, int[] dst, int from, int to, float scale, boolean flip) {
+        int mask = flip ? Integer.MIN_VALUE : 0;
+        int i = from;
+        for (; i + LANES <= to; i += LANES) {
+            IntVector samples = (IntVector) scaled(src, i, scale).convert(VectorOperators.F2I, 0);
+            samples.lanewise(VectorOperators.XOR, mask).intoArray(dst, i);
+        }
+        super.floatToInts(src, dst, i, to, scale, flip);
+    }
+
+    @Override
+    void floatToDoubles(float[] src, double[] dst, int from, int to) {
+        int i = from;
+        if (DOUBLES != null) {
+            for (; i + LANES <= to; i += LANES) {
+                ((DoubleVector) FloatVector.fromArray(FLOATS, src, i).convertShape(VectorOperators.F2D, DOUBLES, 0)).intoArray(dst, i);
+            }
+        }
+        super.floatToDoubles(src, dst, i, to);
+    }
+
+    private static FloatVector scaled(float[] src, int offset, float scale) {
+        return FloatVector.fromArray(FLOATS, src, offset).max(-1.0f).min(1.0f).mul(scale);
+    }
+}
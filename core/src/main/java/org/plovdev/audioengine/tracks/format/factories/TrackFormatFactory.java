@@ -108,7 +108,7 @@ public class TrackFormatFactory {
                 48000,
                 true,
                 ByteOrder.LITTLE_ENDIAN,
-                TrackFormat.AudioCodec.PCM32
+                TrackFormat.AudioCodec.FLOAT32
         );
     }
 
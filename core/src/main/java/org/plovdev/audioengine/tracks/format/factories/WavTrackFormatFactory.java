@@ -70,7 +70,7 @@ public class WavTrackFormatFactory {
                 44100,
                 true,
                 ByteOrder.LITTLE_ENDIAN,
-                TrackFormat.AudioCodec.PCM32
+                TrackFormat.AudioCodec.FLOAT32
         );
     }
 
@@ -106,7 +106,7 @@ public class WavTrackFormatFactory {
                 48000,
                 true,
                 ByteOrder.LITTLE_ENDIAN,
-                TrackFormat.AudioCodec.PCM32
+                TrackFormat.AudioCodec.FLOAT32
         );
     }
 
@@ -166,7 +166,7 @@ public class WavTrackFormatFactory {
                 96000,
                 true,
                 ByteOrder.LITTLE_ENDIAN,
-                TrackFormat.AudioCodec.PCM32
+                TrackFormat.AudioCodec.FLOAT32
         );
     }
 
@@ -190,7 +190,7 @@ public class WavTrackFormatFactory {
                 192000,
                 true,
                 ByteOrder.LITTLE_ENDIAN,
-                TrackFormat.AudioCodec.PCM32
+                TrackFormat.AudioCodec.FLOAT32
         );
     }
 }
\ No newline at end of file
@@ -51,6 +51,9 @@ public enum MetaKey {
     ENCODING("ENCODING", String.class),    // Тип кодирования
     FILE_FORMAT("FORMAT", String.class),   // Формат файла
     AUDIO_CODEC("CODEC", String.class),    // Аудио-кодек
+    CHANNEL_MASK("CHANNELMASK", Integer.class), // Маска расположения колонок (WAVE_FORMAT_EXTENSIBLE)
+    VALID_BITS("VALIDBITS", Integer.class), // Значащие биты в сэмпле
+    BLOCK_ALIGN("BLOCKALIGN", Integer.class), // Размер блока сжатых данных (IMA ADPCM)
 
     // ==== Информация о файле ====
     FILE_PATH("FILEPATH", Path.class),     // Путь к файлу
@@ -27,6 +27,13 @@ public class TrackMetadata {
     public TrackMetadata() {
     }
 
+    /**
+     * Creates copy of all entries of other metadata.
+     */
+    public TrackMetadata(TrackMetadata other) {
+        metadata.putAll(other.metadata);
+    }
+
     private <T> void putMetadata(@NotNull MetaKey key, @NotNull T value) {
         Class<?> type = key.getType();
         if (!type.isInstance(value)) {
@@ -93,6 +100,21 @@ public class TrackMetadata {
         return Optional.ofNullable(getMetadata(MetaKey.CHANNELS));
     }
 
+    /**
+     * @return speaker positions bit mask, as in WAVE_FORMAT_EXTENSIBLE
+     */
+    public Optional<Integer> getChannelMask() {
+        return Optional.ofNullable(getMetadata(MetaKey.CHANNEL_MASK));
+    }
+
+    public Optional<Integer> getValidBits() {
+        return Optional.ofNullable(getMetadata(MetaKey.VALID_BITS));
+    }
+
+    public Optional<Integer> getBlockAlign() {
+        return Optional.ofNullable(getMetadata(MetaKey.BLOCK_ALIGN));
+    }
+
     public Optional<String> getEncoder() {
         return Optional.ofNullable(getMetadata(MetaKey.ENCODER));
     }
@@ -232,6 +254,18 @@ public class TrackMetadata {
         putMetadata(MetaKey.CHANNELS, channels);
     }
 
+    public void setChannelMask(Integer channelMask) {
+        putMetadata(MetaKey.CHANNEL_MASK, channelMask);
+    }
+
+    public void setValidBits(Integer validBits) {
+        putMetadata(MetaKey.VALID_BITS, validBits);
+    }
+
+    public void setBlockAlign(Integer blockAlign) {
+        putMetadata(MetaKey.BLOCK_ALIGN, blockAlign);
+    }
+
     public void setEncoder(String encoder) {
         putMetadata(MetaKey.ENCODER, encoder);
     }
@@ -1,5 +1,6 @@
 package org.plovdev.audioengine.utils;
 
+import java.nio.file.Path;
 import java.util.prefs.Preferences;
 
 /**
@@ -17,11 +18,34 @@ public class AudioEngineConfig {
     private static final String NATIVE_LIB_KEY = "native-lib";
     private static final String BUFFER_SIZE_KEY = "buffer-size";
     private static final String PLAYER_THREADS_KEY = "plyer-threads-size";
+    private static final String LOAD_BUDGET_KEY = "load-budget";
+    private static final String TRACK_CACHE_KEY = "track-cache-size";
+    private static final String SIDECAR_CACHE_KEY = "sidecar-cache-dir";
+    private static final String BUFFER_POOL_KEY = "buffer-pool-size";
+
+    /**
+     * Default memory budget of parallel track loading, in mb.
+     */
+    public static final int DEFAULT_LOAD_BUDGET = 512;
+
+    /**
+     * Default size of loaded tracks cache, in mb.
+     */
+    public static final int DEFAULT_TRACK_CACHE_SIZE = 256;
+
+    /**
+     * Default max size of idle buffers in {@link org.plovdev.audioengine.tracks.AudioBufferPool}, in mb.
+     */
+    public static final int DEFAULT_BUFFER_POOL_SIZE = 64;
 
     // Configurable fields
     private NativeLib nativeLib;
     private int bufferSize;
     private int bufferCount;
+    private int loadBudget = DEFAULT_LOAD_BUDGET;
+    private int trackCacheSize = DEFAULT_TRACK_CACHE_SIZE;
+    private Path sidecarCacheDir = null;
+    private int bufferPoolSize = DEFAULT_BUFFER_POOL_SIZE;
 
     public AudioEngineConfig() {}
 
@@ -64,7 +88,13 @@ public class AudioEngineConfig {
         int bufferSize = prefs.getInt(BUFFER_SIZE_KEY, 4096);
         int count = prefs.getInt(PLAYER_THREADS_KEY, 20);
 
-        return new AudioEngineConfig(lib, bufferSize, count);
+        AudioEngineConfig config = new AudioEngineConfig(lib, bufferSize, count);
+        config.setLoadBudget(prefs.getInt(LOAD_BUDGET_KEY, DEFAULT_LOAD_BUDGET));
+        config.setTrackCacheSize(prefs.getInt(TRACK_CACHE_KEY, DEFAULT_TRACK_CACHE_SIZE));
+        String sidecarDir = prefs.get(SIDECAR_CACHE_KEY, "");
+        config.setSidecarCacheDir(sidecarDir.isEmpty() ? null : Path.of(sidecarDir));
+        config.setBufferPoolSize(prefs.getInt(BUFFER_POOL_KEY, DEFAULT_BUFFER_POOL_SIZE));
+        return config;
     }
 
     /**
@@ -87,6 +117,10 @@ public class AudioEngineConfig {
         prefs.put(NATIVE_LIB_KEY, nativeLib.name());
         prefs.putInt(BUFFER_SIZE_KEY, bufferSize);
         prefs.putInt(PLAYER_THREADS_KEY, bufferCount);
+        prefs.putInt(LOAD_BUDGET_KEY, loadBudget);
+        prefs.putInt(TRACK_CACHE_KEY, trackCacheSize);
+        prefs.put(SIDECAR_CACHE_KEY, sidecarCacheDir == null ? "" : sidecarCacheDir.toString());
+        prefs.putInt(BUFFER_POOL_KEY, bufferPoolSize);
     }
 
     // Getters and setters
@@ -128,6 +162,72 @@ public class AudioEngineConfig {
         this.bufferCount = bufferCount;
     }
 
+    public int getLoadBudget() {
+        return loadBudget;
+    }
+
+    /**
+     * Sets memory budget of parallel track loading.
+     *
+     * @param loadBudget max size of tracks, loading at the same time, in mb
+     * @throws IllegalArgumentException if loadBudget < 1
+     */
+    public void setLoadBudget(int loadBudget) {
+        if (loadBudget < 1) {
+            throw new IllegalArgumentException("Load budget must be positive");
+        }
+        this.loadBudget = loadBudget;
+    }
+
+    public int getTrackCacheSize() {
+        return trackCacheSize;
+    }
+
+    /**
+     * Sets size of loaded tracks cache.
+     *
+     * @param trackCacheSize max size of cached tracks in direct memory in mb, 0 disables cache
+     * @throws IllegalArgumentException if trackCacheSize < 0
+     */
+    public void setTrackCacheSize(int trackCacheSize) {
+        if (trackCacheSize < 0) {
+            throw new IllegalArgumentException("Track cache size must not be negative");
+        }
+        this.trackCacheSize = trackCacheSize;
+    }
+
+    public Path getSidecarCacheDir() {
+        return sidecarCacheDir;
+    }
+
+    /**
+     * Sets directory of float32 sidecar cache.
+     * Tracks, loaded by {@link org.plovdev.audioengine.AudioEngine#loadDeviceTrack(String)}, are converted
+     * to float32 once, and mapped from this directory later. Plain loads keep source format.
+     *
+     * @param sidecarCacheDir cache directory, or null to disable sidecar cache
+     */
+    public void setSidecarCacheDir(Path sidecarCacheDir) {
+        this.sidecarCacheDir = sidecarCacheDir;
+    }
+
+    public int getBufferPoolSize() {
+        return bufferPoolSize;
+    }
+
+    /**
+     * Sets max size of idle pooled direct buffers.
+     *
+     * @param bufferPoolSize max size in mb, 0 disables pooling of returned buffers
+     * @throws IllegalArgumentException if bufferPoolSize < 0
+     */
+    public void setBufferPoolSize(int bufferPoolSize) {
+        if (bufferPoolSize < 0) {
+            throw new IllegalArgumentException("Buffer pool size must not be negative");
+        }
+        this.bufferPoolSize = bufferPoolSize;
+    }
+
     /**
      * Available native audio library implementations.
      */
@@ -0,0 +1,152 @@
+package test.plovdev.audioengine.loaders;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.loaders.AsyncTrackReader;
+import org.plovdev.audioengine.loaders.LoadListener;
+import org.plovdev.audioengine.tracks.AudioBufferPool;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncTrackReaderTest {
+    /**
+     * Records callbacks as "started N", "loading N", "finished", "failed", "cancelled".
+     * Result future may complete before last callback, so tests wait for {@link #done}.
+     */
+    private static class RecordingListener implements LoadListener {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        @Override
+        public void onLoadStarted(long total) {
+            events.add("started " + total);
+        }
+
+        @Override
+        public void onLoading(long loaded) {
+            events.add("loading " + loaded);
+        }
+
+        @Override
+        public void onLoadFinished() {
+            events.add("finished");
+            done.countDown();
+        }
+
+        @Override
+        public void onLoadFailed(Exception error) {
+            events.add("failed");
+            done.countDown();
+        }
+
+        @Override
+        public void onLoadCancelled() {
+            events.add("cancelled");
+            done.countDown();
+        }
+    }
+
+    @Test
+    public void testRegionSplitIntoSegments() throws Exception {
+        byte[] bytes = new byte[1000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        Path file = Files.write(Files.createTempFile("async", ".wav"), bytes);
+        try {
+            ByteBuffer[] segments = AsyncTrackReader.read(file, 100, 900, 400, null).get(10, TimeUnit.SECONDS);
+
+            assertEquals(3, segments.length);
+            assertEquals(400, segments[0].remaining());
+            assertEquals(100, segments[2].remaining());
+            assertEquals((byte) 100, segments[0].get(0));
+            assertEquals((byte) 999, segments[2].get(99));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testShortFileFails() throws Exception {
+        Path file = Files.write(Files.createTempFile("async", ".wav"), new byte[10]);
+        try {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> AsyncTrackReader.read(file, 0, 100, 64, null).get(10, TimeUnit.SECONDS));
+            assertInstanceOf(TrackLoadException.class, e.getCause());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testProgressIsThrottled() throws Exception {
+        Path file = Files.write(Files.createTempFile("async", ".wav"), new byte[1000]);
+        RecordingListener listener = new RecordingListener();
+        try {
+            // 4-байтные сегменты: каждое чтение меньше шага прогресса в 10 байт
+            ByteBuffer[] segments = AsyncTrackReader.read(file, 0, 1000, 4, listener).get(10, TimeUnit.SECONDS);
+            assertEquals(250, segments.length);
+            for (ByteBuffer segment : segments) {
+                AudioBufferPool.getInstance().release(segment);
+            }
+            assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+
+            List<String> events = listener.events;
+            assertEquals("started 1000", events.getFirst());
+            assertEquals("finished", events.getLast());
+            assertEquals("loading 1000", events.get(events.size() - 2));
+
+            long previous = 0;
+            int progress = 0;
+            for (String event : events.subList(1, events.size() - 2)) {
+                assertTrue(event.startsWith("loading "), event);
+                long loaded = Long.parseLong(event.substring("loading ".length()));
+                assertTrue(loaded - previous >= 10, "progress step " + (loaded - previous));
+                previous = loaded;
+                progress++;
+            }
+            assertTrue(progress > 0 && progress <= 100);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testCancelReleasesSegments() throws Exception {
+        Path file = Files.write(Files.createTempFile("async", ".wav"), new byte[16 << 20]);
+        AudioBufferPool pool = AudioBufferPool.getInstance();
+        long outstanding = pool.getOutstandingBytes();
+        AtomicReference<CompletableFuture<ByteBuffer[]>> future = new AtomicReference<>();
+        RecordingListener listener = new RecordingListener() {
+            @Override
+            public void onLoading(long loaded) {
+                super.onLoading(loaded);
+                while (future.get() == null) {
+                    Thread.onSpinWait();
+                }
+                future.get().cancel(true); // отмена посреди чтения
+            }
+        };
+        try {
+            future.set(AsyncTrackReader.read(file, 0, 16 << 20, 1 << 20, listener));
+            assertThrows(CancellationException.class, () -> future.get().get(10, TimeUnit.SECONDS));
+            assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+
+            assertEquals(List.of("started " + (16 << 20), "loading " + (1 << 20), "cancelled"), listener.events);
+            assertEquals(outstanding, pool.getOutstandingBytes());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package test.plovdev.audioengine.loaders;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.AudioSignature;
+import org.plovdev.audioengine.loaders.TrackLoaderRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AudioSignatureTest {
+    private static byte[] header(String text) {
+        byte[] bytes = new byte[AudioSignature.PEEK_SIZE];
+        byte[] src = text.getBytes(StandardCharsets.ISO_8859_1);
+        System.arraycopy(src, 0, bytes, 0, Math.min(src.length, bytes.length));
+        return bytes;
+    }
+
+    @Test
+    public void testDetectKnownContainers() {
+        assertEquals(AudioSignature.WAV, AudioSignature.detect(header("RIFF\0\0\0\0WAVEfmt "), 16));
+        assertEquals(AudioSignature.FLAC, AudioSignature.detect(header("fLaC"), 16));
+        assertEquals(AudioSignature.OGG, AudioSignature.detect(header("OggS"), 16));
+        assertEquals(AudioSignature.MP3_ID3, AudioSignature.detect(header("ID3\u0004"), 16));
+        assertEquals(AudioSignature.AIFF, AudioSignature.detect(header("FORM\0\0\0\0AIFF"), 16));
+        assertEquals("mp3", AudioSignature.detect(new byte[]{(byte) 0xFF, (byte) 0xFB, 0, 0}, 4).getExtension());
+    }
+
+    @Test
+    public void testRiffWithoutWaveNotDetected() {
+        assertNull(AudioSignature.detect(header("RIFF\0\0\0\0AVI "), 16));
+    }
+
+    @Test
+    public void testShortHeaderNotDetected() {
+        assertNull(AudioSignature.detect(header("RIFF"), 4));
+    }
+
+    @Test
+    public void testPeekDoesNotConsumeStream() throws Exception {
+        byte[] data = header("fLaC");
+        BufferedInputStream stream = new BufferedInputStream(new ByteArrayInputStream(data));
+        byte[] peeked = new byte[AudioSignature.PEEK_SIZE];
+
+        int length = TrackLoaderRegistry.peek(stream, peeked);
+
+        assertEquals(AudioSignature.PEEK_SIZE, length);
+        assertArrayEquals(data, stream.readAllBytes());
+    }
+
+    @Test
+    public void testExtensionOf() {
+        assertEquals("wav", TrackLoaderRegistry.extensionOf("music/track.wav"));
+        assertEquals("", TrackLoaderRegistry.extensionOf("music.d/track"));
+        assertEquals("", TrackLoaderRegistry.extensionOf(null));
+    }
+}
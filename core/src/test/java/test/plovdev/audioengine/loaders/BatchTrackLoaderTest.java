@@ -0,0 +1,166 @@
+package test.plovdev.audioengine.loaders;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.loaders.BatchTrackLoader;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.factories.WavTrackFormatFactory;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchTrackLoaderTest {
+    private static Track track(String title) {
+        TrackMetadata metadata = new TrackMetadata();
+        metadata.setTitle(title);
+        return new Track(ByteBuffer.allocateDirect(4), Duration.ZERO, WavTrackFormatFactory.wav16bitStereo44kHz(), metadata);
+    }
+
+    private static List<Path> files(Path dir, int count, int size) throws Exception {
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            paths.add(Files.write(dir.resolve(i + ".wav"), new byte[size]));
+        }
+        return paths;
+    }
+
+    @Test
+    public void testTracksKeepOrder() throws Exception {
+        Path dir = Files.createTempDirectory("batch");
+        List<Path> paths = files(dir, 20, 16);
+
+        try (BatchTrackLoader loader = new BatchTrackLoader(p -> track(p.getFileName().toString()), 1 << 20)) {
+            List<Track> tracks = loader.loadAll(paths).get(10, TimeUnit.SECONDS);
+
+            assertEquals(paths.size(), tracks.size());
+            for (int i = 0; i < paths.size(); i++) {
+                assertEquals(paths.get(i).getFileName().toString(), tracks.get(i).getMetaData().getTitle().orElseThrow());
+            }
+        }
+    }
+
+    @Test
+    public void testBudgetBoundsParallelLoads() throws Exception {
+        Path dir = Files.createTempDirectory("batch");
+        List<Path> paths = files(dir, 16, 4096);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        // 8 kb budget fits only two 4 kb files at once
+        try (BatchTrackLoader loader = new BatchTrackLoader(p -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+            return track(p.toString());
+        }, 8192)) {
+            loader.loadAll(paths).get(10, TimeUnit.SECONDS);
+
+            assertTrue(maxActive.get() <= 2);
+            assertEquals(loader.getMemoryBudget(), loader.getAvailableBudget());
+        }
+    }
+
+    @Test
+    public void testFailurePropagates() throws Exception {
+        Path dir = Files.createTempDirectory("batch");
+        List<Path> paths = files(dir, 4, 16);
+
+        try (BatchTrackLoader loader = new BatchTrackLoader(p -> {
+            throw new TrackLoadException("broken " + p);
+        }, 1 << 20)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> loader.loadAll(paths).get(10, TimeUnit.SECONDS));
+            assertInstanceOf(TrackLoadException.class, e.getCause());
+        }
+    }
+
+    @Test
+    public void testLoadedTracksAreClosedOnFailure() throws Exception {
+        Path dir = Files.createTempDirectory("batch");
+        List<Path> paths = files(dir, 4, 16);
+        List<Track> loaded = new CopyOnWriteArrayList<>();
+        CountDownLatch quick = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // 1 и 3 загружаются до ошибки 0, а 2 - уже после неё
+        try (BatchTrackLoader loader = new BatchTrackLoader(p -> {
+            String name = p.getFileName().toString();
+            try {
+                if (name.equals("0.wav")) {
+                    quick.await();
+                    throw new TrackLoadException("broken " + p);
+                }
+                if (name.equals("2.wav")) {
+                    release.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Track track = track(name);
+            loaded.add(track);
+            quick.countDown();
+            return track;
+        }, 1 << 20)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> loader.loadAll(paths).get(10, TimeUnit.SECONDS));
+            assertInstanceOf(TrackLoadException.class, e.getCause());
+            release.countDown();
+
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                while (loaded.size() < 3 || !loaded.stream().allMatch(Track::isClosed)) {
+                    Thread.sleep(1);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testCancelSkipsQueuedAndClosesLoaded() throws Exception {
+        Path dir = Files.createTempDirectory("batch");
+        List<Path> paths = files(dir, 20, 4096);
+        List<Track> loaded = new CopyOnWriteArrayList<>();
+        CountDownLatch entered = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // 8 kb budget: two loads run, the rest wait in queue
+        try (BatchTrackLoader loader = new BatchTrackLoader(p -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Track track = track(p.toString());
+            loaded.add(track);
+            return track;
+        }, 8192)) {
+            CompletableFuture<List<Track>> result = loader.loadAll(paths);
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+            assertTrue(result.cancel(true));
+            release.countDown();
+
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                while (loaded.size() < 2 || !loaded.stream().allMatch(Track::isClosed)
+                        || loader.getAvailableBudget() != loader.getMemoryBudget()) {
+                    Thread.sleep(1);
+                }
+            });
+            assertEquals(2, loaded.size());
+        }
+    }
+}
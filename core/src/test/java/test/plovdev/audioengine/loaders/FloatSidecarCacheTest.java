@@ -0,0 +1,76 @@
+package test.plovdev.audioengine.loaders;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.FloatSidecarCache;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.factories.WavTrackFormatFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FloatSidecarCacheTest {
+    private static Track pcm16Track() {
+        ByteBuffer data = ByteBuffer.allocateDirect(8).order(ByteOrder.LITTLE_ENDIAN);
+        data.putShort((short) 0).putShort((short) 16384).putShort((short) -32768).putShort((short) -16384).flip();
+        return new Track(data, Duration.ZERO, WavTrackFormatFactory.wav16bitStereo44kHz(), null);
+    }
+
+    @Test
+    public void testStoredSidecarIsMapped() throws Exception {
+        Path dir = Files.createTempDirectory("sidecar");
+        Path source = Files.write(dir.resolve("click.wav"), new byte[16]);
+        FloatSidecarCache cache = new FloatSidecarCache(dir.resolve("cache"));
+
+        assertTrue(cache.load(source).isEmpty());
+        Track stored = cache.store(source, pcm16Track());
+
+        Optional<Track> loaded = cache.load(source);
+        assertTrue(loaded.isPresent());
+        Track track = loaded.get();
+        assertEquals(TrackFormat.AudioCodec.FLOAT32, track.getFormat().audioCodec());
+        assertEquals("wav", track.getFormat().extension());
+        assertEquals(2, track.getFrameCount());
+        assertEquals(stored.getByteLength(), track.getByteLength());
+
+        ByteBuffer data = track.getTrackData().duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0.0f, data.getFloat(0));
+        assertEquals(0.5f, data.getFloat(4));
+        assertEquals(-1.0f, data.getFloat(8));
+        assertEquals(-0.5f, data.getFloat(12));
+    }
+
+    @Test
+    public void testChangedSourceInvalidatesSidecar() throws Exception {
+        Path dir = Files.createTempDirectory("sidecar");
+        Path source = Files.write(dir.resolve("click.wav"), new byte[16]);
+        FloatSidecarCache cache = new FloatSidecarCache(dir.resolve("cache"));
+        cache.store(source, pcm16Track());
+
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 5000));
+
+        assertTrue(cache.load(source).isEmpty());
+    }
+
+    @Test
+    public void testIncompleteLastFrameIsDropped() throws Exception {
+        Path dir = Files.createTempDirectory("sidecar");
+        Path source = Files.write(dir.resolve("click.wav"), new byte[16]);
+        FloatSidecarCache cache = new FloatSidecarCache(dir.resolve("cache"));
+
+        ByteBuffer data = ByteBuffer.allocateDirect(405).order(ByteOrder.LITTLE_ENDIAN); // 101 frames and 1 byte
+        data.putShort(400, (short) 16384);
+        Track track = new Track(data, Duration.ZERO, WavTrackFormatFactory.wav16bitStereo44kHz(), null);
+
+        Track stored = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> cache.store(source, track));
+        assertEquals(101, stored.getFrameCount());
+        assertEquals(0.5f, stored.getTrackData().duplicate().order(ByteOrder.LITTLE_ENDIAN).getFloat(100 * 8));
+    }
+}
@@ -0,0 +1,98 @@
+package test.plovdev.audioengine.loaders;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.HttpRangeChannel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpRangeChannelTest {
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    private static final int BLOCK = 64 * 1024;
+
+    private final byte[] file = new byte[4 * 1024 * 1024 + 123];
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        new Random(7).nextBytes(file);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/file.bin", this::serveRange);
+        server.createContext("/plain.bin", exchange -> send(exchange, 200, 0, file.length));
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private void serveRange(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        Matcher matcher = RANGE.matcher(exchange.getRequestHeaders().getFirst("Range"));
+        assertTrue(matcher.matches());
+        int from = Integer.parseInt(matcher.group(1));
+        int to = Math.min(Integer.parseInt(matcher.group(2)), file.length - 1);
+        exchange.getResponseHeaders().add("Content-Range", "bytes " + from + "-" + to + "/" + file.length);
+        send(exchange, 206, from, to + 1 - from);
+    }
+
+    private void send(HttpExchange exchange, int status, int from, int length) throws IOException {
+        exchange.sendResponseHeaders(status, length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(file, from, length);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    @Test
+    public void testSequentialAndRandomReads() throws IOException {
+        try (HttpRangeChannel channel = HttpRangeChannel.open(uri("/file.bin"), BLOCK, 4, 16)) {
+            assertEquals(file.length, channel.size());
+            ByteBuffer all = ByteBuffer.allocate(file.length);
+            ByteBuffer step = ByteBuffer.allocate(10_000);
+            while (channel.read(step.clear()) > 0) {
+                all.put(step.flip());
+            }
+            assertArrayEquals(file, all.array());
+            assertEquals(-1, channel.read(step.clear()));
+
+            // Начало файла уже вытеснено из кэша и загружается снова
+            channel.position(BLOCK - 10);
+            ByteBuffer span = ByteBuffer.allocate(100);
+            assertEquals(100, channel.read(span));
+            assertEquals(ByteBuffer.wrap(file, BLOCK - 10, 100), span.flip());
+        }
+    }
+
+    @Test
+    public void testSeekFetchesOnlyReadBlocks() throws IOException {
+        try (HttpRangeChannel channel = HttpRangeChannel.open(uri("/file.bin"), BLOCK, 2, 8)) {
+            channel.position(file.length / 2);
+            ByteBuffer buffer = ByteBuffer.allocate(1000);
+            channel.read(buffer);
+            assertEquals(ByteBuffer.wrap(file, file.length / 2, 1000), buffer.flip());
+            // Первый блок и прочитанный с двумя упреждающими
+            assertTrue(channel.getFetchedBytes() <= 4L * BLOCK, "fetched " + channel.getFetchedBytes());
+            assertTrue(requests.get() <= 4);
+        }
+        assertThrows(IOException.class, () -> HttpRangeChannel.open(uri("/plain.bin")));
+    }
+}
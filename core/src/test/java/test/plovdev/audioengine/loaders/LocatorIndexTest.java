@@ -0,0 +1,84 @@
+package test.plovdev.audioengine.loaders;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.LocatorIndex;
+import org.plovdev.audioengine.loaders.PathLocator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocatorIndexTest {
+    @Test
+    public void testEarliestRootWins() throws Exception {
+        Path first = Files.createTempDirectory("root");
+        Path second = Files.createTempDirectory("root");
+        Files.createDirectories(first.resolve("ui"));
+        Files.createDirectories(second.resolve("ui"));
+        Files.write(first.resolve("ui/click.wav"), new byte[1]);
+        Files.write(second.resolve("ui/click.wav"), new byte[1]);
+        Files.write(second.resolve("ui/hover.wav"), new byte[1]);
+
+        try (LocatorIndex index = new LocatorIndex()) {
+            index.add(new PathLocator(first));
+            index.add(new PathLocator(second));
+
+            assertEquals(first.resolve("ui/click.wav"), index.resolve("ui/click.wav").orElseThrow());
+            assertEquals(second.resolve("ui/hover.wav"), index.resolve("ui/hover.wav").orElseThrow());
+            assertTrue(index.resolve("ui/missing.wav").isEmpty());
+        }
+    }
+
+    @Test
+    public void testChangesPickedUp() throws Exception {
+        Path first = Files.createTempDirectory("root");
+        Path second = Files.createTempDirectory("root");
+        Files.write(first.resolve("click.wav"), new byte[1]);
+        Files.write(second.resolve("click.wav"), new byte[1]);
+
+        try (LocatorIndex index = new LocatorIndex()) {
+            index.add(new PathLocator(first));
+            index.add(new PathLocator(second));
+
+            Files.write(first.resolve("added.wav"), new byte[1]);
+            Files.delete(first.resolve("click.wav"));
+
+            assertEquals(first.resolve("added.wav"), await(index, "added.wav", first.resolve("added.wav")));
+            assertEquals(second.resolve("click.wav"), await(index, "click.wav", second.resolve("click.wav")));
+        }
+    }
+
+    @Test
+    public void testRootIndexedWhenItAppears() throws Exception {
+        Path parent = Files.createTempDirectory("root");
+        Path missing = parent.resolve("sounds");
+        Path first = Files.createTempDirectory("root");
+        Files.write(first.resolve("click.wav"), new byte[1]);
+
+        try (LocatorIndex index = new LocatorIndex()) {
+            index.add(new PathLocator(missing));
+            index.add(new PathLocator(first));
+            assertTrue(index.resolve("hover.wav").isEmpty());
+
+            Files.createDirectories(missing);
+            Files.write(missing.resolve("hover.wav"), new byte[1]);
+            Files.write(missing.resolve("click.wav"), new byte[1]);
+
+            assertEquals(missing.resolve("hover.wav"), index.resolve("hover.wav").orElseThrow());
+            // корень добавлен раньше, поэтому выигрывает, хотя проиндексирован позже
+            assertEquals(missing.resolve("click.wav"), index.resolve("click.wav").orElseThrow());
+        }
+    }
+
+    private static Path await(LocatorIndex index, String relative, Path expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        Optional<Path> resolved = index.resolve(relative);
+        while (!resolved.equals(Optional.of(expected)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            resolved = index.resolve(relative);
+        }
+        return resolved.orElse(null);
+    }
+}
@@ -0,0 +1,49 @@
+package test.plovdev.audioengine.loaders;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.ParallelTrackReader;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelTrackReaderTest {
+    @Test
+    public void testPartsCrossSegments() throws Exception {
+        byte[] bytes = new byte[3 * ParallelTrackReader.MIN_PART_SIZE + 1234];
+        new Random(1).nextBytes(bytes);
+        Path file = Files.write(Files.createTempFile("parallel", ".wav"), bytes);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int segmentSize = 5_000_000;
+            ByteBuffer[] segments = ParallelTrackReader.read(channel, 44, bytes.length - 44, segmentSize, 4);
+
+            assertEquals(3, segments.length);
+            assertEquals(0, channel.position());
+            long offset = 44;
+            for (ByteBuffer segment : segments) {
+                assertEquals(0, segment.position());
+                assertEquals(ByteBuffer.wrap(bytes, (int) offset, segment.remaining()), segment);
+                offset += segment.remaining();
+            }
+            assertEquals(bytes.length, offset);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testShortFileFails() throws Exception {
+        Path file = Files.write(Files.createTempFile("parallel", ".wav"), new byte[ParallelTrackReader.MIN_PART_SIZE * 2]);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertThrows(EOFException.class, () -> ParallelTrackReader.read(channel, 0, ParallelTrackReader.MIN_PART_SIZE * 3L, 1 << 30, 8));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
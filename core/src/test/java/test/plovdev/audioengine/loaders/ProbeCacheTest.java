@@ -0,0 +1,88 @@
+package test.plovdev.audioengine.loaders;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.ProbeCache;
+import org.plovdev.audioengine.loaders.TrackProbe;
+import org.plovdev.audioengine.tracks.format.factories.WavTrackFormatFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProbeCacheTest {
+    private static TrackProbe probe() {
+        return new TrackProbe(WavTrackFormatFactory.wav16bitStereo44kHz(), 44, 4, Duration.ZERO);
+    }
+
+    @Test
+    public void testUnchangedFileProbedOnce() throws Exception {
+        Path file = Files.createTempFile("probe", ".wav");
+        try {
+            AtomicInteger calls = new AtomicInteger();
+            ProbeCache cache = new ProbeCache();
+
+            TrackProbe first = cache.get(file, p -> {
+                calls.incrementAndGet();
+                return probe();
+            });
+            TrackProbe second = cache.get(file, p -> {
+                calls.incrementAndGet();
+                return probe();
+            });
+
+            assertSame(first, second);
+            assertEquals(1, calls.get());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testChangedFileProbedAgain() throws Exception {
+        Path file = Files.createTempFile("probe", ".wav");
+        try {
+            AtomicInteger calls = new AtomicInteger();
+            ProbeCache cache = new ProbeCache();
+
+            cache.get(file, p -> {
+                calls.incrementAndGet();
+                return probe();
+            });
+            Files.write(file, new byte[]{1, 2, 3});
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+            cache.get(file, p -> {
+                calls.incrementAndGet();
+                return probe();
+            });
+
+            assertEquals(2, calls.get());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        Path first = Files.createTempFile("probe", ".wav");
+        Path second = Files.createTempFile("probe", ".wav");
+        try {
+            ProbeCache cache = new ProbeCache(1);
+            cache.get(first, p -> probe());
+            cache.get(second, p -> probe());
+
+            assertEquals(1, cache.size());
+        } finally {
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+        }
+    }
+
+    @Test
+    public void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new ProbeCache(0));
+    }
+}
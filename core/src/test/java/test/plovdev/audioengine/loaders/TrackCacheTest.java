@@ -0,0 +1,230 @@
+package test.plovdev.audioengine.loaders;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.TrackCache;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.factories.WavTrackFormatFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrackCacheTest {
+    private static Track track(int bytes) {
+        return new Track(ByteBuffer.allocateDirect(bytes), Duration.ZERO, WavTrackFormatFactory.wav16bitStereo44kHz(), null);
+    }
+
+    @Test
+    public void testUnchangedFileLoadedOnce() throws Exception {
+        Path file = Files.createTempFile("cache", ".wav");
+        try {
+            AtomicInteger loads = new AtomicInteger();
+            TrackCache cache = new TrackCache(1024);
+
+            Track first = cache.get(file, p -> {
+                loads.incrementAndGet();
+                return track(16);
+            });
+            Track second = cache.get(file, p -> {
+                loads.incrementAndGet();
+                return track(16);
+            });
+
+            assertNotSame(first, second);
+            assertEquals(first.getTrackData(), second.getTrackData());
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.getHitCount());
+            assertEquals(1, cache.getMissCount());
+
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+            assertNotSame(first, cache.get(file, p -> track(16)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testEvictionKeepsPinned() throws Exception {
+        Path a = Files.createTempFile("cache", ".wav");
+        Path b = Files.createTempFile("cache", ".wav");
+        Path c = Files.createTempFile("cache", ".wav");
+        try {
+            TrackCache cache = new TrackCache(200);
+            cache.pin(a);
+
+            cache.get(a, p -> track(100));
+            cache.get(b, p -> track(100));
+            cache.get(c, p -> track(100)); // over budget, b is the eldest unpinned
+
+            assertEquals(2, cache.size());
+            assertEquals(200, cache.getBytes());
+            assertEquals(1, cache.getEvictionCount());
+
+            AtomicInteger loads = new AtomicInteger();
+            cache.get(a, p -> {
+                loads.incrementAndGet();
+                return track(100);
+            });
+            assertEquals(0, loads.get());
+        } finally {
+            Files.deleteIfExists(a);
+            Files.deleteIfExists(b);
+            Files.deleteIfExists(c);
+        }
+    }
+
+    @Test
+    public void testConcurrentLoadsShareDecode() throws Exception {
+        Path file = Files.createTempFile("cache", ".wav");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            TrackCache cache = new TrackCache(1024);
+            AtomicInteger loads = new AtomicInteger();
+            CountDownLatch release = new CountDownLatch(1);
+
+            Future<Track> first = executor.submit(() -> cache.get(file, p -> {
+                loads.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return track(16);
+            }));
+            while (loads.get() == 0) {
+                Thread.onSpinWait();
+            }
+            Future<Track> second = executor.submit(() -> cache.get(file, p -> {
+                loads.incrementAndGet();
+                return track(16);
+            }));
+
+            release.countDown();
+            assertEquals(first.get().getByteLength(), second.get().getByteLength());
+            assertFalse(first.get().isClosed());
+            assertFalse(second.get().isClosed());
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testClosedHandleDoesNotCloseCachedTrack() throws Exception {
+        Path file = Files.createTempFile("cache", ".wav");
+        try {
+            AtomicInteger loads = new AtomicInteger();
+            TrackCache cache = new TrackCache(1024);
+
+            try (Track track = cache.get(file, p -> {
+                loads.incrementAndGet();
+                return track(16);
+            })) {
+                assertEquals(16, track.getByteLength());
+            }
+
+            try (Track again = cache.get(file, p -> {
+                loads.incrementAndGet();
+                return track(16);
+            })) {
+                assertFalse(again.isClosed());
+                assertEquals(16, again.getTrackData().remaining());
+            }
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.getHitCount());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testEvictedTrackStaysOpenForCaller() throws Exception {
+        Path a = Files.createTempFile("cache", ".wav");
+        Path b = Files.createTempFile("cache", ".wav");
+        try {
+            TrackCache cache = new TrackCache(100);
+            Track first = cache.get(a, p -> track(100));
+            cache.get(b, p -> track(100)).close(); // evicts a
+
+            assertEquals(1, cache.getEvictionCount());
+            assertFalse(first.isClosed());
+            assertEquals(100, first.getTrackData().remaining());
+            first.close();
+
+            cache.clear();
+            assertEquals(0, cache.getBytes());
+        } finally {
+            Files.deleteIfExists(a);
+            Files.deleteIfExists(b);
+        }
+    }
+
+    @Test
+    public void testLfuEvictsLeastUsed() throws Exception {
+        Path a = Files.createTempFile("cache", ".wav");
+        Path b = Files.createTempFile("cache", ".wav");
+        Path c = Files.createTempFile("cache", ".wav");
+        try {
+            TrackCache cache = new TrackCache(200);
+            cache.setPolicy(TrackCache.Policy.LFU);
+
+            cache.get(a, p -> track(100)).close();
+            cache.get(a, p -> track(100)).close(); // a is used twice
+            cache.get(b, p -> track(100)).close(); // b is used once, but later
+            cache.get(c, p -> track(100)).close();
+
+            AtomicInteger loads = new AtomicInteger();
+            cache.get(a, p -> {
+                loads.incrementAndGet();
+                return track(100);
+            }).close();
+            assertEquals(0, loads.get());
+            assertEquals(1, cache.getEvictionCount());
+            assertEquals(200, cache.getBytes());
+        } finally {
+            Files.deleteIfExists(a);
+            Files.deleteIfExists(b);
+            Files.deleteIfExists(c);
+        }
+    }
+
+    @Test
+    public void testMappedTracksHaveOwnBudget() throws Exception {
+        Path a = Files.createTempFile("cache", ".wav");
+        Path b = Files.createTempFile("cache", ".wav");
+        Path c = Files.createTempFile("cache", ".wav");
+        try {
+            TrackCache cache = new TrackCache(100);
+            cache.setMaxMappedBytes(200);
+
+            cache.get(a, p -> track(100)).close();
+            cache.get(b, p -> mapped(100)).close();
+            assertEquals(100, cache.getBytes());
+            assertEquals(100, cache.getMappedBytes());
+            assertEquals(0, cache.getEvictionCount()); // mapped track doesn't push out decoded one
+
+            cache.get(c, p -> mapped(150)).close(); // over mapped budget, only b may go
+            assertEquals(1, cache.getEvictionCount());
+            assertEquals(100, cache.getBytes());
+            assertEquals(150, cache.getMappedBytes());
+        } finally {
+            Files.deleteIfExists(a);
+            Files.deleteIfExists(b);
+            Files.deleteIfExists(c);
+        }
+    }
+
+    private static Track mapped(int bytes) {
+        return Track.mapped(new ByteBuffer[]{ByteBuffer.allocateDirect(bytes)}, Duration.ZERO, WavTrackFormatFactory.wav16bitStereo44kHz(), null);
+    }
+}
@@ -0,0 +1,70 @@
+package test.plovdev.audioengine.tracks;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.tracks.AudioBufferPool;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.factories.WavTrackFormatFactory;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AudioBufferPoolTest {
+    @Test
+    public void testBuffersAreReusedBySizeClass() {
+        AudioBufferPool pool = new AudioBufferPool(1 << 20);
+        ByteBuffer first = pool.acquire(5000);
+        assertEquals(8192, first.capacity());
+        assertEquals(0, first.position());
+        assertEquals(5000, first.limit());
+        assertEquals(8192, pool.getOutstandingBytes());
+
+        assertTrue(pool.release(first));
+        assertFalse(pool.release(first));
+        assertFalse(pool.release(ByteBuffer.allocateDirect(8192)));
+
+        ByteBuffer second = pool.acquire(7000);
+        assertSame(first, second);
+        assertEquals(7000, second.remaining());
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getMisses());
+        assertEquals(0.5, pool.getHitRate());
+
+        ByteBuffer big = pool.acquire(AudioBufferPool.MAX_CLASS_SIZE + 1);
+        assertEquals(AudioBufferPool.MAX_CLASS_SIZE + 1, big.capacity());
+        long pooled = pool.getPooledBytes();
+        assertTrue(pool.release(big)); // freed at once, not pooled
+        assertFalse(pool.release(big));
+        assertEquals(pooled, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testSharedQueueIsBounded() {
+        AudioBufferPool pool = new AudioBufferPool(1 << 20);
+        // Большие классы минуют кэш потока
+        ByteBuffer[] buffers = {pool.acquire(1 << 20), pool.acquire(1 << 20)};
+        for (ByteBuffer buffer : buffers) {
+            pool.release(buffer);
+        }
+        assertEquals(1 << 20, pool.getPooledBytes());
+        assertEquals(0, pool.getOutstandingBytes());
+
+        pool.trim();
+        assertEquals(0, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testClosedTrackReturnsBuffer() {
+        AudioBufferPool pool = AudioBufferPool.getInstance();
+        ByteBuffer buffer = pool.acquire(4000);
+        long outstanding = pool.getOutstandingBytes();
+        Track track = new Track(buffer, Duration.ZERO, WavTrackFormatFactory.wav16bitStereo44kHz(), null);
+        assertEquals(4000, track.getTrackData().capacity()); // нативный код читает всю ёмкость
+
+        track.close();
+        assertEquals(outstanding - 4096, pool.getOutstandingBytes());
+        assertSame(buffer, pool.acquire(4000));
+        pool.release(buffer);
+    }
+}
@@ -0,0 +1,52 @@
+package test.plovdev.audioengine.tracks;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.tracks.AudioBuffer;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.factories.WavTrackFormatFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AudioBufferTest {
+    @Test
+    public void testPlanarChannelsOfSegmentedTrack() {
+        TrackFormat format = WavTrackFormatFactory.wav16bitStereo44kHz();
+        int frames = 10000;
+        ByteBuffer[] segments = {ByteBuffer.allocateDirect(6000 * 4), ByteBuffer.allocateDirect(4000 * 4)};
+        int frame = 0;
+        for (ByteBuffer segment : segments) {
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            while (segment.hasRemaining()) {
+                segment.putShort((short) (frame % 1000)).putShort((short) -(frame % 1000));
+                frame++;
+            }
+            segment.flip();
+        }
+        Track track = new Track(segments, Duration.ZERO, format, null);
+
+        AudioBuffer buffer = track.getAudioBuffer();
+        assertSame(buffer, track.getAudioBuffer());
+        assertEquals(2, buffer.getChannelCount());
+        assertEquals(frames, buffer.getFrameCount());
+        assertEquals(44100, buffer.getSampleRate());
+        for (int i = 0; i < frames; i++) {
+            assertEquals((i % 1000) / 32768f, buffer.getChannel(0)[i], "left " + i);
+            assertEquals(-(i % 1000) / 32768f, buffer.getChannel(1)[i], "right " + i);
+        }
+
+        try (Track encoded = buffer.toTrack(format)) {
+            assertEquals(track.getFrameCount(), encoded.getFrameCount());
+            ByteBuffer data = encoded.getTrackData().order(ByteOrder.LITTLE_ENDIAN);
+            // Кодер масштабирует на 32767 с отбрасыванием, так что допуск в один шаг
+            for (int i = 0; i < frames; i++) {
+                assertEquals(i % 1000, data.getShort(i * 4), 1);
+                assertEquals(-(i % 1000), data.getShort(i * 4 + 2), 1);
+            }
+        }
+    }
+}
@@ -1,4 +1,129 @@
 package test.plovdev.audioengine.tracks;
 
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.exceptions.AudioEngineException;
+import org.plovdev.audioengine.tracks.AudioBufferPool;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.factories.WavTrackFormatFactory;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 public class TrackTest {
+    private static final TrackFormat FORMAT = WavTrackFormatFactory.wav16bitStereo44kHz(); // 4 bytes per frame
+
+    @Test
+    public void testSegmentedTrackLength() {
+        Track track = new Track(new ByteBuffer[]{ByteBuffer.allocateDirect(400), ByteBuffer.allocateDirect(6)}, Duration.ZERO, FORMAT, null);
+
+        assertTrue(track.isSegmented());
+        assertEquals(2, track.getSegmentCount());
+        assertEquals(406, track.getByteLength());
+        assertEquals(101, track.getFrameCount());
+        assertThrows(AudioEngineException.class, track::getTrackData);
+    }
+
+    @Test
+    public void testUnalignedSegmentRejected() {
+        ByteBuffer[] segments = {ByteBuffer.allocateDirect(6), ByteBuffer.allocateDirect(400)};
+
+        assertThrows(AudioEngineException.class, () -> new Track(segments, Duration.ZERO, FORMAT, null));
+    }
+
+    @Test
+    public void testHeapSegmentRejected() {
+        ByteBuffer[] segments = {ByteBuffer.allocateDirect(400), ByteBuffer.allocate(4)};
+
+        assertThrows(AudioEngineException.class, () -> new Track(segments, Duration.ZERO, FORMAT, null));
+    }
+
+    @Test
+    public void testSliceSharesMemory() {
+        ByteBuffer first = ByteBuffer.allocateDirect(400);
+        ByteBuffer second = ByteBuffer.allocateDirect(400);
+        Track track = new Track(new ByteBuffer[]{first, second}, Duration.ZERO, FORMAT, null);
+
+        Track slice = track.slice(90, 20);
+        assertEquals(20, slice.getFrameCount());
+        assertEquals(2, slice.getSegmentCount());
+        first.putInt(396, 7);
+        second.putInt(0, 8);
+        assertEquals(7, slice.getSegments().get(0).getInt(36));
+        assertEquals(8, slice.getSegments().get(1).getInt(0));
+        assertEquals(0, track.slice(200, 0).getFrameCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> track.slice(190, 11));
+    }
+
+    @Test
+    public void testConcatKeepsSegments() {
+        ByteBuffer data = ByteBuffer.allocateDirect(402);
+        Track clip = new Track(data, Duration.ZERO, FORMAT, null);
+        Track joined = Track.concat(clip.slice(10, 5), clip, clip.slice(0, 0));
+
+        assertEquals(105, joined.getFrameCount());
+        assertEquals(2, joined.getSegmentCount());
+        assertEquals(Duration.ofNanos(105 * 1_000_000_000L / 44100), joined.getDuration());
+        data.putInt(40, 9);
+        assertEquals(9, joined.getSegments().get(0).getInt(0));
+        assertEquals(9, joined.getSegments().get(1).getInt(40));
+
+        Track mono = new Track(ByteBuffer.allocateDirect(4), Duration.ZERO, WavTrackFormatFactory.wav16bitMono44kHz(), null);
+        assertThrows(AudioEngineException.class, () -> Track.concat(clip, mono));
+    }
+
+    private static BufferPoolMXBean directPool() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .findFirst().orElseThrow();
+    }
+
+    @Test
+    public void testCloseFreesMemoryAfterLastView() {
+        BufferPoolMXBean direct = directPool();
+        int size = AudioBufferPool.MAX_CLASS_SIZE * 2; // not pooled, freed at once
+        long before = direct.getMemoryUsed();
+        Track track = new Track(AudioBufferPool.getInstance().acquire(size), Duration.ZERO, FORMAT, null);
+        Track slice = track.slice(10, 20);
+
+        track.close();
+        assertTrue(track.isClosed());
+        assertThrows(AudioEngineException.class, track::getTrackData);
+        assertThrows(AudioEngineException.class, track::retain);
+        assertTrue(direct.getMemoryUsed() >= before + size, "slice keeps memory");
+        assertEquals(80, slice.getTrackData().remaining());
+
+        slice.close();
+        slice.close();
+        assertTrue(direct.getMemoryUsed() < before + size, "memory is freed without GC");
+    }
+
+    @Test
+    public void testConcatOfUnalignedTracksFreesMemory() {
+        BufferPoolMXBean direct = directPool();
+        int size = AudioBufferPool.MAX_CLASS_SIZE * 2 + 1; // incomplete last frame is dropped
+        long before = direct.getMemoryUsed();
+        Track track = new Track(AudioBufferPool.getInstance().acquire(size), Duration.ZERO, FORMAT, null);
+        Track joined = Track.concat(track, track);
+        assertEquals(2L * (size / 4), joined.getFrameCount());
+
+        track.close();
+        assertTrue(direct.getMemoryUsed() >= before + size, "composite keeps memory");
+        joined.close();
+        assertTrue(direct.getMemoryUsed() < before + size, "memory is freed without GC");
+    }
+
+    @Test
+    public void testCallerBufferIsNotFreedOnClose() {
+        ByteBuffer data = ByteBuffer.allocateDirect(16);
+        Track track = new Track(data, Duration.ZERO, FORMAT, null);
+        track.close();
+
+        data.putInt(0, 7);
+        assertEquals(7, data.getInt(0));
+    }
 }
@@ -0,0 +1,62 @@
+package test.plovdev.audioengine.tracks.format;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.tracks.AudioBuffer;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.FormatConverter;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.factories.WavTrackFormatFactory;
+
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FormatConverterTest {
+    private static final TrackFormat STEREO_44 = WavTrackFormatFactory.wav16bitStereo44kHz();
+    private static final TrackFormat STEREO_48 = WavTrackFormatFactory.wav16bitStereo48kHz();
+    private static final TrackFormat MONO_FLOAT_44 = new TrackFormat("wav", 1, 32, 44100, true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLOAT32);
+    private static final TrackFormat STEREO_FLOAT_44 = new TrackFormat("wav", 2, 32, 44100, true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLOAT32);
+
+    @Test
+    public void testChainsArePlannedOncePerPair() {
+        FormatConverter.Chain chain = FormatConverter.plan(MONO_FLOAT_44, STEREO_48);
+        assertSame(chain, FormatConverter.plan(MONO_FLOAT_44, STEREO_48));
+        assertEquals(List.of(FormatConverter.Step.DECODE, FormatConverter.Step.CHANNEL_MAP, FormatConverter.Step.RESAMPLE,
+                FormatConverter.Step.DITHER, FormatConverter.Step.REQUANTIZE), chain.steps());
+        assertTrue(FormatConverter.plan(STEREO_44, STEREO_44).steps().isEmpty());
+        assertEquals(List.of(FormatConverter.Step.DECODE, FormatConverter.Step.REQUANTIZE), FormatConverter.plan(STEREO_44, STEREO_FLOAT_44).steps());
+    }
+
+    @Test
+    public void testNegotiationPrefersCheapestLosslessTarget() {
+        TrackFormat stereoFloat48 = new TrackFormat("wav", 2, 32, 48000, true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLOAT32);
+        Set<TrackFormat> device = Set.of(STEREO_48, stereoFloat48, MONO_FLOAT_44);
+
+        assertEquals(MONO_FLOAT_44, FormatConverter.negotiate(MONO_FLOAT_44, device).target());
+        assertEquals(stereoFloat48, FormatConverter.negotiate(STEREO_44, device).target()); // без дизеринга и потерь
+        assertSame(FormatConverter.negotiate(STEREO_44, device), FormatConverter.negotiate(STEREO_44, device));
+    }
+
+    @Test
+    public void testResampledSineKeepsFrequency() {
+        int frames = 44100;
+        float[] samples = new float[frames];
+        for (int i = 0; i < frames; i++) {
+            samples[i] = (float) (0.5 * Math.sin(2 * Math.PI * 1000 * i / 44100.0));
+        }
+        try (Track source = new AudioBuffer(new float[][]{samples}, 44100).toTrack(MONO_FLOAT_44);
+             Track converted = FormatConverter.convert(source, STEREO_48)) {
+            assertEquals(STEREO_48, converted.getFormat());
+            assertEquals(48000, converted.getFrameCount());
+
+            AudioBuffer buffer = converted.getAudioBuffer();
+            for (int i = 1000; i < 47000; i++) {
+                double expected = 0.5 * Math.sin(2 * Math.PI * 1000 * i / 48000.0);
+                assertEquals(expected, buffer.getChannel(0)[i], 0.002, "frame " + i);
+                assertEquals(buffer.getChannel(0)[i], buffer.getChannel(1)[i], 0.001);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package test.plovdev.audioengine.tracks.format;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.G711Codec;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormat.AudioCodec;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class G711CodecTest {
+    @Test
+    public void testKnownCodes() {
+        assertEquals(8, G711Codec.decodeAlaw((byte) 0xD5));
+        assertEquals(-8, G711Codec.decodeAlaw((byte) 0x55));
+        assertEquals(32256, G711Codec.decodeAlaw((byte) 0xAA));
+        assertEquals(0, G711Codec.decodeUlaw((byte) 0xFF));
+        assertEquals(-32124, G711Codec.decodeUlaw((byte) 0x00));
+        assertEquals(32124, G711Codec.decodeUlaw((byte) 0x80));
+
+        // декодированный код кодируется в себя же
+        for (int code = 0; code < 256; code++) {
+            assertEquals((byte) code, G711Codec.encodeAlaw(G711Codec.decodeAlaw((byte) code)));
+            if (code != 0x7F) { // 0x7F и 0xFF оба означают ноль
+                assertEquals((byte) code, G711Codec.encodeUlaw(G711Codec.decodeUlaw((byte) code)));
+            }
+        }
+    }
+
+    @Test
+    public void testTrackRoundTrip() {
+        TrackFormat pcm16 = new TrackFormat("wav", 2, 16, 8000, true, ByteOrder.BIG_ENDIAN, AudioCodec.PCM16);
+        int frames = 3000;
+        ByteBuffer data = ByteBuffer.allocateDirect(frames * 4).order(ByteOrder.BIG_ENDIAN);
+        for (int i = 0; i < frames * 2; i++) {
+            data.putShort((short) (Math.sin(i * 0.003) * 30000));
+        }
+        Track track = new Track(data.flip(), TrackFormatUtils.calculateDuration(pcm16, frames), pcm16, null);
+
+        for (AudioCodec codec : new AudioCodec[]{AudioCodec.ALAW, AudioCodec.ULAW}) {
+            Track encoded = SampleConverter.convert(track, new TrackFormat("wav", 2, 8, 8000, true, ByteOrder.LITTLE_ENDIAN, codec));
+            assertEquals(codec, encoded.getFormat().audioCodec());
+            assertEquals(frames * 2, encoded.getByteLength());
+            assertEquals(track.getDuration(), encoded.getDuration());
+
+            Track decoded = SampleConverter.convert(encoded, pcm16);
+            assertEquals(frames, decoded.getFrameCount());
+            ByteBuffer samples = decoded.getTrackData().order(ByteOrder.BIG_ENDIAN);
+            for (int i = 0; i < frames * 2; i++) {
+                int expected = data.getShort(i * 2);
+                // 8-битный логарифмический код: ошибка не больше половины шага сегмента
+                assertTrue(Math.abs(samples.getShort(i * 2) - expected) <= Math.max(16, Math.abs(expected) / 16), codec + " sample " + i);
+            }
+        }
+    }
+}
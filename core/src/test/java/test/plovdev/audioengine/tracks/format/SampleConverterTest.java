@@ -0,0 +1,98 @@
+package test.plovdev.audioengine.tracks.format;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormat.AudioCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SampleConverterTest {
+    private static TrackFormat format(AudioCodec codec, int bits, boolean signed, ByteOrder order) {
+        return new TrackFormat("wav", 2, bits, 44100, signed, order, codec);
+    }
+
+    private static float[] samples(int count) {
+        float[] samples = new float[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = (float) Math.sin(i * 0.01) * 0.9f;
+        }
+        return samples;
+    }
+
+    @Test
+    public void testRoundTripAllCodecs() {
+        // больше одного блока и не кратно ширине вектора
+        float[] source = samples(10_006);
+        Object[][] codecs = {
+                {AudioCodec.PCM8, 8, 1.0f / 64}, {AudioCodec.PCM16, 16, 1.0f / 16384}, {AudioCodec.PCM24, 24, 1.0f / 4_000_000},
+                {AudioCodec.PCM32, 32, 1.0e-6f}, {AudioCodec.FLOAT32, 32, 0.0f}, {AudioCodec.FLOAT64, 64, 0.0f}
+        };
+
+        for (Object[] codec : codecs) {
+            for (ByteOrder order : new ByteOrder[]{ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+                for (boolean signed : new boolean[]{true, false}) {
+                    int bits = (int) codec[1];
+                    TrackFormat format = format((AudioCodec) codec[0], bits, signed, order);
+                    ByteBuffer raw = ByteBuffer.allocate(source.length * bits / 8);
+                    SampleConverter.fromFloat(FloatBuffer.wrap(source), format, raw);
+                    assertFalse(raw.hasRemaining());
+
+                    FloatBuffer decoded = FloatBuffer.allocate(source.length);
+                    SampleConverter.toFloat(raw.flip(), format, decoded);
+                    assertFalse(decoded.hasRemaining());
+                    for (int i = 0; i < source.length; i++) {
+                        assertEquals(source[i], decoded.get(i), (float) codec[2], format + " sample " + i);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIntegerSamplesAreClamped() {
+        TrackFormat format = format(AudioCodec.PCM16, 16, true, ByteOrder.BIG_ENDIAN);
+        ByteBuffer raw = ByteBuffer.allocate(8);
+        SampleConverter.fromFloat(FloatBuffer.wrap(new float[]{2.0f, -2.0f, 0.5f, Float.NaN}), format, raw);
+
+        raw.flip();
+        assertEquals(Short.MAX_VALUE, raw.getShort(0));
+        assertEquals(-Short.MAX_VALUE, raw.getShort(2));
+        assertEquals(16383, raw.getShort(4));
+        assertEquals(0, raw.getShort(6));
+
+        TrackFormat unsigned = format(AudioCodec.PCM8, 8, false, ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer bytes = ByteBuffer.allocate(2);
+        SampleConverter.fromFloat(FloatBuffer.wrap(new float[]{0.0f, -1.0f}), unsigned, bytes);
+        assertEquals(128, bytes.get(0) & 0xFF);
+        assertEquals(1, bytes.get(1) & 0xFF);
+    }
+
+    @Test
+    public void testConvertTrack() {
+        TrackFormat pcm = format(AudioCodec.PCM16, 16, true, ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer data = ByteBuffer.allocateDirect(8).order(ByteOrder.LITTLE_ENDIAN);
+        data.putShort((short) 0).putShort((short) 16384).putShort((short) -32768).putShort((short) -16384).flip();
+        Track track = new Track(data, Duration.ZERO, pcm, null);
+
+        TrackFormat pcm24 = format(AudioCodec.PCM24, 24, true, ByteOrder.BIG_ENDIAN);
+        Track converted = SampleConverter.convert(track, pcm24);
+        assertEquals(pcm24, converted.getFormat());
+        assertEquals(2, converted.getFrameCount());
+        assertEquals(12, converted.getByteLength());
+
+        ByteBuffer out = converted.getTrackData();
+        assertEquals(0x3F, out.get(3));
+        assertEquals((byte) 0x80, out.get(6));
+        assertEquals(1, out.get(8));
+
+        assertSame(track, SampleConverter.convert(track, pcm));
+        assertThrows(IllegalArgumentException.class, () -> SampleConverter.convert(track, new TrackFormat("wav", 1, 16, 44100, true, ByteOrder.LITTLE_ENDIAN, AudioCodec.PCM16)));
+    }
+}
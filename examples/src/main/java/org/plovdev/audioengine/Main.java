@@ -3,6 +3,7 @@ package org.plovdev.audioengine;
 import org.plovdev.audioengine.devices.AudioDeviceManager;
 import org.plovdev.audioengine.devices.NativeInputAudioDevice;
 import org.plovdev.audioengine.devices.NativeOutputAudioDevice;
+import org.plovdev.audioengine.tracks.AudioBufferPool;
 import org.plovdev.audioengine.tracks.Track;
 import org.plovdev.audioengine.tracks.format.TrackFormat;
 import org.plovdev.audioengine.tracks.format.factories.WavTrackFormatFactory;
@@ -24,20 +25,20 @@ public class Main {
             device.open(format);
 
             System.out.println("Inited");
-            ByteBuffer buffer = ByteBuffer.allocateDirect((1764000)/3);
+            ByteBuffer buffer = AudioBufferPool.getInstance().acquire((1764000)/3);
             System.out.println("Speak...");
             System.out.println("Readed: " + device.read(buffer));
             System.out.println("readed");
 
 
             System.out.println("Created track");
-            Track track = new Track(buffer, Duration.ofSeconds(3), format, new TrackMetadata());
+            try (Track track = new Track(buffer, Duration.ofSeconds(3), format, new TrackMetadata())) {
+                System.out.println(buffer.limit());
 
-            System.out.println(buffer.limit());
-
-            System.out.println("Exporting");
-            engine.exportTrack(track, new FileOutputStream("record.wav"));
-            System.out.println("Done");
+                System.out.println("Exporting");
+                engine.exportTrack(track, new FileOutputStream("record.wav"));
+                System.out.println("Done");
+            }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -1,6 +1,7 @@
 package org.plovdev.audioengine.generator;
 
 import org.plovdev.audioengine.exceptions.GenerationException;
+import org.plovdev.audioengine.tracks.AudioBufferPool;
 import org.plovdev.audioengine.tracks.Track;
 import org.plovdev.audioengine.tracks.format.TrackFormat;
 import org.plovdev.audioengine.tracks.meta.TrackMetadata;
@@ -57,14 +58,14 @@ public class TrackGeneratorHelper {
         int frameSize = channels * bytesPerSample;
         int bufferSize = numSamples * frameSize;
 
-        ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
-        buffer.order(byteOrder);
-
         long millis = duration.toMillis();
         if (millis <= 0) {
             throw new GenerationException("Duration can't be zero.");
         }
 
+        ByteBuffer buffer = AudioBufferPool.getInstance().acquire(bufferSize);
+        buffer.order(byteOrder);
+
         double totalTime = millis / 1000.0;
 
         // Генерируем сэмплы
@@ -5,6 +5,8 @@
 #include <cstdint>
 #include <memory>
 #include <stdexcept>
+#include <string>
+#include <cstring>
 
 struct TrackData {
     std::vector<float> samples; // нормализуем в float [-1.0, 1.0]
@@ -34,6 +36,42 @@ float pcmToFloat(const uint8_t* data, int bitsPerSample, int channel, int channe
     }
 }
 
+// Чтение float сэмплов без конвертации
+float floatSampleToFloat(const uint8_t* data, int bitsPerSample, int channel) {
+    if (bitsPerSample == 32) {
+        float sample;
+        std::memcpy(&sample, data + channel * sizeof(float), sizeof(float));
+        return sample;
+    } else if (bitsPerSample == 64) {
+        double sample;
+        std::memcpy(&sample, data + channel * sizeof(double), sizeof(double));
+        return static_cast<float>(sample);
+    }
+    return 0.0f;
+}
+
+// Определяем float формат по AudioCodec
+bool isFloatCodec(JNIEnv* env, jobject format) {
+    jclass fmtCls = env->GetObjectClass(format);
+    jmethodID audioCodecMethod = env->GetMethodID(fmtCls, "audioCodec", "()Lorg/plovdev/audioengine/tracks/format/TrackFormat$AudioCodec;");
+    jobject audioCodecObj = env->CallObjectMethod(format, audioCodecMethod);
+    env->DeleteLocalRef(fmtCls);
+    if (!audioCodecObj) return false;
+
+    jclass audioCodecCls = env->GetObjectClass(audioCodecObj);
+    jmethodID nameMethod = env->GetMethodID(audioCodecCls, "name", "()Ljava/lang/String;");
+    jstring codecNameStr = (jstring)env->CallObjectMethod(audioCodecObj, nameMethod);
+    env->DeleteLocalRef(audioCodecCls);
+    env->DeleteLocalRef(audioCodecObj);
+
+    const char* codecNameCStr = env->GetStringUTFChars(codecNameStr, nullptr);
+    std::string codecName(codecNameCStr);
+    env->ReleaseStringUTFChars(codecNameStr, codecNameCStr);
+    env->DeleteLocalRef(codecNameStr); // вызывается для каждого трека: локальные ссылки не должны копиться
+
+    return codecName == "FLOAT32" || codecName == "FLOAT64";
+}
+
 // Конвертация float в PCM
 void floatToPcm(float sample, uint8_t* out, int bitsPerSample) {
     sample = std::clamp(sample, -1.0f, 1.0f);
@@ -170,7 +208,8 @@ JNIEXPORT jobject JNICALL Java_org_plovdev_audioengine_mixer_NativeTrackMixer__1
             return nullptr;
         }
 
-        jmethodID getTrackData = env->GetMethodID(trackCls, "getTrackData", "()Ljava/nio/ByteBuffer;");
+        // Сегменты читаются по очереди: составные и длинные треки не склеиваются в один буфер
+        jmethodID getSegments = env->GetMethodID(trackCls, "getSegments", "()Ljava/util/List;");
         jmethodID getFormat = env->GetMethodID(trackCls, "getFormat", "()Lorg/plovdev/audioengine/tracks/format/TrackFormat;");
 
         jclass formatCls = env->FindClass("org/plovdev/audioengine/tracks/format/TrackFormat");
@@ -202,14 +241,6 @@ JNIEXPORT jobject JNICALL Java_org_plovdev_audioengine_mixer_NativeTrackMixer__1
             jobject track = env->CallObjectMethod(trackList, getID, i);
             if (!track) continue;
 
-            jobject buffer = env->CallObjectMethod(track, getTrackData);
-            if (!buffer) continue;
-
-            uint8_t* bufPtr = (uint8_t*)env->GetDirectBufferAddress(buffer);
-            jlong bufSize = env->GetDirectBufferCapacity(buffer);
-
-            if (!bufPtr || bufSize <= 0) continue;
-
             jobject fmt = env->CallObjectMethod(track, getFormat);
             if (!fmt) continue;
 
@@ -219,13 +250,48 @@ JNIEXPORT jobject JNICALL Java_org_plovdev_audioengine_mixer_NativeTrackMixer__1
 
             if (ch <= 0 || rate <= 0 || bps <= 0) continue;
 
-            std::vector<float> samples;
+            jobject segments = env->CallObjectMethod(track, getSegments);
+            if (env->ExceptionCheck()) {
+                return nullptr; // закрытый трек: AudioEngineException уходит в Java
+            }
+            if (!segments) continue;
+
+            jclass segmentsCls = env->GetObjectClass(segments);
+            jmethodID segmentsSize = env->GetMethodID(segmentsCls, "size", "()I");
+            jmethodID segmentsGet = env->GetMethodID(segmentsCls, "get", "(I)Ljava/lang/Object;");
+            int segmentCount = env->CallIntMethod(segments, segmentsSize);
+
+            bool isFloat = isFloatCodec(env, fmt);
             int bytesPerFrame = (bps * ch + 7) / 8; // байт на кадр
+            jlong totalSize = 0;
+            for (int s = 0; s < segmentCount; ++s) {
+                jobject buffer = env->CallObjectMethod(segments, segmentsGet, s);
+                if (buffer) {
+                    totalSize += env->GetDirectBufferCapacity(buffer);
+                    env->DeleteLocalRef(buffer);
+                }
+            }
 
-            for (jlong j = 0; j < bufSize; j += bytesPerFrame) {
-                for (int c = 0; c < ch; ++c) {
-                    samples.push_back(pcmToFloat(bufPtr + j, bps, c, ch));
+            std::vector<float> samples;
+            samples.reserve((totalSize / bytesPerFrame) * ch);
+
+            // Все сегменты, кроме последнего, содержат целые кадры
+            for (int s = 0; s < segmentCount; ++s) {
+                jobject buffer = env->CallObjectMethod(segments, segmentsGet, s);
+                if (!buffer) continue;
+
+                uint8_t* bufPtr = (uint8_t*)env->GetDirectBufferAddress(buffer);
+                jlong bufSize = env->GetDirectBufferCapacity(buffer);
+
+                if (bufPtr && bufSize > 0) {
+                    for (jlong j = 0; j + bytesPerFrame <= bufSize; j += bytesPerFrame) {
+                        for (int c = 0; c < ch; ++c) {
+                            // float данные уже нормализованы, конвертация не нужна
+                            samples.push_back(isFloat ? floatSampleToFloat(bufPtr + j, bps, c) : pcmToFloat(bufPtr + j, bps, c, ch));
+                        }
+                    }
                 }
+                env->DeleteLocalRef(buffer);
             }
 
             if (!samples.empty()) {
@@ -264,18 +330,28 @@ JNIEXPORT jobject JNICALL Java_org_plovdev_audioengine_mixer_NativeTrackMixer__1
             return nullptr;
         }
 
-        // Создаем DirectByteBuffer
+        // Буфер берётся из AudioBufferPool: им владеет трек, и Track.close() сразу возвращает его в пул
         int outBytesPerSample = (outBits + 7) / 8;
         size_t byteSize = mixed.size() * outBytesPerSample;
 
-        uint8_t* buffer = new uint8_t[byteSize];
-        std::fill(buffer, buffer + byteSize, 0);
-
-        for (size_t i = 0; i < mixed.size(); ++i) {
-            floatToPcm(mixed[i], buffer + i * outBytesPerSample, outBits);
+        jclass poolCls = env->FindClass("org/plovdev/audioengine/tracks/AudioBufferPool");
+        jmethodID getInstance = env->GetStaticMethodID(poolCls, "getInstance", "()Lorg/plovdev/audioengine/tracks/AudioBufferPool;");
+        jmethodID acquire = env->GetMethodID(poolCls, "acquire", "(I)Ljava/nio/ByteBuffer;");
+        jobject pool = env->CallStaticObjectMethod(poolCls, getInstance);
+        jobject resultBuffer = env->CallObjectMethod(pool, acquire, (jint) byteSize);
+        if (env->ExceptionCheck()) {
+            return nullptr; // OutOfMemoryError уходит в Java
+        }
+        uint8_t* buffer = static_cast<uint8_t*>(env->GetDirectBufferAddress(resultBuffer));
+
+        if (isFloatCodec(env, formatObj) && outBits == 32) {
+            // float32 выход: копируем микс как есть
+            std::memcpy(buffer, mixed.data(), byteSize);
+        } else {
+            for (size_t i = 0; i < mixed.size(); ++i) {
+                floatToPcm(mixed[i], buffer + i * outBytesPerSample, outBits);
+            }
         }
-
-        jobject resultBuffer = env->NewDirectByteBuffer(buffer, byteSize);
 
         // Вычисляем длительность
         double seconds = (double)mixed.size() / (outSampleRate * outChannels);
@@ -293,9 +369,6 @@ JNIEXPORT jobject JNICALL Java_org_plovdev_audioengine_mixer_NativeTrackMixer__1
         jmethodID trackCtor = env->GetMethodID(trackCls, "<init>", "(Ljava/nio/ByteBuffer;Ljava/time/Duration;Lorg/plovdev/audioengine/tracks/format/TrackFormat;Lorg/plovdev/audioengine/tracks/meta/TrackMetadata;)V");
         jobject newTrack = env->NewObject(trackCls, trackCtor, resultBuffer, durationObj, formatObj, metadataObj);
 
-        // Освобождаем память (в продакшене нужно использовать finalizer или Cleaner)
-        // delete[] buffer; // Не удаляем - буфер принадлежит Java DirectByteBuffer
-
         return newTrack;
 
     } catch (const std::exception& e) {
@@ -7,26 +7,40 @@ import org.plovdev.audioengine.devices.OutputAudioDevice;
 import org.plovdev.audioengine.exceptions.AudioEngineException;
 import org.plovdev.audioengine.exceptions.TrackExportException;
 import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.loaders.AudioSignature;
+import org.plovdev.audioengine.loaders.BatchTrackLoader;
+import org.plovdev.audioengine.loaders.FloatSidecarCache;
+import org.plovdev.audioengine.loaders.TrackCache;
 import org.plovdev.audioengine.loaders.TrackExporter;
-import org.plovdev.audioengine.loaders.TrackLoader;
 import org.plovdev.audioengine.loaders.TrackLoaderManager;
+import org.plovdev.audioengine.loaders.TrackLoaderRegistry;
 import org.plovdev.audioengine.mixer.NativeTrackMixer;
 import org.plovdev.audioengine.mixer.TrackMixer;
+import org.plovdev.audioengine.tracks.AudioBufferPool;
 import org.plovdev.audioengine.tracks.NativeTrackPlayer;
 import org.plovdev.audioengine.tracks.Track;
 import org.plovdev.audioengine.tracks.TrackPlayer;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
 import org.plovdev.audioengine.tracks.format.TrackFormat;
 import org.plovdev.audioengine.utils.AudioEngineConfig;
 import org.plovdev.audioengine.utils.TrackLoaderSearcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Main entry point for AudioSND.
@@ -44,7 +58,10 @@ import java.util.concurrent.CopyOnWriteArrayList;
  */
 public class NativeAudioEngine implements AudioEngine {
     private static final Logger log = LoggerFactory.getLogger(NativeAudioEngine.class);
-    private final List<TrackLoaderManager> loaderManagers = new CopyOnWriteArrayList<>();
+    private final TrackLoaderRegistry loaderRegistry = new TrackLoaderRegistry();
+    private final TrackCache trackCache = new TrackCache(0);
+    private BatchTrackLoader batchLoader;
+    private FloatSidecarCache sidecarCache;
     private AudioEngineConfig config = AudioEngineConfig.load();
     private volatile boolean isInited = false;
 
@@ -78,6 +95,11 @@ public class NativeAudioEngine implements AudioEngine {
             this.config = config;
             System.loadLibrary(config.getNativeLib().toString());
             TrackLoaderSearcher.getSearchedLoaders().forEach(this::addLoaderManager);
+            trackCache.setMaxBytes(config.getTrackCacheSize() * 1024L * 1024L);
+            trackCache.setMaxMappedBytes(config.getTrackCacheSize() == 0 ? 0 : TrackCache.DEFAULT_MAX_MAPPED_BYTES); // 0 disables cache
+            AudioBufferPool.getInstance().setMaxPooledBytes(config.getBufferPoolSize() * 1024L * 1024L);
+            sidecarCache = config.getSidecarCacheDir() == null ? null : new FloatSidecarCache(config.getSidecarCacheDir());
+            batchLoader = new BatchTrackLoader(path -> loadTrack(path.toString()), config.getLoadBudget() * 1024L * 1024L);
             _init();
             isInited = true;
         } else throw new AudioEngineException("Engine is already inited!");
@@ -101,40 +123,111 @@ public class NativeAudioEngine implements AudioEngine {
     }
 
 
+    /**
+     * Loads track from file, or returns new handle of cached one if file wasn't changed.
+     * Returned track is caller's own and is closed by it, it's always in source format.
+     * Paths, resolved only by loader locators, aren't cached.
+     */
     @Override
     public Track loadTrack(@NotNull String path) throws TrackLoadException {
         checkIfInited();
-        for (TrackLoaderManager manager : getAvailableLoaders()) {
-            TrackLoader loader = manager.getTrackLoader();
-            if (loader.isSupported(path)) {
-                return loader.loadTrack(path);
+        Path file = Path.of(path);
+        if (Files.isRegularFile(file)) {
+            return trackCache.get(file, f -> loadUncached(f.toString()));
+        }
+        return loadUncached(path);
+    }
+
+    /**
+     * Loads track in float32 for mixer and device. Sidecar is used only here:
+     * up to date sidecar is mapped without loading source file.
+     */
+    @Override
+    public Track loadDeviceTrack(@NotNull String path) throws TrackLoadException {
+        checkIfInited();
+        Path file = Path.of(path);
+        FloatSidecarCache sidecar = Files.isRegularFile(file) ? sidecarCache : null;
+        if (sidecar != null) {
+            Optional<Track> mapped = sidecar.load(file);
+            if (mapped.isPresent()) {
+                return mapped.get();
             }
         }
-        throw new TrackLoadException("Loader not found fot this track source.");
+
+        Track source = loadTrack(path);
+        Track device;
+        try {
+            device = sidecar != null ? sidecar.store(file, source) : toFloat(source);
+        } catch (RuntimeException e) {
+            source.close();
+            throw e;
+        }
+        if (device != source) {
+            source.close();
+        }
+        return device;
+    }
+
+    private static Track toFloat(Track track) {
+        TrackFormat format = track.getFormat();
+        if (!SampleConverter.isSupported(format)) {
+            return track;
+        }
+        return SampleConverter.convert(track, new TrackFormat(format.extension(), format.channels(), 32, format.sampleRate(),
+                true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLOAT32));
+    }
+
+    private Track loadUncached(String path) {
+        Optional<TrackLoaderManager> manager = loaderRegistry.findByPath(path);
+        if (manager.isEmpty()) {
+            manager = sniffFile(path);
+        }
+        return manager
+                .orElseThrow(() -> new TrackLoadException("Loader not found fot this track source."))
+                .getTrackLoader().loadTrack(path);
     }
 
     @Override
     public Track loadTrack(@NotNull InputStream stream) throws TrackLoadException {
         checkIfInited();
-        for (TrackLoaderManager manager : getAvailableLoaders()) {
-            TrackLoader loader = manager.getTrackLoader();
-            if (loader.isSupported(stream)) {
-                return loader.loadTrack(stream);
-            }
+        InputStream source = stream.markSupported() ? stream : new BufferedInputStream(stream);
+        try {
+            return loaderRegistry.findByStream(source)
+                    .orElseThrow(() -> new TrackLoadException("Loader not found fot this track source."))
+                    .getTrackLoader().loadTrack(source);
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to read track source: " + e.getMessage());
         }
-        throw new TrackLoadException("Loader not found fot this track source.");
     }
 
     @Override
     public Track loadTrack(@NotNull URI uri) throws TrackLoadException {
         checkIfInited();
-        for (TrackLoaderManager manager : getAvailableLoaders()) {
-            TrackLoader loader = manager.getTrackLoader();
-            if (loader.isSupported(uri)) {
-                return loader.loadTrack(uri);
-            }
+        return loaderRegistry.findByUri(uri)
+                .orElseThrow(() -> new TrackLoadException("Loader not found fot this track source."))
+                .getTrackLoader().loadTrack(uri);
+    }
+
+    @Override
+    public CompletableFuture<List<Track>> loadTracks(@NotNull Collection<Path> paths) {
+        checkIfInited();
+        return batchLoader.loadAll(paths);
+    }
+
+    /**
+     * Finds loader by magic number of file, when extension is unknown.
+     */
+    private Optional<TrackLoaderManager> sniffFile(String path) {
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(path), AudioSignature.PEEK_SIZE)) {
+            return loaderRegistry.findByStream(stream);
+        } catch (IOException e) {
+            return Optional.empty();
         }
-        throw new TrackLoadException("Loader not found fot this track source.");
+    }
+
+    @Override
+    public TrackCache getTrackCache() {
+        return trackCache;
     }
 
     @Override
@@ -151,17 +244,17 @@ public class NativeAudioEngine implements AudioEngine {
 
     @Override
     public void addLoaderManager(@NotNull TrackLoaderManager loader) {
-        loaderManagers.add(loader);
+        loaderRegistry.register(loader);
     }
 
     @Override
     public void removeLoaderManager(@NotNull TrackLoaderManager loader) {
-        loaderManagers.remove(loader);
+        loaderRegistry.unregister(loader);
     }
 
     @Override
     public List<TrackLoaderManager> getAvailableLoaders() {
-        return loaderManagers;
+        return loaderRegistry.getManagers();
     }
 
     @Override
@@ -184,13 +277,7 @@ public class NativeAudioEngine implements AudioEngine {
      */
     @Override
     public Optional<TrackLoaderManager> findLoaderFor(@NotNull TrackFormat format) {
-        for (TrackLoaderManager manager : loaderManagers) {
-            TrackLoader loader = manager.getTrackLoader();
-            if (loader.isSupported(format.extension())) {
-                return Optional.of(manager);
-            }
-        }
-        return Optional.empty();
+        return loaderRegistry.findByExtension(format.extension());
     }
 
     @Override
@@ -198,7 +285,10 @@ public class NativeAudioEngine implements AudioEngine {
         if (!isInited) {
             return;
         }
-        loaderManagers.clear();
+        loaderRegistry.clear();
+        loaderRegistry.getLocatorIndex().close(); // stops watcher thread
+        batchLoader.close();
+        trackCache.clear();
         isInited = false;
         _cleanup();
     }
@@ -221,12 +311,20 @@ public class NativeAudioEngine implements AudioEngine {
 
     @Override
     public void exportTrack(Track track, OutputStream outputStream) {
+        findExporterFor(track).save(track, outputStream);
+    }
+
+    @Override
+    public void exportTrack(Track track, WritableByteChannel channel) {
+        findExporterFor(track).save(track, channel);
+    }
+
+    private TrackExporter findExporterFor(Track track) {
         Optional<TrackLoaderManager> exporterOptional = findLoaderFor(track.getFormat());
 
         if (exporterOptional.isPresent()) {
             TrackLoaderManager trackLoaderManager = exporterOptional.get();
-            TrackExporter exporter = trackLoaderManager.getTrackExporter();
-            exporter.save(track, outputStream);
+            return trackLoaderManager.getTrackExporter();
         } else {
             throw new TrackExportException("Cann't find situable exporter");
         }
@@ -3,11 +3,13 @@ package org.plovdev.audioengine.devices;
 import org.plovdev.audioengine.exceptions.AudioDeviceException;
 import org.plovdev.audioengine.exceptions.CloseAudioDeviceException;
 import org.plovdev.audioengine.exceptions.OpenAudioDeviceException;
+import org.plovdev.audioengine.tracks.format.FormatConverter;
 import org.plovdev.audioengine.tracks.format.TrackFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class NativeOutputAudioDevice implements OutputAudioDevice {
@@ -59,7 +61,7 @@ public final class NativeOutputAudioDevice implements OutputAudioDevice {
         }
 
         if (!isSupportedFormat(format)) {
-            log.warn("Format {} is not supported by device {}", format, info.name());
+            log.warn("Format {} is not supported by device {}, use {} to convert tracks", format, info.name(), nearestFormat(format));
         }
 
         try {
@@ -96,6 +98,21 @@ public final class NativeOutputAudioDevice implements OutputAudioDevice {
         return info.supportedForamts().contains(format);
     }
 
+    /**
+     * Returns supported format, which format is converted to with the least cost and loss.
+     *
+     * @param format track format
+     * @return format itself, if it's supported or device reports no formats
+     * @see FormatConverter#negotiate(TrackFormat, java.util.Collection)
+     */
+    public TrackFormat nearestFormat(TrackFormat format) {
+        Set<TrackFormat> supported = info.supportedForamts();
+        if (supported == null || supported.isEmpty() || supported.contains(format)) {
+            return format;
+        }
+        return FormatConverter.negotiate(format, supported).target();
+    }
+
     /**
      * Return all info about audio device
      *
@@ -2,9 +2,13 @@ package org.plovdev.audioengine.mixer;
 
 import org.plovdev.audioengine.exceptions.MixingException;
 import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.FormatConverter;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
 import org.plovdev.audioengine.tracks.format.TrackFormat;
 import org.plovdev.audioengine.tracks.format.factories.WavTrackFormatFactory;
 
+import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -59,6 +63,8 @@ public class NativeTrackMixer implements TrackMixer {
 
     /**
      * Mix all track in list.
+     * Tracks with other channels or sample rate, segmented tracks and tracks of codecs,
+     * not supported by {@link SampleConverter}, are converted by {@link FormatConverter} first.
      *
      * @throws MixingException when mixing failed.
      */
@@ -67,7 +73,24 @@ public class NativeTrackMixer implements TrackMixer {
         if (isEmpty()) {
             throw new MixingException("No tracks for mixing.");
         }
-        return _doMixing(mixingTracks, outputFormat);
+        TrackFormat mixFormat = new TrackFormat(outputFormat.extension(), outputFormat.channels(), 32, outputFormat.sampleRate(),
+                true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLOAT32);
+        List<Track> prepared = new ArrayList<>();
+        try {
+            for (Track track : mixingTracks) {
+                TrackFormat format = track.getFormat();
+                boolean matches = SampleConverter.isSupported(format) && !track.isSegmented()
+                        && format.channels() == mixFormat.channels() && format.sampleRate() == mixFormat.sampleRate();
+                try {
+                    prepared.add(matches ? track.retain() : FormatConverter.convert(track, mixFormat));
+                } catch (IllegalArgumentException e) {
+                    throw new MixingException("Can't convert track for mixing: " + e.getMessage());
+                }
+            }
+            return _doMixing(prepared, outputFormat);
+        } finally {
+            prepared.forEach(Track::close);
+        }
     }
 
     @Override
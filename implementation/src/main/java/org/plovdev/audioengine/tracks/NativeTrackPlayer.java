@@ -4,6 +4,8 @@ import org.plovdev.audioengine.devices.NativeOutputAudioDevice;
 import org.plovdev.audioengine.devices.OutputAudioDevice;
 import org.plovdev.audioengine.exceptions.AudioDeviceException;
 import org.plovdev.audioengine.exceptions.OpenAudioDeviceException;
+import org.plovdev.audioengine.tracks.format.FormatConverter;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
 import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,15 +13,18 @@ import org.slf4j.LoggerFactory;
 import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.LockSupport;
 
 public class NativeTrackPlayer implements TrackPlayer {
     private static final Logger log = LoggerFactory.getLogger(NativeTrackPlayer.class);
     private final Track track;
     private final NativeOutputAudioDevice audioDevice;
-    private final ByteBuffer data;
-    private final AtomicInteger position = new AtomicInteger(0);
+    private final List<ByteBuffer> segments;
+    private final long length;
+    private final AtomicLong position = new AtomicLong(0);
     private final AtomicBoolean isPlaying = new AtomicBoolean(false);
     private final AtomicBoolean isInited = new AtomicBoolean(false);
     private TrackStatus status = TrackStatus.UNAVAILABLE;
@@ -31,19 +36,33 @@ public class NativeTrackPlayer implements TrackPlayer {
     private float volume = 0.5f;
 
     private int totalCycles = 1;
+    private volatile Thread loopThread;
 
     private Runnable onStatusChanged = () -> {
     };
 
+    /**
+     * Player keeps own handle of track, so track can be closed by caller while it's played.
+     * Track in format, which device doesn't support, is converted by {@link FormatConverter}
+     * into the nearest supported one.
+     */
     public NativeTrackPlayer(Track track, OutputAudioDevice device) {
-        this.track = track;
         audioDevice = new NativeOutputAudioDevice(device.getDeviceInfo());
-        data = track.getTrackData();
+        Set<TrackFormat> supported = device.getDeviceInfo().supportedForamts();
+        if (supported == null || supported.isEmpty() || supported.contains(track.getFormat())) {
+            this.track = track.retain();
+        } else {
+            FormatConverter.Chain chain = FormatConverter.negotiate(track.getFormat(), supported);
+            log.info("Converting track for device: {}", chain);
+            this.track = chain.convert(track);
+        }
+        segments = this.track.getSegments();
+        length = this.track.getByteLength();
 
         initPlayer();
         log.info("Inited");
 
-        chunkSize = TrackFormatUtils.calculateChunkSizeInBytes(track.getFormat(), ms);
+        chunkSize = TrackFormatUtils.calculateChunkSizeInBytes(this.track.getFormat(), ms);
     }
 
     @Override
@@ -80,6 +99,7 @@ public class NativeTrackPlayer implements TrackPlayer {
         thread.setDaemon(true);
         thread.setPriority(Thread.MAX_PRIORITY);
         thread.start();
+        loopThread = thread;
     }
 
     /**
@@ -208,12 +228,8 @@ public class NativeTrackPlayer implements TrackPlayer {
     public void seek(Duration position) {
         checkIfInited();
 
-        int toPosition = (int) position.toMillis() * (chunkSize / ms);
-        int limit = data.limit();
-        if (toPosition >= limit) {
-            toPosition = limit;
-        }
-        this.position.set(toPosition);
+        long toPosition = position.toMillis() * (chunkSize / ms);
+        this.position.set(Math.min(toPosition, length));
     }
 
     /**
@@ -224,8 +240,23 @@ public class NativeTrackPlayer implements TrackPlayer {
     public void close() {
         if (isInited.get()) {
             stop();
+            awaitLoop();
             audioDevice.close();
         }
+        track.close();
+    }
+
+    /**
+     * Waits, until audio loop stops writing track data, before track memory is released.
+     */
+    private void awaitLoop() {
+        Thread thread = loopThread;
+        if (thread == null || thread == Thread.currentThread()) return;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     private void checkIfInited() {
@@ -250,23 +281,20 @@ public class NativeTrackPlayer implements TrackPlayer {
     }
 
     private void audioLoop() {
-        final int limit = data.limit();
         log.info("Start playing");
 
         while (isPlaying.get()) {
-            int start = position.get();
-            int rem = limit - start;
+            long start = position.get();
 
-            if (start >= limit || rem <= 0) {
+            if (start >= length) {
                 stop();
                 break;
             }
 
-
-            ByteBuffer chunk = data.slice(start, Math.min(chunkSize, rem));
+            ByteBuffer chunk = chunkAt(start);
             audioDevice.write(chunk);
 
-            position.set(Math.min(start + chunkSize, limit));
+            position.set(Math.min(start + chunk.remaining(), length));
             LockSupport.parkNanos(700000);
         }
 
@@ -275,6 +303,23 @@ public class NativeTrackPlayer implements TrackPlayer {
         setStatus(TrackStatus.STOPPED);
     }
 
+    /**
+     * Slice next chunk from segment, which contains givven position.
+     * Chunk never crosses segment border.
+     */
+    private ByteBuffer chunkAt(long position) {
+        long segmentStart = 0;
+        for (ByteBuffer segment : segments) {
+            int size = segment.limit();
+            if (position < segmentStart + size) {
+                int offset = (int) (position - segmentStart);
+                return segment.slice(offset, Math.min(chunkSize, size - offset));
+            }
+            segmentStart += size;
+        }
+        return ByteBuffer.allocateDirect(0);
+    }
+
     public boolean isInited() {
         return isInited.get();
     }
@@ -8,9 +8,14 @@ public class TrackUtils {
     private TrackUtils() {}
 
     public static byte[] getTrackBytes(Track track) {
-        ByteBuffer directData = track.getTrackData();
-        byte[] bytes = new byte[directData.remaining()];
-        directData.get(bytes);
+        byte[] bytes = new byte[Math.toIntExact(track.getByteLength())];
+        int offset = 0;
+        for (ByteBuffer segment : track.getSegments()) {
+            ByteBuffer directData = segment.duplicate().rewind();
+            int size = directData.remaining();
+            directData.get(bytes, offset, size);
+            offset += size;
+        }
 
         return bytes;
     }
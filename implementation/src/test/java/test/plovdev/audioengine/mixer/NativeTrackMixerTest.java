@@ -0,0 +1,83 @@
+package test.plovdev.audioengine.mixer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.mixer.NativeTrackMixer;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.G711Codec;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.utils.AudioEngineConfig;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class NativeTrackMixerTest {
+    private static final TrackFormat FLOAT_STEREO = new TrackFormat("wav", 2, 32, 44100, true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLOAT32);
+
+    @BeforeAll
+    public static void loadLibrary() {
+        boolean loaded;
+        try {
+            System.loadLibrary(AudioEngineConfig.NativeLib.DEFAULT.toString());
+            loaded = true;
+        } catch (UnsatisfiedLinkError e) {
+            loaded = false;
+        }
+        assumeTrue(loaded, "native library isn't built for this platform");
+    }
+
+    private static Track constant(int frames, float value) {
+        ByteBuffer data = ByteBuffer.allocateDirect(frames * 8).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames * 2; i++) {
+            data.putFloat(value);
+        }
+        data.flip();
+        return new Track(data, Duration.ZERO, FLOAT_STEREO, null);
+    }
+
+    @Test
+    public void testMixesConcatTrackSegmentBySegment() {
+        try (Track first = constant(100, 0.25f);
+             Track second = constant(50, -0.25f);
+             Track joined = Track.concat(first, second)) {
+            assertTrue(joined.isSegmented());
+
+            NativeTrackMixer mixer = new NativeTrackMixer();
+            mixer.addTrack(joined);
+            try (Track mixed = mixer.doMixing()) {
+                ByteBuffer data = mixed.getTrackData().duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                assertEquals(150, mixed.getFrameCount());
+                assertEquals(8191, data.getShort(0), 1);
+                assertEquals(8191, data.getShort(99 * 4 + 2), 1);
+                assertEquals(-8191, data.getShort(100 * 4), 1);
+                assertEquals(-8191, data.getShort(149 * 4 + 2), 1);
+            }
+        }
+    }
+
+    @Test
+    public void testDecodesCodecTrackOfMixFormat() {
+        byte code = G711Codec.encodeUlaw((short) 8192);
+        ByteBuffer data = ByteBuffer.allocateDirect(200);
+        while (data.hasRemaining()) {
+            data.put(code);
+        }
+        data.flip();
+        TrackFormat ulaw = new TrackFormat("wav", 2, 8, 44100, true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.ULAW);
+
+        try (Track track = new Track(data, Duration.ZERO, ulaw, null)) {
+            NativeTrackMixer mixer = new NativeTrackMixer();
+            mixer.addTrack(track);
+            try (Track mixed = mixer.doMixing()) {
+                ByteBuffer out = mixed.getTrackData().duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                assertEquals(100, mixed.getFrameCount());
+                assertEquals(G711Codec.decodeUlaw(code), out.getShort(0), 2);
+                assertEquals(G711Codec.decodeUlaw(code), out.getShort(99 * 4 + 2), 2);
+            }
+        }
+    }
+}
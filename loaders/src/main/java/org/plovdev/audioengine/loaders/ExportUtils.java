@@ -5,8 +5,8 @@ import org.plovdev.audioengine.exceptions.TrackLoadException;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.file.Path;
 import java.time.Duration;
-import java.util.List;
 
 public class ExportUtils {
     public static byte[] intToLittleEndian(int value) {
@@ -53,17 +53,17 @@ public class ExportUtils {
         return bos.toByteArray();
     }
 
-    public static File getFile(String originalPath, List<PathLocator> locators) {
+    /**
+     * Finds track file by path as is, or by path relative to indexed locator roots.
+     *
+     * @throws TrackLoadException if file not found
+     */
+    public static File getFile(String originalPath, LocatorIndex locators) {
         File file = new File(originalPath);
         if (!file.exists()) {
-            for (PathLocator locator : locators) {
-                String newPath = locator.getPath().toString() + "/" + originalPath;
-                File newFile = new File(newPath);
-                if (newFile.exists()) {
-                    return newFile;
-                }
-            }
-            throw new TrackLoadException("Track not found!");
+            return locators.resolve(originalPath)
+                    .map(Path::toFile)
+                    .orElseThrow(() -> new TrackLoadException("Track not found!"));
         }
         return file;
     }
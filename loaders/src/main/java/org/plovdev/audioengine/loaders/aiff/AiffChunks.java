@@ -0,0 +1,125 @@
+package org.plovdev.audioengine.loaders.aiff;
+
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.nio.ByteOrder;
+
+/**
+ * Chunk IDs, AIFF-C compression types and 80-bit extended sample rate of AIFF files.
+ * All AIFF numbers are big-endian.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public final class AiffChunks {
+    public static final String FORM = "FORM";
+    public static final String AIFF = "AIFF";
+    public static final String AIFC = "AIFC";
+    public static final String COMMON = "COMM";
+    public static final String SOUND = "SSND";
+    public static final String VERSION = "FVER";
+    public static final String NAME = "NAME";
+    public static final String AUTHOR = "AUTH";
+    public static final String COPYRIGHT = "(c) ";
+    public static final String ANNOTATION = "ANNO";
+
+    /**
+     * The only defined AIFF-C version, May 23, 1990.
+     */
+    public static final int AIFC_VERSION = 0xA2805140;
+
+    private AiffChunks() {
+    }
+
+    /**
+     * Creates format of sound data.
+     *
+     * @param compression AIFF-C compression type, or null for plain AIFF
+     * @param channels channels count
+     * @param sampleSize bits per sample from COMM chunk
+     * @param sampleRate sample rate in Hz
+     * @return format, or null if compression type isn't supported
+     */
+    public static TrackFormat format(String compression, int channels, int sampleSize, int sampleRate) {
+        int bits = (sampleSize + 7) / 8 * 8;
+        if (compression == null) {
+            return pcm(channels, bits, sampleRate, true, ByteOrder.BIG_ENDIAN);
+        }
+        return switch (compression) {
+            case "NONE", "twos" -> pcm(channels, bits, sampleRate, true, ByteOrder.BIG_ENDIAN);
+            case "sowt" -> pcm(channels, bits, sampleRate, true, ByteOrder.LITTLE_ENDIAN);
+            case "raw " -> pcm(channels, 8, sampleRate, false, ByteOrder.BIG_ENDIAN);
+            case "in24" -> pcm(channels, 24, sampleRate, true, ByteOrder.BIG_ENDIAN);
+            case "42ni" -> pcm(channels, 24, sampleRate, true, ByteOrder.LITTLE_ENDIAN);
+            case "in32" -> pcm(channels, 32, sampleRate, true, ByteOrder.BIG_ENDIAN);
+            case "23ni" -> pcm(channels, 32, sampleRate, true, ByteOrder.LITTLE_ENDIAN);
+            case "fl32", "FL32" -> new TrackFormat("aiff", channels, 32, sampleRate, true, ByteOrder.BIG_ENDIAN, TrackFormat.AudioCodec.FLOAT32);
+            case "fl64", "FL64" -> new TrackFormat("aiff", channels, 64, sampleRate, true, ByteOrder.BIG_ENDIAN, TrackFormat.AudioCodec.FLOAT64);
+            case "alaw", "ALAW" -> new TrackFormat("aiff", channels, 8, sampleRate, true, ByteOrder.BIG_ENDIAN, TrackFormat.AudioCodec.ALAW);
+            case "ulaw", "ULAW" -> new TrackFormat("aiff", channels, 8, sampleRate, true, ByteOrder.BIG_ENDIAN, TrackFormat.AudioCodec.ULAW);
+            default -> null;
+        };
+    }
+
+    /**
+     * @return AIFF-C compression type for format, or null if plain AIFF can hold it
+     */
+    public static String compression(TrackFormat format) {
+        return switch (format.audioCodec()) {
+            case FLOAT32 -> "fl32";
+            case FLOAT64 -> "fl64";
+            case ALAW -> "alaw";
+            case ULAW -> "ulaw";
+            default -> null;
+        };
+    }
+
+    /**
+     * Reads IEEE 754 80-bit extended precision number.
+     *
+     * @param data 10 bytes
+     */
+    public static double readExtended(byte[] data) {
+        int exponent = ((data[0] & 0x7F) << 8) | (data[1] & 0xFF);
+        long mantissa = 0;
+        for (int i = 2; i < 10; i++) {
+            mantissa = (mantissa << 8) | (data[i] & 0xFF);
+        }
+        if (exponent == 0 && mantissa == 0) return 0;
+
+        double value = (double) (mantissa >>> 1) * 2 + (mantissa & 1);
+        value = Math.scalb(value, exponent - 16383 - 63);
+        return (data[0] & 0x80) != 0 ? -value : value;
+    }
+
+    /**
+     * Writes positive integer as IEEE 754 80-bit extended precision number.
+     *
+     * @return 10 bytes
+     */
+    public static byte[] writeExtended(long value) {
+        byte[] data = new byte[10];
+        if (value <= 0) return data;
+
+        int shift = Long.numberOfLeadingZeros(value);
+        int exponent = 16383 + 63 - shift;
+        long mantissa = value << shift;
+        data[0] = (byte) (exponent >> 8);
+        data[1] = (byte) exponent;
+        for (int i = 0; i < 8; i++) {
+            data[2 + i] = (byte) (mantissa >>> (56 - 8 * i));
+        }
+        return data;
+    }
+
+    private static TrackFormat pcm(int channels, int bits, int sampleRate, boolean signed, ByteOrder order) {
+        TrackFormat.AudioCodec codec = switch (bits) {
+            case 8 -> TrackFormat.AudioCodec.PCM8;
+            case 16 -> TrackFormat.AudioCodec.PCM16;
+            case 24 -> TrackFormat.AudioCodec.PCM24;
+            case 32 -> TrackFormat.AudioCodec.PCM32;
+            default -> null;
+        };
+        return codec == null ? null : new TrackFormat("aiff", channels, bits, sampleRate, signed, order, codec);
+    }
+}
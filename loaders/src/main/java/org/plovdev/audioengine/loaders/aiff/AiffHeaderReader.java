@@ -0,0 +1,216 @@
+package org.plovdev.audioengine.loaders.aiff;
+
+import org.plovdev.audioengine.exceptions.UnsupportedTrackFormat;
+import org.plovdev.audioengine.loaders.TrackProbe;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Reads FORM, COMM and SSND headers of AIFF and AIFF-C sources.
+ * <p>
+ * Sound data is never read. For seekable channels all chunks are scanned, so text chunks
+ * after SSND are found too. Other channels are left at the first byte of sound data.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class AiffHeaderReader {
+    private static final int SKIP_BUFFER_SIZE = 8192;
+    private static final int MAX_TEXT_CHUNK = 1 << 20;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(12);
+    private long position = 0;
+
+    private TrackFormat format;
+    private int sampleSize;
+    private long frames;
+    private TrackMetadata metadata;
+
+    public AiffHeaderReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Reads headers up to the sound data, and after it for seekable channels.
+     *
+     * @return probe result, with data offset relative to source start
+     * @throws IOException if source isn't valid AIFF
+     * @throws UnsupportedTrackFormat if AIFF-C compression type isn't supported
+     */
+    public TrackProbe probe() throws IOException {
+        readHeader(12);
+        String form = readId();
+        long formEnd = 8 + Integer.toUnsignedLong(header.getInt());
+        String type = readId();
+        if (!AiffChunks.FORM.equals(form) || !(AiffChunks.AIFF.equals(type) || AiffChunks.AIFC.equals(type))) {
+            throw new IOException("Not an AIFF file");
+        }
+        boolean compressed = AiffChunks.AIFC.equals(type);
+        boolean seekable = channel instanceof SeekableByteChannel;
+        if (seekable) {
+            formEnd = Math.min(formEnd, ((SeekableByteChannel) channel).size());
+        }
+
+        format = null;
+        metadata = new TrackMetadata();
+        long dataOffset = -1;
+        long dataSize = 0;
+        while (position + 8 <= formEnd) {
+            readHeader(8);
+            String id = readId();
+            long size = Integer.toUnsignedLong(header.getInt());
+            long padded = size + (size & 1);
+
+            switch (id) {
+                case AiffChunks.COMMON -> readCommon(ByteBuffer.wrap(readBody(size)), compressed);
+                case AiffChunks.SOUND -> {
+                    if (format == null) throw new IOException("SSND chunk found before COMM chunk");
+                    readHeader(8);
+                    long offset = Integer.toUnsignedLong(header.getInt());
+                    dataOffset = position + offset;
+                    dataSize = Math.min(size - 8 - offset, frames * TrackFormatUtils.frameSize(format));
+                    if (!seekable) {
+                        skip(offset);
+                        return createProbe(dataOffset, dataSize);
+                    }
+                    skip(padded - 8);
+                }
+                case AiffChunks.NAME -> metadata.setTitle(readText(size));
+                case AiffChunks.AUTHOR -> metadata.setArtist(readText(size));
+                case AiffChunks.COPYRIGHT -> metadata.setCopyright(readText(size));
+                case AiffChunks.ANNOTATION -> metadata.setComment(readText(size));
+                default -> skip(padded);
+            }
+            if ((size & 1) != 0 && isText(id)) skip(1);
+        }
+        if (dataOffset < 0) {
+            throw new IOException("No SSND chunk in AIFF file");
+        }
+        return createProbe(dataOffset, dataSize);
+    }
+
+    /**
+     * @return metadata from text chunks and COMM, read by last {@link #probe()}
+     */
+    public TrackMetadata getMetadata() {
+        return metadata;
+    }
+
+    private TrackProbe createProbe(long dataOffset, long dataSize) {
+        Duration duration = TrackFormatUtils.calculateDuration(format, TrackFormatUtils.calculateFrameCount(format, dataSize));
+        metadata.setDuration(duration);
+        metadata.setSampleRate(format.sampleRate());
+        metadata.setBitDepth(format.bitsPerSample());
+        metadata.setChannels(format.channels());
+        metadata.setBitrate(format.bitRate());
+        metadata.setFileFormat(format.extension());
+        metadata.setAudioCodec(format.audioCodec().name());
+        if (sampleSize != format.bitsPerSample()) {
+            metadata.setValidBits(sampleSize);
+        }
+        return new TrackProbe(format, dataOffset, Math.max(0, dataSize), duration);
+    }
+
+    private void readCommon(ByteBuffer body, boolean compressed) throws IOException {
+        if (body.remaining() < 18) throw new IOException("COMM chunk is too short");
+        int channels = body.getShort();
+        frames = Integer.toUnsignedLong(body.getInt());
+        sampleSize = body.getShort();
+        byte[] rate = new byte[10];
+        body.get(rate);
+        int sampleRate = (int) Math.round(AiffChunks.readExtended(rate));
+
+        String compression = null;
+        if (compressed) {
+            if (body.remaining() < 4) throw new IOException("AIFF-C COMM chunk has no compression type");
+            byte[] id = new byte[4];
+            body.get(id);
+            compression = new String(id, StandardCharsets.ISO_8859_1);
+        }
+        if (channels <= 0 || sampleRate <= 0) {
+            throw new IOException("Invalid COMM chunk: " + channels + " channels, " + sampleRate + " Hz");
+        }
+        format = AiffChunks.format(compression, channels, sampleSize, sampleRate);
+        if (format == null) {
+            throw new UnsupportedTrackFormat("Unsupported AIFF sound: " + (compression != null ? compression : sampleSize + " bits"));
+        }
+    }
+
+    private String readText(long size) throws IOException {
+        if (size > MAX_TEXT_CHUNK) {
+            skip(size);
+            return null;
+        }
+        byte[] text = readBody(size);
+        int length = text.length;
+        while (length > 0 && text[length - 1] == 0) length--;
+        return new String(text, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean isText(String id) {
+        return switch (id) {
+            case AiffChunks.COMMON, AiffChunks.NAME, AiffChunks.AUTHOR, AiffChunks.COPYRIGHT, AiffChunks.ANNOTATION -> true;
+            default -> false;
+        };
+    }
+
+    private byte[] readBody(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Header chunk is too large");
+        }
+        ByteBuffer body = ByteBuffer.allocate((int) size);
+        readFully(body);
+        return body.array();
+    }
+
+    private void readHeader(int size) throws IOException {
+        header.clear().limit(size);
+        readFully(header);
+        header.flip();
+    }
+
+    private String readId() {
+        byte[] id = new byte[4];
+        header.get(id);
+        return new String(id, StandardCharsets.ISO_8859_1);
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of AIFF header");
+            }
+        }
+        position += buffer.position();
+    }
+
+    private void skip(long bytes) throws IOException {
+        if (bytes <= 0) return;
+
+        if (channel instanceof SeekableByteChannel seekable) {
+            seekable.position(seekable.position() + bytes);
+            position += bytes;
+            return;
+        }
+
+        ByteBuffer discard = ByteBuffer.allocate((int) Math.min(SKIP_BUFFER_SIZE, bytes));
+        long left = bytes;
+        while (left > 0) {
+            discard.clear().limit((int) Math.min(discard.capacity(), left));
+            int r = channel.read(discard);
+            if (r < 0) throw new IOException("Unexpected end of AIFF chunk");
+            left -= r;
+        }
+        position += bytes;
+    }
+}
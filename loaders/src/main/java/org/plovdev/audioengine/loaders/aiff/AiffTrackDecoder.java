@@ -0,0 +1,44 @@
+package org.plovdev.audioengine.loaders.aiff;
+
+import org.plovdev.audioengine.exceptions.UnsupportedTrackFormat;
+import org.plovdev.audioengine.loaders.TrackDecoder;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.nio.ByteOrder;
+
+/**
+ * Decodes AIFF samples of any PCM or float codec into float32, or into another sample format.
+ *
+ * @see SampleConverter
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class AiffTrackDecoder implements TrackDecoder {
+    /**
+     * @param input track with PCM or float samples
+     * @return track with interleaved little-endian float32 samples
+     */
+    @Override
+    public Track decodeToPCM(Track input) {
+        TrackFormat format = input.getFormat();
+        return decodeToFormat(input, new TrackFormat(format.extension(), format.channels(), 32, format.sampleRate(), true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLOAT32));
+    }
+
+    /**
+     * @param input track with PCM or float samples
+     * @param outFormat target sample format, with the same channels and sample rate
+     * @return converted track
+     * @throws UnsupportedTrackFormat if samples can't be converted
+     */
+    @Override
+    public Track decodeToFormat(Track input, TrackFormat outFormat) {
+        try {
+            return SampleConverter.convert(input, outFormat);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedTrackFormat(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.plovdev.audioengine.loaders.aiff;
+
+import org.plovdev.audioengine.exceptions.TrackExportException;
+import org.plovdev.audioengine.loaders.TrackEncoder;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.nio.ByteOrder;
+
+/**
+ * Encodes PCM or float samples into AIFF sample formats.
+ *
+ * @see SampleConverter
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class AiffTrackEncoder implements TrackEncoder {
+    /**
+     * @param input track with PCM or float samples
+     * @return track with 16-bit signed big-endian samples, the most common AIFF format
+     */
+    @Override
+    public Track encodeFromPCM(Track input) {
+        TrackFormat format = input.getFormat();
+        return encodeFromFormat(input, new TrackFormat("aiff", format.channels(), 16, format.sampleRate(), true, ByteOrder.BIG_ENDIAN, TrackFormat.AudioCodec.PCM16));
+    }
+
+    /**
+     * @param input track with PCM or float samples
+     * @param outFormat target AIFF format, with the same channels and sample rate
+     * @return converted track
+     * @throws TrackExportException if samples can't be converted
+     */
+    @Override
+    public Track encodeFromFormat(Track input, TrackFormat outFormat) {
+        try {
+            return SampleConverter.convert(input, outFormat);
+        } catch (IllegalArgumentException e) {
+            throw new TrackExportException(e.getMessage());
+        }
+    }
+}
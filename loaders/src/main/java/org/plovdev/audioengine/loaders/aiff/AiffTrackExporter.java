@@ -0,0 +1,181 @@
+package org.plovdev.audioengine.loaders.aiff;
+
+import org.plovdev.audioengine.exceptions.TrackExportException;
+import org.plovdev.audioengine.loaders.TrackExporter;
+import org.plovdev.audioengine.tracks.AudioBufferPool;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Writes PCM tracks as AIFF, and float, A-law and μ-law tracks as AIFF-C.
+ * <p>
+ * Signed big-endian samples are written straight from track buffers.
+ * Little-endian or unsigned samples are swapped and sign-flipped block by block,
+ * which is lossless for every sample size.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class AiffTrackExporter implements TrackExporter {
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    @Override
+    public void save(Track track, OutputStream outputStream) {
+        save(track, Channels.newChannel(outputStream));
+    }
+
+    @Override
+    public void save(Track track, WritableByteChannel channel) {
+        try {
+            TrackFormat format = track.getFormat();
+            String compression = AiffChunks.compression(format);
+            boolean pcm = switch (format.audioCodec()) {
+                case PCM8, PCM16, PCM24, PCM32 -> true;
+                default -> false;
+            };
+            if (!pcm && compression == null) {
+                throw new TrackExportException("Can't export " + format.audioCodec() + " samples to AIFF");
+            }
+
+            long dataSize = track.getByteLength();
+            byte[] chunks = headerChunks(track, compression, dataSize);
+            long formSize = 4 + chunks.length + 8 + 8 + dataSize + (dataSize & 1);
+            if (formSize > 0xFFFFFFFFL) {
+                throw new TrackExportException("Track is too large for AIFF: " + dataSize + " bytes");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(12 + chunks.length + 16);
+            header.put(AiffChunks.FORM.getBytes(StandardCharsets.ISO_8859_1)).putInt((int) formSize);
+            header.put((compression != null ? AiffChunks.AIFC : AiffChunks.AIFF).getBytes(StandardCharsets.ISO_8859_1));
+            header.put(chunks);
+            header.put(AiffChunks.SOUND.getBytes(StandardCharsets.ISO_8859_1)).putInt((int) (8 + dataSize));
+            header.putInt(0).putInt(0);
+            writeFully(channel, header.flip());
+
+            int bytes = format.bitsPerSample() / 8;
+            boolean swap = bytes > 1 && format.byteOrder() == ByteOrder.LITTLE_ENDIAN && format.audioCodec() != TrackFormat.AudioCodec.ALAW
+                    && format.audioCodec() != TrackFormat.AudioCodec.ULAW;
+            boolean flip = pcm && !format.signed();
+            for (ByteBuffer segment : track.getSegments()) {
+                ByteBuffer data = segment.duplicate();
+                if (swap || flip) {
+                    writeConverted(channel, data, bytes, swap, flip);
+                } else {
+                    writeFully(channel, data);
+                }
+            }
+            if ((dataSize & 1) != 0) {
+                writeFully(channel, ByteBuffer.allocate(1));
+            }
+        } catch (TrackExportException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new TrackExportException(e.getMessage());
+        }
+    }
+
+    /**
+     * FVER, COMM and text chunks.
+     */
+    private static byte[] headerChunks(Track track, String compression, long dataSize) {
+        TrackFormat format = track.getFormat();
+        TrackMetadata metadata = track.getMetaData();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        if (compression != null) {
+            chunk(out, AiffChunks.VERSION, ByteBuffer.allocate(4).putInt(AiffChunks.AIFC_VERSION).array());
+        }
+
+        int bits = format.bitsPerSample();
+        int sampleSize = switch (format.audioCodec()) {
+            case ALAW, ULAW -> 16;
+            default -> metadata != null ? metadata.getValidBits().filter(valid -> valid > 0 && valid < bits).orElse(bits) : bits;
+        };
+        byte[] name = compression != null ? compressionName(compression).getBytes(StandardCharsets.ISO_8859_1) : new byte[0];
+        int nameLength = compression != null ? 1 + name.length + ((1 + name.length) & 1) : 0;
+        ByteBuffer common = ByteBuffer.allocate(18 + (compression != null ? 4 + nameLength : 0));
+        common.putShort((short) format.channels());
+        common.putInt((int) (dataSize / ((long) format.channels() * (bits / 8))));
+        common.putShort((short) sampleSize);
+        common.put(AiffChunks.writeExtended(format.sampleRate()));
+        if (compression != null) {
+            common.put(compression.getBytes(StandardCharsets.ISO_8859_1));
+            common.put((byte) name.length).put(name);
+        }
+        chunk(out, AiffChunks.COMMON, common.array());
+
+        if (metadata != null) {
+            text(out, AiffChunks.NAME, metadata.getTitle());
+            text(out, AiffChunks.AUTHOR, metadata.getArtist());
+            text(out, AiffChunks.COPYRIGHT, metadata.getCopyright());
+            text(out, AiffChunks.ANNOTATION, metadata.getComment());
+        }
+        return out.toByteArray();
+    }
+
+    private static String compressionName(String compression) {
+        return switch (compression) {
+            case "fl32" -> "32-bit floating point";
+            case "fl64" -> "64-bit floating point";
+            case "alaw" -> "ALaw 2:1";
+            case "ulaw" -> "uLaw 2:1";
+            default -> "not compressed";
+        };
+    }
+
+    private static void text(ByteArrayOutputStream out, String id, Optional<String> value) {
+        value.filter(text -> !text.isEmpty()).ifPresent(text -> chunk(out, id, text.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    private static void chunk(ByteArrayOutputStream out, String id, byte[] body) {
+        out.writeBytes(id.getBytes(StandardCharsets.ISO_8859_1));
+        out.writeBytes(ByteBuffer.allocate(4).putInt(body.length).array());
+        out.writeBytes(body);
+        if ((body.length & 1) != 0) out.write(0);
+    }
+
+    /**
+     * Writes samples as signed big-endian.
+     */
+    private static void writeConverted(WritableByteChannel channel, ByteBuffer data, int bytes, boolean swap, boolean flip) throws IOException {
+        int size = BLOCK_SIZE / bytes * bytes;
+        AudioBufferPool pool = AudioBufferPool.getInstance();
+        ByteBuffer block = pool.acquire(size);
+        try {
+            while (data.hasRemaining()) {
+                block.clear();
+                int count = Math.min(size, data.remaining() / bytes * bytes); // pooled capacity isn't frame aligned
+                if (count == 0) break;
+                int from = data.position();
+                for (int i = 0; i < count; i += bytes) {
+                    for (int b = 0; b < bytes; b++) {
+                        byte value = data.get(from + i + (swap ? bytes - 1 - b : b));
+                        block.put(flip && b == 0 ? (byte) (value ^ 0x80) : value);
+                    }
+                }
+                data.position(from + count);
+                writeFully(channel, block.flip());
+            }
+        } finally {
+            pool.release(block);
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package org.plovdev.audioengine.loaders.aiff;
+
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.loaders.AudioSignature;
+import org.plovdev.audioengine.loaders.LoadListener;
+import org.plovdev.audioengine.loaders.LocatorIndex;
+import org.plovdev.audioengine.loaders.PathLocator;
+import org.plovdev.audioengine.loaders.ProbeCache;
+import org.plovdev.audioengine.loaders.TrackLoader;
+import org.plovdev.audioengine.loaders.TrackLoaderRegistry;
+import org.plovdev.audioengine.loaders.TrackProbe;
+import org.plovdev.audioengine.tracks.AudioBufferPool;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.plovdev.audioengine.loaders.ExportUtils.getFile;
+
+/**
+ * AIFF and AIFF-C loader.
+ * <p>
+ * Sound data of files is mapped with {@link FileChannel#map}, and samples stay
+ * in their original big-endian order: players and {@link org.plovdev.audioengine.tracks.format.SampleConverter}
+ * read big-endian PCM directly, so loading doesn't copy or byte-swap anything.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class AiffTrackLoader implements TrackLoader {
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    private LocatorIndex locators = new LocatorIndex();
+    private final ProbeCache probeCache = new ProbeCache();
+    private LoadListener loadListener = null;
+
+    public void addLocator(PathLocator locator) {
+        locators.add(locator);
+    }
+
+    /**
+     * Replaces own index of locator roots by shared one,
+     * so roots are walked and watched once for all loaders.
+     *
+     * @param index shared index, closed by its owner
+     */
+    public void setLocatorIndex(LocatorIndex index) {
+        locators = index;
+    }
+
+    public LocatorIndex getLocatorIndex() {
+        return locators;
+    }
+
+    /**
+     * Maps sound data of file into frame aligned read-only segments.
+     */
+    @Override
+    public Track loadTrack(String path) throws TrackLoadException {
+        File file = getFile(path, locators);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            AiffHeaderReader reader = new AiffHeaderReader(channel);
+            TrackProbe probe = reader.probe();
+            TrackFormat format = probe.format();
+
+            long dataSize = Math.min(probe.dataSize(), channel.size() - probe.dataOffset());
+            int segmentSize = segmentSize(format);
+            int count = (int) Math.max(1, (dataSize + segmentSize - 1) / segmentSize);
+
+            ByteBuffer[] segments = new ByteBuffer[count];
+            long offset = 0;
+            for (int i = 0; i < count; i++) {
+                long size = Math.max(0, Math.min(segmentSize, dataSize - offset));
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, probe.dataOffset() + offset, size).order(format.byteOrder());
+                offset += size;
+            }
+
+            long frames = TrackFormatUtils.calculateFrameCount(format, dataSize);
+            return Track.mapped(segments, TrackFormatUtils.calculateDuration(format, frames), format, reader.getMetadata());
+        } catch (Exception e) {
+            throw new TrackLoadException("Failed to load AIFF file: " + path + " - " + e);
+        }
+    }
+
+    @Override
+    public Track loadTrack(InputStream stream) throws TrackLoadException {
+        try {
+            ReadableByteChannel channel = Channels.newChannel(stream);
+            AiffHeaderReader reader = new AiffHeaderReader(channel);
+            TrackProbe probe = reader.probe();
+            TrackFormat format = probe.format();
+
+            int segmentSize = segmentSize(format);
+            long left = probe.dataSize();
+            int count = (int) Math.max(1, (left + segmentSize - 1) / segmentSize);
+            ByteBuffer[] segments = new ByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                ByteBuffer segment = AudioBufferPool.getInstance().acquire((int) Math.min(segmentSize, left)).order(format.byteOrder());
+                while (segment.hasRemaining()) {
+                    if (channel.read(segment) < 0) throw new IOException("Unexpected end of SSND chunk");
+                }
+                left -= segment.limit();
+                segments[i] = segment.flip();
+            }
+            return new Track(segments, probe.duration(), format, reader.getMetadata());
+        } catch (Exception e) {
+            throw new TrackLoadException("Failed to load AIFF from stream: " + e);
+        }
+    }
+
+    @Override
+    public Track loadTrack(URI uri) throws TrackLoadException {
+        return switch (uri.getScheme()) {
+            case "file" -> loadTrack(uri.getPath());
+            case "https", "http" -> {
+                try (InputStream stream = uri.toURL().openStream()) {
+                    yield loadTrack(stream);
+                } catch (IOException e) {
+                    throw new TrackLoadException(e.getMessage());
+                }
+            }
+            default -> throw new TrackLoadException("Unsupported URI scheme: " + uri.getScheme());
+        };
+    }
+
+    /**
+     * Reads only track headers, without sound data.
+     * Results are cached by file path, size and modification time.
+     *
+     * @param path track path
+     * @return probe result
+     * @throws TrackLoadException if file not found or isn't valid AIFF
+     */
+    public TrackProbe probe(String path) throws TrackLoadException {
+        try {
+            try {
+                return probeCache.get(Path.of(path), AiffTrackLoader::probeFile);
+            } catch (NoSuchFileException e) {
+                return probeCache.get(getFile(path, locators).toPath(), AiffTrackLoader::probeFile);
+            }
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to probe AIFF file: " + path + " - " + e);
+        }
+    }
+
+    /**
+     * Reads only track headers from stream.
+     * Stream will be positioned at sound data start.
+     */
+    public TrackProbe probe(InputStream stream) throws TrackLoadException {
+        try {
+            return new AiffHeaderReader(Channels.newChannel(stream)).probe();
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to probe AIFF from stream: " + e);
+        }
+    }
+
+    public ProbeCache getProbeCache() {
+        return probeCache;
+    }
+
+    @Override
+    public TrackMetadata readTrackMetadata(String src) {
+        try (FileChannel channel = FileChannel.open(getFile(src, locators).toPath(), StandardOpenOption.READ)) {
+            AiffHeaderReader reader = new AiffHeaderReader(channel);
+            reader.probe();
+            return reader.getMetadata();
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to read AIFF metadata: " + src + " - " + e);
+        }
+    }
+
+    @Override
+    public TrackMetadata readTrackMetadata(InputStream src) {
+        try {
+            AiffHeaderReader reader = new AiffHeaderReader(Channels.newChannel(src));
+            reader.probe();
+            return reader.getMetadata();
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to read AIFF metadata from stream: " + e);
+        }
+    }
+
+    @Override
+    public TrackMetadata readTrackMetadata(URI src) {
+        return "file".equals(src.getScheme()) ? readTrackMetadata(src.getPath()) : loadTrack(src).getMetaData();
+    }
+
+    @Override
+    public TrackFormat getTrackFormat(String src) {
+        return probe(src).format();
+    }
+
+    @Override
+    public TrackFormat getTrackFormat(InputStream src) {
+        return probe(src).format();
+    }
+
+    @Override
+    public TrackFormat getTrackFormat(URI src) {
+        return "file".equals(src.getScheme()) ? getTrackFormat(src.getPath()) : loadTrack(src).getFormat();
+    }
+
+    private static TrackProbe probeFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new AiffHeaderReader(channel).probe();
+        }
+    }
+
+    private static int segmentSize(TrackFormat format) {
+        int frameSize = Math.max(1, TrackFormatUtils.frameSize(format));
+        return (MAX_SEGMENT_SIZE / frameSize) * frameSize;
+    }
+
+    @Override
+    public boolean isSupported(String filename) {
+        if (filename == null) return false;
+        String lower = filename.toLowerCase().trim();
+        lower = lower.startsWith(".") ? lower : "." + lower;
+        return lower.endsWith(".aiff") || lower.endsWith(".aif") || lower.endsWith(".aifc");
+    }
+
+    /**
+     * Check stream header for FORM/AIFF or FORM/AIFC signature.
+     * Stream isn't consumed, so it must support mark/reset.
+     */
+    @Override
+    public boolean isSupported(InputStream stream) {
+        if (stream == null || !stream.markSupported()) return false;
+        try {
+            byte[] header = new byte[AudioSignature.PEEK_SIZE];
+            int length = TrackLoaderRegistry.peek(stream, header);
+            return AudioSignature.AIFF.matches(header, length) || AudioSignature.AIFC.matches(header, length);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isSupported(URI uri) {
+        return isSupported(uri.getPath());
+    }
+
+    @Override
+    public void setLoadListener(LoadListener listener) {
+        loadListener = listener;
+    }
+
+    @Override
+    public LoadListener getLoadListener() {
+        return loadListener;
+    }
+}
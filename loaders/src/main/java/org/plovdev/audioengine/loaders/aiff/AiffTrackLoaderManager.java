@@ -0,0 +1,47 @@
+package org.plovdev.audioengine.loaders.aiff;
+
+import org.plovdev.audioengine.loaders.*;
+
+public class AiffTrackLoaderManager implements TrackLoaderManager {
+    private final AiffTrackLoader loader;
+    private final AiffTrackExporter exporter;
+    private final AiffTrackEncoder encoder;
+    private final AiffTrackDecoder decoder;
+
+    public AiffTrackLoaderManager() {
+        loader = new AiffTrackLoader();
+        exporter = new AiffTrackExporter();
+        encoder = new AiffTrackEncoder();
+        decoder = new AiffTrackDecoder();
+    }
+
+    @Override
+    public AiffTrackLoader getTrackLoader() {
+        return loader;
+    }
+
+    @Override
+    public AiffTrackExporter getTrackExporter() {
+        return exporter;
+    }
+
+    @Override
+    public AiffTrackEncoder getTrackEncoder() {
+        return encoder;
+    }
+
+    @Override
+    public AiffTrackDecoder getTrackDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public void registerPathLocator(PathLocator locator) {
+        loader.addLocator(locator);
+    }
+
+    @Override
+    public void setLocatorIndex(LocatorIndex index) {
+        loader.setLocatorIndex(index);
+    }
+}
@@ -0,0 +1,240 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Big-endian bit reader over buffered window of FLAC stream.
+ * <p>
+ * Window is refilled from {@link Input} on demand. Bytes from {@link #mark()} are kept
+ * in window, so CRC of the whole frame can be checked after decoding.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class FlacBitReader {
+    /**
+     * Source of stream bytes.
+     */
+    @FunctionalInterface
+    interface Input {
+        /**
+         * @param dst target buffer
+         * @param position absolute stream position of the first byte; sequential inputs ignore it
+         * @return read bytes count, or -1 at the end of stream
+         */
+        int read(ByteBuffer dst, long position) throws IOException;
+
+        static Input of(ReadableByteChannel channel) {
+            return (dst, position) -> channel.read(dst);
+        }
+
+        /**
+         * Positional input over bytes of segments.
+         */
+        static Input of(List<ByteBuffer> segments) {
+            return (dst, position) -> {
+                int read = 0;
+                for (ByteBuffer segment : segments) {
+                    int size = segment.remaining();
+                    if (position >= size) {
+                        position -= size;
+                        continue;
+                    }
+                    int length = (int) Math.min(size - position, dst.remaining());
+                    dst.put(segment.slice(segment.position() + (int) position, length));
+                    read += length;
+                    position = 0;
+                    if (!dst.hasRemaining()) break;
+                }
+                return read == 0 ? -1 : read;
+            };
+        }
+    }
+
+    private final Input input;
+    private byte[] buffer;
+    private long base; // stream position of buffer[0]
+    private int pos;
+    private int limit;
+    private int mark = -1;
+    private boolean eof;
+
+    private long bits;
+    private int bitCount;
+
+    FlacBitReader(Input input, long position, int capacity) {
+        this.input = input;
+        this.buffer = new byte[capacity];
+        this.base = position;
+    }
+
+    /**
+     * @return stream position of the next unread byte, reader must be aligned
+     */
+    long position() {
+        return base + pos - (bitCount >> 3);
+    }
+
+    /**
+     * Moves reader to stream position. Supported only by positional inputs.
+     */
+    void seek(long position) {
+        bitCount = 0;
+        bits = 0;
+        mark = -1;
+        if (position >= base && position <= base + limit) {
+            pos = (int) (position - base);
+        } else {
+            base = position;
+            pos = 0;
+            limit = 0;
+            eof = false;
+        }
+    }
+
+    /**
+     * Marks current aligned position as start of CRC range.
+     */
+    void mark() {
+        mark = pos - (bitCount >> 3);
+    }
+
+    /**
+     * @return CRC-8 of bytes from mark to current aligned position
+     */
+    int crc8() {
+        return FlacCrc.crc8(buffer, mark, pos - (bitCount >> 3));
+    }
+
+    /**
+     * @return CRC-16 of bytes from mark to current aligned position
+     */
+    int crc16() {
+        return FlacCrc.crc16(buffer, mark, pos - (bitCount >> 3));
+    }
+
+    /**
+     * @return true, if there are no more bytes
+     */
+    boolean isAtEnd() throws IOException {
+        return bitCount == 0 && pos >= limit && !fill();
+    }
+
+    void alignToByte() {
+        bitCount &= ~7;
+    }
+
+    /**
+     * @param n bits count, 0..32
+     * @return unsigned value
+     */
+    int readBits(int n) throws IOException {
+        if (n == 0) return 0;
+        if (bitCount < n) refill(n);
+        bitCount -= n;
+        return (int) ((bits >>> bitCount) & ((1L << n) - 1));
+    }
+
+    int readSigned(int n) throws IOException {
+        if (n == 0) return 0;
+        int shift = 32 - n;
+        return (readBits(n) << shift) >> shift;
+    }
+
+    long readLong(int n) throws IOException {
+        if (n <= 32) return readBits(n) & 0xFFFFFFFFL;
+        long high = readBits(n - 32) & 0xFFFFFFFFL;
+        return (high << 32) | (readBits(32) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return count of zero bits before the next one bit, which is consumed too
+     */
+    int readUnary() throws IOException {
+        int count = 0;
+        while (true) {
+            if (bitCount == 0) refill(1);
+            long window = bits & (-1L >>> (64 - bitCount));
+            if (window == 0) {
+                count += bitCount;
+                bitCount = 0;
+                continue;
+            }
+            int zeros = Long.numberOfLeadingZeros(window) - (64 - bitCount);
+            bitCount -= zeros + 1;
+            return count + zeros;
+        }
+    }
+
+    /**
+     * Reads Rice coded signed values.
+     */
+    void readRice(int[] dst, int from, int to, int parameter) throws IOException {
+        for (int i = from; i < to; i++) {
+            long value = ((long) readUnary() << parameter) | readBits(parameter);
+            dst[i] = (int) (value >>> 1) ^ -(int) (value & 1);
+        }
+    }
+
+    void readBytes(byte[] dst) throws IOException {
+        for (int i = 0; i < dst.length; i++) {
+            dst[i] = (byte) readBits(8);
+        }
+    }
+
+    void skipBytes(long count) throws IOException {
+        alignToByte();
+        long target = position() + count;
+        int cached = bitCount >> 3;
+        bitCount = 0;
+        pos -= cached;
+        while (base + limit < target) {
+            pos = limit;
+            if (!fill()) throw new EOFException();
+        }
+        pos = (int) (target - base);
+    }
+
+    private void refill(int need) throws IOException {
+        while (bitCount <= 56) {
+            if (pos >= limit && !fill()) {
+                if (bitCount >= need) return;
+                throw new EOFException();
+            }
+            bits = (bits << 8) | (buffer[pos++] & 0xFF);
+            bitCount += 8;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        int keep = mark >= 0 ? mark : pos - (bitCount >> 3);
+        if (keep > 0) {
+            System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+            base += keep;
+            pos -= keep;
+            limit -= keep;
+            if (mark >= 0) mark -= keep;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        int read = 0;
+        while (read == 0) {
+            read = input.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit), base + limit);
+        }
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
@@ -0,0 +1,113 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import java.util.Arrays;
+
+/**
+ * MSB-first bit writer into growable byte array.
+ * Bits are collected in 64-bit cache and flushed by whole bytes.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class FlacBitWriter {
+    private byte[] data;
+    private int length;
+    private long cache;
+    private int cacheBits;
+
+    FlacBitWriter(int capacity) {
+        data = new byte[Math.max(capacity, 16)];
+    }
+
+    /**
+     * Drops all written bits, keeping allocated array.
+     */
+    void reset() {
+        length = 0;
+        cache = 0;
+        cacheBits = 0;
+    }
+
+    /**
+     * @param value bits to write, only the lowest {@code bits} are used
+     * @param bits bits count, 0..32
+     */
+    void writeBits(int value, int bits) {
+        if (bits == 0) return;
+        if (cacheBits + bits > 64) flush();
+        cache = (cache << bits) | (value & (-1L >>> (64 - bits)));
+        cacheBits += bits;
+    }
+
+    void writeLong(long value, int bits) {
+        if (bits > 32) {
+            writeBits((int) (value >>> 32), bits - 32);
+            bits = 32;
+        }
+        writeBits((int) value, bits);
+    }
+
+    /**
+     * Writes {@code zeros} zero bits and terminating one.
+     */
+    void writeUnary(int zeros) {
+        while (zeros >= 32) {
+            writeBits(0, 32);
+            zeros -= 32;
+        }
+        writeBits(1, zeros + 1);
+    }
+
+    /**
+     * Writes residuals as Rice codes with given parameter.
+     */
+    void writeRice(int[] values, int from, int to, int parameter) {
+        long mask = (1L << parameter) - 1;
+        for (int i = from; i < to; i++) {
+            int value = values[i];
+            long folded = ((long) value << 1) ^ (value >> 31);
+            long quotient = folded >>> parameter;
+            if (quotient + 1 + parameter <= 32) {
+                writeBits((int) ((1L << parameter) | (folded & mask)), (int) quotient + 1 + parameter);
+            } else {
+                writeUnary((int) quotient);
+                writeBits((int) (folded & mask), parameter);
+            }
+        }
+    }
+
+    void alignToByte() {
+        int pad = (8 - cacheBits % 8) % 8;
+        writeBits(0, pad);
+    }
+
+    /**
+     * @return count of whole written bytes, writer must be aligned
+     */
+    int byteLength() {
+        flush();
+        return length;
+    }
+
+    int crc8(int from) {
+        return FlacCrc.crc8(data, from, byteLength());
+    }
+
+    int crc16(int from) {
+        return FlacCrc.crc16(data, from, byteLength());
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(data, byteLength());
+    }
+
+    private void flush() {
+        if (length + 8 > data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        while (cacheBits >= 8) {
+            cacheBits -= 8;
+            data[length++] = (byte) (cache >>> cacheBits);
+        }
+    }
+}
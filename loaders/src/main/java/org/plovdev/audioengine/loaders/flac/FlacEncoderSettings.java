@@ -0,0 +1,51 @@
+package org.plovdev.audioengine.loaders.flac;
+
+/**
+ * FLAC encoder parameters. Use {@link #ofLevel(int)} for presets, which trade speed for size.
+ *
+ * @param blockSize samples per channel in one frame, 16..65535
+ * @param maxLpcOrder maximal LPC order 0..32, 0 means only fixed predictors
+ * @param maxPartitionOrder maximal Rice partition order 0..15
+ * @param stereoDecorrelation try left/side, side/right and mid/side coding for stereo
+ * @param exhaustiveOrderSearch encode residual for every LPC order, instead of estimating the best one
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public record FlacEncoderSettings(int blockSize, int maxLpcOrder, int maxPartitionOrder,
+                                  boolean stereoDecorrelation, boolean exhaustiveOrderSearch) {
+    public static final int DEFAULT_LEVEL = 5;
+    public static final int MAX_LEVEL = 8;
+
+    public FlacEncoderSettings {
+        if (blockSize < 16 || blockSize > 65535) {
+            throw new IllegalArgumentException("Block size must be in 16..65535: " + blockSize);
+        }
+        if (maxLpcOrder < 0 || maxLpcOrder > 32) {
+            throw new IllegalArgumentException("LPC order must be in 0..32: " + maxLpcOrder);
+        }
+        if (maxPartitionOrder < 0 || maxPartitionOrder > 15) {
+            throw new IllegalArgumentException("Partition order must be in 0..15: " + maxPartitionOrder);
+        }
+    }
+
+    /**
+     * Presets in spirit of reference encoder: 0 is the fastest, 8 is the smallest.
+     *
+     * @param level compression level, 0..8
+     */
+    public static FlacEncoderSettings ofLevel(int level) {
+        return switch (level) {
+            case 0 -> new FlacEncoderSettings(1152, 0, 3, false, false);
+            case 1 -> new FlacEncoderSettings(1152, 0, 3, true, false);
+            case 2 -> new FlacEncoderSettings(1152, 0, 4, true, false);
+            case 3 -> new FlacEncoderSettings(4096, 6, 4, false, false);
+            case 4 -> new FlacEncoderSettings(4096, 8, 4, true, false);
+            case 5 -> new FlacEncoderSettings(4096, 8, 5, true, false);
+            case 6 -> new FlacEncoderSettings(4096, 8, 6, true, true);
+            case 7 -> new FlacEncoderSettings(4096, 12, 6, true, true);
+            case 8 -> new FlacEncoderSettings(4096, 12, 8, true, true);
+            default -> throw new IllegalArgumentException("Compression level must be in 0.." + MAX_LEVEL + ": " + level);
+        };
+    }
+}
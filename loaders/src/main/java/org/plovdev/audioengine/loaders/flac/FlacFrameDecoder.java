@@ -0,0 +1,355 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Decodes FLAC frames into per-channel integer samples.
+ * <p>
+ * Every frame is independent, so separate decoders can decode different
+ * frames of the same stream concurrently. Decoder itself isn't thread safe,
+ * it reuses sample buffers between frames.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class FlacFrameDecoder {
+    private static final int LEFT_SIDE = 8;
+    private static final int SIDE_RIGHT = 9;
+    private static final int MID_SIDE = 10;
+
+    private final FlacStreamInfo info;
+    private final int[] coefficients = new int[32];
+    private int[][] samples;
+
+    private long frameOffset;
+    private long firstSample;
+    private int blockSize;
+
+    FlacFrameDecoder(FlacStreamInfo info) {
+        this.info = info;
+        this.samples = new int[info.channels()][Math.max(info.maxBlockSize(), 16)];
+    }
+
+    /**
+     * Decodes the next frame and checks its CRC.
+     *
+     * @param in reader at frame start
+     * @return false at the end of stream
+     * @throws IOException if frame is corrupted or truncated
+     */
+    boolean decode(FlacBitReader in) throws IOException {
+        in.alignToByte();
+        if (in.isAtEnd()) return false;
+
+        frameOffset = in.position();
+        in.mark();
+        if (in.readBits(15) != 0x7FFC) {
+            throw new IOException("Lost frame sync at " + frameOffset);
+        }
+        boolean variableBlockSize = in.readBits(1) == 1;
+        int blockCode = in.readBits(4);
+        int rateCode = in.readBits(4);
+        int channelCode = in.readBits(4);
+        int sizeCode = in.readBits(3);
+        if (in.readBits(1) != 0 || blockCode == 0 || rateCode == 15 || channelCode > MID_SIDE || sizeCode == 3) {
+            throw new IOException("Invalid frame header at " + frameOffset);
+        }
+        long number = readUtf8(in);
+
+        blockSize = switch (blockCode) {
+            case 1 -> 192;
+            case 2, 3, 4, 5 -> 576 << (blockCode - 2);
+            case 6 -> in.readBits(8) + 1;
+            case 7 -> in.readBits(16) + 1;
+            default -> 256 << (blockCode - 8);
+        };
+        switch (rateCode) {
+            case 12 -> in.readBits(8);
+            case 13, 14 -> in.readBits(16);
+            default -> {
+            }
+        }
+        int crc = in.crc8();
+        if (in.readBits(8) != crc) {
+            throw new IOException("Frame header CRC mismatch at " + frameOffset);
+        }
+
+        int channels = channelCode < LEFT_SIDE ? channelCode + 1 : 2;
+        int bitsPerSample = switch (sizeCode) {
+            case 0 -> info.bitsPerSample();
+            case 1 -> 8;
+            case 2 -> 12;
+            case 4 -> 16;
+            case 5 -> 20;
+            case 6 -> 24;
+            default -> 32;
+        };
+        if (channels != info.channels() || bitsPerSample != info.bitsPerSample()) {
+            throw new IOException("Frame at " + frameOffset + " doesn't match STREAMINFO");
+        }
+        if (blockSize > samples[0].length) {
+            samples = new int[channels][blockSize];
+        }
+        firstSample = variableBlockSize ? number : number * (info.isFixedBlockSize() ? info.maxBlockSize() : blockSize);
+
+        for (int channel = 0; channel < channels; channel++) {
+            boolean side = (channelCode == LEFT_SIDE || channelCode == MID_SIDE) ? channel == 1 : channelCode == SIDE_RIGHT && channel == 0;
+            decodeSubframe(in, samples[channel], side ? bitsPerSample + 1 : bitsPerSample);
+        }
+        decorrelate(channelCode);
+
+        in.alignToByte();
+        crc = in.crc16();
+        if (in.readBits(16) != crc) {
+            throw new IOException("Frame CRC mismatch at " + frameOffset);
+        }
+        return true;
+    }
+
+    /**
+     * Searches the first valid frame, which starts in range, and decodes it.
+     * Frame is valid, only if both its CRCs match.
+     *
+     * @param in reader, will be left after found frame
+     * @param from first stream position to check
+     * @param to stream position to stop search at
+     * @return true, if frame was found
+     */
+    boolean find(FlacBitReader in, long from, long to) throws IOException {
+        for (long position = from; position < to; position++) {
+            in.seek(position);
+            try {
+                if (in.readBits(8) != 0xFF || (in.readBits(8) & 0xFE) != 0xF8) continue;
+                in.seek(position);
+                return decode(in);
+            } catch (EOFException e) {
+                return false;
+            } catch (IOException e) {
+                // false sync, continue search
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes decoded samples as interleaved little-endian PCM of {@link FlacStreamInfo#decodedFormat()}.
+     *
+     * @param dst target buffer, its position is advanced
+     * @param from first sample of frame to write
+     * @param count frames count to write
+     */
+    void write(ByteBuffer dst, int from, int count) {
+        ByteBuffer out = dst.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int bytes = (info.bitsPerSample() + 7) / 8;
+        int shift = bytes * 8 - info.bitsPerSample();
+        int channels = info.channels();
+        int to = from + count;
+
+        switch (bytes) {
+            case 1 -> {
+                for (int i = from; i < to; i++) {
+                    for (int c = 0; c < channels; c++) out.put((byte) (samples[c][i] << shift));
+                }
+            }
+            case 2 -> {
+                if (channels == 2) {
+                    int[] left = samples[0];
+                    int[] right = samples[1];
+                    for (int i = from; i < to; i++) {
+                        out.putInt((left[i] << shift) & 0xFFFF | (right[i] << shift) << 16);
+                    }
+                } else {
+                    for (int i = from; i < to; i++) {
+                        for (int c = 0; c < channels; c++) out.putShort((short) (samples[c][i] << shift));
+                    }
+                }
+            }
+            case 3 -> {
+                for (int i = from; i < to; i++) {
+                    for (int c = 0; c < channels; c++) {
+                        int sample = samples[c][i] << shift;
+                        out.put((byte) sample).put((byte) (sample >> 8)).put((byte) (sample >> 16));
+                    }
+                }
+            }
+            default -> {
+                for (int i = from; i < to; i++) {
+                    for (int c = 0; c < channels; c++) out.putInt(samples[c][i] << shift);
+                }
+            }
+        }
+        dst.position(out.position());
+    }
+
+    /**
+     * @return stream position of the last decoded frame
+     */
+    long getFrameOffset() {
+        return frameOffset;
+    }
+
+    /**
+     * @return number of the first sample in the last decoded frame
+     */
+    long getFirstSample() {
+        return firstSample;
+    }
+
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    private void decodeSubframe(FlacBitReader in, int[] out, int bitsPerSample) throws IOException {
+        if (in.readBits(1) != 0) {
+            throw new IOException("Invalid subframe header");
+        }
+        int type = in.readBits(6);
+        int wasted = in.readBits(1) == 1 ? in.readUnary() + 1 : 0;
+        bitsPerSample -= wasted;
+        if (bitsPerSample > 32) {
+            throw new IOException("Side channel of 32-bit stream is not supported");
+        }
+
+        if (type == 0) {
+            int value = in.readSigned(bitsPerSample);
+            Arrays.fill(out, 0, blockSize, value);
+        } else if (type == 1) {
+            for (int i = 0; i < blockSize; i++) out[i] = in.readSigned(bitsPerSample);
+        } else if (type >= 8 && type <= 12) {
+            decodeFixed(in, out, type - 8, bitsPerSample);
+        } else if (type >= 32) {
+            decodeLpc(in, out, type - 31, bitsPerSample);
+        } else {
+            throw new IOException("Reserved subframe type " + type);
+        }
+
+        if (wasted > 0) {
+            for (int i = 0; i < blockSize; i++) out[i] <<= wasted;
+        }
+    }
+
+    private void decodeFixed(FlacBitReader in, int[] out, int order, int bitsPerSample) throws IOException {
+        if (order > blockSize) throw new IOException("Predictor order is larger than block");
+        for (int i = 0; i < order; i++) out[i] = in.readSigned(bitsPerSample);
+        readResidual(in, out, order);
+
+        // Переполнение int не страшно: результат всегда помещается в int
+        int n = blockSize;
+        switch (order) {
+            case 1 -> {
+                for (int i = 1; i < n; i++) out[i] += out[i - 1];
+            }
+            case 2 -> {
+                for (int i = 2; i < n; i++) out[i] += 2 * out[i - 1] - out[i - 2];
+            }
+            case 3 -> {
+                for (int i = 3; i < n; i++) out[i] += 3 * (out[i - 1] - out[i - 2]) + out[i - 3];
+            }
+            case 4 -> {
+                for (int i = 4; i < n; i++) out[i] += 4 * (out[i - 1] + out[i - 3]) - 6 * out[i - 2] - out[i - 4];
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void decodeLpc(FlacBitReader in, int[] out, int order, int bitsPerSample) throws IOException {
+        if (order > blockSize) throw new IOException("Predictor order is larger than block");
+        for (int i = 0; i < order; i++) out[i] = in.readSigned(bitsPerSample);
+        int precision = in.readBits(4) + 1;
+        int shift = in.readSigned(5);
+        if (precision == 16 || shift < 0) {
+            throw new IOException("Invalid LPC precision or shift");
+        }
+        int[] coefs = coefficients;
+        for (int i = 0; i < order; i++) coefs[i] = in.readSigned(precision);
+        readResidual(in, out, order);
+
+        int n = blockSize;
+        if (bitsPerSample + precision + 32 - Integer.numberOfLeadingZeros(order) <= 32) {
+            for (int i = order; i < n; i++) {
+                int sum = 0;
+                for (int j = 0; j < order; j++) sum += coefs[j] * out[i - 1 - j];
+                out[i] += sum >> shift;
+            }
+        } else {
+            for (int i = order; i < n; i++) {
+                long sum = 0;
+                for (int j = 0; j < order; j++) sum += (long) coefs[j] * out[i - 1 - j];
+                out[i] += (int) (sum >> shift);
+            }
+        }
+    }
+
+    private void readResidual(FlacBitReader in, int[] out, int order) throws IOException {
+        int method = in.readBits(2);
+        if (method > 1) throw new IOException("Reserved residual coding method");
+        int parameterBits = method == 0 ? 4 : 5;
+        int escape = (1 << parameterBits) - 1;
+
+        int partitionOrder = in.readBits(4);
+        int partitionSize = blockSize >> partitionOrder;
+        if (partitionSize << partitionOrder != blockSize || partitionSize < order) {
+            throw new IOException("Invalid residual partition order");
+        }
+
+        int i = order;
+        for (int partition = 0; partition < 1 << partitionOrder; partition++) {
+            int end = (partition + 1) * partitionSize;
+            int parameter = in.readBits(parameterBits);
+            if (parameter == escape) {
+                int bits = in.readBits(5);
+                for (; i < end; i++) out[i] = in.readSigned(bits);
+            } else {
+                in.readRice(out, i, end, parameter);
+                i = end;
+            }
+        }
+    }
+
+    private void decorrelate(int channelCode) {
+        if (channelCode < LEFT_SIDE) return;
+        int[] first = samples[0];
+        int[] second = samples[1];
+        int n = blockSize;
+        switch (channelCode) {
+            case LEFT_SIDE -> {
+                for (int i = 0; i < n; i++) second[i] = first[i] - second[i];
+            }
+            case SIDE_RIGHT -> {
+                for (int i = 0; i < n; i++) first[i] += second[i];
+            }
+            default -> {
+                for (int i = 0; i < n; i++) {
+                    int side = second[i];
+                    int mid = (first[i] << 1) | (side & 1);
+                    first[i] = (mid + side) >> 1;
+                    second[i] = (mid - side) >> 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads frame or sample number, coded like UTF-8 character.
+     */
+    private static long readUtf8(FlacBitReader in) throws IOException {
+        int first = in.readBits(8);
+        if (first < 0x80) return first;
+
+        int extra = Integer.numberOfLeadingZeros(~first << 24) - 1;
+        if (extra < 1 || extra > 6) throw new IOException("Invalid coded number");
+        long value = first & (0x3F >> extra);
+        for (int i = 0; i < extra; i++) {
+            int next = in.readBits(8);
+            if ((next & 0xC0) != 0x80) throw new IOException("Invalid coded number");
+            value = (value << 6) | (next & 0x3F);
+        }
+        return value;
+    }
+}
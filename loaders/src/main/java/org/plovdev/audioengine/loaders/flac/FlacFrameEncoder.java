@@ -0,0 +1,644 @@
+package org.plovdev.audioengine.loaders.flac;
+
+/**
+ * Encodes blocks of per-channel integer samples into FLAC frames.
+ * <p>
+ * Every channel is coded by the smallest of constant, verbatim, fixed and LPC subframes.
+ * LPC coefficients are found by Levinson-Durbin recursion over autocorrelation
+ * of Tukey windowed samples, and residual is split into Rice partitions
+ * with the best partition order. Stereo blocks may be coded as left/side,
+ * side/right or mid/side, when it's smaller.
+ * </p>
+ * <p>
+ * Frames are independent, so separate encoders can encode different blocks
+ * concurrently. Encoder itself isn't thread safe, it reuses its buffers.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class FlacFrameEncoder {
+    private static final int CONSTANT = 0;
+    private static final int VERBATIM = 1;
+    private static final int FIXED = 8;
+    private static final int LPC = 32;
+
+    private static final int INDEPENDENT = -1;
+    private static final int LEFT_SIDE = 8;
+    private static final int SIDE_RIGHT = 9;
+    private static final int MID_SIDE = 10;
+
+    private static final int MAX_FIXED_ORDER = 4;
+    private static final int MAX_RICE_PARAMETER = 30;
+    private static final int MAX_PRECISION = 15;
+    private static final int MAX_SHIFT = 15;
+
+    private final int channels;
+    private final int bitsPerSample;
+    private final int sampleRate;
+    private final FlacEncoderSettings settings;
+    private final boolean stereo;
+    private final FlacBitWriter out;
+
+    private final int[] side;
+    private final int[] mid;
+    private final Subframe[] subframes;
+
+    private final double[] windowed;
+    private final double[] autocorrelation;
+    private final double[][] lpc;
+    private final double[] lpcError;
+    private final long[] partitionSums;
+    private final int[] quantized = new int[32];
+    private double[] window = new double[0];
+
+    /**
+     * @param channels channels count, 1..8
+     * @param bitsPerSample bits per sample, 4..32
+     * @param sampleRate sample rate in Hz
+     * @param settings encoder settings, block size is the largest block to encode
+     */
+    FlacFrameEncoder(int channels, int bitsPerSample, int sampleRate, FlacEncoderSettings settings) {
+        this.channels = channels;
+        this.bitsPerSample = bitsPerSample;
+        this.sampleRate = sampleRate;
+        this.settings = settings;
+        this.stereo = channels == 2 && bitsPerSample < 32 && settings.stereoDecorrelation();
+
+        int blockSize = settings.blockSize();
+        this.out = new FlacBitWriter(blockSize * channels * (bitsPerSample / 8) + 64);
+        this.side = stereo ? new int[blockSize] : null;
+        this.mid = stereo ? new int[blockSize] : null;
+        this.subframes = new Subframe[stereo ? 4 : channels];
+        for (int i = 0; i < subframes.length; i++) {
+            subframes[i] = new Subframe(blockSize, settings);
+        }
+
+        int maxOrder = settings.maxLpcOrder();
+        this.windowed = new double[blockSize];
+        this.autocorrelation = new double[maxOrder + 1];
+        this.lpc = new double[maxOrder][maxOrder];
+        this.lpcError = new double[maxOrder];
+        this.partitionSums = new long[1 << settings.maxPartitionOrder()];
+    }
+
+    /**
+     * Encodes one block.
+     *
+     * @param samples per-channel samples
+     * @param count samples count per channel, not larger than block size of settings
+     * @param frameNumber frame number, used to find its first sample
+     * @return complete frame with both CRCs
+     */
+    byte[] encode(int[][] samples, int count, long frameNumber) {
+        int channelCode = channels - 1;
+        Subframe[] coded;
+        if (stereo) {
+            int[] left = samples[0];
+            int[] right = samples[1];
+            for (int i = 0; i < count; i++) {
+                side[i] = left[i] - right[i];
+                mid[i] = (left[i] + right[i]) >> 1;
+            }
+            analyze(subframes[0], left, count, bitsPerSample);
+            analyze(subframes[1], right, count, bitsPerSample);
+            analyze(subframes[2], side, count, bitsPerSample + 1);
+            analyze(subframes[3], mid, count, bitsPerSample);
+
+            long leftBits = subframes[0].bits;
+            long rightBits = subframes[1].bits;
+            long sideBits = subframes[2].bits;
+            long midBits = subframes[3].bits;
+
+            int mode = INDEPENDENT;
+            long best = leftBits + rightBits;
+            if (leftBits + sideBits < best) {
+                mode = LEFT_SIDE;
+                best = leftBits + sideBits;
+            }
+            if (sideBits + rightBits < best) {
+                mode = SIDE_RIGHT;
+                best = sideBits + rightBits;
+            }
+            if (midBits + sideBits < best) {
+                mode = MID_SIDE;
+            }
+            coded = switch (mode) {
+                case LEFT_SIDE -> new Subframe[]{subframes[0], subframes[2]};
+                case SIDE_RIGHT -> new Subframe[]{subframes[2], subframes[1]};
+                case MID_SIDE -> new Subframe[]{subframes[3], subframes[2]};
+                default -> new Subframe[]{subframes[0], subframes[1]};
+            };
+            if (mode != INDEPENDENT) channelCode = mode;
+        } else {
+            for (int c = 0; c < channels; c++) {
+                analyze(subframes[c], samples[c], count, bitsPerSample);
+            }
+            coded = subframes;
+        }
+
+        out.reset();
+        writeHeader(count, frameNumber, channelCode);
+        for (Subframe subframe : coded) {
+            writeSubframe(subframe, count);
+        }
+        out.alignToByte();
+        out.writeBits(out.crc16(0), 16);
+        return out.toByteArray();
+    }
+
+    private void writeHeader(int count, long frameNumber, int channelCode) {
+        int blockCode = blockSizeCode(count);
+        int rateCode = sampleRateCode(sampleRate);
+
+        // Синхрокод, зарезервированный бит и фиксированный размер блока
+        out.writeBits(0xFFF8, 16);
+        out.writeBits(blockCode, 4);
+        out.writeBits(rateCode, 4);
+        out.writeBits(channelCode, 4);
+        out.writeBits(sampleSizeCode(bitsPerSample), 3);
+        out.writeBits(0, 1);
+        writeUtf8(frameNumber);
+
+        if (blockCode == 6) {
+            out.writeBits(count - 1, 8);
+        } else if (blockCode == 7) {
+            out.writeBits(count - 1, 16);
+        }
+        switch (rateCode) {
+            case 12 -> out.writeBits(sampleRate / 1000, 8);
+            case 13 -> out.writeBits(sampleRate, 16);
+            case 14 -> out.writeBits(sampleRate / 10, 16);
+            default -> {
+            }
+        }
+        out.writeBits(out.crc8(0), 8);
+    }
+
+    private void writeUtf8(long value) {
+        if (value < 0x80) {
+            out.writeBits((int) value, 8);
+            return;
+        }
+        int extra = 1;
+        while (value >= 1L << (6 + 5 * extra)) extra++;
+        out.writeBits(((0xFF << (7 - extra)) & 0xFF) | (int) (value >>> (6 * extra)), 8);
+        for (int i = extra - 1; i >= 0; i--) {
+            out.writeBits(0x80 | (int) ((value >>> (6 * i)) & 0x3F), 8);
+        }
+    }
+
+    private void writeSubframe(Subframe subframe, int count) {
+        int bits = subframe.bitsPerSample;
+        int[] x = subframe.samples;
+
+        out.writeBits(0, 1);
+        out.writeBits(switch (subframe.type) {
+            case FIXED -> FIXED + subframe.order;
+            case LPC -> LPC + subframe.order - 1;
+            default -> subframe.type;
+        }, 6);
+        if (subframe.wasted > 0) {
+            out.writeBits(1, 1);
+            out.writeUnary(subframe.wasted - 1);
+        } else {
+            out.writeBits(0, 1);
+        }
+
+        switch (subframe.type) {
+            case CONSTANT -> out.writeBits(x[0], bits);
+            case VERBATIM -> {
+                for (int i = 0; i < count; i++) out.writeBits(x[i], bits);
+            }
+            default -> {
+                for (int i = 0; i < subframe.order; i++) out.writeBits(x[i], bits);
+                if (subframe.type == LPC) {
+                    out.writeBits(subframe.precision - 1, 4);
+                    out.writeBits(subframe.shift, 5);
+                    for (int i = 0; i < subframe.order; i++) out.writeBits(subframe.coefficients[i], subframe.precision);
+                }
+                writeResidual(subframe.residual, subframe.partitionOrder, subframe.parameters, subframe.order, count);
+            }
+        }
+    }
+
+    private void writeResidual(int[] residual, int partitionOrder, int[] parameters, int order, int count) {
+        int partitions = 1 << partitionOrder;
+        boolean wide = false;
+        for (int p = 0; p < partitions; p++) {
+            wide |= parameters[p] > 14;
+        }
+        out.writeBits(wide ? 1 : 0, 2);
+        out.writeBits(partitionOrder, 4);
+
+        int partitionSize = count >> partitionOrder;
+        int from = order;
+        for (int p = 0; p < partitions; p++) {
+            int to = (p + 1) * partitionSize;
+            out.writeBits(parameters[p], wide ? 5 : 4);
+            out.writeRice(residual, from, to, parameters[p]);
+            from = to;
+        }
+    }
+
+    /**
+     * Finds the smallest coding of one channel, and estimates its size in bits.
+     */
+    private void analyze(Subframe subframe, int[] source, int count, int bits) {
+        int first = source[0];
+        int or = 0;
+        boolean constant = true;
+        for (int i = 0; i < count; i++) {
+            or |= source[i];
+            constant &= source[i] == first;
+        }
+
+        subframe.order = 0;
+        subframe.wasted = 0;
+        subframe.samples = source;
+        subframe.bitsPerSample = bits;
+        if (constant) {
+            subframe.type = CONSTANT;
+            subframe.bits = 8 + bits;
+            return;
+        }
+
+        int wasted = Integer.numberOfTrailingZeros(or);
+        if (wasted > 0) {
+            int[] shifted = subframe.shifted;
+            for (int i = 0; i < count; i++) shifted[i] = source[i] >> wasted;
+            subframe.samples = shifted;
+            subframe.wasted = wasted;
+            subframe.bitsPerSample = bits -= wasted;
+        }
+        int[] x = subframe.samples;
+        long header = 8 + wasted;
+
+        subframe.type = VERBATIM;
+        subframe.bits = header + (long) count * bits;
+
+        int fixedOrder = bestFixedOrder(x, count);
+        fixedResidual(x, count, fixedOrder, subframe.scratch);
+        long fixedBits = header + (long) fixedOrder * bits + riceBits(subframe, count, fixedOrder);
+        if (fixedBits < subframe.bits) {
+            subframe.accept(FIXED, fixedOrder, fixedBits);
+        }
+
+        int maxOrder = Math.min(settings.maxLpcOrder(), count - 1);
+        if (maxOrder > 0) {
+            analyzeLpc(subframe, x, count, bits, header, maxOrder);
+        }
+    }
+
+    private void analyzeLpc(Subframe subframe, int[] x, int count, int bits, long header, int maxOrder) {
+        double[] w = window(count);
+        for (int i = 0; i < count; i++) windowed[i] = x[i] * w[i];
+        for (int lag = 0; lag <= maxOrder; lag++) {
+            double sum = 0;
+            for (int i = lag; i < count; i++) sum += windowed[i] * windowed[i - lag];
+            autocorrelation[lag] = sum;
+        }
+        if (autocorrelation[0] == 0) return;
+        maxOrder = levinsonDurbin(maxOrder);
+
+        int precision = precision(count);
+        int from = 1;
+        int to = maxOrder;
+        if (!settings.exhaustiveOrderSearch()) {
+            from = to = estimateOrder(maxOrder, count, bits + precision);
+        }
+
+        int[] coefficients = quantized;
+        for (int order = from; order <= to; order++) {
+            int shift = quantize(lpc[order - 1], order, precision, coefficients);
+            if (shift < 0 || !lpcResidual(x, count, order, coefficients, shift, subframe.scratch)) continue;
+
+            long lpcBits = header + (long) order * (bits + precision) + 9 + riceBits(subframe, count, order);
+            if (lpcBits < subframe.bits) {
+                subframe.accept(LPC, order, lpcBits);
+                subframe.precision = precision;
+                subframe.shift = shift;
+                System.arraycopy(coefficients, 0, subframe.coefficients, 0, order);
+            }
+        }
+    }
+
+    /**
+     * Fills predictor coefficients of all orders up to maxOrder.
+     *
+     * @return the largest order, which was computed
+     */
+    private int levinsonDurbin(int maxOrder) {
+        double[] r = autocorrelation;
+        double[] a = new double[maxOrder];
+        double error = r[0];
+        for (int i = 0; i < maxOrder; i++) {
+            double k = -r[i + 1];
+            for (int j = 0; j < i; j++) k -= a[j] * r[i - j];
+            k /= error;
+
+            a[i] = k;
+            for (int j = 0; j < i >> 1; j++) {
+                double tmp = a[j];
+                a[j] += k * a[i - 1 - j];
+                a[i - 1 - j] += k * tmp;
+            }
+            if ((i & 1) != 0) a[i >> 1] += a[i >> 1] * k;
+
+            error *= 1.0 - k * k;
+            for (int j = 0; j <= i; j++) lpc[i][j] = -a[j];
+            lpcError[i] = error;
+            if (error <= 0) return i + 1;
+        }
+        return maxOrder;
+    }
+
+    /**
+     * Estimates order with the smallest expected size from prediction errors.
+     */
+    private int estimateOrder(int maxOrder, int count, int overheadPerOrder) {
+        double errorScale = 0.5 / count;
+        int best = 1;
+        double bestBits = Double.MAX_VALUE;
+        for (int order = 1; order <= maxOrder; order++) {
+            double error = lpcError[order - 1] * errorScale;
+            double perSample = error > 0 ? Math.max(0, 0.5 * Math.log(error) / Math.log(2)) : 0;
+            double bits = perSample * (count - order) + (double) order * overheadPerOrder;
+            if (bits < bestBits) {
+                bestBits = bits;
+                best = order;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Quantizes coefficients with error feedback.
+     *
+     * @return shift, or -1 if coefficients can't be quantized
+     */
+    private static int quantize(double[] coefficients, int order, int precision, int[] out) {
+        double max = 0;
+        for (int i = 0; i < order; i++) max = Math.max(max, Math.abs(coefficients[i]));
+        if (max == 0 || !Double.isFinite(max)) return -1;
+
+        int shift = Math.min(MAX_SHIFT, precision - 2 - Math.getExponent(max));
+        if (shift < 0) return -1;
+
+        int qMax = (1 << (precision - 1)) - 1;
+        int qMin = -(1 << (precision - 1));
+        double error = 0;
+        for (int i = 0; i < order; i++) {
+            error += coefficients[i] * (1 << shift);
+            long q = Math.max(qMin, Math.min(qMax, Math.round(error)));
+            error -= q;
+            out[i] = (int) q;
+        }
+        return shift;
+    }
+
+    /**
+     * @return false, if some residual doesn't fit into 32 bits
+     */
+    private static boolean lpcResidual(int[] x, int count, int order, int[] coefficients, int shift, int[] residual) {
+        for (int i = order; i < count; i++) {
+            long sum = 0;
+            for (int j = 0; j < order; j++) sum += (long) coefficients[j] * x[i - 1 - j];
+            long value = x[i] - (sum >> shift);
+            if (value != (int) value) return false;
+            residual[i] = (int) value;
+        }
+        return true;
+    }
+
+    private static int bestFixedOrder(int[] x, int count) {
+        if (count <= MAX_FIXED_ORDER) return 0;
+        long e0 = 0, e1 = 0, e2 = 0, e3 = 0, e4 = 0;
+        long d1 = (long) x[3] - x[2];
+        long d2 = d1 - ((long) x[2] - x[1]);
+        long d3 = d2 - (((long) x[2] - x[1]) - ((long) x[1] - x[0]));
+        for (int i = MAX_FIXED_ORDER; i < count; i++) {
+            long s = x[i];
+            long n1 = s - x[i - 1];
+            long n2 = n1 - d1;
+            long n3 = n2 - d2;
+            long n4 = n3 - d3;
+            e0 += Math.abs(s);
+            e1 += Math.abs(n1);
+            e2 += Math.abs(n2);
+            e3 += Math.abs(n3);
+            e4 += Math.abs(n4);
+            d1 = n1;
+            d2 = n2;
+            d3 = n3;
+        }
+        long[] errors = {e0, e1, e2, e3, e4};
+        int best = 0;
+        for (int order = 1; order <= MAX_FIXED_ORDER; order++) {
+            if (errors[order] < errors[best]) best = order;
+        }
+        return best;
+    }
+
+    // Переполнение int допустимо: декодер восстанавливает сэмплы по модулю 2^32
+    private static void fixedResidual(int[] x, int count, int order, int[] residual) {
+        switch (order) {
+            case 0 -> System.arraycopy(x, 0, residual, 0, count);
+            case 1 -> {
+                for (int i = 1; i < count; i++) residual[i] = x[i] - x[i - 1];
+            }
+            case 2 -> {
+                for (int i = 2; i < count; i++) residual[i] = x[i] - 2 * x[i - 1] + x[i - 2];
+            }
+            case 3 -> {
+                for (int i = 3; i < count; i++) residual[i] = x[i] - 3 * (x[i - 1] - x[i - 2]) - x[i - 3];
+            }
+            default -> {
+                for (int i = 4; i < count; i++) residual[i] = x[i] - 4 * (x[i - 1] + x[i - 3]) + 6 * x[i - 2] + x[i - 4];
+            }
+        }
+    }
+
+    /**
+     * Chooses partition order and Rice parameters for residual in subframe scratch buffer.
+     *
+     * @return estimated residual size in bits, including its header
+     */
+    private long riceBits(Subframe subframe, int count, int order) {
+        int maxPartitionOrder = Math.min(settings.maxPartitionOrder(), Integer.numberOfTrailingZeros(count));
+        while (maxPartitionOrder > 0 && (count >> maxPartitionOrder) < order) maxPartitionOrder--;
+
+        int[] residual = subframe.scratch;
+        int partitions = 1 << maxPartitionOrder;
+        int partitionSize = count >> maxPartitionOrder;
+        long[] sums = partitionSums;
+        int from = order;
+        for (int p = 0; p < partitions; p++) {
+            int to = (p + 1) * partitionSize;
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                int r = residual[i];
+                sum += ((long) r << 1) ^ (r >> 31);
+            }
+            sums[p] = sum;
+            from = to;
+        }
+
+        // Перебираем порядки разбиения от мелкого к крупному, сливая соседние суммы
+        long best = Long.MAX_VALUE;
+        int[] parameters = subframe.candidateParameters;
+        for (int partitionOrder = maxPartitionOrder; partitionOrder >= 0; partitionOrder--) {
+            int size = count >> partitionOrder;
+            long bits = 6;
+            boolean wide = false;
+            for (int p = 0; p < 1 << partitionOrder; p++) {
+                int samples = p == 0 ? size - order : size;
+                int parameter = riceParameter(sums[p], samples);
+                parameters[p] = parameter;
+                wide |= parameter > 14;
+                bits += (long) samples * (parameter + 1) + (sums[p] >>> parameter);
+            }
+            bits += (long) (1 << partitionOrder) * (wide ? 5 : 4);
+            if (bits < best) {
+                best = bits;
+                subframe.candidatePartitionOrder = partitionOrder;
+                System.arraycopy(parameters, 0, subframe.candidateBest, 0, 1 << partitionOrder);
+            }
+            if (partitionOrder > 0) {
+                for (int p = 0; p < 1 << (partitionOrder - 1); p++) {
+                    sums[p] = sums[2 * p] + sums[2 * p + 1];
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int riceParameter(long sum, int samples) {
+        if (samples <= 0 || sum <= samples) return 0;
+        int parameter = 63 - Long.numberOfLeadingZeros(sum / samples);
+        return Math.min(parameter, MAX_RICE_PARAMETER);
+    }
+
+    private double[] window(int count) {
+        if (window.length != count) {
+            double[] w = new double[count];
+            int taper = count / 4;
+            for (int i = 0; i < count; i++) {
+                if (i < taper) {
+                    w[i] = 0.5 - 0.5 * Math.cos(Math.PI * i / taper);
+                } else if (i >= count - taper) {
+                    w[i] = 0.5 - 0.5 * Math.cos(Math.PI * (count - 1 - i) / taper);
+                } else {
+                    w[i] = 1;
+                }
+            }
+            window = w;
+        }
+        return window;
+    }
+
+    private static int precision(int count) {
+        int precision;
+        if (count <= 192) precision = 7;
+        else if (count <= 384) precision = 8;
+        else if (count <= 576) precision = 9;
+        else if (count <= 1152) precision = 10;
+        else if (count <= 2304) precision = 11;
+        else if (count <= 4608) precision = 12;
+        else precision = 13;
+        return Math.min(precision, MAX_PRECISION);
+    }
+
+    private static int blockSizeCode(int count) {
+        if (count == 192) return 1;
+        for (int i = 0; i < 4; i++) {
+            if (count == 576 << i) return 2 + i;
+        }
+        for (int i = 0; i < 8; i++) {
+            if (count == 256 << i) return 8 + i;
+        }
+        return count <= 256 ? 6 : 7;
+    }
+
+    private static int sampleRateCode(int rate) {
+        return switch (rate) {
+            case 88200 -> 1;
+            case 176400 -> 2;
+            case 192000 -> 3;
+            case 8000 -> 4;
+            case 16000 -> 5;
+            case 22050 -> 6;
+            case 24000 -> 7;
+            case 32000 -> 8;
+            case 44100 -> 9;
+            case 48000 -> 10;
+            case 96000 -> 11;
+            default -> {
+                if (rate % 1000 == 0 && rate / 1000 <= 255) yield 12;
+                if (rate <= 65535) yield 13;
+                if (rate % 10 == 0 && rate / 10 <= 65535) yield 14;
+                yield 0;
+            }
+        };
+    }
+
+    private static int sampleSizeCode(int bits) {
+        return switch (bits) {
+            case 8 -> 1;
+            case 12 -> 2;
+            case 16 -> 4;
+            case 20 -> 5;
+            case 24 -> 6;
+            case 32 -> 7;
+            default -> 0;
+        };
+    }
+
+    /**
+     * The best coding of one channel found so far.
+     */
+    private static final class Subframe {
+        final int[] shifted;
+        final int[] coefficients = new int[32];
+        final int[] parameters;
+        final int[] candidateParameters;
+        final int[] candidateBest;
+        int[] residual;
+        int[] scratch;
+
+        int[] samples;
+        int type;
+        int order;
+        int wasted;
+        int bitsPerSample;
+        int precision;
+        int shift;
+        int partitionOrder;
+        int candidatePartitionOrder;
+        long bits;
+
+        Subframe(int blockSize, FlacEncoderSettings settings) {
+            int partitions = 1 << settings.maxPartitionOrder();
+            shifted = new int[blockSize];
+            residual = new int[blockSize];
+            scratch = new int[blockSize];
+            parameters = new int[partitions];
+            candidateParameters = new int[partitions];
+            candidateBest = new int[partitions];
+        }
+
+        /**
+         * Takes residual in scratch buffer and last estimated partitions as the best coding.
+         */
+        void accept(int type, int order, long bits) {
+            this.type = type;
+            this.order = order;
+            this.bits = bits;
+            int[] tmp = residual;
+            residual = scratch;
+            scratch = tmp;
+            partitionOrder = candidatePartitionOrder;
+            System.arraycopy(candidateBest, 0, parameters, 0, 1 << partitionOrder);
+        }
+    }
+}
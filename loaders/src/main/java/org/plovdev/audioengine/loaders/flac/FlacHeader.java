@@ -0,0 +1,202 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Metadata blocks of FLAC stream, read up to the first frame.
+ * Leading ID3v2 tag is skipped.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class FlacHeader {
+    public static final int STREAMINFO = 0;
+    public static final int PADDING = 1;
+    public static final int SEEKTABLE = 3;
+    public static final int VORBIS_COMMENT = 4;
+
+    private final FlacStreamInfo streamInfo;
+    private final FlacSeekTable seekTable;
+    private final TrackMetadata metadata;
+    private final long firstFrameOffset;
+
+    public FlacHeader(FlacStreamInfo streamInfo, FlacSeekTable seekTable, TrackMetadata metadata, long firstFrameOffset) {
+        this.streamInfo = streamInfo;
+        this.seekTable = seekTable;
+        this.metadata = metadata;
+        this.firstFrameOffset = firstFrameOffset;
+    }
+
+    /**
+     * Reads metadata blocks. Reader is left at the first frame.
+     *
+     * @param in reader at stream start
+     * @return read header
+     * @throws IOException if stream isn't valid FLAC
+     */
+    static FlacHeader read(FlacBitReader in) throws IOException {
+        int magic = in.readBits(32);
+        if (magic >>> 8 == 0x494433) { // "ID3"
+            in.readBits(16);
+            int flags = in.readBits(8);
+            int size = 0;
+            for (int i = 0; i < 4; i++) {
+                size = (size << 7) | (in.readBits(8) & 0x7F);
+            }
+            in.skipBytes(size + ((flags & 0x10) != 0 ? 10 : 0));
+            magic = in.readBits(32);
+        }
+        if (magic != 0x664C6143) { // "fLaC"
+            throw new IOException("Not a FLAC stream");
+        }
+
+        FlacStreamInfo streamInfo = null;
+        FlacSeekTable seekTable = FlacSeekTable.empty();
+        TrackMetadata metadata = new TrackMetadata();
+
+        boolean last = false;
+        while (!last) {
+            last = in.readBits(1) == 1;
+            int type = in.readBits(7);
+            int length = in.readBits(24);
+
+            switch (type) {
+                case STREAMINFO -> streamInfo = readStreamInfo(in);
+                case SEEKTABLE -> seekTable = readSeekTable(in, length);
+                case VORBIS_COMMENT -> {
+                    byte[] body = new byte[length];
+                    in.readBytes(body);
+                    readVorbisComment(ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN), metadata);
+                }
+                default -> in.skipBytes(length);
+            }
+        }
+        if (streamInfo == null) {
+            throw new IOException("STREAMINFO block is missing");
+        }
+
+        metadata.setSampleRate(streamInfo.sampleRate());
+        metadata.setBitDepth(streamInfo.bitsPerSample());
+        metadata.setChannels(streamInfo.channels());
+        metadata.setFileFormat("flac");
+        metadata.setAudioCodec("FLAC");
+        if (streamInfo.totalSamples() > 0) {
+            metadata.setDuration(TrackFormatUtils.calculateDuration(streamInfo.decodedFormat(), streamInfo.totalSamples()));
+        }
+        return new FlacHeader(streamInfo, seekTable, metadata, in.position());
+    }
+
+    private static FlacStreamInfo readStreamInfo(FlacBitReader in) throws IOException {
+        int minBlockSize = in.readBits(16);
+        int maxBlockSize = in.readBits(16);
+        int minFrameSize = in.readBits(24);
+        int maxFrameSize = in.readBits(24);
+        int sampleRate = in.readBits(20);
+        int channels = in.readBits(3) + 1;
+        int bitsPerSample = in.readBits(5) + 1;
+        long totalSamples = in.readLong(36);
+        byte[] md5 = new byte[16];
+        in.readBytes(md5);
+        return new FlacStreamInfo(minBlockSize, maxBlockSize, minFrameSize, maxFrameSize, sampleRate, channels, bitsPerSample, totalSamples, md5);
+    }
+
+    private static FlacSeekTable readSeekTable(FlacBitReader in, int length) throws IOException {
+        int count = length / FlacSeekTable.POINT_SIZE;
+        long[] samples = new long[count];
+        long[] offsets = new long[count];
+        int points = 0;
+        for (int i = 0; i < count; i++) {
+            long sample = in.readLong(64);
+            long offset = in.readLong(64);
+            in.readBits(16);
+            if (sample != FlacSeekTable.PLACEHOLDER) {
+                samples[points] = sample;
+                offsets[points] = offset;
+                points++;
+            }
+        }
+        in.skipBytes(length - count * FlacSeekTable.POINT_SIZE);
+        return new FlacSeekTable(Arrays.copyOf(samples, points), Arrays.copyOf(offsets, points));
+    }
+
+    /**
+     * Reads Vorbis comments (vendor string and tags), shared by FLAC and Ogg Vorbis.
+     *
+     * @param body little-endian comment body, starting at vendor string length
+     * @param metadata target metadata
+     */
+    public static void readVorbisComment(ByteBuffer body, TrackMetadata metadata) {
+        try {
+            metadata.setEncoder(readString(body));
+            int count = body.getInt();
+            for (int i = 0; i < count; i++) {
+                String comment = readString(body);
+                int split = comment.indexOf('=');
+                if (split <= 0) continue;
+                applyComment(metadata, comment.substring(0, split).toUpperCase(Locale.ROOT), comment.substring(split + 1));
+            }
+        } catch (RuntimeException e) {
+            // Broken tags don't prevent decoding
+        }
+    }
+
+    private static String readString(ByteBuffer body) {
+        byte[] bytes = new byte[body.getInt()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void applyComment(TrackMetadata metadata, String key, String value) {
+        switch (key) {
+            case "TITLE" -> metadata.setTitle(value);
+            case "ARTIST" -> metadata.setArtist(value);
+            case "ALBUM" -> metadata.setAlbum(value);
+            case "GENRE" -> metadata.setGenre(value);
+            case "COMPOSER" -> metadata.setComposer(value);
+            case "COPYRIGHT" -> metadata.setCopyright(value);
+            case "COMMENT", "DESCRIPTION" -> metadata.setComment(value);
+            case "ISRC" -> metadata.setIsrc(value);
+            case "DATE", "YEAR" -> metadata.setYear(parseNumber(value));
+            case "TRACKNUMBER" -> metadata.setTrackNumber(parseNumber(value));
+            case "DISCNUMBER" -> metadata.setDiscNumber(parseNumber(value));
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Parses leading digits, like "2004" of "2004-05-01" or "3" of "3/12".
+     */
+    private static Integer parseNumber(String value) {
+        int end = 0;
+        while (end < value.length() && Character.isDigit(value.charAt(end))) end++;
+        return end == 0 ? null : Integer.parseInt(value.substring(0, Math.min(end, 9)));
+    }
+
+    public FlacStreamInfo getStreamInfo() {
+        return streamInfo;
+    }
+
+    public FlacSeekTable getSeekTable() {
+        return seekTable;
+    }
+
+    public TrackMetadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * @return stream position of the first frame
+     */
+    public long getFirstFrameOffset() {
+        return firstFrameOffset;
+    }
+}
@@ -0,0 +1,159 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import org.plovdev.audioengine.tracks.AudioBufferPool;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Decodes the whole FLAC file concurrently.
+ * <p>
+ * Frames region is split into byte ranges, and every range is decoded by its own task.
+ * Task starts from the first valid frame in its range (found by sync code and checked
+ * by both CRCs), and decodes all frames, which start in the range. Frame header contains
+ * its first sample number, so decoded samples are written right into their place
+ * of preallocated output, without any coordination between tasks.
+ * Pooled output isn't zeroed, so decoding fails, when frames hold less samples,
+ * than STREAMINFO says, for example in truncated file.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class FlacParallelDecoder {
+    private static final long MIN_RANGE_SIZE = 1 << 20;
+    private static final int READ_BUFFER_SIZE = 1 << 18;
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final FlacHeader header;
+    private final FlacStreamInfo info;
+    private final int frameSize;
+    private final long segmentFrames;
+    private final ByteBuffer[] segments;
+    private volatile boolean failed = false;
+
+    private FlacParallelDecoder(FileChannel channel, FlacHeader header) {
+        this.channel = channel;
+        this.header = header;
+        this.info = header.getStreamInfo();
+        this.frameSize = TrackFormatUtils.frameSize(info.decodedFormat());
+        this.segmentFrames = MAX_SEGMENT_SIZE / frameSize;
+
+        long total = info.totalSamples();
+        int count = (int) Math.max(1, (total + segmentFrames - 1) / segmentFrames);
+        segments = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long frames = Math.min(segmentFrames, total - i * segmentFrames);
+            segments[i] = AudioBufferPool.getInstance().acquire((int) (frames * frameSize)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Decodes all frames of file with known samples count.
+     *
+     * @param channel file channel, used only by positional reads
+     * @param header stream header, with known total samples
+     * @param pool decoding pool
+     * @return frame aligned segments of decoded PCM
+     * @throws IOException if any frame can't be read or decoded, or frames miss some samples
+     */
+    static ByteBuffer[] decode(FileChannel channel, FlacHeader header, ForkJoinPool pool) throws IOException {
+        return new FlacParallelDecoder(channel, header).decode(pool);
+    }
+
+    private ByteBuffer[] decode(ForkJoinPool pool) throws IOException {
+        long start = header.getFirstFrameOffset();
+        long size = channel.size() - start;
+        long rangeSize = Math.max(MIN_RANGE_SIZE, size / (pool.getParallelism() * 4L));
+
+        List<Future<Long>> tasks = new ArrayList<>();
+        for (long from = start; from < start + size; from += rangeSize) {
+            long rangeStart = from;
+            long rangeEnd = Math.min(from + rangeSize, start + size);
+            tasks.add(pool.submit(() -> {
+                try {
+                    return decodeRange(rangeStart, rangeEnd, rangeStart == start);
+                } catch (IOException | RuntimeException e) {
+                    failed = true;
+                    throw e;
+                }
+            }));
+        }
+
+        // Все задачи дожидаются завершения: сегменты из пула нельзя вернуть, пока в них пишут
+        IOException error = null;
+        boolean interrupted = false;
+        long decoded = 0;
+        for (Future<Long> task : tasks) {
+            while (true) {
+                try {
+                    decoded += task.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    failed = true;
+                } catch (ExecutionException e) {
+                    if (error == null) {
+                        error = e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            error = new IOException("Decoding was interrupted");
+        }
+        if (error == null && decoded != info.totalSamples()) {
+            error = new IOException("Frames hold " + decoded + " of " + info.totalSamples() + " samples, file is truncated or damaged");
+        }
+        if (error != null) {
+            for (ByteBuffer segment : segments) {
+                AudioBufferPool.getInstance().release(segment);
+            }
+            throw error;
+        }
+        return segments;
+    }
+
+    /**
+     * @return count of samples, written into output
+     */
+    private long decodeRange(long from, long to, boolean first) throws IOException {
+        FlacBitReader in = new FlacBitReader(channel::read, from, READ_BUFFER_SIZE);
+        FlacFrameDecoder decoder = new FlacFrameDecoder(info);
+
+        long decoded = 0;
+        boolean found = first ? decoder.decode(in) : decoder.find(in, from, to);
+        while (found && !failed && decoder.getFrameOffset() < to) {
+            decoded += put(decoder);
+            found = decoder.decode(in);
+        }
+        return decoded;
+    }
+
+    private int put(FlacFrameDecoder decoder) {
+        long first = decoder.getFirstSample();
+        int count = (int) Math.max(0, Math.min(decoder.getBlockSize(), info.totalSamples() - first));
+        int done = 0;
+        while (done < count) {
+            long sample = first + done;
+            int segment = (int) (sample / segmentFrames);
+            int offset = (int) (sample % segmentFrames);
+            int frames = (int) Math.min(count - done, segmentFrames - offset);
+            decoder.write(segments[segment].duplicate().position(offset * frameSize), done, frames);
+            done += frames;
+        }
+        return count;
+    }
+}
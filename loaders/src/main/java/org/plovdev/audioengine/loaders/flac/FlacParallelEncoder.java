@@ -0,0 +1,337 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Encodes the whole PCM track into FLAC stream concurrently.
+ * <p>
+ * Track is split into fixed size blocks, and every block is read and encoded by its own task.
+ * Only a window of blocks is in flight at once, and encoded frames are written strictly
+ * in order, together with MD5 of samples and SEEKTABLE offsets.
+ * </p>
+ * <p>
+ * STREAMINFO and SEEKTABLE depend on encoded frames, so for seekable channels header is written
+ * with placeholders and patched at the end. For other channels frames are kept in memory,
+ * until the header is known.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class FlacParallelEncoder {
+    private static final int SEEK_POINT_SECONDS = 10;
+    private static final String VENDOR = "AudioSND";
+
+    private final FlacEncoderSettings settings;
+    private final int channels;
+    private final int bitsPerSample;
+    private final int sampleRate;
+    private final long totalSamples;
+    private final int blockSize;
+    private final long[] seekBlocks;
+    private final byte[] comments;
+
+    private final ByteBuffer[] segments;
+    private final long[] segmentFirstFrames;
+    private final int inputBytes;
+    private final boolean bigEndian;
+    private final boolean signed;
+    private final int frameSize;
+
+    private final Queue<Worker> workers = new ConcurrentLinkedQueue<>();
+    private final MessageDigest md5;
+    private final long[] seekOffsets;
+    private int minFrameSize = Integer.MAX_VALUE;
+    private int maxFrameSize = 0;
+    private long framesLength = 0;
+
+    private FlacParallelEncoder(Track track, FlacEncoderSettings settings) {
+        TrackFormat format = track.getFormat();
+        this.settings = settings;
+        this.channels = format.channels();
+        this.bitsPerSample = format.bitsPerSample();
+        this.sampleRate = format.sampleRate();
+        this.totalSamples = track.getFrameCount();
+        this.blockSize = settings.blockSize();
+
+        List<Long> points = new ArrayList<>();
+        for (long sample = 0; sample < totalSamples; sample += (long) sampleRate * SEEK_POINT_SECONDS) {
+            long block = sample / blockSize;
+            if (points.isEmpty() || points.get(points.size() - 1) != block) points.add(block);
+        }
+        this.seekBlocks = points.stream().mapToLong(Long::longValue).toArray();
+        this.seekOffsets = new long[seekBlocks.length];
+        this.comments = comments(track.getMetaData());
+
+        this.segments = track.getSegments().toArray(new ByteBuffer[0]);
+        this.segmentFirstFrames = new long[segments.length + 1];
+        this.frameSize = TrackFormatUtils.frameSize(format);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = segments[i].slice();
+            segmentFirstFrames[i + 1] = segmentFirstFrames[i] + segments[i].remaining() / frameSize;
+        }
+        this.inputBytes = bitsPerSample / 8;
+        this.bigEndian = format.byteOrder() == ByteOrder.BIG_ENDIAN;
+        this.signed = format.signed();
+
+        try {
+            this.md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Encodes integer PCM track.
+     *
+     * @param track track with PCM8, PCM16, PCM24 or PCM32 samples
+     * @param settings encoder settings
+     * @param pool encoding pool
+     * @param channel target channel, header is patched in place, if it's seekable
+     * @throws IOException if channel can't be written
+     */
+    static void encode(Track track, FlacEncoderSettings settings, ForkJoinPool pool, WritableByteChannel channel) throws IOException {
+        new FlacParallelEncoder(track, settings).encode(pool, channel);
+    }
+
+    private void encode(ForkJoinPool pool, WritableByteChannel channel) throws IOException {
+        SeekableByteChannel seekable = channel instanceof SeekableByteChannel s ? s : null;
+        long headerPosition = seekable != null ? seekable.position() : 0;
+        List<byte[]> buffered = seekable != null ? null : new ArrayList<>();
+        if (seekable != null) {
+            writeFully(channel, header());
+        }
+
+        long blocks = (totalSamples + blockSize - 1) / blockSize;
+        int window = Math.max(2, pool.getParallelism() * 4);
+        Deque<Future<Encoded>> pending = new ArrayDeque<>();
+        int nextPoint = 0;
+        try {
+            for (long block = 0; block < blocks || !pending.isEmpty(); ) {
+                if (block < blocks && pending.size() < window) {
+                    long number = block++;
+                    pending.add(pool.submit(() -> encodeBlock(number)));
+                    continue;
+                }
+
+                Encoded encoded = pending.poll().get();
+                if (nextPoint < seekBlocks.length && seekBlocks[nextPoint] == encoded.number) {
+                    seekOffsets[nextPoint++] = framesLength;
+                }
+                md5.update(encoded.pcm);
+                minFrameSize = Math.min(minFrameSize, encoded.frame.length);
+                maxFrameSize = Math.max(maxFrameSize, encoded.frame.length);
+                framesLength += encoded.frame.length;
+                if (buffered != null) {
+                    buffered.add(encoded.frame);
+                } else {
+                    writeFully(channel, ByteBuffer.wrap(encoded.frame));
+                }
+            }
+        } catch (InterruptedException e) {
+            pending.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Encoding was interrupted");
+        } catch (ExecutionException e) {
+            pending.forEach(task -> task.cancel(true));
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+
+        if (seekable != null) {
+            long end = seekable.position();
+            seekable.position(headerPosition);
+            writeFully(channel, header());
+            seekable.position(end);
+        } else {
+            writeFully(channel, header());
+            for (byte[] frame : buffered) {
+                writeFully(channel, ByteBuffer.wrap(frame));
+            }
+        }
+    }
+
+    private Encoded encodeBlock(long number) {
+        Worker worker = workers.poll();
+        if (worker == null) {
+            worker = new Worker(new FlacFrameEncoder(channels, bitsPerSample, sampleRate, settings), new int[channels][blockSize]);
+        }
+        try {
+            long first = number * blockSize;
+            int count = (int) Math.min(blockSize, totalSamples - first);
+            read(first, count, worker.samples);
+            byte[] frame = worker.encoder.encode(worker.samples, count, number);
+            return new Encoded(number, frame, pcm(worker.samples, count));
+        } finally {
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Reads samples of frames range as signed integers.
+     */
+    private void read(long first, int count, int[][] dst) {
+        int bits = bitsPerSample;
+        int flip = signed ? 0 : 1 << (bits - 1);
+        int done = 0;
+        while (done < count) {
+            long frame = first + done;
+            int segment = segmentOf(frame);
+            ByteBuffer buffer = segments[segment];
+            int offset = (int) (frame - segmentFirstFrames[segment]) * frameSize;
+            int frames = (int) Math.min(count - done, segmentFirstFrames[segment + 1] - frame);
+
+            for (int i = done; i < done + frames; i++) {
+                for (int c = 0; c < channels; c++) {
+                    int raw = 0;
+                    for (int b = 0; b < inputBytes; b++) {
+                        int value = buffer.get(offset + b) & 0xFF;
+                        raw |= value << (8 * (bigEndian ? inputBytes - 1 - b : b));
+                    }
+                    offset += inputBytes;
+                    raw ^= flip;
+                    dst[c][i] = (raw << (32 - bits)) >> (32 - bits);
+                }
+            }
+            done += frames;
+        }
+    }
+
+    private int segmentOf(long frame) {
+        int low = 0;
+        int high = segments.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (segmentFirstFrames[middle] <= frame) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Samples as signed little-endian interleaved PCM, which is hashed into STREAMINFO MD5.
+     */
+    private byte[] pcm(int[][] samples, int count) {
+        byte[] pcm = new byte[count * channels * inputBytes];
+        int index = 0;
+        for (int i = 0; i < count; i++) {
+            for (int c = 0; c < channels; c++) {
+                int sample = samples[c][i];
+                for (int b = 0; b < inputBytes; b++) {
+                    pcm[index++] = (byte) (sample >> (8 * b));
+                }
+            }
+        }
+        return pcm;
+    }
+
+    private ByteBuffer header() {
+        boolean hasSeekTable = seekBlocks.length > 0;
+        int size = 4 + 4 + FlacStreamInfo.SIZE + (hasSeekTable ? 4 + seekBlocks.length * FlacSeekTable.POINT_SIZE : 0) + 4 + comments.length;
+        ByteBuffer header = ByteBuffer.allocate(size);
+        header.put("fLaC".getBytes(StandardCharsets.US_ASCII));
+
+        blockHeader(header, FlacHeader.STREAMINFO, FlacStreamInfo.SIZE, false);
+        header.putShort((short) blockSize).putShort((short) blockSize);
+        putInt24(header, maxFrameSize == 0 ? 0 : minFrameSize);
+        putInt24(header, maxFrameSize);
+        header.putLong(((long) sampleRate << 44) | ((long) (channels - 1) << 41) | ((long) (bitsPerSample - 1) << 36) | totalSamples);
+        header.put(md5Copy());
+
+        if (hasSeekTable) {
+            blockHeader(header, FlacHeader.SEEKTABLE, seekBlocks.length * FlacSeekTable.POINT_SIZE, false);
+            for (int i = 0; i < seekBlocks.length; i++) {
+                long first = seekBlocks[i] * blockSize;
+                header.putLong(first).putLong(seekOffsets[i]).putShort((short) Math.min(blockSize, totalSamples - first));
+            }
+        }
+
+        blockHeader(header, FlacHeader.VORBIS_COMMENT, comments.length, true);
+        header.put(comments);
+        return header.flip();
+    }
+
+    private byte[] md5Copy() {
+        try {
+            return ((MessageDigest) md5.clone()).digest();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void blockHeader(ByteBuffer header, int type, int length, boolean last) {
+        header.put((byte) (last ? 0x80 | type : type));
+        putInt24(header, length);
+    }
+
+    private static void putInt24(ByteBuffer buffer, int value) {
+        buffer.put((byte) (value >> 16)).put((byte) (value >> 8)).put((byte) value);
+    }
+
+    private static byte[] comments(TrackMetadata metadata) {
+        List<String> fields = new ArrayList<>();
+        if (metadata != null) {
+            metadata.getTitle().ifPresent(value -> fields.add("TITLE=" + value));
+            metadata.getArtist().ifPresent(value -> fields.add("ARTIST=" + value));
+            metadata.getAlbum().ifPresent(value -> fields.add("ALBUM=" + value));
+            metadata.getGenre().ifPresent(value -> fields.add("GENRE=" + value));
+            metadata.getComposer().ifPresent(value -> fields.add("COMPOSER=" + value));
+            metadata.getCopyright().ifPresent(value -> fields.add("COPYRIGHT=" + value));
+            metadata.getComment().ifPresent(value -> fields.add("COMMENT=" + value));
+            metadata.getIsrc().ifPresent(value -> fields.add("ISRC=" + value));
+            metadata.getYear().ifPresent(value -> fields.add("DATE=" + value));
+            metadata.getTrackNumber().ifPresent(value -> fields.add("TRACKNUMBER=" + value));
+            metadata.getDiscNumber().ifPresent(value -> fields.add("DISCNUMBER=" + value));
+        }
+
+        // Длины в VORBIS_COMMENT записываются в little-endian
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer length = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] vendor = VENDOR.getBytes(StandardCharsets.UTF_8);
+        out.writeBytes(length.putInt(0, vendor.length).array());
+        out.writeBytes(vendor);
+        out.writeBytes(length.putInt(0, fields.size()).array());
+        for (String field : fields) {
+            byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+            out.writeBytes(length.putInt(0, bytes.length).array());
+            out.writeBytes(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private record Worker(FlacFrameEncoder encoder, int[][] samples) {
+    }
+
+    private record Encoded(long number, byte[] frame, byte[] pcm) {
+    }
+}
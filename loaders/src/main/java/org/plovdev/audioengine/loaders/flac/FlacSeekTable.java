@@ -0,0 +1,54 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import java.util.Arrays;
+
+/**
+ * SEEKTABLE metadata block, without placeholder points.
+ * Points are sorted by sample number.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class FlacSeekTable {
+    public static final int POINT_SIZE = 18;
+    public static final long PLACEHOLDER = -1L;
+
+    private final long[] samples;
+    private final long[] offsets;
+
+    /**
+     * @param samples first sample numbers of target frames
+     * @param offsets byte offsets of target frames from the first frame
+     */
+    public FlacSeekTable(long[] samples, long[] offsets) {
+        this.samples = samples;
+        this.offsets = offsets;
+    }
+
+    public static FlacSeekTable empty() {
+        return new FlacSeekTable(new long[0], new long[0]);
+    }
+
+    public int size() {
+        return samples.length;
+    }
+
+    public long getSample(int point) {
+        return samples[point];
+    }
+
+    public long getOffset(int point) {
+        return offsets[point];
+    }
+
+    /**
+     * Binary searches the last point, which starts not after sample.
+     *
+     * @param sample target sample
+     * @return point index, or -1 if all points are after sample
+     */
+    public int floor(long sample) {
+        int index = Arrays.binarySearch(samples, sample);
+        return index >= 0 ? index : -index - 2;
+    }
+}
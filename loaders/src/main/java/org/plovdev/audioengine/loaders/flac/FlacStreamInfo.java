@@ -0,0 +1,48 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.nio.ByteOrder;
+
+/**
+ * STREAMINFO metadata block.
+ *
+ * @param minBlockSize minimal block size in samples, except the last block
+ * @param maxBlockSize maximal block size in samples
+ * @param minFrameSize minimal frame size in bytes, or 0 if unknown
+ * @param maxFrameSize maximal frame size in bytes, or 0 if unknown
+ * @param sampleRate sample rate in Hz
+ * @param channels channels count, 1..8
+ * @param bitsPerSample bits per sample, 4..32
+ * @param totalSamples samples count per channel, or 0 if unknown
+ * @param md5 MD5 of decoded samples, or zeros if unknown
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public record FlacStreamInfo(int minBlockSize, int maxBlockSize, int minFrameSize, int maxFrameSize,
+                             int sampleRate, int channels, int bitsPerSample, long totalSamples, byte[] md5) {
+    public static final int SIZE = 34;
+
+    /**
+     * @return true, if all blocks, except the last, have the same size
+     */
+    public boolean isFixedBlockSize() {
+        return minBlockSize == maxBlockSize;
+    }
+
+    /**
+     * Format of decoded samples: little-endian signed PCM,
+     * with samples, which aren't multiple of 8 bits, padded to whole bytes.
+     */
+    public TrackFormat decodedFormat() {
+        int bytes = (bitsPerSample + 7) / 8;
+        TrackFormat.AudioCodec codec = switch (bytes) {
+            case 1 -> TrackFormat.AudioCodec.PCM8;
+            case 2 -> TrackFormat.AudioCodec.PCM16;
+            case 3 -> TrackFormat.AudioCodec.PCM24;
+            default -> TrackFormat.AudioCodec.PCM32;
+        };
+        return new TrackFormat("flac", channels, bytes * 8, sampleRate, true, ByteOrder.LITTLE_ENDIAN, codec);
+    }
+}
@@ -0,0 +1,58 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import org.plovdev.audioengine.exceptions.UnsupportedTrackFormat;
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.loaders.TrackDecoder;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.io.IOException;
+
+/**
+ * Decodes tracks, which hold raw FLAC stream, into PCM.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class FlacTrackDecoder implements TrackDecoder {
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * @param input track with {@link TrackFormat.AudioCodec#FLAC} stream, or already decoded PCM
+     * @return track with PCM samples in original bit depth
+     */
+    @Override
+    public Track decodeToPCM(Track input) {
+        if (input.getFormat().audioCodec() != TrackFormat.AudioCodec.FLAC) {
+            return input;
+        }
+        try {
+            FlacBitReader in = new FlacBitReader(FlacBitReader.Input.of(input.getSegments()), 0, READ_BUFFER_SIZE);
+            try (FlacTrackSource source = new FlacTrackSource(in, FlacHeader.read(in), null, input.getByteLength())) {
+                return source.readTrack();
+            }
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to decode FLAC track: " + e);
+        }
+    }
+
+    /**
+     * @param input track with FLAC stream or PCM
+     * @param outFormat target sample format, with the same channels and sample rate
+     * @return converted track
+     */
+    @Override
+    public Track decodeToFormat(Track input, TrackFormat outFormat) {
+        try {
+            Track pcm = decodeToPCM(input);
+            Track converted = SampleConverter.convert(pcm, outFormat);
+            if (pcm != input && converted != pcm) {
+                pcm.close();
+            }
+            return converted;
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedTrackFormat(e.getMessage());
+        }
+    }
+}
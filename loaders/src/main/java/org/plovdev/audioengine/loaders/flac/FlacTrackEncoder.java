@@ -0,0 +1,87 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import org.plovdev.audioengine.exceptions.TrackExportException;
+import org.plovdev.audioengine.loaders.TrackEncoder;
+import org.plovdev.audioengine.tracks.AudioBufferPool;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes PCM tracks into tracks, which hold raw FLAC stream.
+ * Such tracks are decoded back by {@link FlacTrackDecoder}.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class FlacTrackEncoder implements TrackEncoder {
+    private final FlacTrackExporter exporter;
+
+    public FlacTrackEncoder(FlacTrackExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    /**
+     * @param input track with PCM or float samples
+     * @return track with {@link TrackFormat.AudioCodec#FLAC} stream in original bit depth (24 bits for float)
+     */
+    @Override
+    public Track encodeFromPCM(Track input) {
+        Track pcm = FlacTrackExporter.toIntegerPCM(input);
+        TrackFormat format = pcm.getFormat();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            exporter.save(pcm, out);
+        } finally {
+            if (pcm != input) {
+                pcm.close();
+            }
+        }
+        byte[] stream = out.toByteArray();
+        ByteBuffer data = AudioBufferPool.getInstance().acquire(stream.length).put(stream).flip(); // returned to pool by Track#close()
+
+        TrackFormat flac = new TrackFormat("flac", format.channels(), format.bitsPerSample(), format.sampleRate(),
+                true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLAC);
+        return new Track(data, input.getDuration(), flac, input.getMetaData());
+    }
+
+    /**
+     * @param input track with PCM or float samples
+     * @param outFormat FLAC format, its bits per sample select PCM depth of stream,
+     *                  or PCM format to convert samples only
+     * @return encoded track
+     * @throws TrackExportException if samples can't be converted
+     */
+    @Override
+    public Track encodeFromFormat(Track input, TrackFormat outFormat) {
+        try {
+            if (outFormat.audioCodec() != TrackFormat.AudioCodec.FLAC) {
+                return SampleConverter.convert(input, outFormat);
+            }
+            TrackFormat.AudioCodec codec = switch (outFormat.bitsPerSample()) {
+                case 8 -> TrackFormat.AudioCodec.PCM8;
+                case 16 -> TrackFormat.AudioCodec.PCM16;
+                case 24 -> TrackFormat.AudioCodec.PCM24;
+                case 32 -> TrackFormat.AudioCodec.PCM32;
+                default -> throw new TrackExportException("Unsupported FLAC bit depth: " + outFormat.bitsPerSample());
+            };
+            TrackFormat pcm = new TrackFormat("flac", outFormat.channels(), outFormat.bitsPerSample(), outFormat.sampleRate(),
+                    true, ByteOrder.LITTLE_ENDIAN, codec);
+            Track converted = SampleConverter.convert(input, pcm);
+            try {
+                return encodeFromPCM(converted);
+            } finally {
+                if (converted != input) {
+                    converted.close();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new TrackExportException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import org.plovdev.audioengine.exceptions.TrackExportException;
+import org.plovdev.audioengine.loaders.TrackExporter;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Pure Java FLAC exporter.
+ * <p>
+ * Blocks are encoded concurrently on {@link ForkJoinPool}, and written in order
+ * with SEEKTABLE (a point every 10 seconds), MD5 of samples and Vorbis comments from track metadata.
+ * Float tracks are exported as 24-bit PCM.
+ * </p>
+ *
+ * @see FlacEncoderSettings#ofLevel(int)
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class FlacTrackExporter implements TrackExporter {
+    private FlacEncoderSettings settings = FlacEncoderSettings.ofLevel(FlacEncoderSettings.DEFAULT_LEVEL);
+    private ForkJoinPool encodePool = ForkJoinPool.commonPool();
+
+    /**
+     * @param level compression level, 0 is the fastest, 8 is the smallest
+     */
+    public void setCompressionLevel(int level) {
+        settings = FlacEncoderSettings.ofLevel(level);
+    }
+
+    public void setSettings(FlacEncoderSettings settings) {
+        this.settings = settings;
+    }
+
+    public FlacEncoderSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * @param pool pool, which encodes blocks in parallel
+     */
+    public void setEncodePool(ForkJoinPool pool) {
+        encodePool = pool;
+    }
+
+    @Override
+    public void save(Track track, OutputStream outputStream) {
+        save(track, Channels.newChannel(outputStream));
+    }
+
+    /**
+     * Saves track as FLAC stream. If channel is seekable (like {@link java.nio.channels.FileChannel}),
+     * frames are written as soon as they are encoded, otherwise they are kept in memory until the end.
+     */
+    @Override
+    public void save(Track track, WritableByteChannel channel) {
+        Track pcm = null;
+        try {
+            pcm = toIntegerPCM(track);
+            FlacParallelEncoder.encode(pcm, settings, encodePool, channel);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new TrackExportException("Failed to export FLAC: " + e.getMessage());
+        } finally {
+            if (pcm != null && pcm != track) {
+                pcm.close();
+            }
+        }
+    }
+
+    static Track toIntegerPCM(Track track) {
+        TrackFormat format = track.getFormat();
+        if (format.channels() < 1 || format.channels() > 8) {
+            throw new TrackExportException("FLAC supports 1..8 channels, got " + format.channels());
+        }
+        if (format.sampleRate() <= 0 || format.sampleRate() >= 1 << 20) {
+            throw new TrackExportException("Unsupported FLAC sample rate: " + format.sampleRate());
+        }
+        return switch (format.audioCodec()) {
+            case PCM8, PCM16, PCM24, PCM32 -> track;
+            case FLOAT32, FLOAT64 -> SampleConverter.convert(track, new TrackFormat("flac", format.channels(), 24,
+                    format.sampleRate(), true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.PCM24));
+            default -> throw new TrackExportException("Can't export " + format.audioCodec() + " samples to FLAC");
+        };
+    }
+}
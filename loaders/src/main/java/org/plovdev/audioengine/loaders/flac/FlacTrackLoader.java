@@ -0,0 +1,240 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.loaders.AudioSignature;
+import org.plovdev.audioengine.loaders.LoadListener;
+import org.plovdev.audioengine.loaders.LocatorIndex;
+import org.plovdev.audioengine.loaders.PathLocator;
+import org.plovdev.audioengine.loaders.TrackLoader;
+import org.plovdev.audioengine.loaders.TrackLoaderRegistry;
+import org.plovdev.audioengine.loaders.TrackProbe;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.plovdev.audioengine.loaders.ExportUtils.getFile;
+
+/**
+ * Pure Java FLAC loader.
+ * <p>
+ * Files with known length are decoded in parallel on {@link ForkJoinPool},
+ * everything else is decoded frame by frame. Use {@link #openSource(String)}
+ * to decode while playing, without holding the whole PCM in memory.
+ * </p>
+ *
+ * @see FlacTrackSource
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class FlacTrackLoader implements TrackLoader {
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private LocatorIndex locators = new LocatorIndex();
+    private ForkJoinPool decodePool = ForkJoinPool.commonPool();
+    private LoadListener loadListener = null;
+
+    public void addLocator(PathLocator locator) {
+        locators.add(locator);
+    }
+
+    /**
+     * Replaces own index of locator roots by shared one,
+     * so roots are walked and watched once for all loaders.
+     *
+     * @param index shared index, closed by its owner
+     */
+    public void setLocatorIndex(LocatorIndex index) {
+        locators = index;
+    }
+
+    public LocatorIndex getLocatorIndex() {
+        return locators;
+    }
+
+    /**
+     * @param pool pool, which decodes frames of files in parallel
+     */
+    public void setDecodePool(ForkJoinPool pool) {
+        decodePool = pool;
+    }
+
+    @Override
+    public Track loadTrack(String path) throws TrackLoadException {
+        File file = getFile(path, locators);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            FlacBitReader in = new FlacBitReader(channel::read, 0, READ_BUFFER_SIZE);
+            FlacHeader header = FlacHeader.read(in);
+            FlacStreamInfo info = header.getStreamInfo();
+            if (info.totalSamples() == 0) {
+                return new FlacTrackSource(in, header, null, channel.size()).readTrack();
+            }
+
+            ByteBuffer[] segments = FlacParallelDecoder.decode(channel, header, decodePool);
+            TrackFormat format = info.decodedFormat();
+            return new Track(segments, TrackFormatUtils.calculateDuration(format, info.totalSamples()), format, header.getMetadata());
+        } catch (IOException | RuntimeException e) {
+            throw new TrackLoadException("Failed to load FLAC file: " + path + " - " + e);
+        }
+    }
+
+    @Override
+    public Track loadTrack(InputStream stream) throws TrackLoadException {
+        return openSource(stream).readTrack();
+    }
+
+    @Override
+    public Track loadTrack(URI uri) throws TrackLoadException {
+        return switch (uri.getScheme()) {
+            case "file" -> loadTrack(uri.getPath());
+            case "https", "http" -> {
+                try (InputStream stream = uri.toURL().openStream()) {
+                    yield loadTrack(stream);
+                } catch (IOException e) {
+                    throw new TrackLoadException(e.getMessage());
+                }
+            }
+            default -> throw new TrackLoadException("Unsupported URI scheme: " + uri.getScheme());
+        };
+    }
+
+    /**
+     * Opens file for frame by frame decoding. Returned source is seekable.
+     */
+    @Override
+    public FlacTrackSource openSource(String path) throws TrackLoadException {
+        File file = getFile(path, locators);
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            FlacBitReader in = new FlacBitReader(channel::read, 0, READ_BUFFER_SIZE);
+            return new FlacTrackSource(in, FlacHeader.read(in), channel, channel.size());
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new TrackLoadException("Failed to open FLAC file: " + path + " - " + e);
+        }
+    }
+
+    /**
+     * Opens stream for frame by frame decoding. Returned source isn't seekable,
+     * and doesn't close stream.
+     */
+    public FlacTrackSource openSource(InputStream stream) throws TrackLoadException {
+        try {
+            FlacBitReader in = new FlacBitReader(FlacBitReader.Input.of(Channels.newChannel(stream)), 0, READ_BUFFER_SIZE);
+            return new FlacTrackSource(in, FlacHeader.read(in), null, -1);
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to read FLAC from stream: " + e);
+        }
+    }
+
+    /**
+     * Reads only metadata blocks.
+     *
+     * @param path track path
+     * @return probe, data offset is the first frame position
+     */
+    public TrackProbe probe(String path) throws TrackLoadException {
+        try (FlacTrackSource source = openSource(path)) {
+            FlacHeader header = source.getHeader();
+            long size = getFile(path, locators).length();
+            return createProbe(header, size - header.getFirstFrameOffset());
+        }
+    }
+
+    public TrackProbe probe(InputStream stream) throws TrackLoadException {
+        return createProbe(openSource(stream).getHeader(), -1);
+    }
+
+    private static TrackProbe createProbe(FlacHeader header, long dataSize) {
+        Duration duration = header.getMetadata().getDuration().orElse(Duration.ZERO);
+        return new TrackProbe(header.getStreamInfo().decodedFormat(), header.getFirstFrameOffset(), dataSize, duration);
+    }
+
+    @Override
+    public TrackMetadata readTrackMetadata(String src) {
+        try (FlacTrackSource source = openSource(src)) {
+            return source.getMetadata();
+        }
+    }
+
+    @Override
+    public TrackMetadata readTrackMetadata(InputStream src) {
+        return openSource(src).getMetadata();
+    }
+
+    @Override
+    public TrackMetadata readTrackMetadata(URI src) {
+        return loadTrack(src).getMetaData();
+    }
+
+    @Override
+    public TrackFormat getTrackFormat(String src) {
+        return probe(src).format();
+    }
+
+    @Override
+    public TrackFormat getTrackFormat(InputStream src) {
+        return probe(src).format();
+    }
+
+    @Override
+    public TrackFormat getTrackFormat(URI src) {
+        return "file".equals(src.getScheme()) ? getTrackFormat(src.getPath()) : loadTrack(src).getFormat();
+    }
+
+    @Override
+    public boolean isSupported(String filename) {
+        if (filename == null) return false;
+        String lower = filename.toLowerCase().trim();
+        lower = lower.startsWith(".") ? lower : "." + lower;
+        return lower.endsWith(".flac");
+    }
+
+    @Override
+    public boolean isSupported(InputStream stream) {
+        if (stream == null || !stream.markSupported()) return false;
+        try {
+            byte[] header = new byte[AudioSignature.PEEK_SIZE];
+            int length = TrackLoaderRegistry.peek(stream, header);
+            return AudioSignature.FLAC.matches(header, length);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isSupported(URI uri) {
+        return isSupported(uri.getPath());
+    }
+
+    @Override
+    public void setLoadListener(LoadListener listener) {
+        loadListener = listener;
+    }
+
+    @Override
+    public LoadListener getLoadListener() {
+        return loadListener;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
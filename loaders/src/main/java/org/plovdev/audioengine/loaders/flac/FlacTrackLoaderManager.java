@@ -0,0 +1,47 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import org.plovdev.audioengine.loaders.*;
+
+public class FlacTrackLoaderManager implements TrackLoaderManager {
+    private final FlacTrackLoader loader;
+    private final FlacTrackExporter exporter;
+    private final FlacTrackEncoder encoder;
+    private final FlacTrackDecoder decoder;
+
+    public FlacTrackLoaderManager() {
+        loader = new FlacTrackLoader();
+        exporter = new FlacTrackExporter();
+        encoder = new FlacTrackEncoder(exporter);
+        decoder = new FlacTrackDecoder();
+    }
+
+    @Override
+    public FlacTrackLoader getTrackLoader() {
+        return loader;
+    }
+
+    @Override
+    public FlacTrackExporter getTrackExporter() {
+        return exporter;
+    }
+
+    @Override
+    public FlacTrackEncoder getTrackEncoder() {
+        return encoder;
+    }
+
+    @Override
+    public TrackDecoder getTrackDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public void registerPathLocator(PathLocator locator) {
+        loader.addLocator(locator);
+    }
+
+    @Override
+    public void setLocatorIndex(LocatorIndex index) {
+        loader.setLocatorIndex(index);
+    }
+}
@@ -0,0 +1,183 @@
+package org.plovdev.audioengine.loaders.flac;
+
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.tracks.TrackSource;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming FLAC decoder. Frames are decoded one by one, when read.
+ * <p>
+ * Seeking uses SEEKTABLE to find the nearest preceding seek point, and bisects
+ * by frame headers between seek points (or the whole stream, if there is no table),
+ * so any frame is found in O(log n) frame decodes.
+ * </p>
+ *
+ * @see FlacTrackLoader#openSource(String)
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class FlacTrackSource implements TrackSource {
+    private static final int MIN_BISECT_RANGE = 1 << 16;
+
+    private final FlacBitReader in;
+    private final FlacHeader header;
+    private final FlacFrameDecoder decoder;
+    private final Closeable resource;
+    private final long streamLength;
+    private final TrackFormat format;
+    private final int frameSize;
+
+    private int frameFrom;
+    private int frameEnd;
+    private long position;
+    private boolean end;
+
+    /**
+     * @param in reader, positioned at the first frame
+     * @param header stream header
+     * @param resource closed with source, may be null
+     * @param streamLength stream size in bytes for positional readers, or -1 for not seekable ones
+     */
+    FlacTrackSource(FlacBitReader in, FlacHeader header, Closeable resource, long streamLength) {
+        this.in = in;
+        this.header = header;
+        this.decoder = new FlacFrameDecoder(header.getStreamInfo());
+        this.resource = resource;
+        this.streamLength = streamLength;
+        this.format = header.getStreamInfo().decodedFormat();
+        this.frameSize = TrackFormatUtils.frameSize(format);
+    }
+
+    @Override
+    public TrackFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public long getFrameLength() {
+        long total = header.getStreamInfo().totalSamples();
+        return total > 0 ? total : -1;
+    }
+
+    @Override
+    public long getFramePosition() {
+        return position;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws TrackLoadException {
+        int frames = 0;
+        try {
+            while (dst.remaining() >= frameSize) {
+                if (frameFrom >= frameEnd && !nextFrame()) break;
+                int count = Math.min(frameEnd - frameFrom, dst.remaining() / frameSize);
+                decoder.write(dst, frameFrom, count);
+                frameFrom += count;
+                frames += count;
+            }
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to decode FLAC frame: " + e.getMessage());
+        }
+        position += frames;
+        return frames == 0 && end ? -1 : frames;
+    }
+
+    @Override
+    public boolean isSeekable() {
+        return streamLength >= 0;
+    }
+
+    @Override
+    public synchronized void seek(long frame) throws TrackLoadException {
+        if (!isSeekable()) {
+            throw new UnsupportedOperationException("FLAC stream isn't seekable");
+        }
+        long target = Math.max(0, getFrameLength() < 0 ? frame : Math.min(frame, getFrameLength()));
+        try {
+            in.seek(findFrameBefore(target));
+            end = false;
+            frameFrom = frameEnd = 0;
+            while (nextFrame()) {
+                long first = decoder.getFirstSample();
+                if (first + frameEnd > target) {
+                    frameFrom = (int) Math.max(0, target - first);
+                    break;
+                }
+            }
+            position = target;
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to seek FLAC stream: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return stream position of frame, which starts not after target sample
+     */
+    private long findFrameBefore(long target) throws IOException {
+        long first = header.getFirstFrameOffset();
+        FlacSeekTable table = header.getSeekTable();
+        long low = first;
+        long high = streamLength;
+
+        int point = table.floor(target);
+        if (point >= 0) {
+            low = first + table.getOffset(point);
+        }
+        if (point + 1 < table.size()) {
+            high = Math.min(high, first + table.getOffset(point + 1));
+        }
+
+        // Бинарный поиск по заголовкам кадров между точками
+        long range = Math.max(MIN_BISECT_RANGE, 2L * header.getStreamInfo().maxFrameSize());
+        while (high - low > range) {
+            long middle = low + (high - low) / 2;
+            if (!decoder.find(in, middle, high) || decoder.getFirstSample() > target) {
+                high = middle;
+            } else {
+                low = decoder.getFrameOffset();
+                if (decoder.getFirstSample() + decoder.getBlockSize() > target) break;
+            }
+        }
+        return low;
+    }
+
+    private boolean nextFrame() throws IOException {
+        if (end || !decoder.decode(in)) {
+            end = true;
+            return false;
+        }
+        frameFrom = 0;
+        frameEnd = decoder.getBlockSize();
+        long total = header.getStreamInfo().totalSamples();
+        if (total > 0) {
+            frameEnd = (int) Math.max(0, Math.min(frameEnd, total - decoder.getFirstSample()));
+        }
+        return true;
+    }
+
+    @Override
+    public TrackMetadata getMetadata() {
+        return header.getMetadata();
+    }
+
+    public FlacHeader getHeader() {
+        return header;
+    }
+
+    @Override
+    public void close() {
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.plovdev.audioengine.loaders.mp3;
+
+/**
+ * MPEG audio bit reader. Bits are read from the most significant bit of every byte.
+ * Reading past the end of data returns zeros, so broken frames are decoded as silence.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class Mp3BitReader {
+    private byte[] data;
+    private int limit;
+    private int position; // in bits
+
+    void reset(byte[] data, int length) {
+        this.data = data;
+        this.limit = length;
+        this.position = 0;
+    }
+
+    /**
+     * @param count bits count, up to 24
+     * @return unsigned value
+     */
+    int read(int count) {
+        if (count == 0) return 0;
+        int value = peek(count);
+        position += count;
+        return value;
+    }
+
+    int readBit() {
+        return read(1);
+    }
+
+    /**
+     * @param count bits count, from 1 up to 24
+     * @return next bits without consuming them
+     */
+    int peek(int count) {
+        int index = position >>> 3;
+        int word = byteAt(index) << 24 | byteAt(index + 1) << 16 | byteAt(index + 2) << 8 | byteAt(index + 3);
+        return (word << (position & 7)) >>> (32 - count);
+    }
+
+    void skip(int count) {
+        position += count;
+    }
+
+    int position() {
+        return position;
+    }
+
+    void position(int bits) {
+        position = bits;
+    }
+
+    private int byteAt(int index) {
+        return index < limit ? data[index] & 0xFF : 0;
+    }
+}
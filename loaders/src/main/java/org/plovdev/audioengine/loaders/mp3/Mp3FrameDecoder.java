@@ -0,0 +1,690 @@
+package org.plovdev.audioengine.loaders.mp3;
+
+import java.util.Arrays;
+
+import static org.plovdev.audioengine.loaders.mp3.Mp3Tables.LONG_BANDS;
+import static org.plovdev.audioengine.loaders.mp3.Mp3Tables.SHORT_BANDS;
+
+/**
+ * Layer III decoder of one stream: side info, bit reservoir, scalefactors, Huffman spectrum,
+ * requantization, stereo processing, IMDCT and polyphase synthesis.
+ * <p>
+ * All buffers are allocated once and reused for every frame; cosine, window and Huffman tables
+ * are shared by all decoders. Frames must be given in stream order, because main data of frame
+ * may start in previous frames (bit reservoir), and IMDCT output overlaps the next granule.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class Mp3FrameDecoder {
+    /**
+     * Biggest main_data_begin: main data of frame may start so many bytes before the frame.
+     */
+    static final int MAX_RESERVOIR = 511;
+
+    private static final float SQRT_HALF = (float) Math.sqrt(0.5);
+    private static final float[] COS_LONG = new float[36 * 18];
+    private static final float[] COS_SHORT = new float[12 * 6];
+    private static final float[][] WINDOWS = new float[4][36]; // by block type, 2 isn't used
+    private static final float[] SHORT_WINDOW = new float[12];
+    private static final float[] ALIAS_CS = new float[8];
+    private static final float[] ALIAS_CA = new float[8];
+    private static final float[][] INTENSITY = new float[7][2]; // MPEG-1: left and right factors by position
+
+    static {
+        for (int i = 0; i < 36; i++) {
+            for (int k = 0; k < 18; k++) {
+                COS_LONG[i * 18 + k] = (float) Math.cos(Math.PI / 72 * (2 * i + 1 + 18) * (2 * k + 1));
+            }
+        }
+        for (int i = 0; i < 12; i++) {
+            for (int k = 0; k < 6; k++) {
+                COS_SHORT[i * 6 + k] = (float) Math.cos(Math.PI / 24 * (2 * i + 1 + 6) * (2 * k + 1));
+            }
+            SHORT_WINDOW[i] = (float) Math.sin(Math.PI / 12 * (i + 0.5));
+        }
+        for (int i = 0; i < 36; i++) {
+            float sine = (float) Math.sin(Math.PI / 36 * (i + 0.5));
+            WINDOWS[0][i] = sine;
+            WINDOWS[1][i] = i < 18 ? sine : i < 24 ? 1 : i < 30 ? SHORT_WINDOW[i - 18] : 0; // start
+            WINDOWS[3][i] = i < 6 ? 0 : i < 12 ? SHORT_WINDOW[i - 6] : i < 18 ? 1 : sine;   // stop
+        }
+        double[] ci = {-0.6, -0.535, -0.33, -0.185, -0.095, -0.041, -0.0142, -0.0037};
+        for (int i = 0; i < 8; i++) {
+            double norm = Math.sqrt(1 + ci[i] * ci[i]);
+            ALIAS_CS[i] = (float) (1 / norm);
+            ALIAS_CA[i] = (float) (ci[i] / norm);
+        }
+        for (int position = 0; position < 7; position++) {
+            if (position == 6) {
+                INTENSITY[position][0] = 1;
+                INTENSITY[position][1] = 0;
+            } else {
+                double ratio = Math.tan(position * Math.PI / 12);
+                INTENSITY[position][0] = (float) (ratio / (1 + ratio));
+                INTENSITY[position][1] = (float) (1 / (1 + ratio));
+            }
+        }
+    }
+
+    private final Mp3BitReader in = new Mp3BitReader();
+    private final byte[] main = new byte[MAX_RESERVOIR + Mp3FrameHeader.MAX_FRAME_SIZE];
+    private int reservoir; // bytes of previous main data at the start of main
+
+    private final Granule[][] granules = {{new Granule(), new Granule()}, {new Granule(), new Granule()}};
+    private final int[][] scfsi = new int[2][4];
+    private final int[][] scalefacLong = new int[2][22];
+    private final int[][] scalefacShort = new int[2][13 * 3]; // band * 3 + window
+    private final int[] lsfScalefacs = new int[39];
+    private final int[] lsfMax = new int[39];
+    private final int[] maxLong = new int[22];  // MPEG-2 intensity: illegal positions of right channel
+    private final int[] maxShort = new int[13];
+    private final int[] slen = new int[4];
+    private int intensityScale;
+
+    private final int[][] quantized = new int[2][576];
+    private final float[][] xr = new float[2][576];
+    private final int[] nonZero = new int[2]; // lines count up to the last decoded value
+    private final float[] intensityLeft = new float[576];
+    private final float[] intensityRight = new float[576];
+    private final boolean[] intensityLines = new boolean[576];
+    private final float[] reorder = new float[576];
+    private final float[][] overlap = new float[2][576];
+    private final float[] block = new float[36];
+    private final float[][] slots = new float[2][18 * 32]; // hybrid output: slot * 32 + subband
+    private final float[] mix = new float[32];
+    private final Mp3Synthesis[] synthesis = {new Mp3Synthesis(), new Mp3Synthesis()};
+
+    /**
+     * Forgets bit reservoir and filter states, for example after seek.
+     */
+    void reset() {
+        reservoir = 0;
+        for (float[] channel : overlap) {
+            Arrays.fill(channel, 0);
+        }
+        for (Mp3Synthesis filter : synthesis) {
+            filter.reset();
+        }
+    }
+
+    /**
+     * Decodes frame into interleaved samples.
+     *
+     * @param frame whole frame, from header
+     * @param length frame size
+     * @param header parsed header of frame
+     * @param out target of {@code header.samplesPerFrame() * channels} samples
+     * @param channels output channels: mono frames are copied to both channels, stereo ones mixed for mono output
+     * @return false, if main data begins in frame, which wasn't decoded (after seek), so frame is decoded as silence
+     */
+    boolean decode(byte[] frame, int length, Mp3FrameHeader header, float[] out, int channels) {
+        int frameChannels = header.channels();
+        in.reset(frame, length);
+        in.position(header.sideInfoOffset() * 8);
+        int mainDataBegin = readSideInfo(header, frameChannels);
+
+        int mainSize = Math.max(0, Math.min(length - header.mainDataOffset(), main.length - reservoir));
+        System.arraycopy(frame, header.mainDataOffset(), main, reservoir, mainSize);
+        int total = reservoir + mainSize;
+        boolean valid = mainDataBegin <= reservoir;
+        in.reset(main, total);
+        in.position((reservoir - Math.min(mainDataBegin, reservoir)) * 8);
+
+        for (int gr = 0; gr < header.granules(); gr++) {
+            for (int ch = 0; ch < frameChannels; ch++) {
+                Granule granule = granules[gr][ch];
+                if (valid) {
+                    int start = in.position();
+                    if (header.isLsf()) {
+                        readLsfScalefactors(header, ch, granule);
+                    } else {
+                        readScalefactors(gr, ch, granule);
+                    }
+                    readSpectrum(header, ch, granule, start + granule.part23Length);
+                    in.position(start + granule.part23Length);
+                } else {
+                    Arrays.fill(quantized[ch], 0);
+                    nonZero[ch] = 0;
+                }
+                requantize(header, ch, granule);
+            }
+            if (frameChannels == 2 && header.mode == Mp3FrameHeader.JOINT_STEREO && header.modeExtension != 0) {
+                stereo(header, granules[gr][1]);
+            }
+            for (int ch = 0; ch < frameChannels; ch++) {
+                Granule granule = granules[gr][ch];
+                reorder(header, ch, granule);
+                antialias(ch, granule);
+                hybrid(ch, granule);
+            }
+            synthesize(gr, frameChannels, out, channels);
+        }
+
+        int keep = Math.min(total, MAX_RESERVOIR);
+        System.arraycopy(main, total - keep, main, 0, keep);
+        reservoir = keep;
+        return valid;
+    }
+
+    /**
+     * @return main_data_begin
+     */
+    private int readSideInfo(Mp3FrameHeader header, int channels) {
+        boolean lsf = header.isLsf();
+        int mainDataBegin;
+        if (lsf) {
+            mainDataBegin = in.read(8);
+            in.skip(channels == 1 ? 1 : 2);
+        } else {
+            mainDataBegin = in.read(9);
+            in.skip(channels == 1 ? 5 : 3);
+            for (int ch = 0; ch < channels; ch++) {
+                for (int group = 0; group < 4; group++) {
+                    scfsi[ch][group] = in.readBit();
+                }
+            }
+        }
+        for (int gr = 0; gr < header.granules(); gr++) {
+            for (int ch = 0; ch < channels; ch++) {
+                Granule granule = granules[gr][ch];
+                granule.part23Length = in.read(12);
+                granule.bigValues = Math.min(in.read(9), 288);
+                granule.globalGain = in.read(8);
+                granule.scalefacCompress = in.read(lsf ? 9 : 4);
+                granule.windowSwitching = in.readBit() == 1;
+                if (granule.windowSwitching) {
+                    granule.blockType = in.read(2);
+                    granule.mixed = in.readBit() == 1;
+                    granule.tableSelect[0] = in.read(5);
+                    granule.tableSelect[1] = in.read(5);
+                    granule.tableSelect[2] = 0;
+                    for (int window = 0; window < 3; window++) {
+                        granule.subblockGain[window] = in.read(3);
+                    }
+                } else {
+                    granule.blockType = 0;
+                    granule.mixed = false;
+                    for (int region = 0; region < 3; region++) {
+                        granule.tableSelect[region] = in.read(5);
+                    }
+                    granule.region0Count = in.read(4);
+                    granule.region1Count = in.read(3);
+                    Arrays.fill(granule.subblockGain, 0);
+                }
+                granule.preflag = !lsf && in.readBit() == 1;
+                granule.scalefacScale = in.readBit();
+                granule.count1Table = in.readBit();
+            }
+        }
+        return mainDataBegin;
+    }
+
+    private void readScalefactors(int gr, int ch, Granule granule) {
+        int slen1 = Mp3Tables.SLEN[0][granule.scalefacCompress];
+        int slen2 = Mp3Tables.SLEN[1][granule.scalefacCompress];
+        int[] longFactors = scalefacLong[ch];
+        int[] shortFactors = scalefacShort[ch];
+        if (granule.isShort()) {
+            int band = 0;
+            if (granule.mixed) {
+                for (; band < 8; band++) {
+                    longFactors[band] = in.read(slen1);
+                }
+                band = 3;
+            }
+            for (; band < 12; band++) {
+                int bits = band < 6 ? slen1 : slen2;
+                for (int window = 0; window < 3; window++) {
+                    shortFactors[band * 3 + window] = in.read(bits);
+                }
+            }
+            Arrays.fill(shortFactors, 36, 39, 0);
+            return;
+        }
+        // Группы полос 0-5, 6-10, 11-15, 16-20; scfsi повторяет множители первой гранулы
+        int[] groups = {0, 6, 11, 16, 21};
+        for (int group = 0; group < 4; group++) {
+            if (gr == 1 && scfsi[ch][group] == 1) continue;
+            int bits = group < 2 ? slen1 : slen2;
+            for (int band = groups[group]; band < groups[group + 1]; band++) {
+                longFactors[band] = in.read(bits);
+            }
+        }
+        longFactors[21] = 0;
+    }
+
+    private void readLsfScalefactors(Mp3FrameHeader header, int ch, Granule granule) {
+        boolean intensityRight = ch == 1 && header.mode == Mp3FrameHeader.JOINT_STEREO && (header.modeExtension & 1) != 0;
+        int compress = granule.scalefacCompress;
+        int table;
+        if (!intensityRight) {
+            if (compress < 400) {
+                setSlen((compress >> 4) / 5, (compress >> 4) % 5, (compress & 15) >> 2, compress & 3);
+                table = 0;
+            } else if (compress < 500) {
+                compress -= 400;
+                setSlen((compress >> 2) / 5, (compress >> 2) % 5, compress & 3, 0);
+                table = 1;
+            } else {
+                compress -= 500;
+                setSlen(compress / 3, compress % 3, 0, 0);
+                table = 2;
+                granule.preflag = true;
+            }
+        } else {
+            intensityScale = compress & 1;
+            compress >>= 1;
+            if (compress < 180) {
+                setSlen(compress / 36, compress % 36 / 6, compress % 36 % 6, 0);
+                table = 3;
+            } else if (compress < 244) {
+                compress -= 180;
+                setSlen((compress & 63) >> 4, (compress & 15) >> 2, compress & 3, 0);
+                table = 4;
+            } else {
+                compress -= 244;
+                setSlen(compress / 3, compress % 3, 0, 0);
+                table = 5;
+            }
+        }
+
+        int[] parts = Mp3Tables.LSF_PARTS[table][granule.isShort() ? (granule.mixed ? 2 : 1) : 0];
+        int count = 0;
+        for (int part = 0; part < 4; part++) {
+            for (int i = 0; i < parts[part]; i++) {
+                lsfScalefacs[count] = in.read(slen[part]);
+                lsfMax[count] = (1 << slen[part]) - 1;
+                count++;
+            }
+        }
+
+        int[] longFactors = scalefacLong[ch];
+        int[] shortFactors = scalefacShort[ch];
+        int index = 0;
+        if (!granule.isShort()) {
+            for (int band = 0; band < 21; band++, index++) {
+                longFactors[band] = lsfScalefacs[index];
+                maxLong[band] = lsfMax[index];
+            }
+            longFactors[21] = 0;
+            maxLong[21] = maxLong[20];
+            return;
+        }
+        int band = 0;
+        if (granule.mixed) {
+            for (; band < 6; band++, index++) {
+                longFactors[band] = lsfScalefacs[index];
+                maxLong[band] = lsfMax[index];
+            }
+            band = 3;
+        }
+        for (; band < 12; band++) {
+            for (int window = 0; window < 3; window++, index++) {
+                shortFactors[band * 3 + window] = lsfScalefacs[index];
+            }
+            maxShort[band] = lsfMax[index - 1];
+        }
+        Arrays.fill(shortFactors, 36, 39, 0);
+        maxShort[12] = maxShort[11];
+    }
+
+    private void setSlen(int first, int second, int third, int fourth) {
+        slen[0] = first;
+        slen[1] = second;
+        slen[2] = third;
+        slen[3] = fourth;
+    }
+
+    /**
+     * Decodes Huffman coded big values and count1 regions, up to the end of granule part 3.
+     */
+    private void readSpectrum(Mp3FrameHeader header, int ch, Granule granule, int end) {
+        int[] values = quantized[ch];
+        int[] bands = LONG_BANDS[header.sampleRateIndex];
+        int region1;
+        int region2;
+        if (granule.windowSwitching) {
+            region1 = granule.isShort() && !granule.mixed ? SHORT_BANDS[header.sampleRateIndex][3] * 3 : 36;
+            region2 = 576;
+        } else {
+            region1 = bands[Math.min(granule.region0Count + 1, 22)];
+            region2 = bands[Math.min(granule.region0Count + granule.region1Count + 2, 22)];
+        }
+
+        int line = 0;
+        int bigEnd = granule.bigValues * 2;
+        for (; line < bigEnd; line += 2) {
+            int region = line < region1 ? 0 : line < region2 ? 1 : 2;
+            Mp3Huffman table = Mp3Huffman.bigValues(granule.tableSelect[region]);
+            if (table == null) {
+                values[line] = values[line + 1] = 0;
+                continue;
+            }
+            int pair = table.decode(in);
+            values[line] = bigValue(pair >>> 4, table.linbits);
+            values[line + 1] = bigValue(pair & 15, table.linbits);
+        }
+
+        Mp3Huffman quads = granule.count1Table == 0 ? Mp3Huffman.COUNT1_A : Mp3Huffman.COUNT1_B;
+        while (line + 4 <= 576 && in.position() < end) {
+            int quad = quads.decode(in);
+            for (int i = 0; i < 4; i++) {
+                int value = (quad >>> (3 - i)) & 1;
+                values[line + i] = value != 0 && in.readBit() == 1 ? -value : value;
+            }
+            if (in.position() > end) {
+                // Последняя четвёрка вышла за границу гранулы и не считается
+                Arrays.fill(values, line, line + 4, 0);
+                break;
+            }
+            line += 4;
+        }
+        Arrays.fill(values, line, 576, 0);
+        nonZero[ch] = line;
+    }
+
+    private int bigValue(int value, int linbits) {
+        if (value == 15 && linbits > 0) {
+            value += in.read(linbits);
+        }
+        return value != 0 && in.readBit() == 1 ? -value : value;
+    }
+
+    private void requantize(Mp3FrameHeader header, int ch, Granule granule) {
+        float[] samples = xr[ch];
+        int[] values = quantized[ch];
+        int count = nonZero[ch];
+        int[] longBands = LONG_BANDS[header.sampleRateIndex];
+        int[] shortBands = SHORT_BANDS[header.sampleRateIndex];
+        int global = granule.globalGain - 210;
+        int shift = granule.scalefacScale == 1 ? 4 : 2; // шаг множителя в четвертях октавы
+        int[] longFactors = scalefacLong[ch];
+
+        int longEnd = !granule.isShort() ? 22 : granule.mixed ? (header.isLsf() ? 6 : 8) : 0;
+        int line = 0;
+        for (int band = 0; band < longEnd && line < count; band++) {
+            int exponent = global - shift * (longFactors[band] + (granule.preflag ? Mp3Tables.PRETAB[band] : 0));
+            line = requantizeLines(values, samples, line, Math.min(longBands[band + 1], count), exponent);
+        }
+        if (granule.isShort()) {
+            int[] shortFactors = scalefacShort[ch];
+            for (int band = granule.mixed ? 3 : 0; band < 13 && line < count; band++) {
+                int width = shortBands[band + 1] - shortBands[band];
+                for (int window = 0; window < 3 && line < count; window++) {
+                    int exponent = global - 8 * granule.subblockGain[window] - shift * shortFactors[band * 3 + window];
+                    line = requantizeLines(values, samples, line, Math.min(line + width, count), exponent);
+                }
+            }
+        }
+        Arrays.fill(samples, Math.min(line, count), 576, 0);
+    }
+
+    private static int requantizeLines(int[] values, float[] samples, int from, int to, int exponent) {
+        float gain = Mp3Tables.POW2_QUARTER[Math.max(0, Math.min(exponent + Mp3Tables.QUARTER_BIAS, Mp3Tables.POW2_QUARTER.length - 1))];
+        for (int i = from; i < to; i++) {
+            int value = values[i];
+            if (value == 0) {
+                samples[i] = 0;
+            } else if (value > 0) {
+                samples[i] = Mp3Tables.POW43[value] * gain;
+            } else {
+                samples[i] = -Mp3Tables.POW43[-value] * gain;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Joint stereo: intensity stereo above the last nonzero line of right channel, mid/side below it.
+     */
+    private void stereo(Mp3FrameHeader header, Granule right) {
+        float[] left = xr[0];
+        float[] side = xr[1];
+        boolean midSide = (header.modeExtension & 2) != 0;
+        boolean intensity = (header.modeExtension & 1) != 0;
+        int limit = Math.max(nonZero[0], nonZero[1]);
+
+        if (intensity) {
+            Arrays.fill(intensityLines, false);
+            markIntensity(header, right);
+            for (int i = 0; i < 576; i++) {
+                if (intensityLines[i]) {
+                    float value = left[i];
+                    left[i] = value * intensityLeft[i];
+                    side[i] = value * intensityRight[i];
+                } else if (midSide && i < limit) {
+                    float mid = left[i];
+                    float difference = side[i];
+                    left[i] = (mid + difference) * SQRT_HALF;
+                    side[i] = (mid - difference) * SQRT_HALF;
+                }
+            }
+            nonZero[0] = nonZero[1] = 576;
+            return;
+        }
+        for (int i = 0; i < limit; i++) {
+            float mid = left[i];
+            float difference = side[i];
+            left[i] = (mid + difference) * SQRT_HALF;
+            side[i] = (mid - difference) * SQRT_HALF;
+        }
+        nonZero[0] = nonZero[1] = limit;
+    }
+
+    /**
+     * Finds intensity coded bands of right channel and their factors.
+     */
+    private void markIntensity(Mp3FrameHeader header, Granule right) {
+        int[] values = quantized[1];
+        int[] longBands = LONG_BANDS[header.sampleRateIndex];
+        int[] shortBands = SHORT_BANDS[header.sampleRateIndex];
+        int[] longFactors = scalefacLong[1];
+        int[] shortFactors = scalefacShort[1];
+
+        int longEnd = 22;
+        if (right.isShort()) {
+            int firstShort = right.mixed ? 3 : 0;
+            boolean shortEmpty = true;
+            for (int window = 0; window < 3; window++) {
+                int last = firstShort - 1;
+                for (int band = firstShort; band < 13; band++) {
+                    int width = shortBands[band + 1] - shortBands[band];
+                    int start = shortBands[band] * 3 + window * width;
+                    if (anyNonZero(values, start, start + width)) last = band;
+                }
+                shortEmpty &= last < firstShort;
+                for (int band = last + 1; band < 13; band++) {
+                    int width = shortBands[band + 1] - shortBands[band];
+                    int start = shortBands[band] * 3 + window * width;
+                    int source = Math.min(band, 11);
+                    int position = shortFactors[source * 3 + window];
+                    setIntensity(header, start, start + width, position, header.isLsf() && position == maxShort[source]);
+                }
+            }
+            if (!right.mixed || !shortEmpty) return;
+            longEnd = header.isLsf() ? 6 : 8;
+        }
+
+        int last = -1;
+        for (int band = longEnd - 1; band >= 0 && last < 0; band--) {
+            if (anyNonZero(values, longBands[band], longBands[band + 1])) last = band;
+        }
+        for (int band = last + 1; band < longEnd; band++) {
+            int source = Math.min(band, 20);
+            int position = longFactors[source];
+            setIntensity(header, longBands[band], longBands[band + 1], position, header.isLsf() && position == maxLong[source]);
+        }
+    }
+
+    private void setIntensity(Mp3FrameHeader header, int from, int to, int position, boolean illegal) {
+        float leftFactor;
+        float rightFactor;
+        if (!header.isLsf()) {
+            if (position >= 7) return;
+            leftFactor = INTENSITY[position][0];
+            rightFactor = INTENSITY[position][1];
+        } else {
+            if (illegal) return;
+            // MPEG-2: позиция задаёт степень io, нечётные ослабляют левый канал, чётные - правый
+            double io = intensityScale == 1 ? SQRT_HALF : Math.pow(2, -0.25);
+            leftFactor = (position & 1) == 1 ? (float) Math.pow(io, (position + 1) / 2) : 1;
+            rightFactor = (position & 1) == 0 ? (float) Math.pow(io, position / 2) : 1;
+        }
+        for (int i = from; i < to; i++) {
+            intensityLines[i] = true;
+            intensityLeft[i] = leftFactor;
+            intensityRight[i] = rightFactor;
+        }
+    }
+
+    private static boolean anyNonZero(int[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (values[i] != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Short blocks are coded window by window in every band; IMDCT needs them interleaved by subband.
+     */
+    private void reorder(Mp3FrameHeader header, int ch, Granule granule) {
+        if (!granule.isShort()) return;
+        float[] samples = xr[ch];
+        int[] shortBands = SHORT_BANDS[header.sampleRateIndex];
+        int firstBand = granule.mixed ? 3 : 0;
+        for (int band = firstBand; band < 13; band++) {
+            int width = shortBands[band + 1] - shortBands[band];
+            int start = shortBands[band] * 3;
+            for (int window = 0; window < 3; window++) {
+                for (int i = 0; i < width; i++) {
+                    reorder[start + 3 * i + window] = samples[start + window * width + i];
+                }
+            }
+        }
+        int from = shortBands[firstBand] * 3;
+        System.arraycopy(reorder, from, samples, from, 576 - from);
+        nonZero[ch] = 576;
+    }
+
+    private void antialias(int ch, Granule granule) {
+        if (granule.isShort() && !granule.mixed) return;
+        float[] samples = xr[ch];
+        int limit = granule.isShort() ? 1 : 31;
+        for (int sb = 1; sb <= limit && 18 * sb - 8 < nonZero[ch]; sb++) {
+            for (int i = 0; i < 8; i++) {
+                int low = 18 * sb - 1 - i;
+                int high = 18 * sb + i;
+                float a = samples[low];
+                float b = samples[high];
+                samples[low] = a * ALIAS_CS[i] - b * ALIAS_CA[i];
+                samples[high] = b * ALIAS_CS[i] + a * ALIAS_CA[i];
+            }
+        }
+    }
+
+    /**
+     * IMDCT of every subband, overlap with the previous granule and frequency inversion.
+     */
+    private void hybrid(int ch, Granule granule) {
+        float[] samples = xr[ch];
+        float[] previous = overlap[ch];
+        float[] output = slots[ch];
+        int active = Math.min(32, (nonZero[ch] + 8 + 17) / 18);
+        for (int sb = 0; sb < 32; sb++) {
+            int base = sb * 18;
+            if (sb >= active) {
+                // Нулевой спектр: выход - только хвост предыдущей гранулы
+                for (int s = 0; s < 18; s++) {
+                    float value = previous[base + s];
+                    previous[base + s] = 0;
+                    output[s * 32 + sb] = (sb & s & 1) == 1 ? -value : value;
+                }
+                continue;
+            }
+            int type = granule.windowSwitching && !(granule.mixed && sb < 2) ? granule.blockType : 0;
+            if (type == 2) {
+                imdctShort(samples, base);
+            } else {
+                imdctLong(samples, base, WINDOWS[type]);
+            }
+            for (int s = 0; s < 18; s++) {
+                float value = block[s] + previous[base + s];
+                previous[base + s] = block[s + 18];
+                output[s * 32 + sb] = (sb & s & 1) == 1 ? -value : value;
+            }
+        }
+    }
+
+    private void imdctLong(float[] samples, int from, float[] window) {
+        for (int i = 0; i < 36; i++) {
+            float sum = 0;
+            int row = i * 18;
+            for (int k = 0; k < 18; k++) {
+                sum += samples[from + k] * COS_LONG[row + k];
+            }
+            block[i] = sum * window[i];
+        }
+    }
+
+    private void imdctShort(float[] samples, int from) {
+        Arrays.fill(block, 0);
+        for (int window = 0; window < 3; window++) {
+            for (int i = 0; i < 12; i++) {
+                float sum = 0;
+                int row = i * 6;
+                for (int k = 0; k < 6; k++) {
+                    sum += samples[from + 3 * k + window] * COS_SHORT[row + k];
+                }
+                block[6 + 6 * window + i] += sum * SHORT_WINDOW[i];
+            }
+        }
+    }
+
+    private void synthesize(int gr, int frameChannels, float[] out, int channels) {
+        for (int s = 0; s < 18; s++) {
+            int index = (gr * 18 + s) * 32 * channels;
+            if (frameChannels == channels) {
+                for (int ch = 0; ch < channels; ch++) {
+                    synthesis[ch].synthesize(slots[ch], s * 32, out, index + ch, channels);
+                }
+            } else if (frameChannels == 1) {
+                synthesis[0].synthesize(slots[0], s * 32, out, index, channels);
+                for (int j = 0; j < 32; j++) {
+                    out[index + j * channels + 1] = out[index + j * channels];
+                }
+            } else {
+                synthesis[0].synthesize(slots[0], s * 32, out, index, 1);
+                synthesis[1].synthesize(slots[1], s * 32, mix, 0, 1);
+                for (int j = 0; j < 32; j++) {
+                    out[index + j] = (out[index + j] + mix[j]) * 0.5f;
+                }
+            }
+        }
+    }
+
+    /**
+     * Side info of one granule of one channel.
+     */
+    private static final class Granule {
+        int part23Length;
+        int bigValues;
+        int globalGain;
+        int scalefacCompress;
+        boolean windowSwitching;
+        int blockType;
+        boolean mixed;
+        final int[] tableSelect = new int[3];
+        final int[] subblockGain = new int[3];
+        int region0Count;
+        int region1Count;
+        boolean preflag;
+        int scalefacScale;
+        int count1Table;
+
+        boolean isShort() {
+            return windowSwitching && blockType == 2;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.plovdev.audioengine.loaders.mp3;
+
+/**
+ * Parsed 4-byte header of MPEG audio Layer III frame.
+ * MPEG-1, MPEG-2 and MPEG-2.5 (low sampling frequencies) are supported, free format bitrate isn't.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class Mp3FrameHeader {
+    static final int MPEG25 = 0;
+    static final int MPEG2 = 2;
+    static final int MPEG1 = 3;
+
+    static final int JOINT_STEREO = 1;
+    static final int MONO = 3;
+
+    /**
+     * Biggest possible frame: 320 kbps at 32 kHz, with padding.
+     */
+    static final int MAX_FRAME_SIZE = 1441;
+
+    private static final int[][] BITRATES = {
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},     // MPEG-2, 2.5
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320}, // MPEG-1
+    };
+    private static final int[][] SAMPLE_RATES = {
+            {11025, 12000, 8000},  // MPEG-2.5
+            null,
+            {22050, 24000, 16000}, // MPEG-2
+            {44100, 48000, 32000}, // MPEG-1
+    };
+
+    final int version;
+    final boolean crc;
+    final int bitrate; // kbps
+    final int sampleRate;
+    final int sampleRateIndex; // 0..8, for scalefactor band tables
+    final boolean padding;
+    final int mode;
+    final int modeExtension;
+
+    private Mp3FrameHeader(int version, boolean crc, int bitrate, int sampleRate, int sampleRateIndex, boolean padding, int mode, int modeExtension) {
+        this.version = version;
+        this.crc = crc;
+        this.bitrate = bitrate;
+        this.sampleRate = sampleRate;
+        this.sampleRateIndex = sampleRateIndex;
+        this.padding = padding;
+        this.mode = mode;
+        this.modeExtension = modeExtension;
+    }
+
+    /**
+     * @param bits big-endian header
+     * @return header, or null if bits aren't valid Layer III header
+     */
+    static Mp3FrameHeader parse(int bits) {
+        if ((bits >>> 21) != 0x7FF) return null;
+        int version = (bits >>> 19) & 3;
+        int layer = (bits >>> 17) & 3;
+        int bitrateIndex = (bits >>> 12) & 15;
+        int rateIndex = (bits >>> 10) & 3;
+        if (version == 1 || layer != 1 || bitrateIndex == 0 || bitrateIndex == 15 || rateIndex == 3) {
+            return null;
+        }
+        int bitrate = BITRATES[version == MPEG1 ? 1 : 0][bitrateIndex];
+        int sampleRateIndex = switch (version) {
+            case MPEG1 -> rateIndex;
+            case MPEG2 -> 3 + rateIndex;
+            default -> 6 + rateIndex;
+        };
+        return new Mp3FrameHeader(version, ((bits >>> 16) & 1) == 0, bitrate, SAMPLE_RATES[version][rateIndex],
+                sampleRateIndex, ((bits >>> 9) & 1) != 0, (bits >>> 6) & 3, (bits >>> 4) & 3);
+    }
+
+    /**
+     * @return true, if other frame belongs to the same stream
+     */
+    boolean matches(Mp3FrameHeader other) {
+        return other.version == version && other.sampleRate == sampleRate;
+    }
+
+    boolean isLsf() {
+        return version != MPEG1;
+    }
+
+    int granules() {
+        return isLsf() ? 1 : 2;
+    }
+
+    int samplesPerFrame() {
+        return granules() * 576;
+    }
+
+    int channels() {
+        return mode == MONO ? 1 : 2;
+    }
+
+    /**
+     * @return whole frame size in bytes, with header
+     */
+    int frameSize() {
+        return (isLsf() ? 72000 : 144000) * bitrate / sampleRate + (padding ? 1 : 0);
+    }
+
+    /**
+     * @return offset of side info in frame
+     */
+    int sideInfoOffset() {
+        return crc ? 6 : 4;
+    }
+
+    int sideInfoSize() {
+        if (isLsf()) {
+            return mode == MONO ? 9 : 17;
+        }
+        return mode == MONO ? 17 : 32;
+    }
+
+    /**
+     * @return offset of main data in frame
+     */
+    int mainDataOffset() {
+        return sideInfoOffset() + sideInfoSize();
+    }
+}
@@ -0,0 +1,86 @@
+package org.plovdev.audioengine.loaders.mp3;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Offsets of all frames of MP3 file, built by one scan of frame headers.
+ * <p>
+ * Index keeps distances between frames as chars and absolute offset of every {@value #BLOCK}th frame,
+ * so it takes about 2 bytes per frame (200 KB for 10 hours of audio) and still gives
+ * the exact offset of any frame, also in VBR files and files with garbage between frames.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class Mp3FrameIndex {
+    private static final int BLOCK = 64;
+
+    private char[] deltas = new char[1024]; // distance from the previous frame, 0 for block starts
+    private long[] blocks = new long[16];
+    private final Map<Integer, Long> jumps = new HashMap<>(); // frames after long garbage
+    private int count;
+    private long lastOffset;
+    private long totalBytes;
+
+    private void add(long offset, int size) {
+        if (count == deltas.length) {
+            deltas = Arrays.copyOf(deltas, count * 2);
+        }
+        if (count % BLOCK == 0) {
+            if (count / BLOCK == blocks.length) {
+                blocks = Arrays.copyOf(blocks, blocks.length * 2);
+            }
+            blocks[count / BLOCK] = offset;
+        } else if (offset - lastOffset <= Character.MAX_VALUE) {
+            deltas[count] = (char) (offset - lastOffset);
+        } else {
+            jumps.put(count, offset);
+        }
+        lastOffset = offset;
+        count++;
+        totalBytes += size;
+    }
+
+    /**
+     * Reads all frame headers from the reader position.
+     *
+     * @param reader reader at the first audio frame
+     * @param reference header of the first frame
+     * @return index of frames
+     */
+    static Mp3FrameIndex scan(Mp3FrameReader reader, Mp3FrameHeader reference) throws IOException {
+        Mp3FrameIndex index = new Mp3FrameIndex();
+        Mp3FrameHeader header;
+        while ((header = reader.sync(reference)) != null) {
+            index.add(reader.position(), header.frameSize());
+            reader.skip(header.frameSize());
+        }
+        return index;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * @return stream offset of frame
+     */
+    long offset(int frame) {
+        long offset = blocks[frame / BLOCK];
+        for (int i = frame - frame % BLOCK + 1; i <= frame; i++) {
+            offset = deltas[i] == 0 ? jumps.get(i) : offset + deltas[i];
+        }
+        return offset;
+    }
+
+    /**
+     * @return size of all frames, for average bitrate
+     */
+    long totalBytes() {
+        return totalBytes;
+    }
+}
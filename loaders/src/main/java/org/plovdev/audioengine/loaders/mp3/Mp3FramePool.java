@@ -0,0 +1,33 @@
+package org.plovdev.audioengine.loaders.mp3;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Shared pool of float buffers for decoded frames. Every buffer holds the biggest frame:
+ * 1152 stereo samples. Sources take a buffer when opened and return it when closed,
+ * so players, which open and close many tracks, don't allocate new buffers.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class Mp3FramePool {
+    static final int BUFFER_SIZE = 1152 * 2;
+    private static final int MAX_POOLED = 32;
+    private static final ArrayBlockingQueue<float[]> POOL = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    private Mp3FramePool() {}
+
+    static float[] acquire() {
+        float[] buffer = POOL.poll();
+        return buffer != null ? buffer : new float[BUFFER_SIZE];
+    }
+
+    /**
+     * Returns buffer to pool. Extra buffers are left to garbage collector.
+     */
+    static void release(float[] buffer) {
+        if (buffer != null) {
+            POOL.offer(buffer);
+        }
+    }
+}
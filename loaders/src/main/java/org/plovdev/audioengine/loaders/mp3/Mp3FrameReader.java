@@ -0,0 +1,167 @@
+package org.plovdev.audioengine.loaders.mp3;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Buffered reader of MPEG audio frames. Finds frame headers, skipping tags and garbage between frames.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class Mp3FrameReader {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).flip();
+    private long bufferOffset; // stream offset of the buffer start
+    private boolean endOfStream;
+
+    Mp3FrameReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    boolean isSeekable() {
+        return channel instanceof SeekableByteChannel;
+    }
+
+    long size() throws IOException {
+        return ((SeekableByteChannel) channel).size();
+    }
+
+    /**
+     * @return stream offset of the next byte
+     */
+    long position() {
+        return bufferOffset + buffer.position();
+    }
+
+    void seek(long offset) throws IOException {
+        if (offset >= bufferOffset && offset <= bufferOffset + buffer.limit()) {
+            buffer.position((int) (offset - bufferOffset));
+            return;
+        }
+        ((SeekableByteChannel) channel).position(offset);
+        buffer.clear().flip();
+        bufferOffset = offset;
+        endOfStream = false;
+    }
+
+    /**
+     * Skips leading ID3v2 tag.
+     *
+     * @return tag with its 10-byte header, or null if there is no tag
+     */
+    byte[] readId3v2() throws IOException {
+        if (!fill(10) || buffer.get(buffer.position()) != 'I' || buffer.get(buffer.position() + 1) != 'D'
+                || buffer.get(buffer.position() + 2) != '3') {
+            return null;
+        }
+        int flags = buffer.get(buffer.position() + 5);
+        int size = 0;
+        for (int i = 6; i < 10; i++) {
+            size = (size << 7) | (buffer.get(buffer.position() + i) & 0x7F);
+        }
+        size += 10 + ((flags & 0x10) != 0 ? 10 : 0);
+        byte[] tag = new byte[size];
+        int read = read(tag, size);
+        return read == size ? tag : null;
+    }
+
+    /**
+     * Finds the next frame. Reader is left at the frame header.
+     *
+     * @param reference header of stream, or null to find the first frame; without reference,
+     *                  frame is accepted only if the next frame follows it
+     * @return header, or null if there are no more whole frames
+     */
+    Mp3FrameHeader sync(Mp3FrameHeader reference) throws IOException {
+        while (fill(4)) {
+            int position = buffer.position();
+            Mp3FrameHeader header = Mp3FrameHeader.parse(buffer.getInt(position));
+            if (header != null && (reference == null || reference.matches(header))) {
+                int size = header.frameSize();
+                if (!fill(size)) {
+                    return null; // обрезанный последний кадр
+                }
+                if (reference != null) {
+                    return header;
+                }
+                if (!fill(size + 4)) {
+                    return header;
+                }
+                Mp3FrameHeader next = Mp3FrameHeader.parse(buffer.getInt(buffer.position() + size));
+                if (next != null && header.matches(next)) {
+                    return header;
+                }
+            }
+            buffer.position(buffer.position() + 1);
+        }
+        return null;
+    }
+
+    /**
+     * Reads bytes, up to the end of stream.
+     *
+     * @return read bytes count
+     */
+    int read(byte[] dst, int length) throws IOException {
+        int done = 0;
+        while (done < length) {
+            if (!buffer.hasRemaining() && !fill(1)) break;
+            int count = Math.min(length - done, buffer.remaining());
+            buffer.get(dst, done, count);
+            done += count;
+        }
+        return done;
+    }
+
+    /**
+     * Copies bytes without consuming them. Count must fit the buffer.
+     *
+     * @return copied bytes count
+     */
+    int peek(byte[] dst, int length) throws IOException {
+        fill(length);
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(buffer.position(), dst, 0, count);
+        return count;
+    }
+
+    void skip(int count) throws IOException {
+        if (count <= buffer.remaining()) {
+            buffer.position(buffer.position() + count);
+        } else if (isSeekable()) {
+            seek(position() + count);
+        } else {
+            int left = count - buffer.remaining();
+            buffer.position(buffer.limit());
+            while (left > 0 && fill(1)) {
+                int step = Math.min(left, buffer.remaining());
+                buffer.position(buffer.position() + step);
+                left -= step;
+            }
+        }
+    }
+
+    /**
+     * Reads stream, until buffer has count bytes after position.
+     *
+     * @return false, if stream ends earlier
+     */
+    private boolean fill(int count) throws IOException {
+        if (buffer.remaining() >= count) return true;
+        if (endOfStream) return false;
+        bufferOffset += buffer.position();
+        buffer.compact();
+        while (buffer.position() < count) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                endOfStream = true;
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= count;
+    }
+}
@@ -0,0 +1,94 @@
+package org.plovdev.audioengine.loaders.mp3;
+
+import java.util.Arrays;
+
+/**
+ * Polyphase synthesis filterbank of one channel: turns 32 subband samples into 32 PCM samples.
+ * <p>
+ * Matrixing and window tables are shared by all decoders, every channel keeps only
+ * its 1024 values of V vector, used as a ring.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class Mp3Synthesis {
+    /**
+     * First half of synthesis window D, scaled by 2^16. The second half mirrors it,
+     * with inverted sign outside the multiples of 64.
+     */
+    private static final int[] WINDOW_HALF = {
+            0, -1, -1, -1, -1, -1, -1, -2, -2, -2, -2, -3, -3, -4, -4, -5,
+            -5, -6, -7, -7, -8, -9, -10, -11, -13, -14, -16, -17, -19, -21, -24, -26,
+            -29, -31, -35, -38, -41, -45, -49, -53, -58, -63, -68, -73, -79, -85, -91, -97,
+            -104, -111, -117, -125, -132, -139, -147, -154, -161, -169, -176, -183, -190, -196, -202, -208,
+            213, 218, 222, 225, 227, 228, 228, 227, 224, 221, 215, 208, 200, 189, 177, 163,
+            146, 127, 106, 83, 57, 29, -2, -36, -72, -111, -153, -197, -244, -294, -347, -401,
+            -459, -519, -581, -645, -711, -779, -848, -919, -991, -1064, -1137, -1210, -1283, -1356, -1428, -1498,
+            -1567, -1634, -1698, -1759, -1817, -1870, -1919, -1962, -2001, -2032, -2057, -2075, -2085, -2087, -2080, -2063,
+            2037, 2000, 1952, 1893, 1822, 1739, 1644, 1535, 1414, 1280, 1131, 970, 794, 605, 402, 185,
+            -45, -288, -545, -814, -1095, -1388, -1692, -2006, -2330, -2663, -3004, -3351, -3705, -4063, -4425, -4788,
+            -5153, -5517, -5879, -6237, -6589, -6935, -7271, -7597, -7910, -8209, -8491, -8755, -8998, -9219, -9416, -9585,
+            -9727, -9838, -9916, -9959, -9966, -9935, -9863, -9750, -9592, -9389, -9139, -8840, -8492, -8092, -7640, -7134,
+            6574, 5959, 5288, 4561, 3776, 2935, 2037, 1082, 70, -998, -2122, -3300, -4533, -5818, -7154, -8540,
+            -9975, -11455, -12980, -14548, -16155, -17799, -19478, -21189, -22929, -24694, -26482, -28289, -30112, -31947, -33791, -35640,
+            -37489, -39336, -41176, -43006, -44821, -46617, -48390, -50137, -51853, -53534, -55178, -56778, -58333, -59838, -61289, -62684,
+            -64019, -65290, -66494, -67629, -68692, -69679, -70590, -71420, -72169, -72835, -73415, -73908, -74313, -74630, -74856, -74992,
+            75038
+    };
+
+    private static final float[] WINDOW = new float[512];
+    private static final float[] MATRIX = new float[64 * 32];
+
+    static {
+        for (int i = 0; i <= 256; i++) {
+            WINDOW[i] = WINDOW_HALF[i] / 65536f;
+        }
+        for (int i = 257; i < 512; i++) {
+            float mirrored = WINDOW[512 - i];
+            WINDOW[i] = i % 64 == 0 ? mirrored : -mirrored;
+        }
+        for (int i = 0; i < 64; i++) {
+            for (int k = 0; k < 32; k++) {
+                MATRIX[i * 32 + k] = (float) Math.cos((16 + i) * (2 * k + 1) * Math.PI / 64);
+            }
+        }
+    }
+
+    private final float[] v = new float[1024];
+    private int offset;
+
+    void reset() {
+        Arrays.fill(v, 0);
+        offset = 0;
+    }
+
+    /**
+     * Filters one time slot.
+     *
+     * @param samples subband samples
+     * @param from index of the first of 32 subband samples
+     * @param out target samples
+     * @param outIndex index of the first PCM sample in out
+     * @param stride distance between PCM samples in out, channels count for interleaved output
+     */
+    void synthesize(float[] samples, int from, float[] out, int outIndex, int stride) {
+        offset = (offset - 64) & 1023;
+        for (int i = 0; i < 64; i++) {
+            float sum = 0;
+            int row = i * 32;
+            for (int k = 0; k < 32; k++) {
+                sum += MATRIX[row + k] * samples[from + k];
+            }
+            v[offset + i] = sum;
+        }
+        for (int j = 0; j < 32; j++) {
+            float sum = 0;
+            for (int i = 0; i < 8; i++) {
+                sum += v[(offset + 128 * i + j) & 1023] * WINDOW[64 * i + j];
+                sum += v[(offset + 128 * i + 96 + j) & 1023] * WINDOW[64 * i + 32 + j];
+            }
+            out[outIndex + j * stride] = sum;
+        }
+    }
+}
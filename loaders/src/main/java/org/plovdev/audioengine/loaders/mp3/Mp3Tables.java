@@ -0,0 +1,116 @@
+package org.plovdev.audioengine.loaders.mp3;
+
+/**
+ * Constant tables of Layer III decoding: scalefactor bands, scalefactor lengths and quantizer powers.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class Mp3Tables {
+    private Mp3Tables() {}
+
+    /**
+     * Widths of long block bands by sample rate index (44.1, 48, 32, 22.05, 24, 16, 11.025, 12, 8 kHz).
+     */
+    private static final int[][] LONG_WIDTHS = {
+            {4, 4, 4, 4, 4, 4, 6, 6, 8, 8, 10, 12, 16, 20, 24, 28, 34, 42, 50, 54, 76, 158},
+            {4, 4, 4, 4, 4, 4, 6, 6, 6, 8, 10, 12, 16, 18, 22, 28, 34, 40, 46, 54, 54, 192},
+            {4, 4, 4, 4, 4, 4, 6, 6, 8, 10, 12, 16, 20, 24, 30, 38, 46, 56, 68, 84, 102, 26},
+            {6, 6, 6, 6, 6, 6, 8, 10, 12, 14, 16, 20, 24, 28, 32, 38, 46, 52, 60, 68, 58, 54},
+            {6, 6, 6, 6, 6, 6, 8, 10, 12, 14, 16, 18, 22, 26, 32, 38, 46, 54, 62, 70, 76, 36},
+            {6, 6, 6, 6, 6, 6, 8, 10, 12, 14, 16, 20, 24, 28, 32, 38, 46, 52, 60, 68, 58, 54},
+            {6, 6, 6, 6, 6, 6, 8, 10, 12, 14, 16, 20, 24, 28, 32, 38, 46, 52, 60, 68, 58, 54},
+            {6, 6, 6, 6, 6, 6, 8, 10, 12, 14, 16, 20, 24, 28, 32, 38, 46, 52, 60, 68, 58, 54},
+            {12, 12, 12, 12, 12, 12, 16, 20, 24, 28, 32, 40, 48, 56, 64, 76, 90, 2, 2, 2, 2, 2},
+    };
+
+    /**
+     * Widths of short block bands, for one window.
+     */
+    private static final int[][] SHORT_WIDTHS = {
+            {4, 4, 4, 4, 6, 8, 10, 12, 14, 18, 22, 30, 56},
+            {4, 4, 4, 4, 6, 6, 10, 12, 14, 16, 20, 26, 66},
+            {4, 4, 4, 4, 6, 8, 12, 16, 20, 26, 34, 42, 12},
+            {4, 4, 4, 6, 6, 8, 10, 14, 18, 26, 32, 42, 18},
+            {4, 4, 4, 6, 8, 10, 12, 14, 18, 24, 32, 44, 12},
+            {4, 4, 4, 6, 8, 10, 12, 14, 18, 24, 30, 40, 18},
+            {4, 4, 4, 6, 8, 10, 12, 14, 18, 24, 30, 40, 18},
+            {4, 4, 4, 6, 8, 10, 12, 14, 18, 24, 30, 40, 18},
+            {8, 8, 8, 12, 16, 20, 24, 28, 36, 2, 2, 2, 26},
+    };
+
+    /**
+     * First line of every long band and the end (576), by sample rate index.
+     */
+    static final int[][] LONG_BANDS = starts(LONG_WIDTHS);
+
+    /**
+     * First line of every short band of one window and the end (192), by sample rate index.
+     */
+    static final int[][] SHORT_BANDS = starts(SHORT_WIDTHS);
+
+    /**
+     * Pre-emphasis of long bands, added to scalefactors when preflag is set.
+     */
+    static final int[] PRETAB = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 3, 3, 3, 2, 0};
+
+    /**
+     * MPEG-1 scalefactor lengths (slen1, slen2) by scalefac_compress.
+     */
+    static final int[][] SLEN = {
+            {0, 0, 0, 0, 3, 1, 1, 1, 2, 2, 2, 3, 3, 3, 4, 4},
+            {0, 1, 2, 3, 0, 1, 2, 3, 1, 2, 3, 1, 2, 3, 2, 3},
+    };
+
+    /**
+     * MPEG-2 scalefactors count of four parts: [compress table][long, short, mixed][part].
+     */
+    static final int[][][] LSF_PARTS = {
+            {{6, 5, 5, 5}, {9, 9, 9, 9}, {6, 9, 9, 9}},
+            {{6, 5, 7, 3}, {9, 9, 12, 6}, {6, 9, 12, 6}},
+            {{11, 10, 0, 0}, {18, 18, 0, 0}, {15, 18, 0, 0}},
+            {{7, 7, 7, 0}, {12, 12, 12, 0}, {6, 15, 12, 0}},
+            {{6, 6, 6, 3}, {12, 9, 9, 6}, {6, 12, 9, 6}},
+            {{8, 8, 5, 0}, {15, 12, 9, 0}, {6, 18, 9, 0}},
+    };
+
+    /**
+     * Biggest quantized magnitude: 15 plus 13 linbits.
+     */
+    static final int MAX_QUANTIZED = 15 + (1 << 13) - 1;
+
+    /**
+     * {@code |x|^(4/3)} of quantized magnitudes.
+     */
+    static final float[] POW43 = new float[MAX_QUANTIZED + 1];
+
+    /**
+     * Offset of zero exponent in {@link #POW2_QUARTER}.
+     */
+    static final int QUARTER_BIAS = 512;
+
+    /**
+     * {@code 2^(q/4)} for q from -{@value #QUARTER_BIAS}.
+     */
+    static final float[] POW2_QUARTER = new float[QUARTER_BIAS + 64];
+
+    static {
+        for (int i = 0; i < POW43.length; i++) {
+            POW43[i] = (float) Math.pow(i, 4.0 / 3.0);
+        }
+        for (int i = 0; i < POW2_QUARTER.length; i++) {
+            POW2_QUARTER[i] = (float) Math.pow(2, (i - QUARTER_BIAS) / 4.0);
+        }
+    }
+
+    private static int[][] starts(int[][] widths) {
+        int[][] result = new int[widths.length][];
+        for (int i = 0; i < widths.length; i++) {
+            result[i] = new int[widths[i].length + 1];
+            for (int band = 0; band < widths[i].length; band++) {
+                result[i][band + 1] = result[i][band] + widths[i][band];
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,107 @@
+package org.plovdev.audioengine.loaders.mp3;
+
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reader of text frames of ID3v2.2 - ID3v2.4 tags.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class Mp3Tags {
+    private Mp3Tags() {}
+
+    /**
+     * @param tag whole tag, from "ID3" header
+     * @param metadata target metadata
+     */
+    static void read(byte[] tag, TrackMetadata metadata) {
+        try {
+            int version = tag[3];
+            int flags = tag[5];
+            int position = 10;
+            if ((flags & 0x40) != 0 && version >= 3) {
+                // Расширенный заголовок: в v2.4 размер включает себя
+                int size = version == 4 ? syncsafe(tag, position) : bigEndian(tag, position, 4) + 4;
+                position += size;
+            }
+            int idSize = version == 2 ? 3 : 4;
+            int headerSize = version == 2 ? 6 : 10;
+            while (position + headerSize <= tag.length && tag[position] != 0) {
+                String id = new String(tag, position, idSize, StandardCharsets.ISO_8859_1);
+                int size = version == 2 ? bigEndian(tag, position + 3, 3)
+                        : version == 4 ? syncsafe(tag, position + 4) : bigEndian(tag, position + 4, 4);
+                position += headerSize;
+                if (size <= 0 || position + size > tag.length) break;
+                if (id.charAt(0) == 'T') {
+                    apply(metadata, id, text(tag, position, size));
+                }
+                position += size;
+            }
+        } catch (RuntimeException e) {
+            // Broken tags don't prevent decoding
+        }
+    }
+
+    private static void apply(TrackMetadata metadata, String id, String value) {
+        switch (id) {
+            case "TIT2", "TT2" -> metadata.setTitle(value);
+            case "TPE1", "TP1" -> metadata.setArtist(value);
+            case "TALB", "TAL" -> metadata.setAlbum(value);
+            case "TCON", "TCO" -> metadata.setGenre(value);
+            case "TCOM", "TCM" -> metadata.setComposer(value);
+            case "TCOP", "TCR" -> metadata.setCopyright(value);
+            case "TPUB", "TPB" -> metadata.setPublisher(value);
+            case "TSRC", "TRC" -> metadata.setIsrc(value);
+            case "TENC", "TEN", "TSSE", "TSS" -> metadata.setEncoder(value);
+            case "TYER", "TYE", "TDRC" -> metadata.setYear(parseNumber(value));
+            case "TRCK", "TRK" -> metadata.setTrackNumber(parseNumber(value));
+            case "TPOS", "TPA" -> metadata.setDiscNumber(parseNumber(value));
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Decodes text frame body: encoding byte and text, up to the first terminator.
+     */
+    private static String text(byte[] tag, int offset, int size) {
+        Charset charset = switch (tag[offset]) {
+            case 1 -> StandardCharsets.UTF_16;
+            case 2 -> StandardCharsets.UTF_16BE;
+            case 3 -> StandardCharsets.UTF_8;
+            default -> StandardCharsets.ISO_8859_1;
+        };
+        String value = new String(tag, offset + 1, size - 1, charset);
+        int end = value.indexOf('\0');
+        return end >= 0 ? value.substring(0, end) : value;
+    }
+
+    /**
+     * Parses leading digits, like "2004" of "2004-05-01" or "3" of "3/12".
+     */
+    private static Integer parseNumber(String value) {
+        int end = 0;
+        while (end < value.length() && Character.isDigit(value.charAt(end))) end++;
+        return end == 0 ? null : Integer.parseInt(value.substring(0, Math.min(end, 9)));
+    }
+
+    private static int syncsafe(byte[] data, int offset) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 7) | (data[offset + i] & 0x7F);
+        }
+        return value;
+    }
+
+    private static int bigEndian(byte[] data, int offset, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
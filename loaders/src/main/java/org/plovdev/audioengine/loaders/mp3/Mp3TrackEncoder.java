@@ -0,0 +1,30 @@
+package org.plovdev.audioengine.loaders.mp3;
+
+import org.plovdev.audioengine.exceptions.UnsupportedTrackFormat;
+import org.plovdev.audioengine.loaders.TrackEncoder;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+/**
+ * MP3 encoder isn't implemented: tracks, which already hold MP3 stream, are returned as is.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class Mp3TrackEncoder implements TrackEncoder {
+    /**
+     * @throws UnsupportedTrackFormat if track isn't MP3 already
+     */
+    @Override
+    public Track encodeFromPCM(Track input) {
+        if (input.getFormat().audioCodec() == TrackFormat.AudioCodec.MP3) {
+            return input;
+        }
+        throw new UnsupportedTrackFormat("MP3 encoding isn't supported");
+    }
+
+    @Override
+    public Track encodeFromFormat(Track input, TrackFormat outFormat) {
+        return encodeFromPCM(input);
+    }
+}
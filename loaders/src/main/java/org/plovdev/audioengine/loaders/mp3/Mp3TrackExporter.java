@@ -0,0 +1,43 @@
+package org.plovdev.audioengine.loaders.mp3;
+
+import org.plovdev.audioengine.exceptions.TrackExportException;
+import org.plovdev.audioengine.loaders.TrackExporter;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes tracks, which hold raw MP3 stream, as is.
+ * MP3 encoder isn't implemented, so decoded samples can't be exported to MP3.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class Mp3TrackExporter implements TrackExporter {
+    @Override
+    public void save(Track track, OutputStream outputStream) {
+        save(track, Channels.newChannel(outputStream));
+    }
+
+    @Override
+    public void save(Track track, WritableByteChannel channel) {
+        if (track.getFormat().audioCodec() != TrackFormat.AudioCodec.MP3) {
+            throw new TrackExportException("MP3 encoding isn't supported, can't export " + track.getFormat().audioCodec() + " samples to MP3");
+        }
+        try {
+            for (ByteBuffer segment : track.getSegments()) {
+                ByteBuffer data = segment.duplicate();
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+        } catch (IOException e) {
+            throw new TrackExportException("Failed to export MP3: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.plovdev.audioengine.loaders.mp3;
+
+import org.plovdev.audioengine.loaders.*;
+
+public class Mp3TrackLoaderManager implements TrackLoaderManager {
+    private final Mp3TrackLoader loader;
+    private final Mp3TrackExporter exporter;
+    private final Mp3TrackEncoder encoder;
+    private final Mp3TrackDecoder decoder;
+
+    public Mp3TrackLoaderManager() {
+        loader = new Mp3TrackLoader();
+        exporter = new Mp3TrackExporter();
+        encoder = new Mp3TrackEncoder();
+        decoder = new Mp3TrackDecoder();
+    }
+
+    @Override
+    public Mp3TrackLoader getTrackLoader() {
+        return loader;
+    }
+
+    @Override
+    public Mp3TrackExporter getTrackExporter() {
+        return exporter;
+    }
+
+    @Override
+    public Mp3TrackEncoder getTrackEncoder() {
+        return encoder;
+    }
+
+    @Override
+    public Mp3TrackDecoder getTrackDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public void registerPathLocator(PathLocator locator) {
+        loader.addLocator(locator);
+    }
+
+    @Override
+    public void setLocatorIndex(LocatorIndex index) {
+        loader.setLocatorIndex(index);
+    }
+}
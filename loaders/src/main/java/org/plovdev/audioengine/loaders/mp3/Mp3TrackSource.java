@@ -0,0 +1,266 @@
+package org.plovdev.audioengine.loaders.mp3;
+
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.tracks.TrackSource;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming MP3 decoder. Frames are decoded one by one into 32-bit float frames, when read.
+ * <p>
+ * Seekable sources scan all frame headers once, when opened, into compact {@link Mp3FrameIndex},
+ * so seeking is exact also in VBR files. After seek a few previous frames are decoded again,
+ * to restore bit reservoir and filter states, so decoded samples are the same as without seek.
+ * </p>
+ * <p>
+ * Decoded frames are kept in buffer from shared pool, which is returned on {@link #close()}.
+ * Leading Xing/Info/VBRI frame isn't decoded; encoder delay and padding aren't trimmed.
+ * </p>
+ *
+ * @see Mp3TrackLoader#openSource(String)
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class Mp3TrackSource implements TrackSource {
+    private final Mp3FrameReader reader;
+    private final Mp3FrameDecoder decoder = new Mp3FrameDecoder();
+    private final Mp3FrameHeader first;
+    private final Mp3FrameIndex index; // null for not seekable streams
+    private final Closeable resource;
+    private final TrackFormat format;
+    private final TrackMetadata metadata = new TrackMetadata();
+    private final int channels;
+    private final int frameSize;
+    private final int samplesPerFrame;
+    private final byte[] frame = new byte[Mp3FrameHeader.MAX_FRAME_SIZE];
+    private final long frameLength;
+
+    private float[] output;
+    private int outputFrom;
+    private int outputEnd;
+    private int nextFrame; // index of the next decoded MP3 frame
+    private int skip; // samples to skip in the next decoded frame, after seek
+    private long position;
+    private boolean end;
+
+    /**
+     * @param channel source, positioned at stream start
+     * @param resource closed with source, may be null
+     * @param seekable true, if channel is {@link java.nio.channels.SeekableByteChannel} with known size
+     */
+    Mp3TrackSource(ReadableByteChannel channel, Closeable resource, boolean seekable) throws IOException {
+        this.reader = new Mp3FrameReader(channel);
+        this.resource = resource;
+        byte[] tag = reader.readId3v2();
+        if (tag != null) {
+            Mp3Tags.read(tag, metadata);
+        }
+        this.first = reader.sync(null);
+        if (first == null) {
+            throw new IOException("No MPEG Layer III frames found");
+        }
+        this.channels = first.channels();
+        this.samplesPerFrame = first.samplesPerFrame();
+        this.format = new TrackFormat("mp3", channels, 32, first.sampleRate, true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLOAT32);
+        this.frameSize = TrackFormatUtils.frameSize(format);
+
+        long headerFrames = readVbrHeader();
+        if (seekable && reader.isSeekable()) {
+            long dataOffset = reader.position();
+            this.index = Mp3FrameIndex.scan(reader, first);
+            reader.seek(dataOffset);
+            this.frameLength = (long) index.count() * samplesPerFrame;
+        } else {
+            this.index = null;
+            this.frameLength = headerFrames >= 0 ? headerFrames * samplesPerFrame : -1;
+        }
+        this.output = Mp3FramePool.acquire();
+
+        metadata.setSampleRate(first.sampleRate);
+        metadata.setChannels(channels);
+        metadata.setFileFormat("mp3");
+        metadata.setAudioCodec(TrackFormat.AudioCodec.MP3.name());
+        if (index != null && index.count() > 0) {
+            metadata.setBitrate((int) (index.totalBytes() * 8 * first.sampleRate / ((long) index.count() * samplesPerFrame)));
+        } else {
+            metadata.setBitrate(first.bitrate * 1000);
+        }
+        if (frameLength >= 0) {
+            metadata.setDuration(TrackFormatUtils.calculateDuration(format, frameLength));
+        }
+    }
+
+    /**
+     * Skips the first frame, if it's Xing/Info or VBRI header without audio.
+     *
+     * @return frames count from header, or -1 if unknown
+     */
+    private long readVbrHeader() throws IOException {
+        int size = first.frameSize();
+        int length = reader.peek(frame, size);
+        int xing = first.mainDataOffset();
+        if (length >= xing + 12 && (tagAt(xing, "Xing") || tagAt(xing, "Info"))) {
+            reader.skip(size);
+            int flags = intAt(xing + 4);
+            return (flags & 1) != 0 ? intAt(xing + 8) & 0xFFFFFFFFL : -1;
+        }
+        int vbri = first.sideInfoOffset() + 32;
+        if (length >= vbri + 18 && tagAt(vbri, "VBRI")) {
+            reader.skip(size);
+            return intAt(vbri + 14) & 0xFFFFFFFFL;
+        }
+        return -1;
+    }
+
+    private boolean tagAt(int offset, String tag) {
+        return new String(frame, offset, 4, StandardCharsets.ISO_8859_1).equals(tag);
+    }
+
+    private int intAt(int offset) {
+        return (frame[offset] & 0xFF) << 24 | (frame[offset + 1] & 0xFF) << 16 | (frame[offset + 2] & 0xFF) << 8 | (frame[offset + 3] & 0xFF);
+    }
+
+    @Override
+    public TrackFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    @Override
+    public long getFramePosition() {
+        return position;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws TrackLoadException {
+        if (output == null) {
+            throw new TrackLoadException("MP3 source is closed");
+        }
+        int frames = 0;
+        try {
+            while (dst.remaining() >= frameSize) {
+                if (outputFrom == outputEnd && !decodeNext()) {
+                    break;
+                }
+                int count = Math.min(outputEnd - outputFrom, dst.remaining() / frameSize);
+                dst.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(output, outputFrom * channels, count * channels);
+                dst.position(dst.position() + count * frameSize);
+                outputFrom += count;
+                frames += count;
+            }
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to decode MP3 frame: " + e.getMessage());
+        }
+        position += frames;
+        return frames == 0 && end ? -1 : frames;
+    }
+
+    /**
+     * Decodes the next frame into output buffer.
+     *
+     * @return false at the end of stream
+     */
+    private boolean decodeNext() throws IOException {
+        while (!end) {
+            Mp3FrameHeader header = readFrame();
+            if (header == null) {
+                end = true;
+                return false;
+            }
+            decoder.decode(frame, header.frameSize(), header, output, channels);
+            outputFrom = Math.min(skip, samplesPerFrame);
+            outputEnd = samplesPerFrame;
+            skip = 0;
+            if (outputFrom < outputEnd) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the next frame into frame buffer.
+     *
+     * @return header, or null at the end of stream
+     */
+    private Mp3FrameHeader readFrame() throws IOException {
+        if (index != null && nextFrame >= index.count()) {
+            return null;
+        }
+        Mp3FrameHeader header = reader.sync(first);
+        if (header == null) {
+            return null;
+        }
+        reader.read(frame, header.frameSize());
+        nextFrame++;
+        return header;
+    }
+
+    @Override
+    public boolean isSeekable() {
+        return index != null;
+    }
+
+    @Override
+    public synchronized void seek(long frame) throws TrackLoadException {
+        if (!isSeekable()) {
+            throw new UnsupportedOperationException("MP3 stream isn't seekable");
+        }
+        long target = Math.max(0, Math.min(frame, frameLength));
+        int targetFrame = (int) (target / samplesPerFrame);
+        try {
+            // Два кадра до цели нужны целиком: перекрытие IMDCT и синтез-фильтр,
+            // а ещё раньше - байты резервуара для них
+            int start = Math.max(0, targetFrame - 2);
+            int reservoirBytes = 0;
+            while (start > 0 && reservoirBytes < Mp3FrameDecoder.MAX_RESERVOIR) {
+                start--;
+                reservoirBytes += (int) (index.offset(start + 1) - index.offset(start)) - first.mainDataOffset();
+            }
+            decoder.reset();
+            outputFrom = outputEnd = 0;
+            end = false;
+            nextFrame = start;
+            if (start < index.count()) {
+                reader.seek(index.offset(start));
+            }
+            for (int i = start; i < targetFrame; i++) {
+                Mp3FrameHeader header = readFrame();
+                if (header == null) break;
+                decoder.decode(this.frame, header.frameSize(), header, output, channels);
+            }
+            skip = (int) (target - (long) targetFrame * samplesPerFrame);
+            position = target;
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to seek MP3 stream: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public TrackMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public synchronized void close() {
+        Mp3FramePool.release(output);
+        output = null;
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Ogg demuxer: reads pages of one logical stream and joins their segments into packets.
+ * <p>
+ * Pages with wrong CRC are skipped, reader resyncs on the next "OggS" capture pattern.
+ * Pages of other logical streams are ignored, so only the first stream of multiplexed
+ * files is read.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class OggPageReader {
+    static final int HEADER_SIZE = 27;
+    static final int MAX_PAGE_SIZE = HEADER_SIZE + 255 + 255 * 255;
+
+    private static final int FLAG_CONTINUED = 0x01;
+    private static final int FLAG_FIRST = 0x02;
+    private static final int FLAG_LAST = 0x04;
+    private static final int WINDOW_SIZE = 1 << 16;
+    private static final int[] CRC = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 24;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x80000000) != 0 ? (crc << 1) ^ 0x04C11DB7 : crc << 1;
+            }
+            CRC[i] = crc;
+        }
+    }
+
+    /**
+     * Packet buffer, reused between reads.
+     */
+    static final class Packet {
+        byte[] data = new byte[4096];
+        int length;
+        /**
+         * Granule position of page, if packet is the last one, which ends on it; otherwise -1.
+         */
+        long granule;
+        boolean last;
+    }
+
+    private final ReadableByteChannel channel;
+    private final byte[] window = new byte[WINDOW_SIZE + MAX_PAGE_SIZE];
+    private long windowBase; // stream position of window[0]
+    private int windowPosition;
+    private int windowLimit;
+    private boolean eof;
+
+    private final byte[] page = new byte[MAX_PAGE_SIZE];
+    private int serial;
+    private boolean serialKnown;
+    private long pageOffset = -1;
+    private int pageSize;
+    private int flags;
+    private long granule;
+    private int segments;
+    private int segment;
+    private int bodyPosition;
+    private int lastPacketSegment;
+
+    private boolean continuing;
+    private boolean skipContinued;
+    private boolean ended;
+
+    /**
+     * @param channel source, {@link SeekableByteChannel} for seekable reading
+     */
+    OggPageReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        if (channel instanceof SeekableByteChannel seekable) {
+            try {
+                windowBase = seekable.position();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    boolean isSeekable() {
+        return channel instanceof SeekableByteChannel;
+    }
+
+    long size() throws IOException {
+        return ((SeekableByteChannel) channel).size();
+    }
+
+    /**
+     * Reads next complete packet. Packets, which lost their pages, are dropped.
+     *
+     * @return false at the end of logical stream
+     */
+    boolean nextPacket(Packet packet) throws IOException {
+        packet.length = 0;
+        while (true) {
+            if (segment >= segments) {
+                if (ended || !nextPage()) {
+                    return false;
+                }
+                boolean continued = (flags & FLAG_CONTINUED) != 0;
+                if (continued && (!continuing || skipContinued)) {
+                    skipFragment();
+                } else if (!continued && continuing) {
+                    packet.length = 0; // потерян конец пакета
+                }
+                continuing = false;
+                skipContinued = false;
+                continue;
+            }
+
+            int size = page[HEADER_SIZE + segment] & 0xFF;
+            if (packet.data.length < packet.length + size) {
+                packet.data = Arrays.copyOf(packet.data, Math.max(packet.data.length * 2, packet.length + size));
+            }
+            System.arraycopy(page, bodyPosition, packet.data, packet.length, size);
+            packet.length += size;
+            bodyPosition += size;
+            segment++;
+
+            if (size < 255) {
+                boolean lastOnPage = segment - 1 == lastPacketSegment;
+                packet.granule = lastOnPage ? granule : -1;
+                packet.last = lastOnPage && (flags & FLAG_LAST) != 0;
+                if (packet.last) {
+                    ended = true;
+                }
+                return true;
+            }
+            continuing = segment >= segments;
+        }
+    }
+
+    /**
+     * Reads next page of logical stream, packets of it are returned by {@link #nextPacket(Packet)}.
+     *
+     * @return false at the end of source
+     */
+    boolean nextPage() throws IOException {
+        while (true) {
+            if (!syncPage()) {
+                return false;
+            }
+            int pageSerial = readInt(page, 14);
+            windowPosition += pageSize;
+            if (serialKnown && pageSerial != serial) {
+                continue;
+            }
+            if (!serialKnown) {
+                serial = pageSerial;
+                serialKnown = true;
+            }
+
+            flags = page[5] & 0xFF;
+            granule = readLong(page, 6);
+            segments = page[26] & 0xFF;
+            segment = 0;
+            bodyPosition = HEADER_SIZE + segments;
+            lastPacketSegment = -1;
+            for (int i = segments - 1; i >= 0; i--) {
+                if ((page[HEADER_SIZE + i] & 0xFF) < 255) {
+                    lastPacketSegment = i;
+                    break;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Moves reader to stream position. Packet, which continues from previous page, is skipped.
+     */
+    void seek(long position) throws IOException {
+        moveTo(position);
+        segment = segments = 0;
+        continuing = false;
+        skipContinued = true;
+        ended = false;
+    }
+
+    /**
+     * Finds the first page of logical stream with granule position, which starts in range.
+     * Reader should be {@link #seek(long) repositioned} before reading packets.
+     *
+     * @param from first stream position
+     * @param to last stream position, where page can start
+     * @return true, if page found, its offset, size and granule are available
+     */
+    boolean findPage(long from, long to) throws IOException {
+        moveTo(from);
+        while (syncPage() && pageOffset <= to) {
+            windowPosition += pageSize;
+            if (readInt(page, 14) == serial && readLong(page, 6) != -1) {
+                granule = readLong(page, 6);
+                flags = page[5] & 0xFF;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long getPageOffset() {
+        return pageOffset;
+    }
+
+    int getPageSize() {
+        return pageSize;
+    }
+
+    long getGranule() {
+        return granule;
+    }
+
+    boolean isFirstPage() {
+        return (flags & FLAG_FIRST) != 0;
+    }
+
+    private void moveTo(long position) throws IOException {
+        ((SeekableByteChannel) channel).position(position);
+        windowBase = position;
+        windowPosition = windowLimit = 0;
+        eof = false;
+    }
+
+    private void skipFragment() {
+        while (segment < segments) {
+            int size = page[HEADER_SIZE + segment++] & 0xFF;
+            bodyPosition += size;
+            if (size < 255) break;
+        }
+    }
+
+    /**
+     * Finds the next valid page at or after window position and copies it into page buffer.
+     * Window position is left at page start.
+     */
+    private boolean syncPage() throws IOException {
+        while (true) {
+            if (!fill(HEADER_SIZE)) {
+                return false;
+            }
+            if (window[windowPosition] != 'O' || window[windowPosition + 1] != 'g' || window[windowPosition + 2] != 'g'
+                    || window[windowPosition + 3] != 'S' || window[windowPosition + 4] != 0) {
+                windowPosition++;
+                continue;
+            }
+            int count = window[windowPosition + 26] & 0xFF;
+            if (!fill(HEADER_SIZE + count)) {
+                return false;
+            }
+            int size = HEADER_SIZE + count;
+            for (int i = 0; i < count; i++) {
+                size += window[windowPosition + HEADER_SIZE + i] & 0xFF;
+            }
+            if (!fill(size)) {
+                return false;
+            }
+
+            System.arraycopy(window, windowPosition, page, 0, size);
+            int expected = readInt(page, 22);
+            page[22] = page[23] = page[24] = page[25] = 0;
+            if (crc(page, size) != expected) {
+                windowPosition++; // ложный захват или повреждённая страница
+                continue;
+            }
+            pageOffset = windowBase + windowPosition;
+            pageSize = size;
+            return true;
+        }
+    }
+
+    /**
+     * Ensures, that window holds bytes from position.
+     *
+     * @return false, if source ends earlier
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (windowLimit - windowPosition >= bytes) {
+            return true;
+        }
+        if (windowPosition > 0) {
+            System.arraycopy(window, windowPosition, window, 0, windowLimit - windowPosition);
+            windowBase += windowPosition;
+            windowLimit -= windowPosition;
+            windowPosition = 0;
+        }
+        ByteBuffer target = ByteBuffer.wrap(window, windowLimit, window.length - windowLimit);
+        while (!eof && windowLimit < bytes) {
+            int read = channel.read(target);
+            if (read < 0) {
+                eof = true;
+            } else {
+                windowLimit += read;
+            }
+        }
+        return windowLimit >= bytes;
+    }
+
+    private static int crc(byte[] data, int length) {
+        int crc = 0;
+        for (int i = 0; i < length; i++) {
+            crc = (crc << 8) ^ CRC[((crc >>> 24) ^ data[i]) & 0xFF];
+        }
+        return crc;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8 | (data[offset + 2] & 0xFF) << 16 | (data[offset + 3] & 0xFF) << 24;
+    }
+
+    private static long readLong(byte[] data, int offset) {
+        return (readInt(data, offset) & 0xFFFFFFFFL) | (long) readInt(data, offset + 4) << 32;
+    }
+}
@@ -0,0 +1,91 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.exceptions.UnsupportedTrackFormat;
+import org.plovdev.audioengine.loaders.TrackDecoder;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+
+/**
+ * Decodes tracks, which hold raw Ogg Vorbis stream, into 32-bit float samples.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class OggTrackDecoder implements TrackDecoder {
+    /**
+     * @param input track with {@link TrackFormat.AudioCodec#VORBIS} stream, or already decoded samples
+     * @return track with float samples
+     */
+    @Override
+    public Track decodeToPCM(Track input) {
+        if (input.getFormat().audioCodec() != TrackFormat.AudioCodec.VORBIS) {
+            return input;
+        }
+        try (OggVorbisTrackSource source = new OggVorbisTrackSource(new SegmentChannel(input.getSegments()), null, false)) {
+            return source.readTrack();
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to decode Ogg Vorbis track: " + e);
+        }
+    }
+
+    /**
+     * @param input track with Ogg Vorbis stream or PCM
+     * @param outFormat target sample format, with the same channels and sample rate
+     * @return converted track
+     */
+    @Override
+    public Track decodeToFormat(Track input, TrackFormat outFormat) {
+        try {
+            Track pcm = decodeToPCM(input);
+            Track converted = SampleConverter.convert(pcm, outFormat);
+            if (pcm != input && converted != pcm) {
+                pcm.close();
+            }
+            return converted;
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedTrackFormat(e.getMessage());
+        }
+    }
+
+    /**
+     * Sequential channel over track segments.
+     */
+    private static final class SegmentChannel implements ReadableByteChannel {
+        private final List<ByteBuffer> segments;
+        private int index;
+        private ByteBuffer current;
+
+        SegmentChannel(List<ByteBuffer> segments) {
+            this.segments = segments;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            while (current == null || !current.hasRemaining()) {
+                if (index >= segments.size()) return -1;
+                current = segments.get(index++).duplicate();
+            }
+            int count = Math.min(dst.remaining(), current.remaining());
+            dst.put(dst.position(), current, current.position(), count);
+            dst.position(dst.position() + count);
+            current.position(current.position() + count);
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+import org.plovdev.audioengine.exceptions.UnsupportedTrackFormat;
+import org.plovdev.audioengine.loaders.TrackEncoder;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+/**
+ * Vorbis encoder isn't implemented: tracks, which already hold Ogg Vorbis stream, are returned as is.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class OggTrackEncoder implements TrackEncoder {
+    /**
+     * @throws UnsupportedTrackFormat if track isn't Ogg Vorbis already
+     */
+    @Override
+    public Track encodeFromPCM(Track input) {
+        if (input.getFormat().audioCodec() == TrackFormat.AudioCodec.VORBIS) {
+            return input;
+        }
+        throw new UnsupportedTrackFormat("Vorbis encoding isn't supported");
+    }
+
+    @Override
+    public Track encodeFromFormat(Track input, TrackFormat outFormat) {
+        return encodeFromPCM(input);
+    }
+}
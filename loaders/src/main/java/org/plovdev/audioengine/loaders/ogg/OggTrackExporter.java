@@ -0,0 +1,43 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+import org.plovdev.audioengine.exceptions.TrackExportException;
+import org.plovdev.audioengine.loaders.TrackExporter;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes tracks, which hold raw Ogg Vorbis stream, as is.
+ * Vorbis encoder isn't implemented, so decoded samples can't be exported to Ogg.
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class OggTrackExporter implements TrackExporter {
+    @Override
+    public void save(Track track, OutputStream outputStream) {
+        save(track, Channels.newChannel(outputStream));
+    }
+
+    @Override
+    public void save(Track track, WritableByteChannel channel) {
+        if (track.getFormat().audioCodec() != TrackFormat.AudioCodec.VORBIS) {
+            throw new TrackExportException("Vorbis encoding isn't supported, can't export " + track.getFormat().audioCodec() + " samples to Ogg");
+        }
+        try {
+            for (ByteBuffer segment : track.getSegments()) {
+                ByteBuffer data = segment.duplicate();
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+        } catch (IOException e) {
+            throw new TrackExportException("Failed to export Ogg: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.loaders.AudioSignature;
+import org.plovdev.audioengine.loaders.LoadListener;
+import org.plovdev.audioengine.loaders.LocatorIndex;
+import org.plovdev.audioengine.loaders.PathLocator;
+import org.plovdev.audioengine.loaders.TrackLoader;
+import org.plovdev.audioengine.loaders.TrackLoaderRegistry;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import static org.plovdev.audioengine.loaders.ExportUtils.getFile;
+
+/**
+ * Pure Java Ogg Vorbis loader. Tracks are decoded into 32-bit float samples.
+ * <p>
+ * Use {@link #openSource(String)} to decode while playing, without holding the whole PCM in memory.
+ * </p>
+ *
+ * @see OggVorbisTrackSource
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class OggTrackLoader implements TrackLoader {
+    private LocatorIndex locators = new LocatorIndex();
+    private LoadListener loadListener = null;
+
+    public void addLocator(PathLocator locator) {
+        locators.add(locator);
+    }
+
+    /**
+     * Replaces own index of locator roots by shared one,
+     * so roots are walked and watched once for all loaders.
+     *
+     * @param index shared index, closed by its owner
+     */
+    public void setLocatorIndex(LocatorIndex index) {
+        locators = index;
+    }
+
+    public LocatorIndex getLocatorIndex() {
+        return locators;
+    }
+
+    @Override
+    public Track loadTrack(String path) throws TrackLoadException {
+        try (OggVorbisTrackSource source = openSource(path)) {
+            return source.readTrack();
+        }
+    }
+
+    @Override
+    public Track loadTrack(InputStream stream) throws TrackLoadException {
+        return openSource(stream).readTrack();
+    }
+
+    @Override
+    public Track loadTrack(URI uri) throws TrackLoadException {
+        return switch (uri.getScheme()) {
+            case "file" -> loadTrack(uri.getPath());
+            case "https", "http" -> {
+                try (InputStream stream = uri.toURL().openStream()) {
+                    yield loadTrack(stream);
+                } catch (IOException e) {
+                    throw new TrackLoadException(e.getMessage());
+                }
+            }
+            default -> throw new TrackLoadException("Unsupported URI scheme: " + uri.getScheme());
+        };
+    }
+
+    /**
+     * Opens file for packet by packet decoding. Returned source is seekable.
+     */
+    @Override
+    public OggVorbisTrackSource openSource(String path) throws TrackLoadException {
+        File file = getFile(path, locators);
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            return new OggVorbisTrackSource(channel, channel, true);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new TrackLoadException("Failed to open Ogg file: " + path + " - " + e);
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Opens stream for packet by packet decoding. Returned source isn't seekable,
+     * and doesn't close stream.
+     */
+    public OggVorbisTrackSource openSource(InputStream stream) throws TrackLoadException {
+        try {
+            return new OggVorbisTrackSource(Channels.newChannel(stream), null, false);
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to read Ogg from stream: " + e);
+        }
+    }
+
+    @Override
+    public TrackMetadata readTrackMetadata(String src) {
+        try (OggVorbisTrackSource source = openSource(src)) {
+            return source.getMetadata();
+        }
+    }
+
+    @Override
+    public TrackMetadata readTrackMetadata(InputStream src) {
+        return openSource(src).getMetadata();
+    }
+
+    @Override
+    public TrackMetadata readTrackMetadata(URI src) {
+        return loadTrack(src).getMetaData();
+    }
+
+    @Override
+    public TrackFormat getTrackFormat(String src) {
+        try (OggVorbisTrackSource source = openSource(src)) {
+            return source.getFormat();
+        }
+    }
+
+    @Override
+    public TrackFormat getTrackFormat(InputStream src) {
+        return openSource(src).getFormat();
+    }
+
+    @Override
+    public TrackFormat getTrackFormat(URI src) {
+        return "file".equals(src.getScheme()) ? getTrackFormat(src.getPath()) : loadTrack(src).getFormat();
+    }
+
+    @Override
+    public boolean isSupported(String filename) {
+        if (filename == null) return false;
+        String lower = filename.toLowerCase().trim();
+        lower = lower.startsWith(".") ? lower : "." + lower;
+        return lower.endsWith(".ogg") || lower.endsWith(".oga");
+    }
+
+    @Override
+    public boolean isSupported(InputStream stream) {
+        if (stream == null || !stream.markSupported()) return false;
+        try {
+            byte[] header = new byte[AudioSignature.PEEK_SIZE];
+            int length = TrackLoaderRegistry.peek(stream, header);
+            return AudioSignature.OGG.matches(header, length);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isSupported(URI uri) {
+        return isSupported(uri.getPath());
+    }
+
+    @Override
+    public void setLoadListener(LoadListener listener) {
+        loadListener = listener;
+    }
+
+    @Override
+    public LoadListener getLoadListener() {
+        return loadListener;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+import org.plovdev.audioengine.loaders.*;
+
+public class OggTrackLoaderManager implements TrackLoaderManager {
+    private final OggTrackLoader loader;
+    private final OggTrackExporter exporter;
+    private final OggTrackEncoder encoder;
+    private final OggTrackDecoder decoder;
+
+    public OggTrackLoaderManager() {
+        loader = new OggTrackLoader();
+        exporter = new OggTrackExporter();
+        encoder = new OggTrackEncoder();
+        decoder = new OggTrackDecoder();
+    }
+
+    @Override
+    public OggTrackLoader getTrackLoader() {
+        return loader;
+    }
+
+    @Override
+    public OggTrackExporter getTrackExporter() {
+        return exporter;
+    }
+
+    @Override
+    public OggTrackEncoder getTrackEncoder() {
+        return encoder;
+    }
+
+    @Override
+    public OggTrackDecoder getTrackDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public void registerPathLocator(PathLocator locator) {
+        loader.addLocator(locator);
+    }
+
+    @Override
+    public void setLocatorIndex(LocatorIndex index) {
+        loader.setLocatorIndex(index);
+    }
+}
@@ -0,0 +1,307 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.tracks.TrackSource;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streaming Ogg Vorbis decoder. Packets are decoded one by one into 32-bit float frames, when read.
+ * <p>
+ * Seeking bisects the file by pages with granule positions. Every page found on the way
+ * is kept in granule index, so the index is built lazily by the first seeks, and later seeks
+ * start bisection from the nearest known pages.
+ * </p>
+ * <p>
+ * Decoder buffers are allocated once per source, MDCT and window tables are shared by all sources,
+ * so many streams can be decoded concurrently with small memory per stream.
+ * </p>
+ *
+ * @see OggTrackLoader#openSource(String)
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class OggVorbisTrackSource implements TrackSource {
+    private static final int TAIL_SCAN_SIZE = 1 << 16;
+
+    private final OggPageReader reader;
+    private final OggPageReader.Packet packet = new OggPageReader.Packet();
+    private final VorbisSetup setup;
+    private final VorbisDecoder decoder;
+    private final Closeable resource;
+    private final TrackFormat format;
+    private final TrackMetadata metadata;
+    private final int frameSize;
+    private final int channels;
+    private final long dataOffset;
+    private final long streamLength;
+    private final TreeMap<Long, Long> seekIndex = new TreeMap<>(); // granule -> page offset
+
+    private long frameLength = -1;
+    private long position;
+    private long nextPosition; // position of the next decoded frame, or -1 while unknown
+    private long skipUntil;
+    private boolean fromStart = true;
+    private boolean end;
+
+    private int frameFrom;
+    private int frameEnd;
+    private float[] pending = new float[0]; // frames, decoded before their position is known
+    private int pendingFrom;
+    private int pendingEnd;
+    private boolean pendingReady;
+
+    /**
+     * @param channel source, positioned at the first Ogg page
+     * @param resource closed with source, may be null
+     * @param seekable true, if channel is {@link java.nio.channels.SeekableByteChannel} with known size
+     */
+    OggVorbisTrackSource(ReadableByteChannel channel, Closeable resource, boolean seekable) throws IOException {
+        this.reader = new OggPageReader(channel);
+        this.resource = resource;
+        this.metadata = new TrackMetadata();
+        this.setup = VorbisSetup.read(reader, packet, metadata);
+        this.decoder = new VorbisDecoder(setup);
+        this.channels = setup.channels;
+        this.format = new TrackFormat("ogg", channels, 32, setup.sampleRate, true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLOAT32);
+        this.frameSize = TrackFormatUtils.frameSize(format);
+        this.dataOffset = reader.getPageOffset() + reader.getPageSize();
+        this.streamLength = seekable && reader.isSeekable() ? reader.size() : -1;
+        nextPosition = -1;
+
+        if (streamLength >= 0) {
+            frameLength = findLastGranule();
+            reader.seek(dataOffset);
+        }
+
+        metadata.setSampleRate(setup.sampleRate);
+        metadata.setChannels(channels);
+        metadata.setFileFormat("ogg");
+        metadata.setAudioCodec(TrackFormat.AudioCodec.VORBIS.name());
+        if (setup.nominalBitrate > 0) {
+            metadata.setBitrate(setup.nominalBitrate);
+        }
+        if (frameLength >= 0) {
+            metadata.setDuration(TrackFormatUtils.calculateDuration(format, frameLength));
+        }
+    }
+
+    @Override
+    public TrackFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    @Override
+    public long getFramePosition() {
+        return position;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws TrackLoadException {
+        int frames = 0;
+        try {
+            while (dst.remaining() >= frameSize) {
+                int count;
+                if (pendingFrom < pendingEnd && pendingReady) {
+                    count = Math.min(pendingEnd - pendingFrom, dst.remaining() / frameSize);
+                    dst.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(pending, pendingFrom * channels, count * channels);
+                    dst.position(dst.position() + count * frameSize);
+                    pendingFrom += count;
+                } else if (frameFrom < frameEnd) {
+                    count = Math.min(frameEnd - frameFrom, dst.remaining() / frameSize);
+                    decoder.write(dst, frameFrom, count);
+                    frameFrom += count;
+                } else if (!nextPacket()) {
+                    break;
+                } else {
+                    continue;
+                }
+                frames += count;
+            }
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to decode Ogg Vorbis packet: " + e.getMessage());
+        }
+        position += frames;
+        return frames == 0 && end ? -1 : frames;
+    }
+
+    @Override
+    public boolean isSeekable() {
+        return streamLength >= 0;
+    }
+
+    @Override
+    public synchronized void seek(long frame) throws TrackLoadException {
+        if (!isSeekable()) {
+            throw new UnsupportedOperationException("Ogg stream isn't seekable");
+        }
+        long target = Math.max(0, frameLength < 0 ? frame : Math.min(frame, frameLength));
+        try {
+            // Страница должна заканчиваться на блок раньше цели, чтобы перекрытие окон было полным
+            long restart = findPageBefore(target - setup.blockSize1);
+            fromStart = restart < 0;
+            reader.seek(fromStart ? dataOffset : restart);
+            decoder.reset();
+            nextPosition = -1;
+            pendingFrom = pendingEnd = 0;
+            pendingReady = false;
+            frameFrom = frameEnd = 0;
+            skipUntil = target;
+            end = false;
+            position = target;
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to seek Ogg stream: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return end offset of the last page with granule not after goal, or -1 if there is no such page
+     */
+    private long findPageBefore(long goal) throws IOException {
+        if (goal < 0) {
+            return -1;
+        }
+        Map.Entry<Long, Long> lower = seekIndex.floorEntry(goal);
+        Map.Entry<Long, Long> upper = seekIndex.higherEntry(goal);
+        long low = lower != null ? lower.getValue() : dataOffset;
+        long high = upper != null ? upper.getValue() : streamLength;
+
+        // Бинарный поиск по страницам, найденные страницы пополняют индекс
+        while (high - low > 2L * OggPageReader.MAX_PAGE_SIZE) {
+            long middle = low + (high - low) / 2;
+            if (!reader.findPage(middle, high - 1)) {
+                high = middle;
+                continue;
+            }
+            seekIndex.put(reader.getGranule(), reader.getPageOffset());
+            if (reader.getGranule() <= goal) {
+                low = reader.getPageOffset();
+            } else {
+                high = middle;
+            }
+        }
+
+        long best = -1;
+        long from = low;
+        while (reader.findPage(from, high - 1)) {
+            seekIndex.put(reader.getGranule(), reader.getPageOffset());
+            if (reader.getGranule() > goal) break;
+            best = reader.getPageOffset() + reader.getPageSize();
+            from = best;
+        }
+        return best;
+    }
+
+    /**
+     * Decodes next packet. Frames are served from decoder output, when their position is known,
+     * or collected in pending buffer until the page with granule position.
+     *
+     * @return false at the end of stream
+     */
+    private boolean nextPacket() throws IOException {
+        while (!end) {
+            if (!reader.nextPacket(packet)) {
+                end = true;
+                if (nextPosition < 0 && pendingEnd > 0) {
+                    resolvePending(-1, false); // поток без гранул: позиции от начала
+                    return pendingFrom < pendingEnd;
+                }
+                return false;
+            }
+            int count = decoder.decode(packet.data, packet.length);
+            if (count < 0) continue;
+
+            if (nextPosition >= 0) {
+                long first = nextPosition;
+                if (packet.last && packet.granule >= 0 && packet.granule < first + count) {
+                    count = (int) Math.max(0, packet.granule - first);
+                }
+                nextPosition += count;
+                end = packet.last;
+                frameFrom = (int) Math.min(count, Math.max(0, skipUntil - first));
+                frameEnd = count;
+                if (frameFrom < frameEnd) return true;
+                continue;
+            }
+
+            if (pending.length < (pendingEnd + count) * channels) {
+                pending = Arrays.copyOf(pending, Math.max(pending.length * 2, (pendingEnd + count) * channels));
+            }
+            decoder.write(pending, pendingEnd * channels, count);
+            pendingEnd += count;
+            if (packet.granule >= 0) {
+                end = packet.last;
+                resolvePending(packet.granule, packet.last);
+                if (pendingFrom < pendingEnd) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Assigns positions to pending frames by granule of the last one.
+     * At the start of stream, smaller granule trims the first frames; at the end, it trims the last ones.
+     */
+    private void resolvePending(long granule, boolean last) {
+        long start;
+        if (granule < 0 || (last && fromStart)) {
+            start = 0;
+        } else {
+            start = granule - pendingEnd;
+        }
+        if (last && granule >= 0) {
+            pendingEnd = (int) Math.max(0, Math.min(pendingEnd, granule - start));
+        }
+        nextPosition = start + pendingEnd;
+        pendingFrom = (int) Math.min(pendingEnd, Math.max(0, skipUntil - start));
+        pendingReady = true;
+    }
+
+    /**
+     * @return granule position of the last page, that is frames count of stream
+     */
+    private long findLastGranule() throws IOException {
+        long granule = -1;
+        for (long size = TAIL_SCAN_SIZE; granule < 0; size *= 2) {
+            long from = Math.max(dataOffset, streamLength - size);
+            long offset = from;
+            while (reader.findPage(offset, streamLength)) {
+                granule = reader.getGranule();
+                offset = reader.getPageOffset() + reader.getPageSize();
+            }
+            if (from == dataOffset) break;
+        }
+        return granule;
+    }
+
+    @Override
+    public TrackMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public void close() {
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+/**
+ * Vorbis packet bit reader. Bits are packed from the least significant bit of every byte.
+ * <p>
+ * Reading past the end of packet returns zeros and sets {@link #isEndOfPacket()},
+ * as Vorbis decoders must handle truncated packets.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class VorbisBitReader {
+    private byte[] data;
+    private int limit;
+    private int position;
+    private long bits;
+    private int bitCount;
+    private long consumed;
+
+    void reset(byte[] data, int length) {
+        this.data = data;
+        this.limit = length;
+        position = 0;
+        bits = 0;
+        bitCount = 0;
+        consumed = 0;
+    }
+
+    /**
+     * @param count bits count, up to 32
+     * @return unsigned value
+     */
+    int read(int count) {
+        if (count == 0) return 0;
+        int value = peek(count);
+        skip(count);
+        return value;
+    }
+
+    boolean readFlag() {
+        return read(1) != 0;
+    }
+
+    /**
+     * @param count bits count, up to 32
+     * @return next bits without consuming them
+     */
+    int peek(int count) {
+        if (bitCount < count) {
+            refill();
+        }
+        return (int) (bits & (-1L >>> (64 - count)));
+    }
+
+    void skip(int count) {
+        if (bitCount < count) {
+            refill();
+        }
+        bits >>>= count;
+        bitCount -= count;
+        consumed += count;
+    }
+
+    /**
+     * @return true, if more bits were read, than packet has
+     */
+    boolean isEndOfPacket() {
+        return consumed > (long) limit * 8;
+    }
+
+    private void refill() {
+        while (bitCount <= 56) {
+            long value = position < limit ? data[position] & 0xFF : 0;
+            position++;
+            bits |= value << bitCount;
+            bitCount += 8;
+        }
+    }
+}
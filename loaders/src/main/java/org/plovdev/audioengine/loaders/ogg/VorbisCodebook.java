@@ -0,0 +1,248 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+import java.io.IOException;
+
+/**
+ * Vorbis codebook: Huffman code of entries and optional VQ vectors of them.
+ * <p>
+ * Codewords up to {@value #FAST_BITS} bits are decoded by one table lookup, longer ones
+ * continue from the table through a binary tree. VQ vectors of all entries are unpacked
+ * once, when setup header is read.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class VorbisCodebook {
+    static final int FAST_BITS = 10;
+    private static final int SYNC = 0x564342;
+    private static final int INVALID = -1;
+
+    final int dimensions;
+    final int entries;
+    private final int[] fast = new int[1 << FAST_BITS]; // entry << 5 | length, INVALID, or -(tree node) - 2
+    private int[] tree;
+    private float[] vectors;
+
+    private VorbisCodebook(int dimensions, int entries) {
+        this.dimensions = dimensions;
+        this.entries = entries;
+    }
+
+    static VorbisCodebook read(VorbisBitReader in) throws IOException {
+        if (in.read(24) != SYNC) {
+            throw new IOException("Invalid Vorbis codebook sync pattern");
+        }
+        int dimensions = in.read(16);
+        int entries = in.read(24);
+        if (dimensions == 0 && entries != 0) {
+            throw new IOException("Vorbis codebook has no dimensions");
+        }
+        VorbisCodebook book = new VorbisCodebook(dimensions, entries);
+
+        int[] lengths = new int[entries];
+        if (!in.readFlag()) {
+            boolean sparse = in.readFlag();
+            for (int i = 0; i < entries; i++) {
+                if (!sparse || in.readFlag()) {
+                    lengths[i] = in.read(5) + 1;
+                }
+            }
+        } else {
+            int entry = 0;
+            int length = in.read(5) + 1;
+            while (entry < entries) {
+                int count = in.read(ilog(entries - entry));
+                if (entry + count > entries || length > 32) {
+                    throw new IOException("Invalid ordered Vorbis codebook");
+                }
+                for (int i = 0; i < count; i++) {
+                    lengths[entry++] = length;
+                }
+                length++;
+            }
+        }
+        book.buildDecoder(lengths);
+
+        int lookupType = in.read(4);
+        if (lookupType == 1 || lookupType == 2) {
+            float minimum = float32(in.read(32));
+            float delta = float32(in.read(32));
+            int valueBits = in.read(4) + 1;
+            boolean sequence = in.readFlag();
+            long lookupValues = lookupType == 1 ? lookup1Values(entries, dimensions) : (long) entries * dimensions;
+            if (lookupValues > 1 << 24) {
+                throw new IOException("Vorbis codebook is too large");
+            }
+            int[] multiplicands = new int[(int) lookupValues];
+            for (int i = 0; i < multiplicands.length; i++) {
+                multiplicands[i] = in.read(valueBits);
+            }
+            book.unpackVectors(lookupType, (int) lookupValues, multiplicands, minimum, delta, sequence);
+        } else if (lookupType != 0) {
+            throw new IOException("Invalid Vorbis codebook lookup type " + lookupType);
+        }
+        if (in.isEndOfPacket()) {
+            throw new IOException("Vorbis setup header is truncated");
+        }
+        return book;
+    }
+
+    /**
+     * Reads one codeword.
+     *
+     * @return entry, or -1 if codeword is invalid or packet ended
+     */
+    int decodeScalar(VorbisBitReader in) {
+        int value = fast[in.peek(FAST_BITS)];
+        if (value >= 0) {
+            in.skip(value & 31);
+            return in.isEndOfPacket() ? -1 : value >>> 5;
+        }
+        if (value == INVALID) {
+            return -1;
+        }
+        in.skip(FAST_BITS);
+        int node = -value - 2;
+        while (true) {
+            int child = tree[node * 2 + in.read(1)];
+            if (in.isEndOfPacket() || child == 0) {
+                return -1;
+            }
+            if (child < 0) {
+                return -child - 1;
+            }
+            node = child;
+        }
+    }
+
+    boolean hasVectors() {
+        return vectors != null;
+    }
+
+    /**
+     * @return unpacked VQ vectors, vector of entry starts at {@code entry * dimensions}
+     */
+    float[] vectors() {
+        return vectors;
+    }
+
+    /**
+     * Assigns codewords in entry order, as defined by Vorbis I specification, and fills decode tables.
+     */
+    private void buildDecoder(int[] lengths) throws IOException {
+        java.util.Arrays.fill(fast, INVALID);
+        int used = 0;
+        int single = -1;
+        for (int i = 0; i < lengths.length; i++) {
+            if (lengths[i] > 0) {
+                used++;
+                single = i;
+            }
+        }
+        if (used == 1) {
+            // единственная запись: оба значения первого бита дают её
+            int length = lengths[single];
+            for (int i = 0; i < fast.length; i++) {
+                fast[i] = single << 5 | Math.min(length, FAST_BITS);
+            }
+            return;
+        }
+
+        int[] marker = new int[33];
+        int nodes = 1;
+        int[] codes = new int[lengths.length];
+        for (int i = 0; i < lengths.length; i++) {
+            int length = lengths[i];
+            if (length == 0) continue;
+            int code = marker[length];
+            if (length < 32 && (code >>> length) != 0) {
+                throw new IOException("Overspecified Vorbis codebook");
+            }
+            codes[i] = code;
+            for (int j = length; j > 0; j--) {
+                if ((marker[j] & 1) != 0) {
+                    marker[j] = j == 1 ? marker[1] + 1 : marker[j - 1] << 1;
+                    break;
+                }
+                marker[j]++;
+            }
+            for (int j = length + 1; j < 33; j++) {
+                if ((marker[j] >>> 1) == code) {
+                    code = marker[j];
+                    marker[j] = marker[j - 1] << 1;
+                } else {
+                    break;
+                }
+            }
+            if (length > FAST_BITS) {
+                nodes += length;
+            }
+        }
+
+        tree = new int[nodes * 2];
+        int next = 1;
+        for (int i = 0; i < lengths.length; i++) {
+            int length = lengths[i];
+            if (length == 0) continue;
+            int reversed = Integer.reverse(codes[i]) >>> (32 - length);
+            if (length <= FAST_BITS) {
+                for (int fill = reversed; fill < fast.length; fill += 1 << length) {
+                    fast[fill] = i << 5 | length;
+                }
+                continue;
+            }
+            int node = 0;
+            for (int bit = 0; bit < length; bit++) {
+                int branch = node * 2 + ((reversed >>> bit) & 1);
+                if (bit == length - 1) {
+                    tree[branch] = -i - 1;
+                } else {
+                    if (tree[branch] == 0) {
+                        tree[branch] = next++;
+                    }
+                    node = tree[branch];
+                    if (bit == FAST_BITS - 1) {
+                        fast[reversed & (fast.length - 1)] = -node - 2;
+                    }
+                }
+            }
+        }
+    }
+
+    private void unpackVectors(int lookupType, int lookupValues, int[] multiplicands, float minimum, float delta, boolean sequence) {
+        vectors = new float[entries * dimensions];
+        for (int entry = 0; entry < entries; entry++) {
+            float last = 0;
+            int divisor = 1;
+            for (int i = 0; i < dimensions; i++) {
+                int offset = lookupType == 1 ? (entry / divisor) % lookupValues : entry * dimensions + i;
+                float value = multiplicands[offset] * delta + minimum + last;
+                vectors[entry * dimensions + i] = value;
+                if (sequence) last = value;
+                divisor *= lookupValues;
+            }
+        }
+    }
+
+    /**
+     * @return the greatest value, which power of dimensions is not greater than entries
+     */
+    static int lookup1Values(int entries, int dimensions) {
+        int value = (int) Math.floor(Math.pow(entries, 1.0 / dimensions));
+        while (Math.pow(value + 1, dimensions) <= entries) value++;
+        while (value > 0 && Math.pow(value, dimensions) > entries) value--;
+        return value;
+    }
+
+    static float float32(int bits) {
+        int mantissa = bits & 0x1FFFFF;
+        int exponent = (bits & 0x7FE00000) >>> 21;
+        float value = (float) Math.scalb((double) mantissa, exponent - 788);
+        return bits < 0 ? -value : value;
+    }
+
+    static int ilog(int value) {
+        return value <= 0 ? 0 : 32 - Integer.numberOfLeadingZeros(value);
+    }
+}
@@ -0,0 +1,260 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Decoder of Vorbis audio packets of one stream.
+ * <p>
+ * All buffers are allocated once for the long block size and reused for every packet;
+ * MDCT tables and window slopes are shared by all decoders. So a stream takes about
+ * {@code 12 * blockSize1 * channels} bytes, besides setup tables.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class VorbisDecoder {
+    private static final float[][] SLOPES = new float[32][];
+
+    private final VorbisSetup setup;
+    private final int channels;
+    private final VorbisBitReader in = new VorbisBitReader();
+    private final float[][] spectrum;
+    private final float[][] pcm;
+    private final float[][] overlap;
+    private final float[] work;
+    private final float[] output;
+    private final int[][] floorY;
+    private final boolean[] step2 = new boolean[65];
+    private final boolean[] floorUnused;
+    private final boolean[] skip;
+    private final float[][] submapVectors;
+    private final boolean[] submapSkip;
+    private final int[] classes;
+    private final VorbisMdct shortMdct;
+    private final VorbisMdct longMdct;
+    private final float[] shortSlope;
+    private final float[] longSlope;
+
+    private int previousSize; // 0, if there is no previous block
+    private int outputFrames;
+
+    VorbisDecoder(VorbisSetup setup) {
+        this.setup = setup;
+        this.channels = setup.channels;
+        int n = setup.blockSize1;
+        spectrum = new float[channels][n / 2];
+        pcm = new float[channels][n];
+        overlap = new float[channels][n / 2];
+        work = new float[n];
+        output = new float[channels * n / 2];
+        floorY = new int[channels][65];
+        floorUnused = new boolean[channels];
+        skip = new boolean[channels];
+        submapVectors = new float[channels][];
+        submapSkip = new boolean[channels];
+        int classesSize = 0;
+        for (VorbisResidue residue : setup.residues) {
+            classesSize = Math.max(classesSize, residue.classesSize(channels, n / 2));
+        }
+        classes = new int[classesSize];
+        shortMdct = VorbisMdct.of(setup.blockSize0);
+        longMdct = VorbisMdct.of(setup.blockSize1);
+        shortSlope = slope(setup.blockSize0 / 2);
+        longSlope = slope(setup.blockSize1 / 2);
+    }
+
+    /**
+     * Forgets previous block, for example after seek. The next packet gives no frames.
+     */
+    void reset() {
+        previousSize = 0;
+        outputFrames = 0;
+    }
+
+    /**
+     * Decodes audio packet and overlaps it with the previous one.
+     *
+     * @return decoded frames count, or -1 if packet isn't valid audio packet
+     */
+    int decode(byte[] data, int length) {
+        outputFrames = 0;
+        in.reset(data, length);
+        if (length == 0 || in.readFlag()) {
+            return -1;
+        }
+        int modeNumber = in.read(VorbisCodebook.ilog(setup.modes.length - 1));
+        if (modeNumber >= setup.modes.length) {
+            return -1;
+        }
+        VorbisSetup.Mode mode = setup.modes[modeNumber];
+        int n = mode.longBlock() ? setup.blockSize1 : setup.blockSize0;
+        boolean previousLong = true;
+        boolean nextLong = true;
+        if (mode.longBlock()) {
+            previousLong = in.readFlag();
+            nextLong = in.readFlag();
+        }
+        if (in.isEndOfPacket()) {
+            return -1;
+        }
+
+        decodeSpectrum(setup.mappings[mode.mapping()], n / 2);
+        VorbisMdct mdct = mode.longBlock() ? longMdct : shortMdct;
+        for (int ch = 0; ch < channels; ch++) {
+            mdct.inverse(spectrum[ch], pcm[ch], work);
+        }
+        applyWindow(n, mode.longBlock() && !previousLong, mode.longBlock() && !nextLong);
+
+        if (previousSize > 0) {
+            overlapAdd(n);
+        }
+        for (int ch = 0; ch < channels; ch++) {
+            System.arraycopy(pcm[ch], n / 2, overlap[ch], 0, n / 2);
+        }
+        previousSize = n;
+        return outputFrames;
+    }
+
+    /**
+     * Writes decoded frames as interleaved little-endian floats.
+     *
+     * @param from first frame of the last decoded packet
+     * @param count frames count
+     */
+    void write(ByteBuffer dst, int from, int count) {
+        ByteBuffer target = dst.slice().order(ByteOrder.LITTLE_ENDIAN);
+        target.asFloatBuffer().put(output, from * channels, count * channels);
+        dst.position(dst.position() + count * channels * Float.BYTES);
+    }
+
+    /**
+     * Copies all frames of the last decoded packet as interleaved floats.
+     */
+    void write(float[] dst, int offset, int count) {
+        System.arraycopy(output, 0, dst, offset, count * channels);
+    }
+
+    private void decodeSpectrum(VorbisSetup.Mapping mapping, int half) {
+        VorbisCodebook[] books = setup.codebooks;
+        for (int ch = 0; ch < channels; ch++) {
+            VorbisFloor floor = setup.floors[mapping.submapFloors[mapping.mux[ch]]];
+            floorUnused[ch] = !floor.decode(in, books, floorY[ch]);
+            skip[ch] = floorUnused[ch];
+            Arrays.fill(spectrum[ch], 0, half, 0);
+        }
+        for (int i = 0; i < mapping.magnitudes.length; i++) {
+            int magnitude = mapping.magnitudes[i];
+            int angle = mapping.angles[i];
+            if (!skip[magnitude] || !skip[angle]) {
+                skip[magnitude] = skip[angle] = false;
+            }
+        }
+
+        for (int submap = 0; submap < mapping.submapResidues.length; submap++) {
+            int count = 0;
+            for (int ch = 0; ch < channels; ch++) {
+                if (mapping.mux[ch] == submap) {
+                    submapVectors[count] = spectrum[ch];
+                    submapSkip[count] = skip[ch];
+                    count++;
+                }
+            }
+            setup.residues[mapping.submapResidues[submap]].decode(in, books, submapVectors, submapSkip, count, half, classes);
+        }
+
+        for (int i = mapping.magnitudes.length - 1; i >= 0; i--) {
+            float[] magnitudes = spectrum[mapping.magnitudes[i]];
+            float[] angles = spectrum[mapping.angles[i]];
+            for (int j = 0; j < half; j++) {
+                float m = magnitudes[j];
+                float a = angles[j];
+                if (m > 0) {
+                    if (a > 0) {
+                        angles[j] = m - a;
+                    } else {
+                        angles[j] = m;
+                        magnitudes[j] = m + a;
+                    }
+                } else {
+                    if (a > 0) {
+                        angles[j] = m + a;
+                    } else {
+                        angles[j] = m;
+                        magnitudes[j] = m - a;
+                    }
+                }
+            }
+        }
+
+        for (int ch = 0; ch < channels; ch++) {
+            if (floorUnused[ch]) {
+                Arrays.fill(spectrum[ch], 0, half, 0);
+            } else {
+                setup.floors[mapping.submapFloors[mapping.mux[ch]]].apply(floorY[ch], step2, spectrum[ch], half);
+            }
+        }
+    }
+
+    /**
+     * Applies Vorbis power complementary window. Long blocks next to short ones have short slopes.
+     */
+    private void applyWindow(int n, boolean shortLeft, boolean shortRight) {
+        int shortHalf = setup.blockSize0 / 2;
+        int leftSize = shortLeft ? shortHalf : n / 2;
+        int leftStart = n / 4 - leftSize / 2;
+        int rightSize = shortRight ? shortHalf : n / 2;
+        int rightStart = n * 3 / 4 - rightSize / 2;
+        float[] left = leftSize == setup.blockSize1 / 2 ? longSlope : shortSlope;
+        float[] right = rightSize == setup.blockSize1 / 2 ? longSlope : shortSlope;
+        for (int ch = 0; ch < channels; ch++) {
+            float[] samples = pcm[ch];
+            Arrays.fill(samples, 0, leftStart, 0);
+            for (int i = 0; i < leftSize; i++) {
+                samples[leftStart + i] *= left[i];
+            }
+            for (int i = 0; i < rightSize; i++) {
+                samples[rightStart + i] *= right[rightSize - 1 - i];
+            }
+            Arrays.fill(samples, rightStart + rightSize, n, 0);
+        }
+    }
+
+    /**
+     * Output runs from the center of previous window to the center of current one.
+     */
+    private void overlapAdd(int n) {
+        int count = previousSize / 4 + n / 4;
+        int shift = n / 4 - previousSize / 4; // позиция выхода в текущем блоке: k + shift
+        int saved = previousSize / 2;
+        for (int ch = 0; ch < channels; ch++) {
+            float[] previous = overlap[ch];
+            float[] current = pcm[ch];
+            for (int k = 0, index = ch; k < count; k++, index += channels) {
+                int c = k + shift;
+                float value = k < saved ? previous[k] : 0;
+                if (c >= 0) value += current[c];
+                output[index] = value;
+            }
+        }
+        outputFrames = count;
+    }
+
+    /**
+     * @return rising window slope {@code sin(π/2 · sin²((i + 0.5) / size · π/2))}, shared by decoders
+     */
+    private static synchronized float[] slope(int size) {
+        int index = Integer.numberOfTrailingZeros(size);
+        if (SLOPES[index] == null) {
+            float[] slope = new float[size];
+            for (int i = 0; i < size; i++) {
+                double x = Math.sin((i + 0.5) / size * Math.PI / 2);
+                slope[i] = (float) Math.sin(Math.PI / 2 * x * x);
+            }
+            SLOPES[index] = slope;
+        }
+        return SLOPES[index];
+    }
+}
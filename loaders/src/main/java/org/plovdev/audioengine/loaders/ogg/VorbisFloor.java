@@ -0,0 +1,248 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+import org.plovdev.audioengine.exceptions.UnsupportedTrackFormat;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Vorbis floor type 1: piecewise linear spectral envelope in dB scale.
+ * <p>
+ * Neighbors and x order of points are computed once from setup header.
+ * Floor type 0 (LSP) is obsolete and isn't used by any encoder since 2000, so it isn't supported.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class VorbisFloor {
+    private static final int[] RANGES = {256, 128, 86, 64};
+    private static final float[] INVERSE_DB = new float[256];
+
+    static {
+        for (int i = 0; i < INVERSE_DB.length; i++) {
+            INVERSE_DB[i] = (float) Math.pow(10, (i - 255) * 7.0 / 256);
+        }
+    }
+
+    private final int[] partitionClasses;
+    private final int[] classDimensions;
+    private final int[] classSubclasses;
+    private final int[] classMasterBooks;
+    private final int[][] subclassBooks;
+    private final int multiplier;
+    private final int[] xList;
+    private final int[] sorted;
+    private final int[] lowNeighbors;
+    private final int[] highNeighbors;
+
+    private VorbisFloor(int[] partitionClasses, int[] classDimensions, int[] classSubclasses, int[] classMasterBooks,
+                        int[][] subclassBooks, int multiplier, int[] xList) {
+        this.partitionClasses = partitionClasses;
+        this.classDimensions = classDimensions;
+        this.classSubclasses = classSubclasses;
+        this.classMasterBooks = classMasterBooks;
+        this.subclassBooks = subclassBooks;
+        this.multiplier = multiplier;
+        this.xList = xList;
+
+        sorted = new int[xList.length];
+        Integer[] order = new Integer[xList.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(xList[a], xList[b]));
+        for (int i = 0; i < order.length; i++) sorted[i] = order[i];
+
+        lowNeighbors = new int[xList.length];
+        highNeighbors = new int[xList.length];
+        for (int i = 2; i < xList.length; i++) {
+            int low = 0;
+            int high = 1;
+            for (int j = 0; j < i; j++) {
+                if (xList[j] < xList[i] && xList[j] > xList[low]) low = j;
+                if (xList[j] > xList[i] && xList[j] < xList[high]) high = j;
+            }
+            lowNeighbors[i] = low;
+            highNeighbors[i] = high;
+        }
+    }
+
+    static VorbisFloor read(VorbisBitReader in, VorbisCodebook[] books) throws IOException {
+        int type = in.read(16);
+        if (type == 0) {
+            throw new UnsupportedTrackFormat("Vorbis floor type 0 isn't supported");
+        }
+        if (type != 1) {
+            throw new IOException("Invalid Vorbis floor type " + type);
+        }
+        int[] partitionClasses = new int[in.read(5)];
+        int maxClass = -1;
+        for (int i = 0; i < partitionClasses.length; i++) {
+            partitionClasses[i] = in.read(4);
+            maxClass = Math.max(maxClass, partitionClasses[i]);
+        }
+        int[] classDimensions = new int[maxClass + 1];
+        int[] classSubclasses = new int[maxClass + 1];
+        int[] classMasterBooks = new int[maxClass + 1];
+        int[][] subclassBooks = new int[maxClass + 1][];
+        for (int i = 0; i <= maxClass; i++) {
+            classDimensions[i] = in.read(3) + 1;
+            classSubclasses[i] = in.read(2);
+            if (classSubclasses[i] != 0) {
+                classMasterBooks[i] = checkBook(in.read(8), books);
+            }
+            subclassBooks[i] = new int[1 << classSubclasses[i]];
+            for (int j = 0; j < subclassBooks[i].length; j++) {
+                int book = in.read(8) - 1;
+                subclassBooks[i][j] = book < 0 ? book : checkBook(book, books);
+            }
+        }
+        int multiplier = in.read(2) + 1;
+        int rangeBits = in.read(4);
+        int values = 2;
+        for (int partitionClass : partitionClasses) {
+            values += classDimensions[partitionClass];
+        }
+        if (values > 65) {
+            throw new IOException("Too many Vorbis floor points: " + values);
+        }
+        int[] xList = new int[values];
+        xList[1] = 1 << rangeBits;
+        int index = 2;
+        for (int partitionClass : partitionClasses) {
+            for (int j = 0; j < classDimensions[partitionClass]; j++) {
+                xList[index++] = in.read(rangeBits);
+            }
+        }
+        if (Arrays.stream(xList).distinct().count() != values) {
+            throw new IOException("Vorbis floor points aren't unique");
+        }
+        return new VorbisFloor(partitionClasses, classDimensions, classSubclasses, classMasterBooks, subclassBooks, multiplier, xList);
+    }
+
+    /**
+     * Reads floor points of one channel.
+     *
+     * @param y target of point values, at least 65 entries
+     * @return false, if channel is unused in this packet
+     */
+    boolean decode(VorbisBitReader in, VorbisCodebook[] books, int[] y) {
+        if (!in.readFlag()) {
+            return false;
+        }
+        int range = RANGES[multiplier - 1];
+        int bits = VorbisCodebook.ilog(range - 1);
+        y[0] = in.read(bits);
+        y[1] = in.read(bits);
+        int offset = 2;
+        for (int partitionClass : partitionClasses) {
+            int dimensions = classDimensions[partitionClass];
+            int subclassBits = classSubclasses[partitionClass];
+            int mask = (1 << subclassBits) - 1;
+            int value = 0;
+            if (subclassBits > 0) {
+                value = books[classMasterBooks[partitionClass]].decodeScalar(in);
+                if (value < 0) return false;
+            }
+            for (int j = 0; j < dimensions; j++) {
+                int book = subclassBooks[partitionClass][value & mask];
+                value >>>= subclassBits;
+                if (book >= 0) {
+                    int point = books[book].decodeScalar(in);
+                    if (point < 0) return false;
+                    y[offset + j] = point;
+                } else {
+                    y[offset + j] = 0;
+                }
+            }
+            offset += dimensions;
+        }
+        return !in.isEndOfPacket();
+    }
+
+    /**
+     * Synthesizes floor curve from decoded points and multiplies spectrum by it.
+     *
+     * @param y decoded points, replaced by final amplitudes
+     * @param step2 work buffer of at least 65 flags
+     * @param spectrum residue vector of half block size
+     */
+    void apply(int[] y, boolean[] step2, float[] spectrum, int n) {
+        int range = RANGES[multiplier - 1];
+        step2[0] = step2[1] = true;
+        for (int i = 2; i < xList.length; i++) {
+            int low = lowNeighbors[i];
+            int high = highNeighbors[i];
+            int predicted = renderPoint(xList[low], y[low], xList[high], y[high], xList[i]);
+            int value = y[i];
+            int highRoom = range - predicted;
+            int lowRoom = predicted;
+            int room = highRoom < lowRoom ? highRoom * 2 : lowRoom * 2;
+            if (value != 0) {
+                step2[low] = step2[high] = step2[i] = true;
+                if (value >= room) {
+                    y[i] = highRoom > lowRoom ? value - lowRoom + predicted : predicted - value + highRoom - 1;
+                } else {
+                    y[i] = (value & 1) != 0 ? predicted - (value + 1) / 2 : predicted + value / 2;
+                }
+            } else {
+                step2[i] = false;
+                y[i] = predicted;
+            }
+        }
+
+        int lx = 0;
+        int ly = y[sorted[0]] * multiplier;
+        for (int i = 1; i < sorted.length; i++) {
+            int point = sorted[i];
+            if (!step2[point]) continue;
+            int hx = xList[point];
+            int hy = y[point] * multiplier;
+            if (lx < n) {
+                renderLine(lx, ly, hx, hy, spectrum, n);
+            }
+            lx = hx;
+            ly = hy;
+        }
+        if (lx < n) {
+            renderLine(lx, ly, n, ly, spectrum, n);
+        }
+    }
+
+    private static int renderPoint(int x0, int y0, int x1, int y1, int x) {
+        int dy = y1 - y0;
+        int offset = Math.abs(dy) * (x - x0) / (x1 - x0);
+        return dy < 0 ? y0 - offset : y0 + offset;
+    }
+
+    /**
+     * Multiplies spectrum from x0 (inclusive) to x1 (exclusive) by the line in dB scale.
+     */
+    private static void renderLine(int x0, int y0, int x1, int y1, float[] spectrum, int n) {
+        int dy = y1 - y0;
+        int adx = x1 - x0;
+        int base = dy / adx;
+        int sy = dy < 0 ? base - 1 : base + 1;
+        int ady = Math.abs(dy) - Math.abs(base) * adx;
+        int y = y0;
+        int error = 0;
+        int end = Math.min(x1, n);
+        spectrum[x0] *= INVERSE_DB[y & 0xFF];
+        for (int x = x0 + 1; x < end; x++) {
+            error += ady;
+            if (error >= adx) {
+                error -= adx;
+                y += sy;
+            } else {
+                y += base;
+            }
+            spectrum[x] *= INVERSE_DB[y & 0xFF];
+        }
+    }
+
+    private static int checkBook(int book, VorbisCodebook[] books) throws IOException {
+        if (book >= books.length) {
+            throw new IOException("Invalid Vorbis codebook number " + book);
+        }
+        return book;
+    }
+}
@@ -0,0 +1,135 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+/**
+ * Inverse MDCT of Vorbis blocks, computed by DCT-IV through complex FFT of quarter block size.
+ * <p>
+ * Instances hold only read-only tables and are shared between all streams with the same
+ * block size, every stream passes its own work buffer.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class VorbisMdct {
+    private static final VorbisMdct[] CACHE = new VorbisMdct[32];
+
+    private final int n;
+    private final int half;
+    private final int quarter;
+    private final float[] rotateCos;
+    private final float[] rotateSin;
+    private final float[] fftCos;
+    private final float[] fftSin;
+    private final int[] reverse;
+
+    private VorbisMdct(int n) {
+        this.n = n;
+        this.half = n / 2;
+        this.quarter = n / 4;
+        rotateCos = new float[quarter];
+        rotateSin = new float[quarter];
+        for (int k = 0; k < quarter; k++) {
+            double angle = Math.PI * (k + 0.125) / half;
+            rotateCos[k] = (float) Math.cos(angle);
+            rotateSin[k] = (float) Math.sin(angle);
+        }
+        fftCos = new float[quarter / 2];
+        fftSin = new float[quarter / 2];
+        for (int k = 0; k < quarter / 2; k++) {
+            double angle = 2 * Math.PI * k / quarter;
+            fftCos[k] = (float) Math.cos(angle);
+            fftSin[k] = (float) Math.sin(angle);
+        }
+        reverse = new int[quarter];
+        int bits = Integer.numberOfTrailingZeros(quarter);
+        for (int k = 0; k < quarter; k++) {
+            reverse[k] = bits == 0 ? 0 : Integer.reverse(k) >>> (32 - bits);
+        }
+    }
+
+    /**
+     * @param n block size, power of two from 64
+     * @return shared transform
+     */
+    static synchronized VorbisMdct of(int n) {
+        int index = Integer.numberOfTrailingZeros(n);
+        if (CACHE[index] == null) {
+            CACHE[index] = new VorbisMdct(n);
+        }
+        return CACHE[index];
+    }
+
+    int size() {
+        return n;
+    }
+
+    /**
+     * Computes unscaled inverse MDCT, as defined by Vorbis I specification.
+     *
+     * @param in n/2 spectral coefficients
+     * @param out n time samples
+     * @param work buffer of at least n floats
+     */
+    void inverse(float[] in, float[] out, float[] work) {
+        // Поворот и упаковка пар коэффициентов в комплексные числа, сразу в бит-реверсном порядке
+        int re = 0;
+        int im = quarter;
+        for (int k = 0; k < quarter; k++) {
+            float a = in[2 * k];
+            float b = in[half - 1 - 2 * k];
+            float c = rotateCos[k];
+            float s = rotateSin[k];
+            int index = reverse[k];
+            work[re + index] = a * c + b * s;
+            work[im + index] = b * c - a * s;
+        }
+
+        for (int size = 2; size <= quarter; size <<= 1) {
+            int step = quarter / size;
+            int middle = size >> 1;
+            for (int start = 0; start < quarter; start += size) {
+                for (int j = 0; j < middle; j++) {
+                    float c = fftCos[j * step];
+                    float s = fftSin[j * step];
+                    int top = start + j;
+                    int bottom = top + middle;
+                    float br = work[re + bottom];
+                    float bi = work[im + bottom];
+                    float tr = br * c + bi * s;
+                    float ti = bi * c - br * s;
+                    float ar = work[re + top];
+                    float ai = work[im + top];
+                    work[re + top] = ar + tr;
+                    work[im + top] = ai + ti;
+                    work[re + bottom] = ar - tr;
+                    work[im + bottom] = ai - ti;
+                }
+            }
+        }
+
+        // Обратный поворот даёт DCT-IV u, затем разворот u в n отсчётов IMDCT
+        int quarter3 = 3 * quarter;
+        for (int k = 0; k < quarter; k++) {
+            float tr = work[re + k];
+            float ti = work[im + k];
+            float c = rotateCos[k];
+            float s = rotateSin[k];
+            float even = tr * c + ti * s;
+            float odd = -(ti * c - tr * s);
+            place(out, 2 * k, even, quarter3);
+            place(out, half - 1 - 2 * k, odd, quarter3);
+        }
+    }
+
+    /**
+     * Writes DCT-IV value u[index] to the positions of IMDCT output, where it appears.
+     */
+    private void place(float[] out, int index, float value, int quarter3) {
+        if (index >= quarter) {
+            out[index - quarter] = value;
+        } else {
+            out[index + quarter3] = -value;
+        }
+        out[quarter3 - 1 - index] = -value;
+    }
+}
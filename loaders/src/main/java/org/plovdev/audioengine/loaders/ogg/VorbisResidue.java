@@ -0,0 +1,189 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+import java.io.IOException;
+
+/**
+ * Vorbis residue of types 0, 1 and 2: VQ coded spectrum fine structure.
+ * <p>
+ * Type 2 interleaves channels into one vector; it's decoded straight into channel vectors,
+ * without interleaved copy.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class VorbisResidue {
+    private final int type;
+    private final int begin;
+    private final int end;
+    private final int partitionSize;
+    private final int classifications;
+    private final int classBook;
+    private final int classWords;
+    private final int[][] books;
+
+    private VorbisResidue(int type, int begin, int end, int partitionSize, int classifications, int classBook, int classWords, int[][] books) {
+        this.type = type;
+        this.begin = begin;
+        this.end = end;
+        this.partitionSize = partitionSize;
+        this.classifications = classifications;
+        this.classBook = classBook;
+        this.classWords = classWords;
+        this.books = books;
+    }
+
+    static VorbisResidue read(VorbisBitReader in, VorbisCodebook[] codebooks) throws IOException {
+        int type = in.read(16);
+        if (type > 2) {
+            throw new IOException("Invalid Vorbis residue type " + type);
+        }
+        int begin = in.read(24);
+        int end = in.read(24);
+        int partitionSize = in.read(24) + 1;
+        int classifications = in.read(6) + 1;
+        int classBook = in.read(8);
+        if (classBook >= codebooks.length || codebooks[classBook].dimensions == 0) {
+            throw new IOException("Invalid Vorbis residue classbook " + classBook);
+        }
+        int[] cascade = new int[classifications];
+        for (int i = 0; i < classifications; i++) {
+            int low = in.read(3);
+            int high = in.readFlag() ? in.read(5) : 0;
+            cascade[i] = high << 3 | low;
+        }
+        int[][] books = new int[classifications][8];
+        for (int i = 0; i < classifications; i++) {
+            for (int pass = 0; pass < 8; pass++) {
+                books[i][pass] = -1;
+                if ((cascade[i] & 1 << pass) != 0) {
+                    int book = in.read(8);
+                    if (book >= codebooks.length || !codebooks[book].hasVectors()) {
+                        throw new IOException("Invalid Vorbis residue codebook " + book);
+                    }
+                    books[i][pass] = book;
+                }
+            }
+        }
+        return new VorbisResidue(type, begin, end, partitionSize, classifications, classBook, codebooks[classBook].dimensions, books);
+    }
+
+    /**
+     * Decodes residue of submap channels. Vectors should be zeroed.
+     *
+     * @param vectors channel vectors of n/2 coefficients
+     * @param skip channels, which floor is unused
+     * @param count channels count
+     * @param n half of block size
+     * @param classes work buffer, see {@link #classesSize(int, int)}
+     */
+    void decode(VorbisBitReader in, VorbisCodebook[] codebooks, float[][] vectors, boolean[] skip, int count, int n, int[] classes) {
+        if (type == 2) {
+            boolean any = false;
+            for (int ch = 0; ch < count; ch++) {
+                any |= !skip[ch];
+            }
+            if (any) {
+                decodePartitions(in, codebooks, vectors, null, 1, count, n * count, classes);
+            }
+        } else {
+            decodePartitions(in, codebooks, vectors, skip, count, 1, n, classes);
+        }
+    }
+
+    /**
+     * @return size of classifications work buffer for all channels
+     */
+    int classesSize(int channels, int n) {
+        // последнее кодовое слово классов может выходить за число разделов
+        if (type == 2) {
+            return Math.min(end, n * channels) / partitionSize + classWords;
+        }
+        return (Math.min(end, n) / partitionSize + classWords) * channels;
+    }
+
+    /**
+     * @param vectorCount vectors, coded separately
+     * @param interleave channels, interleaved in one coded vector (type 2)
+     */
+    private void decodePartitions(VorbisBitReader in, VorbisCodebook[] codebooks, float[][] vectors, boolean[] skip,
+                                  int vectorCount, int interleave, int size, int[] classes) {
+        int from = Math.min(begin, size);
+        int to = Math.min(end, size);
+        int partitions = (to - from) / partitionSize;
+        if (partitions == 0) return;
+        VorbisCodebook classifier = codebooks[classBook];
+        int words = classWords;
+        int stride = partitions + words;
+
+        for (int pass = 0; pass < 8; pass++) {
+            int partition = 0;
+            while (partition < partitions) {
+                if (pass == 0) {
+                    for (int v = 0; v < vectorCount; v++) {
+                        if (skip != null && skip[v]) continue;
+                        int word = classifier.decodeScalar(in);
+                        if (word < 0) return;
+                        for (int i = words - 1; i >= 0; i--) {
+                            classes[v * stride + partition + i] = word % classifications;
+                            word /= classifications;
+                        }
+                    }
+                }
+                for (int i = 0; i < words && partition < partitions; i++, partition++) {
+                    for (int v = 0; v < vectorCount; v++) {
+                        if (skip != null && skip[v]) continue;
+                        int book = books[classes[v * stride + partition]][pass];
+                        if (book < 0) continue;
+                        int offset = from + partition * partitionSize;
+                        boolean decoded = type == 0
+                                ? decodeType0(in, codebooks[book], vectors[v], offset)
+                                : decodeType1(in, codebooks[book], vectors, v, interleave, offset);
+                        if (!decoded) return;
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean decodeType0(VorbisBitReader in, VorbisCodebook book, float[] vector, int offset) {
+        int dimensions = book.dimensions;
+        int step = partitionSize / dimensions;
+        float[] values = book.vectors();
+        for (int i = 0; i < step; i++) {
+            int entry = book.decodeScalar(in);
+            if (entry < 0) return false;
+            int base = entry * dimensions;
+            for (int j = 0; j < dimensions; j++) {
+                vector[offset + i + j * step] += values[base + j];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Type 1 partition; with interleave above 1 position p of coded vector belongs to channel p % interleave.
+     */
+    private boolean decodeType1(VorbisBitReader in, VorbisCodebook book, float[][] vectors, int v, int interleave, int offset) {
+        int dimensions = book.dimensions;
+        float[] values = book.vectors();
+        int position = offset;
+        int last = offset + partitionSize;
+        while (position < last) {
+            int entry = book.decodeScalar(in);
+            if (entry < 0) return false;
+            int base = entry * dimensions;
+            if (interleave == 1) {
+                float[] vector = vectors[v];
+                for (int j = 0; j < dimensions && position < last; j++) {
+                    vector[position++] += values[base + j];
+                }
+            } else {
+                for (int j = 0; j < dimensions && position < last; j++, position++) {
+                    vectors[position % interleave][position / interleave] += values[base + j];
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,189 @@
+package org.plovdev.audioengine.loaders.ogg;
+
+import org.plovdev.audioengine.exceptions.UnsupportedTrackFormat;
+import org.plovdev.audioengine.loaders.flac.FlacHeader;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Vorbis stream headers: identification, comments and setup (codebooks, floors, residues, mappings, modes).
+ * <p>
+ * Setup is immutable after reading, so it can be shared by decoders of the same stream.
+ * </p>
+ *
+ * @author Anton
+ * @version 1.0
+ */
+final class VorbisSetup {
+    private static final int IDENTIFICATION = 1;
+    private static final int COMMENT = 3;
+    private static final int SETUP = 5;
+
+    /**
+     * Channel mapping of one mode.
+     */
+    static final class Mapping {
+        int[] magnitudes;
+        int[] angles;
+        int[] mux;
+        int[] submapFloors;
+        int[] submapResidues;
+    }
+
+    /**
+     * Mode of audio packets.
+     */
+    record Mode(boolean longBlock, int mapping) {
+    }
+
+    int channels;
+    int sampleRate;
+    int nominalBitrate;
+    int blockSize0;
+    int blockSize1;
+    VorbisCodebook[] codebooks;
+    VorbisFloor[] floors;
+    VorbisResidue[] residues;
+    Mapping[] mappings;
+    Mode[] modes;
+
+    /**
+     * Reads three header packets.
+     *
+     * @param packets header packets source
+     * @param metadata target of comments
+     */
+    static VorbisSetup read(OggPageReader packets, OggPageReader.Packet packet, TrackMetadata metadata) throws IOException {
+        VorbisSetup setup = new VorbisSetup();
+        VorbisBitReader in = new VorbisBitReader();
+
+        nextHeader(packets, packet, in, IDENTIFICATION);
+        setup.readIdentification(in);
+
+        nextHeader(packets, packet, in, COMMENT);
+        FlacHeader.readVorbisComment(ByteBuffer.wrap(packet.data, 7, packet.length - 7).slice().order(ByteOrder.LITTLE_ENDIAN), metadata);
+
+        nextHeader(packets, packet, in, SETUP);
+        setup.readSetup(in);
+        return setup;
+    }
+
+    private static void nextHeader(OggPageReader packets, OggPageReader.Packet packet, VorbisBitReader in, int type) throws IOException {
+        if (!packets.nextPacket(packet)) {
+            throw new IOException("Vorbis headers are truncated");
+        }
+        in.reset(packet.data, packet.length);
+        if (in.read(8) != type || in.read(8) != 'v' || in.read(8) != 'o' || in.read(8) != 'r'
+                || in.read(8) != 'b' || in.read(8) != 'i' || in.read(8) != 's') {
+            if (type == IDENTIFICATION) {
+                throw new UnsupportedTrackFormat("Ogg stream isn't Vorbis");
+            }
+            throw new IOException("Vorbis header " + type + " is missing");
+        }
+    }
+
+    private void readIdentification(VorbisBitReader in) throws IOException {
+        if (in.read(32) != 0) {
+            throw new UnsupportedTrackFormat("Unsupported Vorbis version");
+        }
+        channels = in.read(8);
+        sampleRate = in.read(32);
+        in.read(32);
+        nominalBitrate = in.read(32);
+        in.read(32);
+        blockSize0 = 1 << in.read(4);
+        blockSize1 = 1 << in.read(4);
+        if (channels == 0 || sampleRate <= 0 || blockSize0 < 64 || blockSize1 > 8192 || blockSize0 > blockSize1 || !in.readFlag()) {
+            throw new IOException("Invalid Vorbis identification header");
+        }
+    }
+
+    private void readSetup(VorbisBitReader in) throws IOException {
+        codebooks = new VorbisCodebook[in.read(8) + 1];
+        for (int i = 0; i < codebooks.length; i++) {
+            codebooks[i] = VorbisCodebook.read(in);
+        }
+
+        int transforms = in.read(6) + 1;
+        for (int i = 0; i < transforms; i++) {
+            if (in.read(16) != 0) {
+                throw new IOException("Invalid Vorbis time domain transform");
+            }
+        }
+
+        floors = new VorbisFloor[in.read(6) + 1];
+        for (int i = 0; i < floors.length; i++) {
+            floors[i] = VorbisFloor.read(in, codebooks);
+        }
+
+        residues = new VorbisResidue[in.read(6) + 1];
+        for (int i = 0; i < residues.length; i++) {
+            residues[i] = VorbisResidue.read(in, codebooks);
+        }
+
+        mappings = new Mapping[in.read(6) + 1];
+        for (int i = 0; i < mappings.length; i++) {
+            mappings[i] = readMapping(in);
+        }
+
+        modes = new Mode[in.read(6) + 1];
+        for (int i = 0; i < modes.length; i++) {
+            boolean longBlock = in.readFlag();
+            int windowType = in.read(16);
+            int transformType = in.read(16);
+            int mapping = in.read(8);
+            if (windowType != 0 || transformType != 0 || mapping >= mappings.length) {
+                throw new IOException("Invalid Vorbis mode " + i);
+            }
+            modes[i] = new Mode(longBlock, mapping);
+        }
+        if (!in.readFlag() || in.isEndOfPacket()) {
+            throw new IOException("Invalid Vorbis setup header framing");
+        }
+    }
+
+    private Mapping readMapping(VorbisBitReader in) throws IOException {
+        if (in.read(16) != 0) {
+            throw new IOException("Invalid Vorbis mapping type");
+        }
+        Mapping mapping = new Mapping();
+        int submaps = in.readFlag() ? in.read(4) + 1 : 1;
+        int steps = in.readFlag() ? in.read(8) + 1 : 0;
+        int bits = VorbisCodebook.ilog(channels - 1);
+        mapping.magnitudes = new int[steps];
+        mapping.angles = new int[steps];
+        for (int i = 0; i < steps; i++) {
+            mapping.magnitudes[i] = in.read(bits);
+            mapping.angles[i] = in.read(bits);
+            if (mapping.magnitudes[i] == mapping.angles[i] || mapping.magnitudes[i] >= channels || mapping.angles[i] >= channels) {
+                throw new IOException("Invalid Vorbis channel coupling");
+            }
+        }
+        if (in.read(2) != 0) {
+            throw new IOException("Invalid Vorbis mapping reserved field");
+        }
+        mapping.mux = new int[channels];
+        if (submaps > 1) {
+            for (int ch = 0; ch < channels; ch++) {
+                mapping.mux[ch] = in.read(4);
+                if (mapping.mux[ch] >= submaps) {
+                    throw new IOException("Invalid Vorbis mapping mux");
+                }
+            }
+        }
+        mapping.submapFloors = new int[submaps];
+        mapping.submapResidues = new int[submaps];
+        for (int i = 0; i < submaps; i++) {
+            in.read(8);
+            mapping.submapFloors[i] = in.read(8);
+            mapping.submapResidues[i] = in.read(8);
+            if (mapping.submapFloors[i] >= floors.length || mapping.submapResidues[i] >= residues.length) {
+                throw new IOException("Invalid Vorbis submap");
+            }
+        }
+        return mapping;
+    }
+}
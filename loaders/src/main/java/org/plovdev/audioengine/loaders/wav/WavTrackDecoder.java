@@ -1,17 +1,44 @@
 package org.plovdev.audioengine.loaders.wav;
 
+import org.plovdev.audioengine.exceptions.UnsupportedTrackFormat;
 import org.plovdev.audioengine.loaders.TrackDecoder;
 import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
 import org.plovdev.audioengine.tracks.format.TrackFormat;
 
+import java.nio.ByteOrder;
+
+/**
+ * Decodes WAV samples of any PCM, G.711 or IMA ADPCM codec into float32, or into another sample format.
+ *
+ * @see SampleConverter
+ *
+ * @author Anton
+ * @version 1.0
+ */
 public class WavTrackDecoder implements TrackDecoder {
+    /**
+     * @param input track with PCM, float, G.711 or IMA ADPCM samples
+     * @return track with interleaved little-endian float32 samples
+     */
     @Override
     public Track decodeToPCM(Track input) {
-        return null;
+        TrackFormat format = input.getFormat();
+        return decodeToFormat(input, new TrackFormat(format.extension(), format.channels(), 32, format.sampleRate(), true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLOAT32));
     }
 
+    /**
+     * @param input track with PCM, float, G.711 or IMA ADPCM samples
+     * @param outFormat target sample format, with the same channels and sample rate
+     * @return converted track
+     * @throws UnsupportedTrackFormat if samples can't be converted
+     */
     @Override
     public Track decodeToFormat(Track input, TrackFormat outFormat) {
-        return null;
+        try {
+            return SampleConverter.convert(input, outFormat);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedTrackFormat(e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
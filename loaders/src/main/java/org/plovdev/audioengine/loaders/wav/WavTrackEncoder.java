@@ -1,17 +1,44 @@
 package org.plovdev.audioengine.loaders.wav;
 
+import org.plovdev.audioengine.exceptions.TrackExportException;
 import org.plovdev.audioengine.loaders.TrackEncoder;
 import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.SampleConverter;
 import org.plovdev.audioengine.tracks.format.TrackFormat;
 
+import java.nio.ByteOrder;
+
+/**
+ * Encodes PCM or float samples into WAV sample formats, including G.711 and IMA ADPCM.
+ *
+ * @see SampleConverter
+ *
+ * @author Anton
+ * @version 1.0
+ */
 public class WavTrackEncoder implements TrackEncoder {
+    /**
+     * @param input track with PCM or float samples
+     * @return track with 16-bit signed little-endian samples, the most common WAV format
+     */
     @Override
     public Track encodeFromPCM(Track input) {
-        return null;
+        TrackFormat format = input.getFormat();
+        return encodeFromFormat(input, new TrackFormat("wav", format.channels(), 16, format.sampleRate(), true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.PCM16));
     }
 
+    /**
+     * @param input track with PCM or float samples
+     * @param outFormat target WAV format, with the same channels and sample rate
+     * @return converted track
+     * @throws TrackExportException if samples can't be converted
+     */
     @Override
     public Track encodeFromFormat(Track input, TrackFormat outFormat) {
-        return null;
+        try {
+            return SampleConverter.convert(input, outFormat);
+        } catch (IllegalArgumentException e) {
+            throw new TrackExportException(e.getMessage());
+        }
     }
 }
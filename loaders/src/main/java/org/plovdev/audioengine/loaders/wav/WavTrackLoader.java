@@ -1,45 +1,221 @@
 package org.plovdev.audioengine.loaders.wav;
 
 import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.loaders.AsyncTrackReader;
+import org.plovdev.audioengine.loaders.AudioSignature;
+import org.plovdev.audioengine.loaders.HttpRangeChannel;
 import org.plovdev.audioengine.loaders.LoadListener;
+import org.plovdev.audioengine.loaders.LocatorIndex;
+import org.plovdev.audioengine.loaders.ParallelTrackReader;
 import org.plovdev.audioengine.loaders.PathLocator;
+import org.plovdev.audioengine.loaders.ProbeCache;
 import org.plovdev.audioengine.loaders.TrackLoader;
+import org.plovdev.audioengine.loaders.TrackLoaderRegistry;
+import org.plovdev.audioengine.loaders.TrackProbe;
 import org.plovdev.audioengine.loaders.wav.chunks.DataChunk;
 import org.plovdev.audioengine.loaders.wav.chunks.FormatChunk;
+import org.plovdev.audioengine.loaders.wav.read.WavChunkReader;
+import org.plovdev.audioengine.loaders.wav.read.WavHeaderReader;
 import org.plovdev.audioengine.loaders.wav.read.WavParser;
 import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.TrackSource;
+import org.plovdev.audioengine.tracks.format.ImaAdpcmCodec;
 import org.plovdev.audioengine.tracks.format.TrackFormat;
 import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
 import org.plovdev.audioengine.tracks.meta.TrackMetadata;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletableFuture;
 
 import static org.plovdev.audioengine.loaders.ExportUtils.getFile;
 
 public class WavTrackLoader implements TrackLoader {
-    private final List<PathLocator> locators = new CopyOnWriteArrayList<>();
+    /**
+     * Data smaller than this is read by one stream.
+     */
+    private static final long PARALLEL_READ_THRESHOLD = 16 << 20;
+
+    private LocatorIndex locators = new LocatorIndex();
+    private final ProbeCache probeCache = new ProbeCache();
     private LoadListener loadListener = null;
+    private int readParallelism = ParallelTrackReader.DEFAULT_PARALLELISM;
+    private boolean mapLargeFiles = true;
 
     public void addLoactor(PathLocator locator) {
         locators.add(locator);
     }
 
+    /**
+     * Replaces own index of locator roots by shared one,
+     * so roots are walked and watched once for all loaders.
+     *
+     * @param index shared index, closed by its owner
+     */
+    public void setLocatorIndex(LocatorIndex index) {
+        locators = index;
+    }
+
+    public LocatorIndex getLocatorIndex() {
+        return locators;
+    }
+
+    /**
+     * Sets count of concurrent positional reads of big files. 1 reads them by one thread.
+     *
+     * @param parallelism count of reads
+     * @throws IllegalArgumentException if parallelism < 1
+     * @see ParallelTrackReader
+     */
+    public void setReadParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        readParallelism = parallelism;
+    }
+
+    public int getReadParallelism() {
+        return readParallelism;
+    }
+
+    /**
+     * By default, files with data larger than one segment are mapped, and read lazily by OS.
+     * When mapping is off, they are read into direct memory at once with parallel reads,
+     * so later playback never waits for disk.
+     *
+     * @param map map large files
+     */
+    public void setMapLargeFiles(boolean map) {
+        mapLargeFiles = map;
+    }
+
+    public boolean isMapLargeFiles() {
+        return mapLargeFiles;
+    }
+
     @Override
     public Track loadTrack(String path) throws TrackLoadException {
         File file = getFile(path, locators);
-        try (InputStream stream = new FileInputStream(file)) {
-            return loadTrack(stream);
+        try {
+            TrackProbe probe = probeCache.get(file.toPath(), WavTrackLoader::probeFile);
+            if (mapLargeFiles && probe.dataSize() > WavChunkReader.segmentSize(probe.format())) {
+                return mapTrack(file.toPath());
+            }
+            if (probe.dataSize() >= PARALLEL_READ_THRESHOLD) {
+                return readTrack(file.toPath());
+            }
+            try (InputStream stream = new FileInputStream(file)) {
+                return loadTrack(stream);
+            }
         } catch (Exception e) {
             throw new TrackLoadException("Failed to load WAV file: " + path + " - " + e);
         }
     }
 
+    /**
+     * Reads only bytes of range with positional reads, so cost depends on range length, not file size.
+     * IMA ADPCM blocks of range are decoded into PCM16, and cut to range.
+     */
+    @Override
+    public Track loadTrack(String path, Duration start, Duration length) throws TrackLoadException {
+        if (start.isNegative() || length.isNegative()) {
+            throw new IllegalArgumentException("Negative range: " + start + ", " + length);
+        }
+        File file = getFile(path, locators);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WavHeaderReader headerReader = new WavHeaderReader(channel);
+            TrackProbe probe = headerReader.probe();
+            TrackFormat format = probe.format();
+            int frameSize = TrackFormatUtils.frameSize(format);
+            if (frameSize == 0) {
+                return loadAdpcmRange(channel, probe, headerReader.getFormatChunk(), start, length);
+            }
+
+            long frames = Math.min(probe.dataSize(), channel.size() - probe.dataOffset()) / frameSize;
+            long from = Math.min(TrackFormatUtils.calculateFrames(format, start), frames);
+            long count = Math.min(TrackFormatUtils.calculateFrames(format, length), frames - from);
+            ByteBuffer[] segments = ParallelTrackReader.read(channel, probe.dataOffset() + from * frameSize, count * frameSize, WavChunkReader.segmentSize(format), readParallelism);
+            return new Track(segments, TrackFormatUtils.calculateDuration(format, count), format, createMetadata(headerReader.getFormatChunk()));
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to load WAV range: " + path + " - " + e);
+        }
+    }
+
+    /**
+     * IMA ADPCM blocks are independent, so only blocks, which contain range, are read.
+     */
+    private Track loadAdpcmRange(FileChannel channel, TrackProbe probe, FormatChunk formatChunk, Duration start, Duration length) throws IOException {
+        TrackFormat format = probe.format();
+        int blockAlign = formatChunk.getBlockAlign();
+        int samplesPerBlock = ImaAdpcmCodec.samplesPerBlock(blockAlign, format.channels());
+        long dataSize = Math.min(probe.dataSize(), channel.size() - probe.dataOffset());
+        long frames = formatChunk.frameCount(dataSize);
+        long from = Math.min(TrackFormatUtils.calculateFrames(format, start), frames);
+        long count = Math.min(TrackFormatUtils.calculateFrames(format, length), frames - from);
+
+        long firstBlock = from / samplesPerBlock;
+        long endBlock = (from + count + samplesPerBlock - 1) / samplesPerBlock;
+        long offset = firstBlock * blockAlign;
+        long size = Math.min(endBlock * blockAlign, dataSize) - offset;
+        int segmentSize = WavChunkReader.MAX_SEGMENT_SIZE / blockAlign * blockAlign;
+        Track blocks = new Track(ParallelTrackReader.read(channel, probe.dataOffset() + offset, size, segmentSize, readParallelism),
+                TrackFormatUtils.calculateDuration(format, count), format, createMetadata(formatChunk));
+
+        try (blocks; TrackSource decoded = TrackSource.of(ImaAdpcmCodec.decode(blocks))) {
+            decoded.skip(from - firstBlock * samplesPerBlock);
+            return decoded.readTrack(count);
+        }
+    }
+
+    /**
+     * Loads track data with {@link java.nio.channels.AsynchronousFileChannel}.
+     * Only headers are read on caller thread.
+     *
+     * @param path track path
+     * @return future of track, which can be cancelled
+     */
+    @Override
+    public CompletableFuture<Track> loadTrackAsync(String path) {
+        Path file;
+        TrackProbe probe;
+        FormatChunk formatChunk;
+        try {
+            file = getFile(path, locators).toPath();
+        } catch (TrackLoadException e) {
+            if (loadListener != null) loadListener.onLoadFailed(e);
+            return CompletableFuture.failedFuture(e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WavHeaderReader headerReader = new WavHeaderReader(channel);
+            probe = headerReader.probe();
+            formatChunk = headerReader.getFormatChunk();
+        } catch (Exception e) {
+            TrackLoadException error = new TrackLoadException("Failed to load WAV file: " + path + " - " + e);
+            if (loadListener != null) loadListener.onLoadFailed(error);
+            return CompletableFuture.failedFuture(error);
+        }
+
+        TrackFormat format = probe.format();
+        CompletableFuture<ByteBuffer[]> data = AsyncTrackReader.read(file, probe.dataOffset(), probe.dataSize(), WavChunkReader.segmentSize(format), loadListener);
+        CompletableFuture<Track> track = data.thenApply(segments -> new Track(segments, probe.duration(), format, createMetadata(formatChunk)));
+        track.whenComplete((t, e) -> {
+            if (track.isCancelled()) {
+                data.cancel(true);
+            }
+        });
+        return track;
+    }
+
     @Override
     public Track loadTrack(InputStream stream) throws TrackLoadException {
         try {
@@ -50,7 +226,8 @@ public class WavTrackLoader implements TrackLoader {
             FormatChunk formatChunk = parser.getFormatChunk();
             TrackFormat format = formatChunk.getFormat();
 
-            return new Track(chunk.getData(), Duration.ofMillis(TrackFormatUtils.calculateDurationMs(format, chunk.getSize())), format, new TrackMetadata());
+            long frames = formatChunk.frameCount(chunk.getSize());
+            return new Track(chunk.getSegments(), TrackFormatUtils.calculateDuration(format, frames), format, createMetadata(formatChunk));
         } catch (Exception e) {
             throw new TrackLoadException("Failed to load WAV from stream: " + e);
         }
@@ -61,44 +238,219 @@ public class WavTrackLoader implements TrackLoader {
         return switch (uri.getScheme()) {
             case "file" -> loadTrack(uri.getPath());
             case "https", "http" -> {
-                try (InputStream stream = uri.toURL().openStream()) {
-                    yield loadTrack(stream);
-                } catch (Exception e) {
-                    throw new TrackLoadException(e.getMessage());
+                try (WavTrackSource source = openRemote(uri)) {
+                    yield source.readTrack();
+                } catch (IOException e) {
+                    // Сервер без Range запросов или формат без фиксированного кадра: читаем поток целиком
+                    try (InputStream stream = uri.toURL().openStream()) {
+                        yield loadTrack(stream);
+                    } catch (Exception streamError) {
+                        throw new TrackLoadException(streamError.getMessage());
+                    }
+                }
+            }
+            default -> throw new TrackLoadException("Unsupported URI scheme: " + uri.getScheme());
+        };
+    }
+
+    /**
+     * Opens track for reading on demand. Remote tracks are read with HTTP Range requests,
+     * so seeking in big file fetches only played part of it.
+     *
+     * @param uri file, http or https uri
+     * @return seekable source, must be closed
+     * @throws TrackLoadException if track can't be opened, server doesn't support range requests,
+     * or format has no fixed frame size
+     * @see HttpRangeChannel
+     */
+    @Override
+    public WavTrackSource openSource(URI uri) throws TrackLoadException {
+        try {
+            return switch (uri.getScheme()) {
+                case "file" -> new WavTrackSource(FileChannel.open(getFile(uri.getPath(), locators).toPath(), StandardOpenOption.READ));
+                case "https", "http" -> openRemote(uri);
+                default -> throw new TrackLoadException("Unsupported URI scheme: " + uri.getScheme());
+            };
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to open WAV: " + uri + " - " + e);
+        }
+    }
+
+    private static WavTrackSource openRemote(URI uri) throws IOException {
+        HttpRangeChannel channel = HttpRangeChannel.open(uri);
+        try {
+            return new WavTrackSource(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads only track headers, without audio data.
+     * Results are cached by file path, size and modification time.
+     *
+     * @param path track path
+     * @return probe result
+     * @throws TrackLoadException if file not found or isn't valid WAV
+     */
+    public TrackProbe probe(String path) throws TrackLoadException {
+        try {
+            try {
+                return probeCache.get(Path.of(path), WavTrackLoader::probeFile);
+            } catch (NoSuchFileException e) {
+                // Not found directly, try registered locators
+                return probeCache.get(getFile(path, locators).toPath(), WavTrackLoader::probeFile);
+            }
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to probe WAV file: " + path + " - " + e);
+        }
+    }
+
+    /**
+     * Reads only track headers from stream.
+     * Stream will be positioned at audio data start.
+     *
+     * @param stream track source
+     * @return probe result
+     * @throws TrackLoadException if stream isn't valid WAV
+     */
+    public TrackProbe probe(InputStream stream) throws TrackLoadException {
+        try {
+            return new WavHeaderReader(Channels.newChannel(stream)).probe();
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to probe WAV from stream: " + e);
+        }
+    }
+
+    public TrackProbe probe(URI uri) throws TrackLoadException {
+        return switch (uri.getScheme()) {
+            case "file" -> probe(uri.getPath());
+            case "https", "http" -> {
+                // Только первый блок с заголовками, без упреждающего чтения
+                try (HttpRangeChannel channel = HttpRangeChannel.open(uri, HttpRangeChannel.DEFAULT_BLOCK_SIZE, 0, 1)) {
+                    yield new WavHeaderReader(channel).probe();
+                } catch (IOException e) {
+                    try (InputStream stream = uri.toURL().openStream()) {
+                        yield probe(stream);
+                    } catch (IOException streamError) {
+                        throw new TrackLoadException(streamError.getMessage());
+                    }
                 }
             }
             default -> throw new TrackLoadException("Unsupported URI scheme: " + uri.getScheme());
         };
     }
 
+    public ProbeCache getProbeCache() {
+        return probeCache;
+    }
+
     @Override
     public TrackMetadata readTrackMetadata(String src) {
-        return null;
+        return createMetadata(probe(src));
     }
 
     @Override
     public TrackMetadata readTrackMetadata(InputStream src) {
-        return null;
+        return createMetadata(probe(src));
     }
 
     @Override
     public TrackMetadata readTrackMetadata(URI src) {
-        return null;
+        return createMetadata(probe(src));
     }
 
     @Override
     public TrackFormat getTrackFormat(String src) {
-        return null;
+        return probe(src).format();
     }
 
     @Override
     public TrackFormat getTrackFormat(InputStream src) {
-        return null;
+        return probe(src).format();
     }
 
     @Override
     public TrackFormat getTrackFormat(URI src) {
-        return null;
+        return probe(src).format();
+    }
+
+    /**
+     * Reads whole data chunk into direct segments with concurrent positional reads.
+     */
+    private Track readTrack(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WavHeaderReader headerReader = new WavHeaderReader(channel);
+            TrackProbe probe = headerReader.probe();
+            TrackFormat format = probe.format();
+
+            long dataSize = Math.min(probe.dataSize(), channel.size() - probe.dataOffset());
+            ByteBuffer[] segments = ParallelTrackReader.read(channel, probe.dataOffset(), dataSize, WavChunkReader.segmentSize(format), readParallelism);
+            FormatChunk formatChunk = headerReader.getFormatChunk();
+            return new Track(segments, TrackFormatUtils.calculateDuration(format, formatChunk.frameCount(dataSize)), format, createMetadata(formatChunk));
+        }
+    }
+
+    /**
+     * Map large file data into frame aligned read-only segments,
+     * without copying it into memory.
+     */
+    private static Track mapTrack(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WavHeaderReader headerReader = new WavHeaderReader(channel);
+            TrackProbe probe = headerReader.probe();
+            TrackFormat format = probe.format();
+
+            long dataSize = Math.min(probe.dataSize(), channel.size() - probe.dataOffset());
+            int segmentSize = WavChunkReader.segmentSize(format);
+            int count = (int) Math.max(1, (dataSize + segmentSize - 1) / segmentSize);
+
+            ByteBuffer[] segments = new ByteBuffer[count];
+            long offset = 0;
+            for (int i = 0; i < count; i++) {
+                long size = Math.min(segmentSize, dataSize - offset);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, probe.dataOffset() + offset, size);
+                offset += size;
+            }
+
+            long frames = headerReader.getFormatChunk().frameCount(dataSize);
+            return Track.mapped(segments, TrackFormatUtils.calculateDuration(format, frames), format, createMetadata(headerReader.getFormatChunk()));
+        }
+    }
+
+    private static TrackProbe probeFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new WavHeaderReader(channel).probe();
+        }
+    }
+
+    /**
+     * Keeps fmt fields, which TrackFormat can't hold, so they survive export.
+     */
+    static TrackMetadata createMetadata(FormatChunk formatChunk) {
+        TrackMetadata metadata = new TrackMetadata();
+        if (formatChunk.isExtensible()) {
+            metadata.setChannelMask(formatChunk.getChannelMask());
+            metadata.setValidBits(formatChunk.getValidBitsPerSample());
+        }
+        if (formatChunk.getAudioCodec() == TrackFormat.AudioCodec.ADPCM) {
+            metadata.setBlockAlign(formatChunk.getBlockAlign());
+        }
+        return metadata;
+    }
+
+    private static TrackMetadata createMetadata(TrackProbe probe) {
+        TrackFormat format = probe.format();
+        TrackMetadata metadata = new TrackMetadata();
+        metadata.setDuration(probe.duration());
+        metadata.setSampleRate(format.sampleRate());
+        metadata.setBitDepth(format.bitsPerSample());
+        metadata.setChannels(format.channels());
+        metadata.setBitrate(format.bitRate());
+        metadata.setFileFormat(format.extension());
+        metadata.setAudioCodec(format.audioCodec().name());
+        return metadata;
     }
 
     @Override
@@ -109,9 +461,23 @@ public class WavTrackLoader implements TrackLoader {
         return lower.endsWith(".wav") || lower.endsWith(".wave");
     }
 
+    /**
+     * Check stream header for RIFF/WAVE signature.
+     * Stream isn't consumed, so it must support mark/reset.
+     *
+     * @param stream track source
+     * @return is WAV stream
+     */
     @Override
     public boolean isSupported(InputStream stream) {
-        return false;
+        if (stream == null || !stream.markSupported()) return false;
+        try {
+            byte[] header = new byte[AudioSignature.PEEK_SIZE];
+            int length = TrackLoaderRegistry.peek(stream, header);
+            return AudioSignature.WAV.matches(header, length);
+        } catch (IOException e) {
+            return false;
+        }
     }
 
     @Override
@@ -17,7 +17,7 @@ public class WavTrackLoaderManager implements TrackLoaderManager {
     }
 
     @Override
-    public TrackLoader getTrackLoader() {
+    public WavTrackLoader getTrackLoader() {
         return loader;
     }
 
@@ -40,4 +40,9 @@ public class WavTrackLoaderManager implements TrackLoaderManager {
     public void registerPathLocator(PathLocator locator) {
         loader.addLoactor(locator);
     }
+
+    @Override
+    public void setLocatorIndex(LocatorIndex index) {
+        loader.setLocatorIndex(index);
+    }
 }
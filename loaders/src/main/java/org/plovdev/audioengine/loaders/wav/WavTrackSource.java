@@ -0,0 +1,120 @@
+package org.plovdev.audioengine.loaders.wav;
+
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.loaders.TrackProbe;
+import org.plovdev.audioengine.loaders.wav.read.WavHeaderReader;
+import org.plovdev.audioengine.tracks.TrackSource;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Seekable source of WAV frames, which reads data chunk from channel on demand.
+ * <p>
+ * It's used for remote tracks over {@link org.plovdev.audioengine.loaders.HttpRangeChannel},
+ * so only headers and played part of file are fetched. Frames are returned as stored,
+ * in track format. Formats without fixed frame size, like IMA ADPCM, aren't supported.
+ * </p>
+ *
+ * @see WavTrackLoader#openSource(java.net.URI)
+ *
+ * @author Anton
+ * @version 1.0
+ */
+public class WavTrackSource implements TrackSource {
+    private final SeekableByteChannel channel;
+    private final TrackFormat format;
+    private final TrackMetadata metadata;
+    private final int frameSize;
+    private final long dataOffset;
+    private final long frameLength;
+    private long position;
+
+    /**
+     * Reads headers from channel start. Channel is closed with source.
+     *
+     * @param channel WAV file channel
+     * @throws IOException if headers can't be read, or format has no fixed frame size
+     */
+    WavTrackSource(SeekableByteChannel channel) throws IOException {
+        this.channel = channel;
+        channel.position(0);
+        WavHeaderReader headerReader = new WavHeaderReader(channel);
+        TrackProbe probe = headerReader.probe();
+        this.format = probe.format();
+        this.frameSize = TrackFormatUtils.frameSize(format);
+        if (frameSize == 0) {
+            throw new IOException("Streaming of " + format.audioCodec() + " WAV isn't supported");
+        }
+        this.dataOffset = probe.dataOffset();
+        this.frameLength = Math.min(probe.dataSize(), channel.size() - dataOffset) / frameSize;
+        this.metadata = WavTrackLoader.createMetadata(headerReader.getFormatChunk());
+    }
+
+    @Override
+    public TrackFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    @Override
+    public long getFramePosition() {
+        return position;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws TrackLoadException {
+        long left = frameLength - position;
+        if (left <= 0) return -1;
+
+        int frames = (int) Math.min(left, dst.remaining() / frameSize);
+        int limit = dst.limit();
+        dst.limit(dst.position() + frames * frameSize);
+        try {
+            channel.position(dataOffset + position * frameSize);
+            while (dst.hasRemaining()) {
+                if (channel.read(dst) < 0) {
+                    throw new EOFException("WAV data is shorter than header says");
+                }
+            }
+        } catch (IOException e) {
+            throw new TrackLoadException("Failed to read WAV data: " + e);
+        } finally {
+            dst.limit(limit);
+        }
+        position += frames;
+        return frames;
+    }
+
+    @Override
+    public boolean isSeekable() {
+        return true;
+    }
+
+    @Override
+    public synchronized void seek(long frame) {
+        position = Math.max(0, Math.min(frame, frameLength));
+    }
+
+    @Override
+    public TrackMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -2,23 +2,55 @@ package org.plovdev.audioengine.loaders.wav.chunks;
 
 import org.plovdev.audioengine.loaders.wav.struct.Chunk;
 import org.plovdev.audioengine.loaders.wav.struct.WavChunkId;
-import org.plovdev.audioengine.utils.AudioEngineUtils;
 
 import java.nio.ByteBuffer;
 
+/**
+ * Audio data chunk.
+ * Data is kept only in direct buffers: chunks larger than 2 GB
+ * are split into several frame aligned segments.
+ */
 public class DataChunk extends Chunk {
-    private ByteBuffer data;
+    private ByteBuffer[] segments;
 
     public DataChunk(ByteBuffer buffer) {
-        super(WavChunkId.DATA, buffer.remaining(), AudioEngineUtils.directBufferToBytes(buffer));
-        data = buffer;
+        this(new ByteBuffer[]{buffer});
     }
 
+    public DataChunk(ByteBuffer[] segments) {
+        super(WavChunkId.DATA, totalSize(segments), null);
+        this.segments = segments;
+    }
+
+    /**
+     * @return the only data segment
+     * @throws IllegalStateException if chunk is segmented
+     */
     public ByteBuffer getData() {
-        return data;
+        if (segments.length != 1) {
+            throw new IllegalStateException("Data chunk is split into " + segments.length + " segments");
+        }
+        return segments[0];
     }
 
     public void setData(ByteBuffer data) {
-        this.data = data;
+        setSegments(new ByteBuffer[]{data});
+    }
+
+    public ByteBuffer[] getSegments() {
+        return segments;
+    }
+
+    public void setSegments(ByteBuffer[] segments) {
+        this.segments = segments;
+        this.chunkSize = totalSize(segments);
+    }
+
+    private static long totalSize(ByteBuffer[] segments) {
+        long size = 0;
+        for (ByteBuffer segment : segments) {
+            size += segment.remaining();
+        }
+        return size;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+package org.plovdev.audioengine.loaders.wav.chunks;
+
+import org.plovdev.audioengine.loaders.wav.struct.Chunk;
+import org.plovdev.audioengine.loaders.wav.struct.WavChunkId;
+
+/**
+ * RF64/BW64 chunk with 64-bit sizes.
+ * Sizes of RIFF and data chunks, which don't fit into 32 bits, are stored here.
+ */
+public class Ds64Chunk extends Chunk {
+    /**
+     * Size of ds64 chunk body without size table.
+     */
+    public static final int BODY_SIZE = 28;
+
+    private final long riffSize;
+    private final long dataSize;
+    private final long sampleCount;
+
+    public Ds64Chunk(long riffSize, long dataSize, long sampleCount, long size, byte[] bytes) {
+        super(WavChunkId.DS64, size, bytes);
+        this.riffSize = riffSize;
+        this.dataSize = dataSize;
+        this.sampleCount = sampleCount;
+    }
+
+    public long getRiffSize() {
+        return riffSize;
+    }
+
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+}
@@ -2,9 +2,21 @@ package org.plovdev.audioengine.loaders.wav.chunks;
 
 import org.plovdev.audioengine.loaders.wav.struct.Chunk;
 import org.plovdev.audioengine.loaders.wav.struct.WavChunkId;
+import org.plovdev.audioengine.tracks.format.ImaAdpcmCodec;
 import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
 
 public class FormatChunk extends Chunk {
+    public static final int WAVE_FORMAT_PCM = 0x0001;
+    public static final int WAVE_FORMAT_IEEE_FLOAT = 0x0003;
+    public static final int WAVE_FORMAT_ALAW = 0x0006;
+    public static final int WAVE_FORMAT_MULAW = 0x0007;
+    public static final int WAVE_FORMAT_IMA_ADPCM = 0x0011;
+    public static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+    private int formatTag;
+    private int validBitsPerSample;
+    private int channelMask;
     private TrackFormat.AudioCodec audioCodec;
     private int channels;
     private int sampleRate;
@@ -20,10 +32,78 @@ public class FormatChunk extends Chunk {
         this.audioCodec = format.audioCodec();
         this.channels = format.channels();
         this.sampleRate = format.sampleRate();
-        this.byteRate = sampleRate * chunkSize;
         this.bitPerSample = format.bitsPerSample();
         this.blockAlign = (bitPerSample / 8) * channels;
+        this.byteRate = sampleRate * blockAlign;
         this.format = format;
+        this.formatTag = formatTag(format.audioCodec());
+        this.validBitsPerSample = bitPerSample;
+    }
+
+    /**
+     * Create fmt chunk with WAVE_FORMAT_EXTENSIBLE fields.
+     *
+     * @param formatTag format tag from chunk, as is (0xFFFE for extensible)
+     * @param validBitsPerSample significant bits in every sample container
+     * @param channelMask speaker positions bit mask, 0 if not specified
+     */
+    public FormatChunk(TrackFormat format, int formatTag, int validBitsPerSample, int channelMask, int size, byte[] bytes) {
+        this(format, size, bytes);
+        this.formatTag = formatTag;
+        this.validBitsPerSample = validBitsPerSample;
+        this.channelMask = channelMask;
+    }
+
+    /**
+     * Returns WAV format tag for codec, or -1 if codec can't be stored in WAV.
+     */
+    public static int formatTag(TrackFormat.AudioCodec codec) {
+        return switch (codec) {
+            case PCM8, PCM16, PCM24, PCM32 -> WAVE_FORMAT_PCM;
+            case FLOAT32, FLOAT64 -> WAVE_FORMAT_IEEE_FLOAT;
+            case ALAW -> WAVE_FORMAT_ALAW;
+            case ULAW -> WAVE_FORMAT_MULAW;
+            case ADPCM -> WAVE_FORMAT_IMA_ADPCM;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Calculate frames count in data of givven size. IMA ADPCM frames are counted by blocks.
+     */
+    public long frameCount(long dataSize) {
+        if (audioCodec == TrackFormat.AudioCodec.ADPCM) {
+            return ImaAdpcmCodec.frameCount(dataSize, blockAlign, channels);
+        }
+        return TrackFormatUtils.calculateFrameCount(format, dataSize);
+    }
+
+    public boolean isExtensible() {
+        return formatTag == WAVE_FORMAT_EXTENSIBLE;
+    }
+
+    public int getFormatTag() {
+        return formatTag;
+    }
+
+    public void setFormatTag(int formatTag) {
+        this.formatTag = formatTag;
+    }
+
+    public int getValidBitsPerSample() {
+        return validBitsPerSample;
+    }
+
+    public void setValidBitsPerSample(int validBitsPerSample) {
+        this.validBitsPerSample = validBitsPerSample;
+    }
+
+    public int getChannelMask() {
+        return channelMask;
+    }
+
+    public void setChannelMask(int channelMask) {
+        this.channelMask = channelMask;
     }
 
     public TrackFormat.AudioCodec getAudioCodec() {
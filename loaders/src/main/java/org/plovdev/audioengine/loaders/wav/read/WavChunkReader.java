@@ -2,60 +2,103 @@ package org.plovdev.audioengine.loaders.wav.read;
 
 import org.plovdev.audioengine.loaders.ExportUtils;
 import org.plovdev.audioengine.loaders.wav.chunks.DataChunk;
+import org.plovdev.audioengine.loaders.wav.chunks.Ds64Chunk;
 import org.plovdev.audioengine.loaders.wav.chunks.FormatChunk;
 import org.plovdev.audioengine.loaders.wav.struct.Chunk;
 import org.plovdev.audioengine.loaders.wav.struct.WavChunkId;
+import org.plovdev.audioengine.tracks.AudioBufferPool;
 import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 
 public class WavChunkReader implements AutoCloseable {
+    /**
+     * Max size of one data segment. Larger data chunks are split.
+     */
+    public static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    /**
+     * Chunk size value, which means "real size stored in ds64 chunk".
+     */
+    static final long RF64_SIZE_MARKER = 0xFFFFFFFFL;
+
     private final BufferedInputStream inputStream;
+    private Ds64Chunk ds64Chunk;
+    private TrackFormat format;
 
     public WavChunkReader(InputStream stream) {
         inputStream = new BufferedInputStream(stream);
     }
 
+    /**
+     * Calculate data segment size, aligned to frame size of format.
+     */
+    public static int segmentSize(TrackFormat format) {
+        int frameSize = Math.max(1, TrackFormatUtils.frameSize(format));
+        return (MAX_SEGMENT_SIZE / frameSize) * frameSize;
+    }
+
+    static boolean isRf64(String riff) {
+        return WavChunkId.RF64.getChunk().equals(riff) || WavChunkId.BW64.getChunk().equals(riff);
+    }
+
     /**
      * Чтение заголовка следующего чанка (ID + размер) и его тела.
      * Возвращает Chunk с данными.
      */
     public Chunk readNextChunk() throws IOException {
         byte[] chunkIdBytes = new byte[4];
-        int read = inputStream.read(chunkIdBytes);
+        int read = inputStream.readNBytes(chunkIdBytes, 0, 4);
         if (read != 4) return null; // конец файла
 
         String chunkIdStr = new String(chunkIdBytes, StandardCharsets.ISO_8859_1);
         if (chunkIdStr.trim().isEmpty()) return null;
 
         byte[] sizeBytes = new byte[4];
-        read = inputStream.read(sizeBytes);
+        read = inputStream.readNBytes(sizeBytes, 0, 4);
         if (read != 4) throw new IOException("Не удалось прочитать размер чанка");
 
-        int size = ExportUtils.bytesToInt(sizeBytes, 0, 4);
+        long size = Integer.toUnsignedLong(ExportUtils.bytesToInt(sizeBytes, 0, 4));
+        WavChunkId chunkId = WavChunkId.fromString(chunkIdStr);
 
-        // Читаем тело чанка полностью
-        byte[] body = new byte[size];
-        int totalRead = 0;
-        while (totalRead < size) {
-            int r = inputStream.read(body, totalRead, size - totalRead);
-            if (r == -1) throw new IOException("Недостаточно данных в чанке");
-            totalRead += r;
+        // Данные читаем сразу в direct буферы, минуя byte[]
+        if (chunkId == WavChunkId.DATA) {
+            if (ds64Chunk != null && size == RF64_SIZE_MARKER) {
+                size = ds64Chunk.getDataSize();
+            }
+            DataChunk dataChunk = readDataChunk(size);
+            skipPadding(size);
+            return dataChunk;
         }
 
-        WavChunkId chunkId = WavChunkId.fromString(chunkIdStr);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Слишком большой чанк: " + chunkIdStr);
+        }
+
+        // Читаем тело чанка полностью
+        byte[] body = new byte[(int) size];
+        if (inputStream.readNBytes(body, 0, body.length) != body.length) {
+            throw new IOException("Недостаточно данных в чанке");
+        }
+        skipPadding(size);
 
         switch (chunkId) {
             case FORMAT -> {
-                return readFormatChunk(body);
+                FormatChunk formatChunk = readFormatChunk(body);
+                format = formatChunk.getFormat();
+                return formatChunk;
             }
-            case DATA -> {
-                return readDataChunk(body);
+            case DS64 -> {
+                ds64Chunk = readDs64Chunk(body);
+                return ds64Chunk;
             }
             case null -> {
                 return new Chunk(WavChunkId.NULL, size, body);
@@ -66,30 +109,82 @@ public class WavChunkReader implements AutoCloseable {
         }
     }
 
-    private FormatChunk readFormatChunk(byte[] body) throws IOException {
+    static FormatChunk readFormatChunk(byte[] body) throws IOException {
         if (body.length < 16) {
             throw new IOException("Некорректный формат fmt chunk");
         }
 
-        int compressionCode = ExportUtils.bytesToInt(body, 0, 2);
+        int formatTag = ExportUtils.bytesToInt(body, 0, 2);
         int channels = ExportUtils.bytesToInt(body, 2, 2);
         int sampleRate = ExportUtils.bytesToInt(body, 4, 4);
         int byteRate = ExportUtils.bytesToInt(body, 8, 4);
         int blockAlign = ExportUtils.bytesToInt(body, 12, 2);
         int bitsPerSample = ExportUtils.bytesToInt(body, 14, 2);
 
-        TrackFormat format = getFormat(bitsPerSample, channels, sampleRate);
+        int codecTag = formatTag;
+        int validBits = bitsPerSample;
+        int channelMask = 0;
+        if (formatTag == FormatChunk.WAVE_FORMAT_EXTENSIBLE) {
+            // cbSize(2) + validBits(2) + channelMask(4) + SubFormat GUID(16)
+            if (body.length < 40 || ExportUtils.bytesToInt(body, 16, 2) < 22) {
+                throw new IOException("Некорректный WAVE_FORMAT_EXTENSIBLE fmt chunk");
+            }
+            validBits = ExportUtils.bytesToInt(body, 18, 2);
+            channelMask = ExportUtils.bytesToInt(body, 20, 4);
+            codecTag = ExportUtils.bytesToInt(body, 24, 2); // first GUID bytes are the format tag
+            if (validBits == 0) {
+                validBits = bitsPerSample;
+            }
+        }
+
+        TrackFormat format = getFormat(codecTag, bitsPerSample, channels, sampleRate);
 
-        return new FormatChunk(format, body.length, body);
+        FormatChunk chunk = new FormatChunk(format, formatTag, validBits, channelMask, body.length, body);
+        if (format.audioCodec() == TrackFormat.AudioCodec.ADPCM) {
+            // размер блока ADPCM не выводится из формата
+            if (channels <= 0 || blockAlign < 8 * channels || blockAlign % (4 * channels) != 0) {
+                throw new IOException("Некорректный размер блока IMA ADPCM: " + blockAlign);
+            }
+            chunk.setBlockAlign(blockAlign);
+            chunk.setByteRate(byteRate);
+        }
+        return chunk;
     }
 
-    private TrackFormat getFormat(int bitsPerSample, int channels, int sampleRate) throws IOException {
-        TrackFormat.AudioCodec codec = switch (bitsPerSample) {
-            case 8 -> TrackFormat.AudioCodec.PCM8;
-            case 16 -> TrackFormat.AudioCodec.PCM16;
-            case 24 -> TrackFormat.AudioCodec.PCM24;
-            case 32 -> TrackFormat.AudioCodec.PCM32;
-            default -> throw new IOException("Неподдерживаемый битрейт: " + bitsPerSample);
+    static Ds64Chunk readDs64Chunk(byte[] body) throws IOException {
+        if (body.length < Ds64Chunk.BODY_SIZE) {
+            throw new IOException("Некорректный ds64 chunk");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        long riffSize = buffer.getLong();
+        long dataSize = buffer.getLong();
+        long sampleCount = buffer.getLong();
+
+        return new Ds64Chunk(riffSize, dataSize, sampleCount, body.length, body);
+    }
+
+    private static TrackFormat getFormat(int formatTag, int bitsPerSample, int channels, int sampleRate) throws IOException {
+        TrackFormat.AudioCodec codec = switch (formatTag) {
+            case FormatChunk.WAVE_FORMAT_PCM -> switch (bitsPerSample) {
+                case 8 -> TrackFormat.AudioCodec.PCM8;
+                case 16 -> TrackFormat.AudioCodec.PCM16;
+                case 24 -> TrackFormat.AudioCodec.PCM24;
+                case 32 -> TrackFormat.AudioCodec.PCM32;
+                default -> throw new IOException("Неподдерживаемый битрейт: " + bitsPerSample);
+            };
+            case FormatChunk.WAVE_FORMAT_IEEE_FLOAT -> switch (bitsPerSample) {
+                case 32 -> TrackFormat.AudioCodec.FLOAT32;
+                case 64 -> TrackFormat.AudioCodec.FLOAT64;
+                default -> throw new IOException("Неподдерживаемый битрейт float: " + bitsPerSample);
+            };
+            case FormatChunk.WAVE_FORMAT_ALAW -> TrackFormat.AudioCodec.ALAW;
+            case FormatChunk.WAVE_FORMAT_MULAW -> TrackFormat.AudioCodec.ULAW;
+            case FormatChunk.WAVE_FORMAT_IMA_ADPCM -> {
+                if (bitsPerSample != 4) throw new IOException("Неподдерживаемый битрейт IMA ADPCM: " + bitsPerSample);
+                yield TrackFormat.AudioCodec.ADPCM;
+            }
+            default -> throw new IOException("Неподдерживаемый формат WAV: 0x" + Integer.toHexString(formatTag));
         };
 
         return new TrackFormat(
@@ -103,31 +198,67 @@ public class WavChunkReader implements AutoCloseable {
         );
     }
 
-    private DataChunk readDataChunk(byte[] body) {
-        ByteBuffer buffer = ByteBuffer.allocateDirect(body.length);
-        buffer.put(body);
-        buffer.flip();
-        return new DataChunk(buffer);
+    private DataChunk readDataChunk(long size) throws IOException {
+        if (format == null) {
+            throw new IOException("Data chunk found before fmt chunk");
+        }
+
+        int segmentSize = segmentSize(format);
+        int count = (int) Math.max(1, (size + segmentSize - 1) / segmentSize);
+        ByteBuffer[] segments = new ByteBuffer[count];
+
+        ReadableByteChannel channel = Channels.newChannel(inputStream);
+        AudioBufferPool pool = AudioBufferPool.getInstance();
+        long left = size;
+        try {
+            for (int i = 0; i < count; i++) {
+                ByteBuffer segment = pool.acquire((int) Math.min(segmentSize, left));
+                segments[i] = segment;
+                while (segment.hasRemaining()) {
+                    if (channel.read(segment) < 0) {
+                        throw new IOException("Недостаточно данных в чанке");
+                    }
+                }
+                segment.flip();
+                left -= segment.remaining();
+            }
+        } catch (IOException | RuntimeException e) {
+            for (ByteBuffer segment : segments) {
+                if (segment != null) pool.release(segment);
+            }
+            throw e;
+        }
+        return new DataChunk(segments);
+    }
+
+    private void skipPadding(long size) throws IOException {
+        if ((size & 1) != 0) {
+            inputStream.skip(1); // pad byte may be missed at end of file
+        }
     }
 
     public void validateRiffHeader() throws IOException {
         String riff = readString(4);
-        if (!"RIFF".equals(riff)) throw new IOException("Файл не WAV");
+        if (!WavChunkId.RIFF.getChunk().equals(riff) && !isRf64(riff)) throw new IOException("Файл не WAV");
         int size = readInt(4);
         String wave = readString(4);
         if (!"WAVE".equals(wave)) throw new IOException("Не поддерживается тип файла");
     }
 
+    public Ds64Chunk getDs64Chunk() {
+        return ds64Chunk;
+    }
+
     private int readInt(int size) throws IOException {
         byte[] bytes = new byte[size];
-        int r = inputStream.read(bytes);
+        int r = inputStream.readNBytes(bytes, 0, size);
         if (r != size) throw new IOException("Недостаточно данных для чтения int");
         return ExportUtils.bytesToInt(bytes, 0, size);
     }
 
     private String readString(int size) throws IOException {
         byte[] bytes = new byte[size];
-        int r = inputStream.read(bytes);
+        int r = inputStream.readNBytes(bytes, 0, size);
         if (r != size) throw new IOException("Недостаточно данных для чтения строки");
         return new String(bytes, StandardCharsets.ISO_8859_1);
     }
@@ -136,4 +267,4 @@ public class WavChunkReader implements AutoCloseable {
     public void close() throws Exception {
         inputStream.close();
     }
-}
\ No newline at end of file
+}
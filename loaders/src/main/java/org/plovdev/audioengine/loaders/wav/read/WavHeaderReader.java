@@ -0,0 +1,138 @@
+package org.plovdev.audioengine.loaders.wav.read;
+
+import org.plovdev.audioengine.loaders.TrackProbe;
+import org.plovdev.audioengine.loaders.wav.chunks.Ds64Chunk;
+import org.plovdev.audioengine.loaders.wav.chunks.FormatChunk;
+import org.plovdev.audioengine.loaders.wav.struct.WavChunkId;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Reads only RIFF and fmt headers of WAV source.
+ * Audio data is never read: for seekable channels it skipped by positioning,
+ * for other channels by discarding bytes up to data chunk.
+ */
+public class WavHeaderReader {
+    private static final int SKIP_BUFFER_SIZE = 8192;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+    private long position = 0;
+    private FormatChunk formatChunk;
+
+    public WavHeaderReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Reads headers up to the data chunk.
+     *
+     * @return probe result, with data offset relative to source start
+     * @throws IOException if source isn't valid WAV
+     */
+    public TrackProbe probe() throws IOException {
+        readHeader(12);
+        String riff = readId();
+        header.getInt();
+        String wave = readId();
+        if (!WavChunkId.RIFF.getChunk().equals(riff) && !WavChunkReader.isRf64(riff)) throw new IOException("Файл не WAV");
+        if (!WavChunkId.WAVE.getChunk().equals(wave)) throw new IOException("Не поддерживается тип файла");
+
+        formatChunk = null;
+        Ds64Chunk ds64Chunk = null;
+        while (true) {
+            readHeader(8);
+            String id = readId();
+            long size = Integer.toUnsignedLong(header.getInt());
+            WavChunkId chunkId = WavChunkId.fromString(id);
+
+            if (chunkId == WavChunkId.FORMAT) {
+                formatChunk = WavChunkReader.readFormatChunk(readBody(size));
+            } else if (chunkId == WavChunkId.DS64) {
+                ds64Chunk = WavChunkReader.readDs64Chunk(readBody(size));
+            } else if (chunkId == WavChunkId.DATA) {
+                if (formatChunk == null) {
+                    throw new IOException("Data chunk found before fmt chunk");
+                }
+                if (ds64Chunk != null && size == WavChunkReader.RF64_SIZE_MARKER) {
+                    size = ds64Chunk.getDataSize();
+                }
+                return createProbe(formatChunk, position, size);
+            } else {
+                skip(size + (size & 1));
+            }
+        }
+    }
+
+    /**
+     * @return fmt chunk, read by last {@link #probe()}
+     */
+    public FormatChunk getFormatChunk() {
+        return formatChunk;
+    }
+
+    private static TrackProbe createProbe(FormatChunk formatChunk, long dataOffset, long dataSize) {
+        TrackFormat format = formatChunk.getFormat();
+        Duration duration = TrackFormatUtils.calculateDuration(format, formatChunk.frameCount(dataSize));
+        return new TrackProbe(format, dataOffset, dataSize, duration);
+    }
+
+    private byte[] readBody(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Слишком большой чанк заголовка");
+        }
+        ByteBuffer body = ByteBuffer.allocate((int) size);
+        readFully(body);
+        skip(size & 1);
+        return body.array();
+    }
+
+    private void readHeader(int size) throws IOException {
+        header.clear().limit(size);
+        readFully(header);
+        header.flip();
+    }
+
+    private String readId() {
+        byte[] id = new byte[4];
+        header.get(id);
+        return new String(id, StandardCharsets.ISO_8859_1);
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Недостаточно данных в заголовке");
+            }
+        }
+        position += buffer.position();
+    }
+
+    private void skip(long bytes) throws IOException {
+        if (bytes <= 0) return;
+
+        if (channel instanceof SeekableByteChannel seekable) {
+            seekable.position(seekable.position() + bytes);
+            position += bytes;
+            return;
+        }
+
+        ByteBuffer discard = ByteBuffer.allocate((int) Math.min(SKIP_BUFFER_SIZE, bytes));
+        long left = bytes;
+        while (left > 0) {
+            discard.clear().limit((int) Math.min(discard.capacity(), left));
+            int r = channel.read(discard);
+            if (r < 0) throw new IOException("Недостаточно данных в чанке");
+            left -= r;
+        }
+        position += bytes;
+    }
+}
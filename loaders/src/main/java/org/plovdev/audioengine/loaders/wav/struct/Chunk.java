@@ -4,13 +4,13 @@ import java.util.Objects;
 
 public class Chunk {
     protected WavChunkId chunk;
-    protected int chunkSize;
+    protected long chunkSize;
     protected byte[] body;
 
     public Chunk() {
     }
 
-    public Chunk(WavChunkId chunk, int size, byte[] bytes) {
+    public Chunk(WavChunkId chunk, long size, byte[] bytes) {
         this.chunk = chunk;
         this.chunkSize = size;
         body = bytes;
@@ -24,11 +24,11 @@ public class Chunk {
         this.chunk = chunk;
     }
 
-    public int getSize() {
+    public long getSize() {
         return chunkSize;
     }
 
-    public void setSize(int size) {
+    public void setSize(long size) {
         this.chunkSize = size;
     }
 
@@ -40,11 +40,11 @@ public class Chunk {
         this.body = body;
     }
 
-    public int getChunkSize() {
+    public long getChunkSize() {
         return chunkSize;
     }
 
-    public void setChunkSize(int chunkSize) {
+    public void setChunkSize(long chunkSize) {
         this.chunkSize = chunkSize;
     }
 
@@ -1,8 +1,8 @@
 package org.plovdev.audioengine.loaders.wav.struct;
 
 public enum WavChunkId {
-    RIFF("RIFF"), WAVE("WAVE"), NULL("NULL"),
-    DATA("data"), FORMAT("fmt "), INFO("info");
+    RIFF("RIFF"), RF64("RF64"), BW64("BW64"), WAVE("WAVE"), NULL("NULL"),
+    DATA("data"), FORMAT("fmt "), INFO("info"), DS64("ds64");
 
 
     private final String chunk;
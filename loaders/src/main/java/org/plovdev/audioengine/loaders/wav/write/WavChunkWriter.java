@@ -1,60 +1,312 @@
 package org.plovdev.audioengine.loaders.wav.write;
 
 import org.plovdev.audioengine.exceptions.TrackExportException;
+import org.plovdev.audioengine.loaders.wav.chunks.Ds64Chunk;
+import org.plovdev.audioengine.loaders.wav.chunks.FormatChunk;
+import org.plovdev.audioengine.tracks.format.ImaAdpcmCodec;
 import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
-import static org.plovdev.audioengine.loaders.ExportUtils.intToLittleEndian;
-import static org.plovdev.audioengine.loaders.ExportUtils.shortToLittleEndian;
 import static org.plovdev.audioengine.loaders.wav.struct.WavChunkId.*;
 
+/**
+ * Writes WAV chunks into channel.
+ * All header fields collected in one preallocated buffer, and flushed
+ * together with track data by one gathering write.
+ * Files larger than 4 GB are written in RF64 layout, with 64-bit sizes in ds64 chunk.
+ */
 public class WavChunkWriter {
-    private final OutputStream outputStream;
+    private static final int HEADER_CAPACITY = 128;
+    private static final int FORMAT_CHUNK_SIZE = 16;
+    private static final int FORMAT_CHUNK_EX_SIZE = 18;
+    private static final int FORMAT_CHUNK_ADPCM_SIZE = 20;
+    private static final int FORMAT_CHUNK_EXTENSIBLE_SIZE = 40;
+    // KSDATAFORMAT_SUBTYPE GUID tail, after 2-byte format tag
+    private static final byte[] SUBFORMAT_GUID_TAIL = {
+            0x00, 0x00, 0x00, 0x00, 0x10, 0x00, (byte) 0x80, 0x00, 0x00, (byte) 0xAA, 0x00, 0x38, (byte) 0x9B, 0x71
+    };
+    private static final long MAX_RIFF_SIZE = 0xFFFFFFFFL;
+    private static final long SIZE_MARKER = 0xFFFFFFFFL;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocateDirect(HEADER_CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer padding = ByteBuffer.allocateDirect(1);
+    private boolean rf64 = false;
+    private boolean forceRf64 = false;
+    private int channelMask = 0;
+    private int validBits = 0;
+    private int blockAlign = 0;
 
     public WavChunkWriter(OutputStream stream) {
-        this.outputStream = stream;
+        this(Channels.newChannel(stream));
+    }
+
+    public WavChunkWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Calculate RIFF chunk size for givven format and data size.
+     * Includes ds64 chunk, when file needs RF64 layout.
+     */
+    public static long riffSize(TrackFormat format, long dataSize) {
+        return riffSize(format, 0, dataSize);
+    }
+
+    public static long riffSize(TrackFormat format, int channelMask, long dataSize) {
+        return riffSize(format, channelMask, 0, dataSize);
+    }
+
+    public static long riffSize(TrackFormat format, int channelMask, int validBits, long dataSize) {
+        long size = 4 + (8 + formatChunkSize(format, channelMask, validBits)) + (8 + dataSize + (dataSize & 1));
+        return size > MAX_RIFF_SIZE ? size + 8 + Ds64Chunk.BODY_SIZE : size;
+    }
+
+    /**
+     * Check, needs data of givven size RF64 layout (RIFF size doesn't fit into 32 bits).
+     */
+    public static boolean isRf64(TrackFormat format, long dataSize) {
+        return riffSize(format, dataSize) > MAX_RIFF_SIZE;
+    }
+
+    /**
+     * WAVE_FORMAT_EXTENSIBLE is written for multichannel tracks,
+     * and when channel mask is set explicitly.
+     */
+    public static boolean isExtensible(TrackFormat format, int channelMask) {
+        return isExtensible(format, channelMask, 0);
+    }
+
+    /**
+     * Same as {@link #isExtensible(TrackFormat, int)}, and also when valid bits
+     * are less than sample container.
+     */
+    public static boolean isExtensible(TrackFormat format, int channelMask, int validBits) {
+        return format.audioCodec() != TrackFormat.AudioCodec.ADPCM
+                && (channelMask != 0 || format.channels() > 2 || validBits(format, validBits) != format.bitsPerSample());
+    }
+
+    private static int validBits(TrackFormat format, int validBits) {
+        return validBits > 0 && validBits < format.bitsPerSample() ? validBits : format.bitsPerSample();
+    }
+
+    private static int formatChunkSize(TrackFormat format, int channelMask, int validBits) {
+        if (format.audioCodec() == TrackFormat.AudioCodec.ADPCM) return FORMAT_CHUNK_ADPCM_SIZE;
+        if (isExtensible(format, channelMask, validBits)) return FORMAT_CHUNK_EXTENSIBLE_SIZE;
+        return FormatChunk.formatTag(format.audioCodec()) == FormatChunk.WAVE_FORMAT_PCM ? FORMAT_CHUNK_SIZE : FORMAT_CHUNK_EX_SIZE;
+    }
+
+    /**
+     * Default speaker positions: first {@code channels} positions of mask.
+     */
+    private static int defaultChannelMask(int channels) {
+        return channels >= 32 ? -1 : (1 << channels) - 1;
+    }
+
+    /**
+     * Set speaker positions bit mask for next written fmt chunk.
+     * Must be set before {@link #writeRiffHeader(TrackFormat, long)}.
+     *
+     * @param channelMask WAVE_FORMAT_EXTENSIBLE channel mask, 0 for default
+     */
+    public void setChannelMask(int channelMask) {
+        this.channelMask = channelMask;
+    }
+
+    public int getChannelMask() {
+        return channelMask;
+    }
+
+    /**
+     * Set significant bits of every sample for next written fmt chunk.
+     * Less than container bits, it's written as WAVE_FORMAT_EXTENSIBLE.
+     *
+     * @param validBits valid bits per sample, 0 for whole container
+     */
+    public void setValidBits(int validBits) {
+        this.validBits = validBits;
+    }
+
+    public int getValidBits() {
+        return validBits;
+    }
+
+    /**
+     * Set block size of IMA ADPCM data for next written fmt chunk.
+     *
+     * @param blockAlign block size in bytes, 0 for default
+     */
+    public void setBlockAlign(int blockAlign) {
+        this.blockAlign = blockAlign;
+    }
+
+    public int getBlockAlign() {
+        return blockAlign;
+    }
+
+    /**
+     * Write RF64 layout even when sizes fit into 32 bits,
+     * for example when file may grow over 4 GB later.
+     *
+     * @param forceRf64 always write RF64
+     */
+    public void setForceRf64(boolean forceRf64) {
+        this.forceRf64 = forceRf64;
+    }
+
+    public boolean isForceRf64() {
+        return forceRf64;
+    }
+
+    public void writeRiffHeader(TrackFormat format, long dataSize) {
+        long riffSize = riffSize(format, channelMask, validBits, dataSize);
+        rf64 = forceRf64 || riffSize > MAX_RIFF_SIZE;
+        if (rf64 && riffSize <= MAX_RIFF_SIZE) {
+            riffSize += 8 + Ds64Chunk.BODY_SIZE;
+        }
+
+        if (rf64) {
+            putId(RF64.getChunk());
+            header.putInt((int) SIZE_MARKER);
+            putId(WAVE.getChunk());
+
+            putId(DS64.getChunk());
+            header.putInt(Ds64Chunk.BODY_SIZE);
+            header.putLong(riffSize);
+            header.putLong(dataSize);
+            header.putLong(format.audioCodec() == TrackFormat.AudioCodec.ADPCM
+                    ? ImaAdpcmCodec.frameCount(dataSize, adpcmBlockAlign(format), format.channels())
+                    : TrackFormatUtils.calculateFrameCount(format, dataSize));
+            header.putInt(0); // size table length
+        } else {
+            putId(RIFF.getChunk());
+            header.putInt((int) riffSize);
+            putId(WAVE.getChunk());
+        }
+    }
+
+    private int adpcmBlockAlign(TrackFormat format) {
+        return blockAlign != 0 ? blockAlign : ImaAdpcmCodec.defaultBlockAlign(format.channels(), format.sampleRate());
     }
 
     public void writeFormat(TrackFormat format) {
-        try {
-            int channels = format.channels();
-            int sampleRate = format.sampleRate();
-            int bitDepth = format.bitsPerSample();
-            boolean floatFormat = bitDepth == 32;
-
-            int blockAlign = channels * (bitDepth / 8);
-            int byteRate = sampleRate * blockAlign;
-
-            outputStream.write(FORMAT.getChunk().getBytes());
-            outputStream.write(intToLittleEndian(16));
-
-            outputStream.write(shortToLittleEndian((short) (floatFormat ? 3 : 1))); // PCM=1, float=3
-            outputStream.write(shortToLittleEndian((short) channels));
-            outputStream.write(intToLittleEndian(sampleRate));
-            outputStream.write(intToLittleEndian(byteRate));
-            outputStream.write(shortToLittleEndian((short) blockAlign));
-            outputStream.write(shortToLittleEndian((short) bitDepth));
-        } catch (Exception e) {
-            throw new TrackExportException(e.getMessage());
+        int channels = format.channels();
+        int sampleRate = format.sampleRate();
+        int bitDepth = format.bitsPerSample();
+        int formatTag = FormatChunk.formatTag(format.audioCodec());
+        if (formatTag < 0) {
+            throw new TrackExportException("Codec " + format.audioCodec() + " can't be stored in WAV");
+        }
+
+        int blockAlign = channels * (bitDepth / 8);
+        int byteRate = sampleRate * blockAlign;
+        int samplesPerBlock = 0;
+        if (format.audioCodec() == TrackFormat.AudioCodec.ADPCM) {
+            blockAlign = adpcmBlockAlign(format);
+            samplesPerBlock = ImaAdpcmCodec.samplesPerBlock(blockAlign, channels);
+            byteRate = (int) ((long) sampleRate * blockAlign / samplesPerBlock);
+        }
+        int chunkSize = formatChunkSize(format, channelMask, validBits);
+
+        putId(FORMAT.getChunk());
+        header.putInt(chunkSize);
+
+        header.putShort((short) (chunkSize == FORMAT_CHUNK_EXTENSIBLE_SIZE ? FormatChunk.WAVE_FORMAT_EXTENSIBLE : formatTag));
+        header.putShort((short) channels);
+        header.putInt(sampleRate);
+        header.putInt(byteRate);
+        header.putShort((short) blockAlign);
+        header.putShort((short) bitDepth);
+
+        if (chunkSize == FORMAT_CHUNK_EX_SIZE) {
+            header.putShort((short) 0); // cbSize
+        } else if (chunkSize == FORMAT_CHUNK_ADPCM_SIZE) {
+            header.putShort((short) 2); // cbSize
+            header.putShort((short) samplesPerBlock);
+        } else if (chunkSize == FORMAT_CHUNK_EXTENSIBLE_SIZE) {
+            header.putShort((short) 22); // cbSize
+            header.putShort((short) validBits(format, validBits));
+            header.putInt(channelMask != 0 ? channelMask : defaultChannelMask(channels));
+            header.putShort((short) formatTag);
+            header.put(SUBFORMAT_GUID_TAIL);
         }
     }
 
+    /**
+     * Write data chunk header, and flush collected header with track data.
+     *
+     * @param trackData track bytes from position to limit
+     * @param format track format
+     */
     public void writeDataChunk(ByteBuffer trackData, TrackFormat format) {
-        try {
-            int bitDepth = format.bitsPerSample();
-            int dataChunkSize = trackData.remaining();
+        writeDataChunk(List.of(trackData), format);
+    }
+
+    /**
+     * Write data chunk header, and flush collected header with all track segments
+     * by one gathering write.
+     *
+     * @param segments track bytes, every segment from position to limit
+     * @param format track format
+     */
+    public void writeDataChunk(List<ByteBuffer> segments, TrackFormat format) {
+        long dataChunkSize = 0;
+        for (ByteBuffer segment : segments) {
+            dataChunkSize += segment.remaining();
+        }
 
-            outputStream.write(DATA.getChunk().getBytes());
-            outputStream.write(intToLittleEndian(dataChunkSize));
+        putId(DATA.getChunk());
+        header.putInt(rf64 ? (int) SIZE_MARKER : (int) dataChunkSize);
+        header.flip();
 
-            byte[] bytes = new byte[dataChunkSize];
-            trackData.get(bytes);
+        // RIFF chunks are word aligned
+        padding.clear().limit((int) (dataChunkSize & 1));
 
-            outputStream.write(bytes);
-        } catch (Exception e) {
+        ByteBuffer[] buffers = new ByteBuffer[segments.size() + 2];
+        buffers[0] = header;
+        for (int i = 0; i < segments.size(); i++) {
+            buffers[i + 1] = segments.get(i);
+        }
+        buffers[buffers.length - 1] = padding;
+
+        try {
+            writeFully(buffers);
+        } catch (IOException e) {
             throw new TrackExportException(e.getMessage());
+        } finally {
+            header.clear();
+        }
+    }
+
+    private void writeFully(ByteBuffer... buffers) throws IOException {
+        if (channel instanceof GatheringByteChannel gathering) {
+            long remaining = 0;
+            for (ByteBuffer buffer : buffers) {
+                remaining += buffer.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= gathering.write(buffers);
+            }
+        } else {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
         }
     }
-}
\ No newline at end of file
+
+    private void putId(String id) {
+        header.put(id.getBytes(StandardCharsets.US_ASCII));
+    }
+}
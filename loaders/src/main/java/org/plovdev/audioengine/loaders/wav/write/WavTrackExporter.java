@@ -9,8 +9,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
-
-import static org.plovdev.audioengine.loaders.ExportUtils.intToLittleEndian;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
 
 public class WavTrackExporter implements TrackExporter {
     public static final String RIFF = "RIFF";
@@ -20,27 +22,32 @@ public class WavTrackExporter implements TrackExporter {
 
     @Override
     public void save(Track track, OutputStream outputStream) {
+        save(track, Channels.newChannel(outputStream));
+    }
+
+    @Override
+    public void save(Track track, WritableByteChannel channel) {
         try {
             TrackFormat format = track.getFormat();
-            int channels = format.channels();
-            int sampleRate = format.sampleRate();
-            int bitDepth = format.bitsPerSample();
-            ByteBuffer trackData = track.getTrackData().rewind();
-
-            int blockAlign = channels * (bitDepth / 8);
-            int byteRate = sampleRate * blockAlign;
-            int dataChunkSize = trackData.remaining();
-
-            outputStream.write(RIFF.getBytes());
-            outputStream.write(intToLittleEndian(36 + dataChunkSize));
-            outputStream.write(WAVE.getBytes());
-
-            WavChunkWriter chunkWriter = new WavChunkWriter(outputStream);
-
+            List<ByteBuffer> segments = new ArrayList<>(track.getSegmentCount());
+            for (ByteBuffer segment : track.getSegments()) {
+                segments.add(segment.duplicate().rewind());
+            }
+
+            WavChunkWriter chunkWriter = new WavChunkWriter(channel);
+            if (track.getMetaData() != null) {
+                track.getMetaData().getChannelMask().ifPresent(chunkWriter::setChannelMask);
+                track.getMetaData().getValidBits().ifPresent(chunkWriter::setValidBits);
+                track.getMetaData().getBlockAlign().ifPresent(chunkWriter::setBlockAlign);
+            }
+
+            chunkWriter.writeRiffHeader(format, track.getByteLength());
             chunkWriter.writeFormat(format);
-            chunkWriter.writeDataChunk(trackData, format);
+            chunkWriter.writeDataChunk(segments, format);
+        } catch (TrackExportException e) {
+            throw e;
         } catch (Exception e) {
             throw new TrackExportException(e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+package test.plovdev.audioengine.loaders;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.LocatorIndex;
+import org.plovdev.audioengine.loaders.PathLocator;
+import org.plovdev.audioengine.loaders.TrackLoaderRegistry;
+import org.plovdev.audioengine.loaders.flac.FlacTrackLoaderManager;
+import org.plovdev.audioengine.loaders.wav.WavTrackLoaderManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SharedLocatorIndexTest {
+    @Test
+    public void testManagersShareRegistryIndex() throws Exception {
+        Path root = Files.createTempDirectory("root");
+        Files.write(root.resolve("click.wav"), new byte[1]);
+
+        TrackLoaderRegistry registry = new TrackLoaderRegistry();
+        WavTrackLoaderManager wav = new WavTrackLoaderManager();
+        FlacTrackLoaderManager flac = new FlacTrackLoaderManager();
+        registry.register(wav);
+        registry.register(flac);
+
+        try (LocatorIndex index = registry.getLocatorIndex()) {
+            assertSame(index, wav.getTrackLoader().getLocatorIndex());
+            assertSame(index, flac.getTrackLoader().getLocatorIndex());
+
+            // один и тот же корень, зарегистрированный у каждого менеджера, индексируется один раз
+            wav.registerPathLocator(new PathLocator(root));
+            flac.registerPathLocator(new PathLocator(root));
+            assertEquals(List.of(root.toAbsolutePath().normalize()), index.getRoots());
+            assertEquals(root.resolve("click.wav"), index.resolve("click.wav").orElseThrow());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package test.plovdev.audioengine.loaders.aiff;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.aiff.AiffChunks;
+import org.plovdev.audioengine.loaders.aiff.AiffTrackExporter;
+import org.plovdev.audioengine.loaders.aiff.AiffTrackLoader;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AiffTrackLoaderTest {
+    @Test
+    public void testExtendedSampleRate() {
+        assertEquals("400eac44000000000000", HexFormat.of().formatHex(AiffChunks.writeExtended(44100)));
+        for (int rate : new int[]{8000, 11025, 48000, 96000, 192000}) {
+            assertEquals(rate, AiffChunks.readExtended(AiffChunks.writeExtended(rate)));
+        }
+    }
+
+    @Test
+    public void testExportAndMap() throws Exception {
+        TrackFormat format = new TrackFormat("wav", 2, 16, 44100, true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.PCM16);
+        ByteBuffer data = ByteBuffer.allocateDirect(1000 * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 2000; i++) data.putShort((short) (i * 31 - 30000));
+        TrackMetadata metadata = new TrackMetadata();
+        metadata.setTitle("Pluck");
+        metadata.setArtist("Someone");
+        Track track = new Track(data.flip(), TrackFormatUtils.calculateDuration(format, 1000), format, metadata);
+
+        Path file = Files.createTempFile("export", ".aiff");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            new AiffTrackExporter().save(track, out);
+        }
+
+        AiffTrackLoader loader = new AiffTrackLoader();
+        Track mapped = loader.loadTrack(file.toString());
+        Track streamed = loader.loadTrack(new ByteArrayInputStream(Files.readAllBytes(file)));
+        assertInstanceOf(MappedByteBuffer.class, mapped.getTrackData());
+        assertEquals(ByteOrder.BIG_ENDIAN, mapped.getFormat().byteOrder());
+        assertEquals(1000, mapped.getFrameCount());
+        assertEquals("Pluck", mapped.getMetaData().getTitle().orElseThrow());
+        assertEquals("Someone", mapped.getMetaData().getArtist().orElseThrow());
+        assertEquals(mapped.getTrackData(), streamed.getTrackData());
+
+        ByteBuffer samples = mapped.getTrackData().order(ByteOrder.BIG_ENDIAN);
+        for (int i = 0; i < 2000; i++) {
+            assertEquals((short) (i * 31 - 30000), samples.getShort(i * 2));
+        }
+    }
+
+    @Test
+    public void testUnsignedAndFloat() {
+        AiffTrackLoader loader = new AiffTrackLoader();
+
+        // 8-bit unsigned mono with odd data size, so SSND needs a pad byte
+        TrackFormat unsigned = new TrackFormat("wav", 1, 8, 8000, false, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.PCM8);
+        ByteBuffer bytes = ByteBuffer.allocateDirect(255);
+        for (int i = 0; i < 255; i++) bytes.put((byte) i);
+        Track pcm8 = loader.loadTrack(new ByteArrayInputStream(export(new Track(bytes.flip(), TrackFormatUtils.calculateDuration(unsigned, 255), unsigned, null))));
+        assertTrue(pcm8.getFormat().signed());
+        for (int i = 0; i < 255; i++) {
+            assertEquals(i - 128, pcm8.getTrackData().get(i));
+        }
+
+        TrackFormat floats = new TrackFormat("wav", 1, 32, 48000, true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.FLOAT32);
+        ByteBuffer values = ByteBuffer.allocateDirect(100 * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 100; i++) values.putFloat(i / 100f - 0.5f);
+        Track float32 = loader.loadTrack(new ByteArrayInputStream(export(new Track(values.flip(), TrackFormatUtils.calculateDuration(floats, 100), floats, null))));
+        assertEquals(TrackFormat.AudioCodec.FLOAT32, float32.getFormat().audioCodec());
+        assertEquals(48000, float32.getFormat().sampleRate());
+        ByteBuffer loaded = float32.getTrackData().order(ByteOrder.BIG_ENDIAN);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i / 100f - 0.5f, loaded.getFloat(i * 4));
+        }
+    }
+
+    private static byte[] export(Track track) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AiffTrackExporter().save(track, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,149 @@
+package test.plovdev.audioengine.loaders.flac;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.flac.FlacEncoderSettings;
+import org.plovdev.audioengine.loaders.flac.FlacStreamInfo;
+import org.plovdev.audioengine.loaders.flac.FlacTrackExporter;
+import org.plovdev.audioengine.loaders.flac.FlacTrackLoader;
+import org.plovdev.audioengine.loaders.flac.FlacTrackSource;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlacTrackExporterTest {
+    @Test
+    public void testRoundTrip() throws Exception {
+        Track track = signal(2, 16, 44100, ByteOrder.LITTLE_ENDIAN, true, 44100 + 1234);
+        byte[] pcm = bytes(track.getTrackData());
+        FlacTrackLoader loader = new FlacTrackLoader();
+
+        for (int level = 0; level <= FlacEncoderSettings.MAX_LEVEL; level++) {
+            FlacTrackExporter exporter = new FlacTrackExporter();
+            exporter.setCompressionLevel(level);
+
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            exporter.save(track, stream);
+            Path file = Files.createTempFile("export", ".flac");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                exporter.save(track, channel);
+            }
+            byte[] flac = stream.toByteArray();
+            assertArrayEquals(flac, Files.readAllBytes(file), "level " + level);
+            assertTrue(flac.length < pcm.length * 0.8, "level " + level + " size " + flac.length);
+
+            Track decoded = loader.loadTrack(file.toString());
+            assertArrayEquals(pcm, bytes(decoded.getTrackData()), "level " + level);
+            try (FlacTrackSource source = loader.openSource(new ByteArrayInputStream(flac))) {
+                FlacStreamInfo info = source.getHeader().getStreamInfo();
+                assertArrayEquals(MessageDigest.getInstance("MD5").digest(pcm), info.md5());
+                assertEquals(44100 + 1234, info.totalSamples());
+            }
+        }
+    }
+
+    @Test
+    public void testSampleFormats() throws Exception {
+        FlacTrackLoader loader = new FlacTrackLoader();
+        Track[] tracks = {
+                signal(1, 8, 8000, ByteOrder.LITTLE_ENDIAN, false, 5000),
+                signal(3, 24, 96000, ByteOrder.BIG_ENDIAN, true, 10000),
+                signal(2, 32, 48000, ByteOrder.LITTLE_ENDIAN, true, 7000),
+                signal(2, 16, 22050, ByteOrder.BIG_ENDIAN, false, 15)
+        };
+        for (Track track : tracks) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new FlacTrackExporter().save(track, out);
+            Track decoded = loader.loadTrack(new ByteArrayInputStream(out.toByteArray()));
+
+            TrackFormat format = track.getFormat();
+            int bytes = format.bitsPerSample() / 8;
+            ByteBuffer expected = track.getTrackData().order(format.byteOrder());
+            ByteBuffer actual = decoded.getTrackData().order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(track.getByteLength(), decoded.getByteLength(), format.toString());
+            for (int i = 0; i < track.getByteLength(); i += bytes) {
+                assertEquals(sample(expected, i, format), sample(actual, i, decoded.getFormat()), format + " at " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testSeekTable() throws Exception {
+        int frames = 8000 * 25;
+        Track track = signal(1, 16, 8000, ByteOrder.LITTLE_ENDIAN, true, frames);
+        Path file = Files.createTempFile("seek", ".flac");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            new FlacTrackExporter().save(track, channel);
+        }
+
+        ByteBuffer pcm = track.getTrackData().order(ByteOrder.LITTLE_ENDIAN);
+        try (FlacTrackSource source = new FlacTrackLoader().openSource(file.toString())) {
+            assertEquals(3, source.getHeader().getSeekTable().size());
+            ByteBuffer buffer = ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN);
+            for (long target : new long[]{8000 * 21 + 7, 5, 8000 * 10, frames - 1}) {
+                source.seek(target);
+                assertEquals(1, source.read(buffer.clear()));
+                assertEquals(pcm.getShort((int) target * 2), buffer.getShort(0));
+            }
+        }
+    }
+
+    private static int sample(ByteBuffer buffer, int offset, TrackFormat format) {
+        int bits = format.bitsPerSample();
+        int raw = 0;
+        for (int b = 0; b < bits / 8; b++) {
+            int shift = format.byteOrder() == ByteOrder.BIG_ENDIAN ? bits / 8 - 1 - b : b;
+            raw |= (buffer.get(offset + b) & 0xFF) << (8 * shift);
+        }
+        if (!format.signed()) raw ^= 1 << (bits - 1);
+        return (raw << (32 - bits)) >> (32 - bits);
+    }
+
+    /**
+     * Sine chord with noise, different for every channel.
+     */
+    private static Track signal(int channels, int bits, int rate, ByteOrder order, boolean signed, int frames) {
+        TrackFormat.AudioCodec codec = switch (bits) {
+            case 8 -> TrackFormat.AudioCodec.PCM8;
+            case 16 -> TrackFormat.AudioCodec.PCM16;
+            case 24 -> TrackFormat.AudioCodec.PCM24;
+            default -> TrackFormat.AudioCodec.PCM32;
+        };
+        TrackFormat format = new TrackFormat("wav", channels, bits, rate, signed, order, codec);
+        int bytes = bits / 8;
+        ByteBuffer data = ByteBuffer.allocateDirect(frames * channels * bytes);
+        Random random = new Random(bits * 31L + channels);
+        double amplitude = Math.pow(2, bits - 1) * 0.4;
+        for (int i = 0; i < frames; i++) {
+            for (int c = 0; c < channels; c++) {
+                double t = (double) i / rate;
+                double value = Math.sin(2 * Math.PI * 440 * t + c) + 0.5 * Math.sin(2 * Math.PI * 1250 * t) + 0.02 * random.nextGaussian();
+                long sample = Math.round(value * amplitude * 0.6);
+                if (!signed) sample ^= 1L << (bits - 1);
+                for (int b = 0; b < bytes; b++) {
+                    int shift = order == ByteOrder.BIG_ENDIAN ? bytes - 1 - b : b;
+                    data.put((byte) (sample >> (8 * shift)));
+                }
+            }
+        }
+        return new Track(data.flip(), TrackFormatUtils.calculateDuration(format, frames), format, null);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
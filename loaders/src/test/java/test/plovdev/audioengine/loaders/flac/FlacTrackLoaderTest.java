@@ -0,0 +1,168 @@
+package test.plovdev.audioengine.loaders.flac;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.exceptions.TrackLoadException;
+import org.plovdev.audioengine.loaders.flac.FlacTrackLoader;
+import org.plovdev.audioengine.loaders.flac.FlacTrackSource;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlacTrackLoaderTest {
+    // Example 1 from RFC 9639: one stereo frame with verbatim subframes and wasted bits
+    private static final byte[] RFC_EXAMPLE = HexFormat.of().parseHex(
+            "664c614380000022100010000000" + "0f00000f0ac442f0000000013e84b418"
+                    + "07dc690307586a3dad1a2e0f" + "fff869180000bf0358fd03128baa9a");
+
+    private static final int BLOCK_SIZE = 4096;
+
+    @Test
+    public void testRfcExample() throws Exception {
+        Path file = Files.write(Files.createTempFile("example", ".flac"), RFC_EXAMPLE);
+        FlacTrackLoader loader = new FlacTrackLoader();
+
+        for (Track track : new Track[]{loader.loadTrack(file.toString()), loader.loadTrack(new ByteArrayInputStream(RFC_EXAMPLE))}) {
+            TrackFormat format = track.getFormat();
+            assertEquals(TrackFormat.AudioCodec.PCM16, format.audioCodec());
+            assertEquals(2, format.channels());
+            assertEquals(44100, format.sampleRate());
+            assertEquals(1, track.getFrameCount());
+
+            ByteBuffer data = track.getTrackData().order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(25588, data.getShort(0));
+            assertEquals(10416, data.getShort(2));
+        }
+    }
+
+    @Test
+    public void testParallelDecodeMatchesStream() throws Exception {
+        // ~1.6 MB of frames, split into several decode ranges
+        int frames = BLOCK_SIZE * 100 + 123;
+        byte[] flac = verbatimStream(frames, false);
+        Path file = Files.write(Files.createTempFile("long", ".flac"), flac);
+        FlacTrackLoader loader = new FlacTrackLoader();
+
+        Track parallel = loader.loadTrack(file.toString());
+        Track streamed = loader.loadTrack(new ByteArrayInputStream(flac));
+        assertEquals(frames, parallel.getFrameCount());
+        assertEquals(frames, streamed.getFrameCount());
+
+        ByteBuffer data = parallel.getTrackData().order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames; i += 997) {
+            assertEquals(sample(i, 0), data.getShort(i * 4));
+            assertEquals(sample(i, 1), data.getShort(i * 4 + 2));
+        }
+        assertEquals(parallel.getTrackData(), streamed.getTrackData());
+    }
+
+    @Test
+    public void testMissingFramesFail() throws Exception {
+        byte[] flac = verbatimStream(BLOCK_SIZE * 100 + 123, false);
+        int last = flac.length - 2;
+        while ((flac[last] & 0xFF) != 0xFF || (flac[last + 1] & 0xFF) != 0xF8) {
+            last--;
+        }
+        // последний кадр отрезан целиком, STREAMINFO по-прежнему говорит о всех сэмплах
+        Path file = Files.write(Files.createTempFile("truncated", ".flac"), Arrays.copyOf(flac, last));
+
+        TrackLoadException e = assertThrows(TrackLoadException.class, () -> new FlacTrackLoader().loadTrack(file.toString()));
+        assertTrue(e.getMessage().contains("of " + (BLOCK_SIZE * 100 + 123) + " samples"), e.getMessage());
+    }
+
+    @Test
+    public void testSeek() throws Exception {
+        int frames = BLOCK_SIZE * 40;
+        FlacTrackLoader loader = new FlacTrackLoader();
+
+        for (boolean seekTable : new boolean[]{true, false}) {
+            Path file = Files.write(Files.createTempFile("seek", ".flac"), verbatimStream(frames, seekTable));
+            try (FlacTrackSource source = loader.openSource(file.toString())) {
+                assertTrue(source.isSeekable());
+                assertEquals(frames, source.getFrameLength());
+
+                ByteBuffer buffer = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+                for (long target : new long[]{BLOCK_SIZE * 37L + 5, 17, BLOCK_SIZE * 12L, frames - 3}) {
+                    source.seek(target);
+                    assertEquals(target, source.getFramePosition());
+                    buffer.clear();
+                    int read = source.read(buffer);
+                    assertEquals(Math.min(10, frames - target), read);
+                    assertEquals(sample((int) target, 0), buffer.getShort(0));
+                    assertEquals(sample((int) target, 1), buffer.getShort(2));
+                }
+                assertEquals(-1, source.read(buffer.clear()));
+            }
+        }
+    }
+
+    private static short sample(int frame, int channel) {
+        return (short) (channel == 0 ? frame * 7 : -frame * 13);
+    }
+
+    /**
+     * 16-bit stereo stream of verbatim subframes.
+     */
+    private static byte[] verbatimStream(int frames, boolean seekTable) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes("fLaC".getBytes());
+
+        int blocks = (frames + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int frameSize = 12 + BLOCK_SIZE * 4;
+        ByteBuffer info = ByteBuffer.allocate(38);
+        info.put((byte) (seekTable ? 0 : 0x80)).put((byte) 0).putShort((short) 34);
+        info.putShort((short) BLOCK_SIZE).putShort((short) BLOCK_SIZE);
+        info.put((byte) 0).putShort((short) 0).put((byte) (frameSize >> 16)).putShort((short) frameSize);
+        info.putLong(((long) 44100 << 44) | (1L << 41) | (15L << 36) | frames);
+        out.writeBytes(info.array());
+
+        if (seekTable) {
+            int points = blocks / 10;
+            ByteBuffer table = ByteBuffer.allocate(4 + points * 18);
+            table.put((byte) 0x83).put((byte) 0).putShort((short) (points * 18));
+            for (int i = 0; i < points; i++) {
+                table.putLong((long) i * 10 * BLOCK_SIZE).putLong((long) i * 10 * frameSize).putShort((short) BLOCK_SIZE);
+            }
+            out.writeBytes(table.array());
+        }
+
+        for (int block = 0; block < blocks; block++) {
+            int size = Math.min(BLOCK_SIZE, frames - block * BLOCK_SIZE);
+            ByteBuffer frame = ByteBuffer.allocate(12 + size * 4);
+            // sync, block size code 7, 44.1 kHz, 2 independent channels, 16 bit, 1-byte frame number
+            frame.putShort((short) 0xFFF8).put((byte) 0x79).put((byte) 0x18).put((byte) block).putShort((short) (size - 1));
+            frame.put((byte) crc(frame.array(), 7, 8, 0x07));
+            for (int channel = 0; channel < 2; channel++) {
+                frame.put((byte) 0x02);
+                for (int i = 0; i < size; i++) {
+                    frame.putShort(sample(block * BLOCK_SIZE + i, channel));
+                }
+            }
+            frame.putShort((short) crc(frame.array(), frame.position(), 16, 0x8005));
+            out.writeBytes(frame.array());
+        }
+        return out.toByteArray();
+    }
+
+    private static int crc(byte[] data, int length, int bits, int polynomial) {
+        int crc = 0;
+        int top = 1 << (bits - 1);
+        for (int i = 0; i < length; i++) {
+            crc ^= (data[i] & 0xFF) << (bits - 8);
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & top) != 0 ? (crc << 1) ^ polynomial : crc << 1;
+            }
+            crc &= (1 << bits) - 1;
+        }
+        return crc;
+    }
+}
@@ -0,0 +1,265 @@
+package test.plovdev.audioengine.loaders.mp3;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.mp3.Mp3TrackLoader;
+import org.plovdev.audioengine.loaders.mp3.Mp3TrackSource;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Mp3TrackLoaderTest {
+    private static final int RATE = 44100;
+    private static final int FRAME_SAMPLES = 1152;
+    private static final int LINE = 100;
+
+    @Test
+    public void testDecodeGeneratedTone() throws Exception {
+        int frames = 40;
+        Path file = Files.write(Files.createTempFile("tone", ".mp3"), new Mp3Writer(1, false).write(frames, false));
+        Track track = new Mp3TrackLoader().loadTrack(file.toString());
+        assertEquals(TrackFormat.AudioCodec.FLOAT32, track.getFormat().audioCodec());
+        assertEquals(1, track.getFormat().channels());
+        assertEquals(RATE, track.getFormat().sampleRate());
+        assertEquals(frames * FRAME_SAMPLES, track.getFrameCount());
+
+        // Одна линия с постоянным коэффициентом даёт тон на частоте LINE * fs / 1152:
+        // фаза базиса MDCT сдвигается на π(k + 1/2) за гранулу
+        ByteBuffer data = track.getTrackData().order(ByteOrder.LITTLE_ENDIAN);
+        int from = 2 * FRAME_SAMPLES;
+        int count = (frames - 4) * FRAME_SAMPLES;
+        double expected = LINE * RATE / (2.0 * 576);
+        double peak = 0;
+        double peakFrequency = 0;
+        for (double frequency = 100; frequency < RATE / 2.0; frequency += 25) {
+            double power = power(data, from, count, frequency);
+            if (power > peak) {
+                peak = power;
+                peakFrequency = frequency;
+            }
+        }
+        assertEquals(expected, peakFrequency, 25);
+        double energy = 0;
+        for (int i = from; i < from + count; i++) {
+            energy += data.getFloat(i * 4) * data.getFloat(i * 4);
+        }
+        assertTrue(energy > 0);
+        assertTrue(power(data, from, count, expected) > 0.9 * energy, "tone energy share");
+    }
+
+    @Test
+    public void testSeekMatchesSequentialDecodeOfVbrFile() throws Exception {
+        int frames = 30;
+        Path file = Files.write(Files.createTempFile("vbr", ".mp3"), new Mp3Writer(2, true).write(frames, true));
+        Mp3TrackLoader loader = new Mp3TrackLoader();
+        Track track = loader.loadTrack(file.toString());
+        assertEquals(frames * FRAME_SAMPLES, track.getFrameCount());
+        assertEquals("Generated", track.getMetaData().getTitle().orElse(null));
+        ByteBuffer full = track.getTrackData().order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames * FRAME_SAMPLES; i++) {
+            assertEquals(full.getFloat(i * 8), full.getFloat(i * 8 + 4)); // M/S без S: каналы равны
+        }
+
+        try (Mp3TrackSource source = loader.openSource(file.toString())) {
+            assertTrue(source.isSeekable());
+            ByteBuffer buffer = ByteBuffer.allocate(1500 * 8).order(ByteOrder.LITTLE_ENDIAN);
+            long length = frames * FRAME_SAMPLES;
+            for (long target : new long[]{20000, 5, 0, 1152 * 7, 30000, 1152 * 3 + 1, length - 100}) {
+                source.seek(target);
+                assertEquals(target, source.getFramePosition());
+                buffer.clear();
+                int read = source.read(buffer);
+                assertEquals(Math.min(1500, length - target), read);
+                buffer.flip();
+                for (int i = 0; i < read * 2; i++) {
+                    assertEquals(full.getFloat((int) (target * 2 + i) * 4), buffer.getFloat(), "sample " + (target * 2 + i));
+                }
+            }
+            source.seek(length);
+            assertEquals(-1, source.read(buffer.clear()));
+        }
+
+        // Часть файла декодируется только начиная с кадров перед ней
+        Track clip = loader.loadTrack(file.toString(), Duration.ofMillis(200), Duration.ofMillis(100));
+        assertEquals(4410, clip.getFrameCount());
+        assertEquals(full.slice(8820 * 8, 4410 * 8), clip.getTrackData());
+
+        // Из потока без поиска длина берётся из заголовка Xing
+        byte[] bytes = Files.readAllBytes(file);
+        try (Mp3TrackSource stream = loader.openSource(new ByteArrayInputStream(bytes))) {
+            assertFalse(stream.isSeekable());
+            assertEquals((long) frames * FRAME_SAMPLES, stream.getFrameLength());
+            assertEquals(track.getTrackData(), stream.readTrack().getTrackData());
+        }
+    }
+
+    /**
+     * @return signal energy at frequency, equal to whole energy for pure sine
+     */
+    private static double power(ByteBuffer data, int from, int count, double frequency) {
+        double re = 0;
+        double im = 0;
+        for (int i = 0; i < count; i++) {
+            double phase = 2 * Math.PI * frequency * i / RATE;
+            float sample = data.getFloat((from + i) * 4);
+            re += sample * Math.cos(phase);
+            im += sample * Math.sin(phase);
+        }
+        return 2 * (re * re + im * im) / count;
+    }
+
+    /**
+     * Minimal Layer III writer: 44.1 kHz long blocks, one spectral line coded by Huffman table 1.
+     * Stereo streams are joint stereo with empty side channel. Main data of every frame,
+     * except the first, starts in the previous frame, to use bit reservoir.
+     */
+    private static final class Mp3Writer {
+        private static final int RESERVOIR_SHIFT = 16;
+        private final int channels;
+        private final boolean vbr;
+
+        Mp3Writer(int channels, boolean vbr) {
+            this.channels = channels;
+            this.vbr = vbr;
+        }
+
+        byte[] write(int frames, boolean tags) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (tags) {
+                writeId3(out);
+                writeXing(out, frames);
+            }
+            int sideInfo = channels == 1 ? 17 : 32;
+            int[] sizes = new int[frames];
+            int[] mainStarts = new int[frames + 1];
+            for (int k = 0; k < frames; k++) {
+                sizes[k] = frameSize(bitrateIndex(k));
+                mainStarts[k + 1] = mainStarts[k] + sizes[k] - 4 - sideInfo;
+            }
+            byte[] main = new byte[mainStarts[frames]];
+            int[] payloadBits = new int[frames];
+            for (int k = 0; k < frames; k++) {
+                BitWriter bits = new BitWriter();
+                writeLine(bits);
+                payloadBits[k] = bits.count();
+                byte[] payload = bits.toByteArray();
+                int begin = k == 0 ? 0 : RESERVOIR_SHIFT;
+                System.arraycopy(payload, 0, main, mainStarts[k] - begin, payload.length);
+            }
+            for (int k = 0; k < frames; k++) {
+                BitWriter frame = new BitWriter();
+                frame.write(header(bitrateIndex(k)), 32);
+                frame.write(k == 0 ? 0 : RESERVOIR_SHIFT, 9);
+                frame.write(0, channels == 1 ? 5 : 3);
+                frame.write(0, 4 * channels); // scfsi
+                for (int gr = 0; gr < 2; gr++) {
+                    for (int ch = 0; ch < channels; ch++) {
+                        boolean tone = ch == 0;
+                        frame.write(tone ? payloadBits[k] / 2 : 0, 12); // part2_3_length
+                        frame.write(tone ? LINE / 2 + 1 : 0, 9);       // big_values
+                        frame.write(vbr ? 200 + k % 5 * 3 : 210, 8);   // global_gain
+                        frame.write(0, 4);                              // scalefac_compress
+                        frame.write(0, 1);                              // window_switching
+                        for (int region = 0; region < 3; region++) {
+                            frame.write(1, 5);
+                        }
+                        frame.write(15, 4);
+                        frame.write(7, 3);
+                        frame.write(0, 3); // preflag, scalefac_scale, count1table
+                    }
+                }
+                out.writeBytes(frame.toByteArray());
+                out.write(main, mainStarts[k], mainStarts[k + 1] - mainStarts[k]);
+            }
+            return out.toByteArray();
+        }
+
+        /**
+         * Writes both granules: pairs of zeros up to the line, then the line with value 1.
+         */
+        private static void writeLine(BitWriter bits) {
+            for (int gr = 0; gr < 2; gr++) {
+                for (int pair = 0; pair < LINE / 2; pair++) {
+                    bits.write(1, 1); // (0, 0)
+                }
+                bits.write(0b01, 2); // (1, 0)
+                bits.write(0, 1);    // знак
+            }
+        }
+
+        private int bitrateIndex(int frame) {
+            return vbr ? 9 + frame % 3 : 9; // 128, 160, 192 kbps
+        }
+
+        private int header(int bitrateIndex) {
+            int mode = channels == 1 ? 3 : 1;
+            int modeExtension = channels == 1 ? 0 : 2; // M/S
+            return 0xFFFB0000 | bitrateIndex << 12 | mode << 6 | modeExtension << 4;
+        }
+
+        private static int frameSize(int bitrateIndex) {
+            int[] bitrates = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192};
+            return 144000 * bitrates[bitrateIndex] / RATE;
+        }
+
+        private void writeXing(ByteArrayOutputStream out, int frames) {
+            byte[] frame = new byte[frameSize(9)];
+            ByteBuffer buffer = ByteBuffer.wrap(frame);
+            buffer.putInt(header(9));
+            buffer.position(4 + (channels == 1 ? 17 : 32));
+            buffer.put("Xing".getBytes(StandardCharsets.ISO_8859_1)).putInt(1).putInt(frames);
+            out.writeBytes(frame);
+        }
+
+        private static void writeId3(ByteArrayOutputStream out) {
+            byte[] title = "\0Generated".getBytes(StandardCharsets.ISO_8859_1);
+            ByteBuffer frame = ByteBuffer.allocate(10 + title.length);
+            frame.put("TIT2".getBytes(StandardCharsets.ISO_8859_1)).putInt(title.length).putShort((short) 0).put(title);
+            int size = frame.capacity() + 20; // с паддингом
+            out.writeBytes(new byte[]{'I', 'D', '3', 3, 0, 0, 0, 0, (byte) (size >> 7), (byte) (size & 0x7F)});
+            out.writeBytes(frame.array());
+            out.writeBytes(new byte[20]);
+        }
+    }
+
+    private static final class BitWriter {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private int current;
+        private int count;
+        private int total;
+
+        void write(long value, int length) {
+            for (int i = length - 1; i >= 0; i--) {
+                current = current << 1 | (int) ((value >>> i) & 1);
+                total++;
+                if (++count == 8) {
+                    bytes.write(current);
+                    current = 0;
+                    count = 0;
+                }
+            }
+        }
+
+        int count() {
+            return total;
+        }
+
+        byte[] toByteArray() {
+            if (count > 0) {
+                bytes.write(current << (8 - count));
+                current = 0;
+                count = 0;
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
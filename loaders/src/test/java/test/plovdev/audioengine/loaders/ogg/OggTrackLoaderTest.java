@@ -0,0 +1,425 @@
+package test.plovdev.audioengine.loaders.ogg;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.ogg.OggTrackLoader;
+import org.plovdev.audioengine.loaders.ogg.OggVorbisTrackSource;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OggTrackLoaderTest {
+    private static final int RATE = 22050;
+    private static final int CHANNELS = 2;
+    private static final int FRAMES = RATE * 3 + 77;
+    private static final int SHORT_BLOCK = 256;
+    private static final int LONG_BLOCK = 2048;
+    private static final int QUANT_BITS = 12;
+    private static final float STEP = 1f / (1 << 12);
+
+    @Test
+    public void testDecodeGeneratedStream() throws Exception {
+        byte[] ogg = new VorbisWriter().write();
+        Path file = Files.write(Files.createTempFile("generated", ".ogg"), ogg);
+        OggTrackLoader loader = new OggTrackLoader();
+
+        Track track = loader.loadTrack(file.toString());
+        TrackFormat format = track.getFormat();
+        assertEquals(TrackFormat.AudioCodec.FLOAT32, format.audioCodec());
+        assertEquals(CHANNELS, format.channels());
+        assertEquals(RATE, format.sampleRate());
+        assertEquals(FRAMES, track.getFrameCount());
+        assertEquals("Generated", track.getMetaData().getTitle().orElse(null));
+
+        FloatSamples decoded = new FloatSamples(track);
+        double signal = 0;
+        double noise = 0;
+        for (int i = 0; i < FRAMES; i++) {
+            for (int ch = 0; ch < CHANNELS; ch++) {
+                double expected = sample(i, ch);
+                double error = decoded.get(i, ch) - expected;
+                signal += expected * expected;
+                noise += error * error;
+            }
+        }
+        double snr = 10 * Math.log10(signal / noise);
+        assertTrue(snr > 40, "SNR " + snr);
+
+        Track streamed = loader.loadTrack(new ByteArrayInputStream(ogg));
+        assertEquals(FRAMES, streamed.getFrameCount());
+        assertEquals(track.getTrackData(), streamed.getTrackData());
+    }
+
+    @Test
+    public void testSeekMatchesSequentialDecode() throws Exception {
+        Path file = Files.write(Files.createTempFile("seek", ".ogg"), new VorbisWriter().write());
+        OggTrackLoader loader = new OggTrackLoader();
+        FloatSamples full = new FloatSamples(loader.loadTrack(file.toString()));
+
+        try (OggVorbisTrackSource source = loader.openSource(file.toString())) {
+            assertTrue(source.isSeekable());
+            assertEquals(FRAMES, source.getFrameLength());
+            ByteBuffer buffer = ByteBuffer.allocate(500 * CHANNELS * 4).order(ByteOrder.LITTLE_ENDIAN);
+            for (long target : new long[]{40000, 100, 0, 65000, 20000, 20001, 1500, FRAMES - 300}) {
+                source.seek(target);
+                assertEquals(target, source.getFramePosition());
+                buffer.clear();
+                int read = source.read(buffer);
+                assertEquals(Math.min(500, FRAMES - target), read);
+                buffer.flip();
+                for (int i = 0; i < read; i++) {
+                    for (int ch = 0; ch < CHANNELS; ch++) {
+                        assertEquals(full.get((int) target + i, ch), buffer.getFloat(), "frame " + (target + i));
+                    }
+                }
+            }
+            source.seek(FRAMES);
+            assertEquals(-1, source.read(buffer.clear()));
+        }
+    }
+
+    private static double sample(int frame, int channel) {
+        double t = frame / (double) RATE;
+        // короткий щелчок в середине заставляет генератор переключиться на короткие блоки
+        double click = frame >= 30000 && frame < 30200 ? 0.3 * Math.sin(frame * 1.3) : 0;
+        return 0.3 * Math.sin(2 * Math.PI * (220 + 110 * channel) * t) + 0.1 * Math.sin(2 * Math.PI * 3000 * t) + click;
+    }
+
+    private static final class FloatSamples {
+        private final ByteBuffer data;
+
+        FloatSamples(Track track) {
+            data = track.getTrackData().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        float get(int frame, int channel) {
+            return data.getFloat((frame * CHANNELS + channel) * 4);
+        }
+    }
+
+    /**
+     * Minimal Vorbis encoder: flat floor, uniform scalar quantization, residue type 2.
+     * Blocks are long, except short blocks around the click.
+     */
+    private static final class VorbisWriter {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream pageData = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream lacing = new ByteArrayOutputStream();
+        private int sequence;
+        private long pageGranule = -1;
+        private boolean pageContinued;
+
+        byte[] write() {
+            writePacket(identification(), 0, true);
+            flushPage(0x02);
+            writePacket(comment(), 0, true);
+            writePacket(setup(), 0, true);
+            flushPage(0);
+
+            // Блоки: позиция начала s_i = s_{i-1} + 3 n_{i-1} / 4 - n_i / 4, центр первого блока в нуле
+            java.util.List<Integer> sizes = new java.util.ArrayList<>();
+            java.util.List<Long> starts = new java.util.ArrayList<>();
+            long start = -LONG_BLOCK / 2;
+            int size = LONG_BLOCK;
+            while (true) {
+                sizes.add(size);
+                starts.add(start);
+                if (start + size / 2 >= FRAMES) break;
+                long center = start + size / 2;
+                int next = center > 29000 && center < 31500 ? SHORT_BLOCK : LONG_BLOCK;
+                start = start + 3L * size / 4 - next / 4;
+                size = next;
+            }
+            for (int i = 0; i < sizes.size(); i++) {
+                int n = sizes.get(i);
+                boolean previousLong = i == 0 || sizes.get(i - 1) == LONG_BLOCK;
+                boolean nextLong = i + 1 == sizes.size() || sizes.get(i + 1) == LONG_BLOCK;
+                long end = Math.min(FRAMES, starts.get(i) + n / 2);
+                boolean last = i + 1 == sizes.size();
+                writePacket(audio(starts.get(i), n, previousLong, nextLong), i == 0 ? 0 : end, false);
+                if (last) flushPage(0x04);
+            }
+            return out.toByteArray();
+        }
+
+        private byte[] identification() {
+            BitWriter bits = header(1);
+            bits.write(0, 32);
+            bits.write(CHANNELS, 8);
+            bits.write(RATE, 32);
+            bits.write(0, 32);
+            bits.write(128000, 32);
+            bits.write(0, 32);
+            bits.write(Integer.numberOfTrailingZeros(SHORT_BLOCK), 4);
+            bits.write(Integer.numberOfTrailingZeros(LONG_BLOCK), 4);
+            bits.write(1, 1);
+            return bits.toByteArray();
+        }
+
+        private byte[] comment() {
+            BitWriter bits = header(3);
+            writeString(bits, "test vendor");
+            bits.write(1, 32);
+            writeString(bits, "TITLE=Generated");
+            bits.write(1, 1);
+            return bits.toByteArray();
+        }
+
+        private byte[] setup() {
+            BitWriter bits = header(5);
+            bits.write(1, 8); // 2 codebooks
+            // 0: classbook, the single entry
+            bits.write(0x564342, 24);
+            bits.write(1, 16);
+            bits.write(1, 24);
+            bits.write(0, 1);
+            bits.write(0, 1);
+            bits.write(0, 5);
+            bits.write(0, 4);
+            // 1: scalar quantizer, 4096 entries with 12-bit codes
+            bits.write(0x564342, 24);
+            bits.write(1, 16);
+            bits.write(1 << QUANT_BITS, 24);
+            bits.write(1, 1);
+            bits.write(QUANT_BITS - 1, 5);
+            bits.write(1 << QUANT_BITS, 13);
+            bits.write(1, 4);
+            bits.write(float32(-(1 << (QUANT_BITS - 1)), -12), 32);
+            bits.write(float32(1, -12), 32);
+            bits.write(QUANT_BITS - 1, 4);
+            bits.write(0, 1);
+            for (int i = 0; i < 1 << QUANT_BITS; i++) {
+                bits.write(i, QUANT_BITS);
+            }
+            bits.write(0, 6); // time domain transforms
+            bits.write(0, 16);
+            bits.write(0, 6); // floor 1 without partitions
+            bits.write(1, 16);
+            bits.write(0, 5);
+            bits.write(0, 2);
+            bits.write(7, 4);
+            bits.write(0, 6); // residue 2
+            bits.write(2, 16);
+            bits.write(0, 24);
+            bits.write(LONG_BLOCK / 2 * CHANNELS, 24);
+            bits.write(31, 24);
+            bits.write(0, 6);
+            bits.write(0, 8);
+            bits.write(1, 3);
+            bits.write(0, 1);
+            bits.write(1, 8);
+            bits.write(0, 6); // mapping without coupling
+            bits.write(0, 16);
+            bits.write(0, 1);
+            bits.write(0, 1);
+            bits.write(0, 2);
+            bits.write(0, 8);
+            bits.write(0, 8);
+            bits.write(0, 8);
+            bits.write(1, 6); // short and long modes
+            for (int mode = 0; mode < 2; mode++) {
+                bits.write(mode, 1);
+                bits.write(0, 16);
+                bits.write(0, 16);
+                bits.write(0, 8);
+            }
+            bits.write(1, 1);
+            return bits.toByteArray();
+        }
+
+        private byte[] audio(long start, int n, boolean previousLong, boolean nextLong) {
+            BitWriter bits = new BitWriter();
+            bits.write(0, 1);
+            bits.write(n == LONG_BLOCK ? 1 : 0, 1);
+            if (n == LONG_BLOCK) {
+                bits.write(previousLong ? 1 : 0, 1);
+                bits.write(nextLong ? 1 : 0, 1);
+            }
+            double[] window = window(n, n == LONG_BLOCK && !previousLong, n == LONG_BLOCK && !nextLong);
+            int[][] codes = new int[CHANNELS][];
+            for (int ch = 0; ch < CHANNELS; ch++) {
+                bits.write(1, 1);
+                bits.write(255, 8);
+                bits.write(255, 8);
+                double[] block = new double[n];
+                for (int i = 0; i < n; i++) {
+                    long frame = start + i;
+                    block[i] = frame >= 0 && frame < FRAMES ? sample((int) frame, ch) * window[i] : 0;
+                }
+                codes[ch] = quantize(forwardMdct(block));
+            }
+            int partitions = n / 2 * CHANNELS / 32;
+            for (int partition = 0; partition < partitions; partition++) {
+                bits.write(0, 1); // classword of the single class
+                for (int i = 0; i < 32; i++) {
+                    int position = partition * 32 + i;
+                    int code = codes[position % CHANNELS][position / CHANNELS];
+                    bits.write(Integer.reverse(code) >>> (32 - QUANT_BITS), QUANT_BITS);
+                }
+            }
+            return bits.toByteArray();
+        }
+
+        private static double[] window(int n, boolean shortLeft, boolean shortRight) {
+            double[] window = new double[n];
+            int leftSize = shortLeft ? SHORT_BLOCK / 2 : n / 2;
+            int rightSize = shortRight ? SHORT_BLOCK / 2 : n / 2;
+            int leftStart = n / 4 - leftSize / 2;
+            int rightStart = n * 3 / 4 - rightSize / 2;
+            for (int i = 0; i < n; i++) {
+                if (i < leftStart || i >= rightStart + rightSize) continue;
+                if (i < leftStart + leftSize) {
+                    window[i] = slope(i - leftStart, leftSize);
+                } else if (i >= rightStart) {
+                    window[i] = slope(rightSize - 1 - (i - rightStart), rightSize);
+                } else {
+                    window[i] = 1;
+                }
+            }
+            return window;
+        }
+
+        private static double slope(int i, int size) {
+            double x = Math.sin((i + 0.5) / size * Math.PI / 2);
+            return Math.sin(Math.PI / 2 * x * x);
+        }
+
+        private final java.util.Map<Integer, double[]> cosines = new java.util.HashMap<>();
+
+        private double[] forwardMdct(double[] block) {
+            int n = block.length;
+            double[] table = cosines.computeIfAbsent(n, size -> {
+                double[] values = new double[size / 2 * size];
+                for (int k = 0; k < size / 2; k++) {
+                    for (int i = 0; i < size; i++) {
+                        values[k * size + i] = Math.cos(2 * Math.PI / size * (i + 0.5 + size / 4.0) * (k + 0.5));
+                    }
+                }
+                return values;
+            });
+            double[] spectrum = new double[n / 2];
+            for (int k = 0; k < n / 2; k++) {
+                double sum = 0;
+                for (int i = 0; i < n; i++) {
+                    sum += block[i] * table[k * n + i];
+                }
+                spectrum[k] = sum * 4 / n;
+            }
+            return spectrum;
+        }
+
+        private static int[] quantize(double[] spectrum) {
+            int[] codes = new int[spectrum.length];
+            int half = 1 << (QUANT_BITS - 1);
+            for (int k = 0; k < spectrum.length; k++) {
+                long value = Math.round(spectrum[k] / STEP);
+                codes[k] = (int) Math.max(-half, Math.min(half - 1, value)) + half;
+            }
+            return codes;
+        }
+
+        /**
+         * Vorbis float: 21-bit mantissa, exponent biased by 788.
+         */
+        private static int float32(int mantissa, int exponent) {
+            int sign = mantissa < 0 ? 0x80000000 : 0;
+            return sign | (exponent + 788) << 21 | Math.abs(mantissa);
+        }
+
+        private static BitWriter header(int type) {
+            BitWriter bits = new BitWriter();
+            bits.write(type, 8);
+            for (byte b : "vorbis".getBytes(StandardCharsets.US_ASCII)) {
+                bits.write(b, 8);
+            }
+            return bits;
+        }
+
+        private static void writeString(BitWriter bits, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            bits.write(bytes.length, 32);
+            for (byte b : bytes) {
+                bits.write(b & 0xFF, 8);
+            }
+        }
+
+        /**
+         * Laces packet into pages of up to 16 segments, so packets span pages.
+         */
+        private void writePacket(byte[] packet, long granule, boolean header) {
+            int offset = 0;
+            while (true) {
+                int size = Math.min(255, packet.length - offset);
+                lacing.write(size);
+                pageData.write(packet, offset, size);
+                offset += size;
+                boolean complete = size < 255;
+                if (complete) {
+                    pageGranule = granule;
+                }
+                if (lacing.size() == (header ? 255 : 16)) {
+                    flushPage(0);
+                    pageContinued = !complete;
+                }
+                if (complete) break;
+            }
+        }
+
+        private void flushPage(int flags) {
+            if (lacing.size() == 0 && flags == 0) return;
+            ByteBuffer page = ByteBuffer.allocate(27 + lacing.size() + pageData.size()).order(ByteOrder.LITTLE_ENDIAN);
+            page.put("OggS".getBytes(StandardCharsets.US_ASCII)).put((byte) 0);
+            page.put((byte) (flags | (pageContinued ? 0x01 : 0)));
+            page.putLong(pageGranule).putInt(0x1234).putInt(sequence++).putInt(0);
+            page.put((byte) lacing.size()).put(lacing.toByteArray()).put(pageData.toByteArray());
+            byte[] bytes = page.array();
+            int crc = 0;
+            for (byte b : bytes) {
+                crc ^= (b & 0xFF) << 24;
+                for (int bit = 0; bit < 8; bit++) {
+                    crc = crc < 0 ? (crc << 1) ^ 0x04C11DB7 : crc << 1;
+                }
+            }
+            page.putInt(22, crc);
+            out.writeBytes(bytes);
+            lacing.reset();
+            pageData.reset();
+            pageGranule = -1;
+            pageContinued = false;
+        }
+    }
+
+    private static final class BitWriter {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private long bits;
+        private int count;
+
+        void write(long value, int length) {
+            for (int i = 0; i < length; i++) {
+                bits |= ((value >>> i) & 1) << count;
+                if (++count == 8) {
+                    bytes.write((int) bits);
+                    bits = 0;
+                    count = 0;
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            if (count > 0) {
+                bytes.write((int) bits);
+                bits = 0;
+                count = 0;
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package test.plovdev.audioengine.loaders.wav;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.wav.WavTrackDecoder;
+import org.plovdev.audioengine.loaders.wav.WavTrackEncoder;
+import org.plovdev.audioengine.loaders.wav.WavTrackLoader;
+import org.plovdev.audioengine.loaders.wav.write.WavTrackExporter;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.ImaAdpcmCodec;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormat.AudioCodec;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WavCodecTest {
+    private static final int FRAMES = 50_000;
+
+    private static Track pcm16(int channels, int sampleRate) {
+        TrackFormat format = new TrackFormat("wav", channels, 16, sampleRate, true, ByteOrder.LITTLE_ENDIAN, AudioCodec.PCM16);
+        ByteBuffer data = ByteBuffer.allocateDirect(FRAMES * channels * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < FRAMES; i++) {
+            for (int ch = 0; ch < channels; ch++) {
+                data.putShort((short) (Math.sin(i * 0.02 * (ch + 1)) * 20000));
+            }
+        }
+        return new Track(data.flip(), TrackFormatUtils.calculateDuration(format, FRAMES), format, null);
+    }
+
+    private static byte[] export(Track track) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new WavTrackExporter().save(track, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testImaAdpcmRoundTrip() {
+        Track source = pcm16(2, 44100);
+        Track encoded = new WavTrackEncoder().encodeFromFormat(source, new TrackFormat("wav", 2, 4, 44100, true, ByteOrder.LITTLE_ENDIAN, AudioCodec.ADPCM));
+        int blockAlign = encoded.getMetaData().getBlockAlign().orElseThrow();
+        assertEquals(ImaAdpcmCodec.defaultBlockAlign(2, 44100), blockAlign);
+
+        byte[] file = export(encoded);
+        ByteBuffer header = ByteBuffer.wrap(file).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0x0011, header.getShort(20));
+        assertEquals(blockAlign, header.getShort(32));
+        assertEquals(4, header.getShort(34));
+        assertEquals(ImaAdpcmCodec.samplesPerBlock(blockAlign, 2), header.getShort(38));
+
+        Track loaded = new WavTrackLoader().loadTrack(new ByteArrayInputStream(file));
+        assertEquals(AudioCodec.ADPCM, loaded.getFormat().audioCodec());
+        assertEquals(blockAlign, loaded.getMetaData().getBlockAlign().orElseThrow());
+        // последний блок дополняется до целого 4-байтного слова
+        long frames = ImaAdpcmCodec.frameCount(loaded.getByteLength(), blockAlign, 2);
+        assertTrue(frames >= FRAMES && frames < FRAMES + 8);
+
+        Track decoded = new WavTrackDecoder().decodeToFormat(loaded, source.getFormat());
+        assertEquals(frames, decoded.getFrameCount());
+        ByteBuffer expected = source.getTrackData().order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer actual = decoded.getTrackData().order(ByteOrder.LITTLE_ENDIAN);
+        double signal = 0;
+        double noise = 0;
+        for (int i = 0; i < FRAMES * 2; i++) {
+            double value = expected.getShort(i * 2);
+            double error = actual.getShort(i * 2) - value;
+            signal += value * value;
+            noise += error * error;
+        }
+        assertTrue(10 * Math.log10(signal / noise) > 30, "SNR of IMA ADPCM");
+    }
+
+    @Test
+    public void testG711Load() {
+        Track source = pcm16(1, 8000);
+        for (AudioCodec codec : new AudioCodec[]{AudioCodec.ALAW, AudioCodec.ULAW}) {
+            Track encoded = new WavTrackEncoder().encodeFromFormat(source, new TrackFormat("wav", 1, 8, 8000, true, ByteOrder.LITTLE_ENDIAN, codec));
+            Track loaded = new WavTrackLoader().loadTrack(new ByteArrayInputStream(export(encoded)));
+            assertEquals(codec, loaded.getFormat().audioCodec());
+            assertEquals(FRAMES, loaded.getFrameCount());
+
+            Track floats = new WavTrackDecoder().decodeToPCM(loaded);
+            assertEquals(AudioCodec.FLOAT32, floats.getFormat().audioCodec());
+            assertEquals(FRAMES, floats.getFrameCount());
+            ByteBuffer samples = floats.getTrackData().order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < FRAMES; i += 97) {
+                assertEquals(Math.sin(i * 0.02) * 20000 / 32768, samples.getFloat(i * 4), 0.02);
+            }
+        }
+    }
+
+    @Test
+    public void testLoadTimeRange() throws Exception {
+        WavTrackLoader loader = new WavTrackLoader();
+        Track source = pcm16(2, 44100);
+        Path file = Files.write(Files.createTempFile("range", ".wav"), export(source));
+        Track clip = loader.loadTrack(file.toString(), Duration.ofMillis(500), Duration.ofMillis(250));
+        assertEquals(11025, clip.getFrameCount());
+        assertEquals(source.getTrackData().slice(22050 * 4, 11025 * 4), clip.getTrackData());
+        assertEquals(0, loader.loadTrack(file.toString(), Duration.ofHours(1), Duration.ofSeconds(1)).getFrameCount());
+        assertEquals(FRAMES - 44100, loader.loadTrack(file.toString(), Duration.ofSeconds(1), Duration.ofHours(1)).getFrameCount());
+
+        // IMA ADPCM читается блоками и совпадает с частью полностью декодированного трека
+        Track adpcm = new WavTrackEncoder().encodeFromFormat(source, new TrackFormat("wav", 2, 4, 44100, true, ByteOrder.LITTLE_ENDIAN, AudioCodec.ADPCM));
+        Path adpcmFile = Files.write(Files.createTempFile("range", ".wav"), export(adpcm));
+        Track decoded = new WavTrackDecoder().decodeToFormat(loader.loadTrack(adpcmFile.toString()), source.getFormat());
+        Track adpcmClip = loader.loadTrack(adpcmFile.toString(), Duration.ofMillis(500), Duration.ofMillis(250));
+        assertEquals(AudioCodec.PCM16, adpcmClip.getFormat().audioCodec());
+        assertEquals(11025, adpcmClip.getFrameCount());
+        assertEquals(decoded.getTrackData().slice(22050 * 4, 11025 * 4), adpcmClip.getTrackData());
+    }
+
+    @Test
+    public void testParallelReadOfLargeFile() throws Exception {
+        int frames = 4_500_000; // больше порога параллельного чтения
+        TrackFormat format = new TrackFormat("wav", 2, 16, 44100, true, ByteOrder.LITTLE_ENDIAN, AudioCodec.PCM16);
+        ByteBuffer data = ByteBuffer.allocateDirect(frames * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames * 2; i++) {
+            data.putShort((short) (i * 31));
+        }
+        byte[] file = export(new Track(data.flip(), TrackFormatUtils.calculateDuration(format, frames), format, null));
+        Path path = Files.write(Files.createTempFile("large", ".wav"), file);
+        try {
+            Track loaded = new WavTrackLoader().loadTrack(path.toString());
+            assertEquals(frames, loaded.getFrameCount());
+            assertEquals(data.rewind(), loaded.getTrackData());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
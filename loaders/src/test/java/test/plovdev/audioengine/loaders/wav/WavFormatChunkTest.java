@@ -0,0 +1,117 @@
+package test.plovdev.audioengine.loaders.wav;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.wav.WavTrackLoader;
+import org.plovdev.audioengine.loaders.wav.write.WavTrackExporter;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormat.AudioCodec;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+import org.plovdev.audioengine.tracks.meta.TrackMetadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WavFormatChunkTest {
+    private static final byte[] SUBFORMAT_GUID_TAIL = {
+            0x00, 0x00, 0x00, 0x00, 0x10, 0x00, (byte) 0x80, 0x00, 0x00, (byte) 0xAA, 0x00, 0x38, (byte) 0x9B, 0x71
+    };
+
+    private static Track track(TrackFormat format, int frames, TrackMetadata metadata) {
+        int size = frames * TrackFormatUtils.frameSize(format);
+        ByteBuffer data = ByteBuffer.allocateDirect(size);
+        for (int i = 0; i < size; i++) {
+            data.put((byte) (i * 7));
+        }
+        return new Track(data.flip(), TrackFormatUtils.calculateDuration(format, frames), format, metadata);
+    }
+
+    private static byte[] export(Track track) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new WavTrackExporter().save(track, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testExtensibleRoundTripKeepsValidBits() {
+        TrackFormat format = new TrackFormat("wav", 6, 24, 48000, true, ByteOrder.LITTLE_ENDIAN, AudioCodec.PCM24);
+        TrackMetadata metadata = new TrackMetadata();
+        metadata.setValidBits(20);
+        metadata.setChannelMask(0x60F);
+        Track source = track(format, 10, metadata);
+
+        byte[] file = export(source);
+        ByteBuffer header = ByteBuffer.wrap(file).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(40, header.getInt(16));
+        assertEquals((short) 0xFFFE, header.getShort(20));
+        assertEquals(24, header.getShort(34));
+        assertEquals(22, header.getShort(36));
+        assertEquals(20, header.getShort(38));
+        assertEquals(0x60F, header.getInt(40));
+        assertEquals(1, header.getShort(44));
+
+        Track loaded = new WavTrackLoader().loadTrack(new ByteArrayInputStream(file));
+        assertEquals(AudioCodec.PCM24, loaded.getFormat().audioCodec());
+        assertEquals(6, loaded.getFormat().channels());
+        assertEquals(20, loaded.getMetaData().getValidBits().orElseThrow());
+        assertEquals(0x60F, loaded.getMetaData().getChannelMask().orElseThrow());
+        assertEquals(source.getTrackData(), loaded.getTrackData());
+    }
+
+    @Test
+    public void testLessValidBitsSelectExtensible() {
+        TrackFormat format = new TrackFormat("wav", 2, 32, 44100, true, ByteOrder.LITTLE_ENDIAN, AudioCodec.PCM32);
+        TrackMetadata metadata = new TrackMetadata();
+        metadata.setValidBits(24);
+
+        ByteBuffer header = ByteBuffer.wrap(export(track(format, 4, metadata))).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals((short) 0xFFFE, header.getShort(20));
+        assertEquals(24, header.getShort(38));
+        assertEquals(0x3, header.getInt(40));
+    }
+
+    @Test
+    public void testFloatRoundTrip() {
+        TrackFormat format = new TrackFormat("wav", 2, 32, 44100, true, ByteOrder.LITTLE_ENDIAN, AudioCodec.FLOAT32);
+        Track source = track(format, 16, null);
+
+        byte[] file = export(source);
+        ByteBuffer header = ByteBuffer.wrap(file).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(18, header.getInt(16));
+        assertEquals(3, header.getShort(20));
+        assertEquals(8, header.getShort(32));
+        assertEquals(32, header.getShort(34));
+        assertEquals(0, header.getShort(36));
+        assertEquals("data", new String(file, 38, 4, StandardCharsets.US_ASCII));
+
+        Track loaded = new WavTrackLoader().loadTrack(new ByteArrayInputStream(file));
+        assertEquals(format.audioCodec(), loaded.getFormat().audioCodec());
+        assertEquals(16, loaded.getFrameCount());
+        assertTrue(loaded.getMetaData().getValidBits().isEmpty());
+        assertEquals(source.getTrackData(), loaded.getTrackData());
+    }
+
+    @Test
+    public void testParseExtensibleFloat() {
+        ByteBuffer file = ByteBuffer.allocate(12 + 48 + 8 + 16).order(ByteOrder.LITTLE_ENDIAN);
+        file.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(file.capacity() - 8).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        file.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(40);
+        file.putShort((short) 0xFFFE).putShort((short) 2).putInt(48000).putInt(48000 * 8).putShort((short) 8).putShort((short) 32);
+        file.putShort((short) 22).putShort((short) 32).putInt(0x3).putShort((short) 3).put(SUBFORMAT_GUID_TAIL);
+        file.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(16);
+        file.putFloat(0.5f).putFloat(-0.5f).putFloat(0.25f).putFloat(-0.25f);
+
+        Track loaded = new WavTrackLoader().loadTrack(new ByteArrayInputStream(file.array()));
+        assertEquals(AudioCodec.FLOAT32, loaded.getFormat().audioCodec());
+        assertEquals(48000, loaded.getFormat().sampleRate());
+        assertEquals(2, loaded.getFrameCount());
+        assertEquals(0x3, loaded.getMetaData().getChannelMask().orElseThrow());
+        assertEquals(32, loaded.getMetaData().getValidBits().orElseThrow());
+        assertEquals(-0.25f, loaded.getTrackData().order(ByteOrder.LITTLE_ENDIAN).getFloat(12));
+    }
+}
@@ -0,0 +1,124 @@
+package test.plovdev.audioengine.loaders.wav;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.TrackProbe;
+import org.plovdev.audioengine.loaders.wav.WavTrackLoader;
+import org.plovdev.audioengine.loaders.wav.read.WavHeaderReader;
+import org.plovdev.audioengine.loaders.wav.write.WavChunkWriter;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.ImaAdpcmCodec;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormat.AudioCodec;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WavRf64Test {
+    private static final TrackFormat FORMAT = new TrackFormat("wav", 2, 16, 44100, true, ByteOrder.LITTLE_ENDIAN, AudioCodec.PCM16);
+    private static final int SIZE_MARKER = 0xFFFFFFFF;
+
+    private static ByteBuffer samples(int frames) {
+        ByteBuffer data = ByteBuffer.allocateDirect(frames * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames * 2; i++) {
+            data.putShort((short) (i * 13));
+        }
+        return data.flip();
+    }
+
+    private static String id(byte[] file, int offset) {
+        return new String(file, offset, 4, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testForcedRf64RoundTrip() throws Exception {
+        ByteBuffer data = samples(1000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WavChunkWriter writer = new WavChunkWriter(out);
+        writer.setForceRf64(true);
+        writer.writeRiffHeader(FORMAT, data.remaining());
+        writer.writeFormat(FORMAT);
+        writer.writeDataChunk(data.duplicate(), FORMAT);
+
+        byte[] file = out.toByteArray();
+        ByteBuffer header = ByteBuffer.wrap(file).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals("RF64", id(file, 0));
+        assertEquals(SIZE_MARKER, header.getInt(4));
+        assertEquals("ds64", id(file, 12));
+        assertEquals(28, header.getInt(16));
+        assertEquals(file.length - 8, header.getLong(20));
+        assertEquals(4000, header.getLong(28));
+        assertEquals(1000, header.getLong(36));
+        assertEquals("data", id(file, 72));
+        assertEquals(SIZE_MARKER, header.getInt(76));
+        assertEquals(80 + 4000, file.length);
+
+        TrackProbe probe = new WavHeaderReader(Channels.newChannel(new ByteArrayInputStream(file))).probe();
+        assertEquals(80, probe.dataOffset());
+        assertEquals(4000, probe.dataSize());
+
+        Track streamed = new WavTrackLoader().loadTrack(new ByteArrayInputStream(file));
+        assertEquals(1000, streamed.getFrameCount());
+        assertEquals(data, streamed.getTrackData());
+
+        Path path = Files.write(Files.createTempFile("rf64", ".wav"), file);
+        try (Track loaded = new WavTrackLoader().loadTrack(path.toString())) {
+            assertEquals(1000, loaded.getFrameCount());
+            assertEquals(data, loaded.getTrackData());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testForcedRf64AdpcmSampleCount() {
+        TrackFormat adpcm = new TrackFormat("wav", 2, 4, 44100, true, ByteOrder.LITTLE_ENDIAN, AudioCodec.ADPCM);
+        int blockAlign = ImaAdpcmCodec.defaultBlockAlign(2, 44100);
+        int dataSize = 3 * blockAlign + 24; // последний блок неполный
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WavChunkWriter writer = new WavChunkWriter(out);
+        writer.setForceRf64(true);
+        writer.writeRiffHeader(adpcm, dataSize);
+        writer.writeFormat(adpcm);
+        writer.writeDataChunk(ByteBuffer.allocateDirect(dataSize), adpcm);
+
+        byte[] file = out.toByteArray();
+        ByteBuffer header = ByteBuffer.wrap(file).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals("ds64", id(file, 12));
+        assertEquals(dataSize, header.getLong(28));
+        long frames = ImaAdpcmCodec.frameCount(dataSize, blockAlign, 2);
+        assertTrue(frames > 3L * ImaAdpcmCodec.samplesPerBlock(blockAlign, 2));
+        assertEquals(frames, header.getLong(36));
+    }
+
+    @Test
+    public void testSizeMarkersAreReadFromDs64() throws Exception {
+        ByteBuffer data = samples(3);
+        ByteBuffer file = ByteBuffer.allocate(12 + 36 + 24 + 8 + 12 + 12).order(ByteOrder.LITTLE_ENDIAN);
+        file.put("BW64".getBytes(StandardCharsets.US_ASCII)).putInt(SIZE_MARKER).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        file.put("ds64".getBytes(StandardCharsets.US_ASCII)).putInt(28).putLong(file.capacity() - 8).putLong(12).putLong(3).putInt(0);
+        file.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16);
+        file.putShort((short) 1).putShort((short) 2).putInt(44100).putInt(44100 * 4).putShort((short) 4).putShort((short) 16);
+        file.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(SIZE_MARKER).put(data.duplicate());
+        // следующий чанк не должен попасть в данные
+        file.put("junk".getBytes(StandardCharsets.US_ASCII)).putInt(4).putInt(-1);
+
+        TrackProbe probe = new WavHeaderReader(Channels.newChannel(new ByteArrayInputStream(file.array()))).probe();
+        assertEquals(80, probe.dataOffset());
+        assertEquals(12, probe.dataSize());
+        assertEquals(3, TrackFormatUtils.calculateFrameCount(probe.format(), probe.dataSize()));
+
+        Track loaded = new WavTrackLoader().loadTrack(new ByteArrayInputStream(file.array()));
+        assertEquals(3, loaded.getFrameCount());
+        assertEquals(data, loaded.getTrackData());
+    }
+}
@@ -0,0 +1,66 @@
+package test.plovdev.audioengine.loaders.wav;
+
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.wav.write.WavTrackExporter;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormat.AudioCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WavTrackExporterTest {
+    private static final TrackFormat FORMAT = new TrackFormat("wav", 1, 8, 8000, false, ByteOrder.LITTLE_ENDIAN, AudioCodec.PCM8);
+    private static final byte[] SAMPLES = {1, 2, 3, 4, 5, 6, 7};
+
+    private static Track segmented() {
+        ByteBuffer first = ByteBuffer.allocateDirect(3).put(SAMPLES, 0, 3).flip();
+        ByteBuffer second = ByteBuffer.allocateDirect(4).put(SAMPLES, 3, 4).flip();
+        return new Track(new ByteBuffer[]{first, second}, Duration.ZERO, FORMAT, null);
+    }
+
+    private static void assertWav(byte[] file) {
+        ByteBuffer header = ByteBuffer.wrap(file).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(44 + SAMPLES.length + 1, file.length);
+        assertEquals("RIFF", new String(file, 0, 4, StandardCharsets.US_ASCII));
+        assertEquals(file.length - 8, header.getInt(4));
+        assertEquals("data", new String(file, 36, 4, StandardCharsets.US_ASCII));
+        assertEquals(SAMPLES.length, header.getInt(40));
+        assertArrayEquals(SAMPLES, Arrays.copyOfRange(file, 44, 44 + SAMPLES.length));
+        assertEquals(0, file[file.length - 1]); // pad byte of odd chunk
+    }
+
+    @Test
+    public void testSegmentedOddTrackByGatheringWrite() throws Exception {
+        Path path = Files.createTempFile("export", ".wav");
+        try (Track track = segmented()) {
+            assertTrue(track.isSegmented());
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                new WavTrackExporter().save(track, channel);
+            }
+            assertWav(Files.readAllBytes(path));
+            assertEquals(SAMPLES.length, track.getByteLength());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testSegmentedOddTrackToStream() {
+        try (Track track = segmented()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new WavTrackExporter().save(track, out);
+            assertWav(out.toByteArray());
+        }
+    }
+}
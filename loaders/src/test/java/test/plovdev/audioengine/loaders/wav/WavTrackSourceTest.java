@@ -0,0 +1,74 @@
+package test.plovdev.audioengine.loaders.wav;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.plovdev.audioengine.loaders.wav.WavTrackLoader;
+import org.plovdev.audioengine.loaders.wav.WavTrackSource;
+import org.plovdev.audioengine.loaders.wav.write.WavTrackExporter;
+import org.plovdev.audioengine.tracks.Track;
+import org.plovdev.audioengine.tracks.format.TrackFormat;
+import org.plovdev.audioengine.tracks.format.TrackFormatUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WavTrackSourceTest {
+    private static final int FRAMES = 300_000;
+
+    @Test
+    public void testRemoteSourceSeeksWithRangeRequests() throws IOException {
+        TrackFormat format = new TrackFormat("wav", 2, 16, 44100, true, ByteOrder.LITTLE_ENDIAN, TrackFormat.AudioCodec.PCM16);
+        ByteBuffer data = ByteBuffer.allocateDirect(FRAMES * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < FRAMES; i++) {
+            data.putShort((short) i).putShort((short) -i);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new WavTrackExporter().save(new Track(data.flip(), TrackFormatUtils.calculateDuration(format, FRAMES), format, null), out);
+        byte[] file = out.toByteArray();
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/track.wav", exchange -> serveRange(exchange, file));
+        server.start();
+        try {
+            URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/track.wav");
+            WavTrackLoader loader = new WavTrackLoader();
+            assertEquals(FRAMES, loader.probe(uri).dataSize() / 4);
+            try (WavTrackSource source = loader.openSource(uri)) {
+                assertEquals(FRAMES, source.getFrameLength());
+                source.seek(250_000);
+                ByteBuffer buffer = ByteBuffer.allocate(400).order(ByteOrder.LITTLE_ENDIAN);
+                assertEquals(100, source.read(buffer));
+                assertEquals((short) 250_000, buffer.getShort(0));
+                assertEquals((short) -250_099, buffer.getShort(99 * 4 + 2));
+                assertEquals(250_100, source.getFramePosition());
+            }
+            Track track = loader.loadTrack(uri);
+            assertEquals(FRAMES, track.getFrameCount());
+            assertEquals(data.rewind(), track.getTrackData());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static void serveRange(HttpExchange exchange, byte[] file) throws IOException {
+        Matcher matcher = Pattern.compile("bytes=(\\d+)-(\\d+)").matcher(exchange.getRequestHeaders().getFirst("Range"));
+        assertTrue(matcher.matches());
+        int from = Integer.parseInt(matcher.group(1));
+        int to = Math.min(Integer.parseInt(matcher.group(2)), file.length - 1);
+        exchange.getResponseHeaders().add("Content-Range", "bytes " + from + "-" + to + "/" + file.length);
+        exchange.sendResponseHeaders(206, to + 1 - from);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(file, from, to + 1 - from);
+        }
+    }
+}